@@ -0,0 +1,62 @@
+// =============================================================================
+// load-test-hilos-virtuales.js
+// Prueba de carga (k6) para comparar hilos de plataforma vs hilos virtuales.
+//
+// Uso (perfil dev, con DataSeeder y rate limiting desactivado):
+//   1) Hilos de plataforma:
+//        VIRTUAL_THREADS=false APP_RATE_LIMIT_ENABLED=false ./mvnw spring-boot:run
+//        k6 run -e MODO=plataforma scripts/load-test-hilos-virtuales.js
+//   2) Hilos virtuales:
+//        VIRTUAL_THREADS=true APP_RATE_LIMIT_ENABLED=false ./mvnw spring-boot:run
+//        k6 run -e MODO=virtual scripts/load-test-hilos-virtuales.js
+//
+// Comparar en el resumen: http_reqs (throughput), http_req_duration p(95)/p(99)
+// y, en /actuator/prometheus, hikaricp_connections_pending y executor de auditoría.
+// Con hilos virtuales el límite pasa a ser el pool de Hikari: si
+// hikaricp_connections_pending crece, el cuello de botella es la base de datos.
+// =============================================================================
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const EMAIL = __ENV.EMAIL || 'admin@frutas.com';
+const PASSWORD = __ENV.PASSWORD || 'admin123';
+
+export const options = {
+    scenarios: {
+        rampa: {
+            executor: 'ramping-vus',
+            startVUs: 10,
+            stages: [
+                { duration: '30s', target: 100 },
+                { duration: '1m', target: 400 },
+                { duration: '30s', target: 0 },
+            ],
+            tags: { modo: __ENV.MODO || 'desconocido' },
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const res = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ email: EMAIL, password: PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'login 200': (r) => r.status === 200 });
+    return { token: res.json('data.accessToken') };
+}
+
+export default function (data) {
+    const params = { headers: { Authorization: `Bearer ${data.token}` } };
+
+    // Mezcla de lecturas típicas (listados con lazy loads) y consulta de trazabilidad
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/pallets`, null, params],
+        ['GET', `${BASE_URL}/api/envios`, null, params],
+        ['GET', `${BASE_URL}/api/etiquetas`, null, params],
+    ]);
+
+    responses.forEach((r) => check(r, { 'status 200': (res) => res.status === 200 }));
+}
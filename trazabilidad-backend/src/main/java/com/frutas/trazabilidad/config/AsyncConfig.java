@@ -0,0 +1,63 @@
+package com.frutas.trazabilidad.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors para trabajo asíncrono (@Async).
+ * El executor "auditoriaExecutor" atiende la auditoría asíncrona
+ * (AuditoriaEventoService y UserAuditEventListener) y está acotado para que
+ * una ráfaga de eventos no agote las conexiones del pool de Hikari:
+ * - Con spring.threads.virtual.enabled=true usa hilos virtuales con un límite
+ *   de concurrencia (app.async.auditoria.max-concurrencia).
+ * - Sin hilos virtuales usa un pool de plataforma con cola acotada; si la cola
+ *   se llena el hilo llamador ejecuta la tarea (no se pierden auditorías).
+ * En ambos modos el límite debe ser menor que spring.datasource.hikari.maximum-pool-size
+ * para dejar conexiones libres a los requests.
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig {
+
+    public static final String AUDITORIA_EXECUTOR = "auditoriaExecutor";
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${app.async.auditoria.max-concurrencia:4}")
+    private int maxConcurrencia;
+
+    @Value("${app.async.auditoria.capacidad-cola:500}")
+    private int capacidadCola;
+
+    @Bean(name = AUDITORIA_EXECUTOR)
+    public TaskExecutor auditoriaExecutor() {
+        if (virtualThreads) {
+            log.info("Executor de auditoría: hilos virtuales (concurrencia máxima {})", maxConcurrencia);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("auditoria-vt-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxConcurrencia);
+            executor.setTaskTerminationTimeout(10_000);
+            return executor;
+        }
+
+        log.info("Executor de auditoría: pool de plataforma (hilos {}, cola {})", maxConcurrencia, capacidadCola);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("auditoria-");
+        executor.setCorePoolSize(maxConcurrencia);
+        executor.setMaxPoolSize(maxConcurrencia);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
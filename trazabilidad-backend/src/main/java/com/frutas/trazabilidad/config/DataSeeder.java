@@ -128,9 +128,9 @@ public class DataSeeder implements CommandLineRunner {
             Envio envio2 = crearEnvio(admin, "ENV-2025-002", "España", "Barcelona", "MARITIMO", LocalDate.now().plusDays(7));
 
             // 14. Asignar Pallets a Envíos
-            asignarPalletAEnvio(pallet1, envio1);
-            asignarPalletAEnvio(pallet3, envio1);
-            asignarPalletAEnvio(pallet2, envio2);
+            envio1 = asignarPalletAEnvio(pallet1, envio1);
+            envio1 = asignarPalletAEnvio(pallet3, envio1);
+            envio2 = asignarPalletAEnvio(pallet2, envio2);
 
             // 15. Crear Documentos de Exportación
             crearDocumento(envio1, "PACKING_LIST", "PL-2025-001", LocalDate.now().minusDays(1), "Exportadora Frutas Colombia");
@@ -449,7 +449,10 @@ public class DataSeeder implements CommandLineRunner {
         return envio;
     }
 
-    private void asignarPalletAEnvio(Pallet pallet, Envio envio) {
+    /**
+     * Devuelve el envío guardado: tiene la versión actualizada para la siguiente asignación.
+     */
+    private Envio asignarPalletAEnvio(Pallet pallet, Envio envio) {
         pallet.setEnvio(envio);
         pallet.setEstadoPallet("ASIGNADO_ENVIO");
         palletRepository.save(pallet);
@@ -459,9 +462,10 @@ public class DataSeeder implements CommandLineRunner {
         envio.setNumeroCajas((envio.getNumeroCajas() != null ? envio.getNumeroCajas() : 0) + pallet.getNumeroCajas());
         envio.setPesoNetoTotal((envio.getPesoNetoTotal() != null ? envio.getPesoNetoTotal() : 0.0) + pallet.getPesoNetoTotal());
         envio.setPesoBrutoTotal((envio.getPesoBrutoTotal() != null ? envio.getPesoBrutoTotal() : 0.0) + pallet.getPesoBrutoTotal());
-        envioRepository.save(envio);
+        envio = envioRepository.save(envio);
 
         log.debug("✓ Pallet {} asignado a envío {}", pallet.getCodigoPallet(), envio.getCodigoEnvio());
+        return envio;
     }
 
     private DocumentoExportacion crearDocumento(Envio envio, String tipo, String numero,
@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.config;
 
+import com.frutas.trazabilidad.filter.SqlStatementCountingInspector;
 import jakarta.persistence.EntityManagerFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.flywaydb.core.Flyway;
@@ -34,6 +35,9 @@ public class JpaConfig {
     @Value("${spring.jpa.show-sql:false}")
     private boolean showSql;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
     /**
      * EntityManagerFactory que depende explícitamente de Flyway.
      * Esto garantiza que las migraciones se ejecuten antes de la validación del schema.
@@ -47,6 +51,7 @@ public class JpaConfig {
         log.info("=================================================");
         log.info("🔧 Configurando EntityManagerFactory...");
         log.info("📌 DDL Auto: {}", ddlAuto);
+        log.info("📌 JDBC batch size: {}", batchSize);
         log.info("📌 Flyway ejecutado: ✅");
         log.info("=================================================");
 
@@ -67,6 +72,15 @@ public class JpaConfig {
         // Estrategia de naming: convierte camelCase a snake_case (ej: camposModificados -> campos_modificados)
         properties.setProperty("hibernate.physical_naming_strategy",
                 "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        // Batching de INSERT/UPDATE: requiere ids por secuencia (IDENTITY lo desactiva, ver V15).
+        // Ordenar por entidad permite agrupar las sentencias de altas que mezclan varias tablas.
+        properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        // Cuenta las sentencias SQL por request para detectar N+1 (ver SqlStatementCountFilter)
+        properties.setProperty("hibernate.session_factory.statement_inspector",
+                SqlStatementCountingInspector.class.getName());
         em.setJpaProperties(properties);
 
         return em;
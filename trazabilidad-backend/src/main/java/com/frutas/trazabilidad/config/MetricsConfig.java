@@ -0,0 +1,68 @@
+package com.frutas.trazabilidad.config;
+
+import io.micrometer.common.annotation.ValueExpressionResolver;
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.MeterTagAnnotationHandler;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Configuración de métricas Micrometer.
+ * Habilita @Timed y @Counted en los servicios y resuelve @MeterTag para
+ * etiquetar las métricas por empresa (tenant), p.ej. @MeterTag(key = "empresa")
+ * sobre un parámetro empresaId o @MeterTag(key = "empresa", expression = "empresa.id")
+ * sobre un parámetro User.
+ * Las métricas que se etiquetan por empresa deben llevar la etiqueta en todos sus
+ * puntos de registro: los que no tienen tenant (consultas públicas, procesos
+ * asíncronos) la fijan a SIN_EMPRESA con extraTags.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Valor de la etiqueta "empresa" cuando la operación no tiene tenant.
+     */
+    public static final String SIN_EMPRESA = "none";
+
+    private static final ExpressionParser SPEL_PARSER = new SpelExpressionParser();
+
+    // Las expresiones se parsean una sola vez; se evalúan en cada invocación medida
+    private static final Map<String, Expression> EXPRESSION_CACHE = new ConcurrentHashMap<>();
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        TimedAspect timedAspect = new TimedAspect(meterRegistry);
+        timedAspect.setMeterTagAnnotationHandler(
+                new MeterTagAnnotationHandler(resolverClass -> null, expressionClass -> spelResolver()));
+        return timedAspect;
+    }
+
+    @Bean
+    public CountedAspect countedAspect(MeterRegistry meterRegistry) {
+        return new CountedAspect(meterRegistry);
+    }
+
+    /**
+     * Evalúa la expresión SpEL de @MeterTag sobre el argumento anotado.
+     * Un argumento nulo (p.ej. usuario de sistema) se etiqueta como SIN_EMPRESA.
+     */
+    private static ValueExpressionResolver spelResolver() {
+        return (expression, parameter) -> {
+            if (parameter == null) {
+                return SIN_EMPRESA;
+            }
+            Object value = EXPRESSION_CACHE
+                    .computeIfAbsent(expression, SPEL_PARSER::parseExpression)
+                    .getValue(parameter);
+            return value != null ? value.toString() : SIN_EMPRESA;
+        };
+    }
+}
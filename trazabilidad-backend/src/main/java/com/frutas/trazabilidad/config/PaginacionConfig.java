@@ -0,0 +1,29 @@
+package com.frutas.trazabilidad.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.config.PageableHandlerMethodArgumentResolverCustomizer;
+
+/**
+ * Configuración de la paginación de los listados.
+ * Solo se pagina cuando la petición indica page y size; sin ellos el listado devuelve
+ * todos los elementos con el orden pedido (o el del endpoint), como esperan los clientes
+ * que cargan listas completas (selectores y tablas del frontend).
+ * Reemplaza al customizer de Spring Boot, por lo que aplica aquí el tamaño máximo.
+ */
+@Configuration
+public class PaginacionConfig {
+
+    @Value("${spring.data.web.pageable.max-page-size:500}")
+    private int maxPageSize;
+
+    @Bean
+    public PageableHandlerMethodArgumentResolverCustomizer pageableCustomizer() {
+        return resolver -> {
+            resolver.setFallbackPageable(Pageable.unpaged());
+            resolver.setMaxPageSize(maxPageSize);
+        };
+    }
+}
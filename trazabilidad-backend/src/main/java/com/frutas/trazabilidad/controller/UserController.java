@@ -10,6 +10,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -33,19 +37,25 @@ public class UserController {
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Listar usuarios activos", description = "Obtiene todos los usuarios activos de la empresa")
-    public ResponseEntity<ApiResponse<List<UserResponse>>> listar(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "nombre", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestHeader("Authorization") String token) {
         Long empresaId = jwtUtil.extractEmpresaId(token.substring(7));
-        List<UserResponse> users = userService.listarPorEmpresa(empresaId);
-        return ResponseEntity.ok(ApiResponse.success(users, "Usuarios obtenidos exitosamente"));
+        Page<?> users = userService.listarPorEmpresa(empresaId, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(users, "Usuarios obtenidos exitosamente"));
     }
 
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Listar todos los usuarios", description = "Obtiene todos los usuarios (activos e inactivos) de la empresa")
-    public ResponseEntity<ApiResponse<List<UserResponse>>> listarTodos(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> listarTodos(
+            @SortDefault(sort = "nombre", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestHeader("Authorization") String token) {
         Long empresaId = jwtUtil.extractEmpresaId(token.substring(7));
-        List<UserResponse> users = userService.listarTodosPorEmpresa(empresaId);
-        return ResponseEntity.ok(ApiResponse.success(users, "Usuarios obtenidos exitosamente"));
+        Page<?> users = userService.listarTodosPorEmpresa(empresaId, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(users, "Usuarios obtenidos exitosamente"));
     }
 
     @GetMapping("/{id}")
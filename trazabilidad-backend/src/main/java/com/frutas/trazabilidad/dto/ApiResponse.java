@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -35,6 +36,11 @@ public class ApiResponse<T> {
 
     private List<ErrorDetail> errors;
 
+    /**
+     * Solo en listados paginados.
+     */
+    private PaginaInfo pagina;
+
     public static <T> ApiResponse<T> success(T data) {
         return ApiResponse.<T>builder()
                 .success(true)
@@ -51,6 +57,18 @@ public class ApiResponse<T> {
                 .build();
     }
 
+    /**
+     * Respuesta de un listado paginado: data es el contenido de la página.
+     */
+    public static ApiResponse<List<?>> paginada(Page<?> pagina, String message) {
+        return ApiResponse.<List<?>>builder()
+                .success(true)
+                .message(message)
+                .data(pagina.getContent())
+                .pagina(PaginaInfo.de(pagina))
+                .build();
+    }
+
     public static <T> ApiResponse<T> error(String message) {
         return ApiResponse.<T>builder()
                 .success(false)
@@ -0,0 +1,37 @@
+package com.frutas.trazabilidad.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Metadatos de paginación de un listado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaInfo {
+
+    /**
+     * Número de página (empieza en 0).
+     */
+    private Integer numero;
+
+    private Integer tamano;
+    private Long totalElementos;
+    private Integer totalPaginas;
+    private Boolean ultima;
+
+    public static PaginaInfo de(Page<?> pagina) {
+        return PaginaInfo.builder()
+                .numero(pagina.getNumber())
+                .tamano(pagina.getSize())
+                .totalElementos(pagina.getTotalElements())
+                .totalPaginas(pagina.getTotalPages())
+                .ultima(pagina.isLast())
+                .build();
+    }
+}
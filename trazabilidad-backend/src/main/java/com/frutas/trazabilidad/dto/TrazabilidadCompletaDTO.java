@@ -181,6 +181,9 @@ public class TrazabilidadCompletaDTO {
         private List<EventoLogisticoInfo> eventos;
         private List<DocumentoInfo> documentos;
 
+        // Resumen de telemetría del contenedor (null si no hay lecturas)
+        private CadenaFrioInfo cadenaFrio;
+
         // Datos de cierre (blockchain)
         private Boolean cerrado;
         private String hashCierre;
@@ -202,6 +205,22 @@ public class TrazabilidadCompletaDTO {
         private String descripcion;
     }
 
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CadenaFrioInfo {
+        private Long lecturas;
+        private LocalDateTime desde;
+        private LocalDateTime hasta;
+        private Double temperaturaMin;
+        private Double temperaturaMax;
+        private Double temperaturaPromedio;
+        private Double humedadMin;
+        private Double humedadMax;
+        private Double humedadPromedio;
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -88,6 +88,17 @@ public class TrazabilidadPublicaDTO {
         private LocalDate fechaSalidaEstimada;
         private String tipoTransporte;
         private List<EventoLogisticoPublico> eventos;
+        private CadenaFrioPublica cadenaFrio;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CadenaFrioPublica {
+        private Double temperaturaMin;
+        private Double temperaturaMax;
+        private Double temperaturaPromedio;
     }
 
     @Data
@@ -0,0 +1,62 @@
+package com.frutas.trazabilidad.entity;
+
+/**
+ * Círculo de búsqueda geográfica (centro en grados decimales y radio en kilómetros).
+ * Calcula la caja de latitudes / longitudes que lo contiene, usada para filtrar con
+ * los índices GiST de ubicación antes de aplicar la distancia exacta.
+ * Si el círculo alcanza un polo o cruza el antimeridiano, la caja abarca todas las
+ * longitudes.
+ */
+public record AreaBusqueda(double latitud, double longitud, double radioKm) {
+
+    public static final double RADIO_TIERRA_KM = 6371.0088;
+    public static final double RADIO_MAXIMO_KM = 1000.0;
+
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180.0;
+
+    public AreaBusqueda {
+        if (Double.isNaN(latitud) || latitud < -90.0 || latitud > 90.0) {
+            throw new IllegalArgumentException("Latitud inválida: debe estar entre -90 y 90");
+        }
+        if (Double.isNaN(longitud) || longitud < -180.0 || longitud > 180.0) {
+            throw new IllegalArgumentException("Longitud inválida: debe estar entre -180 y 180");
+        }
+        if (!(radioKm > 0.0) || radioKm > RADIO_MAXIMO_KM) {
+            throw new IllegalArgumentException("El radio debe ser mayor que 0 y no superar " + RADIO_MAXIMO_KM + " km");
+        }
+    }
+
+    public double getLatitudMin() {
+        return Math.max(-90.0, latitud - radioKm / KM_POR_GRADO);
+    }
+
+    public double getLatitudMax() {
+        return Math.min(90.0, latitud + radioKm / KM_POR_GRADO);
+    }
+
+    public double getLongitudMin() {
+        double delta = deltaLongitud();
+        return Double.isNaN(delta) ? -180.0 : longitud - delta;
+    }
+
+    public double getLongitudMax() {
+        double delta = deltaLongitud();
+        return Double.isNaN(delta) ? 180.0 : longitud + delta;
+    }
+
+    /**
+     * Semiancho en grados de longitud de la caja, o NaN si debe abarcar todas las longitudes.
+     */
+    private double deltaLongitud() {
+        if (getLatitudMin() <= -90.0 || getLatitudMax() >= 90.0) {
+            return Double.NaN;
+        }
+        // Se usa la latitud de la caja más alejada del ecuador, donde el círculo es más ancho en grados
+        double latitudExtrema = Math.max(Math.abs(getLatitudMin()), Math.abs(getLatitudMax()));
+        double delta = radioKm / (KM_POR_GRADO * Math.cos(Math.toRadians(latitudExtrema)));
+        if (longitud - delta < -180.0 || longitud + delta > 180.0) {
+            return Double.NaN;
+        }
+        return delta;
+    }
+}
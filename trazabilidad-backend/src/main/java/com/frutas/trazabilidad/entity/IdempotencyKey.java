@@ -0,0 +1,65 @@
+package com.frutas.trazabilidad.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clave de idempotencia enviada por el cliente en el header Idempotency-Key.
+ * Permite reintentar una operación (p. ej. cerrar un envío) sin ejecutarla dos veces:
+ * la primera ejecución guarda su respuesta y los reintentos la reciben tal cual.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_empresa_clave", columnNames = {"empresa_id", "clave"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADA = "COMPLETADA";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "empresa_id", nullable = false)
+    private Long empresaId;
+
+    @Column(nullable = false, length = 100)
+    private String clave;
+
+    /**
+     * Operación protegida (ej: ENVIO_CERRAR, ENVIO_ESTADO).
+     */
+    @Column(nullable = false, length = 50)
+    private String operacion;
+
+    @Column(name = "recurso_id", nullable = false)
+    private Long recursoId;
+
+    /**
+     * EN_PROCESO mientras la primera solicitud se ejecuta, COMPLETADA al terminar.
+     */
+    @Column(nullable = false, length = 20)
+    private String estado;
+
+    /**
+     * Respuesta serializada (JSON) de la primera ejecución.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String respuesta;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
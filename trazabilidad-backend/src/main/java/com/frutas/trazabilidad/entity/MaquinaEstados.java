@@ -0,0 +1,137 @@
+package com.frutas.trazabilidad.entity;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de transiciones de estado dirigido por tabla.
+ * Cada estado origen tiene precalculado un bitset (long) con los destinos permitidos,
+ * de modo que validar una transición es una operación de bits sin asignaciones.
+ * También se precalcula la tabla inversa (orígenes desde los que se llega a cada destino),
+ * usada por los cambios de estado masivos para filtrar en un único UPDATE.
+ *
+ * @param <E> enum de estados (máximo 64 valores)
+ */
+public final class MaquinaEstados<E extends Enum<E>> {
+
+    private final Class<E> tipo;
+    private final E[] estados;
+    private final long[] destinos;
+    private final long[] origenes;
+
+    private MaquinaEstados(Class<E> tipo, long[] destinos) {
+        this.tipo = tipo;
+        this.estados = tipo.getEnumConstants();
+        this.destinos = destinos;
+        this.origenes = new long[estados.length];
+        for (int origen = 0; origen < estados.length; origen++) {
+            for (int destino = 0; destino < estados.length; destino++) {
+                if ((destinos[origen] & (1L << destino)) != 0) {
+                    origenes[destino] |= 1L << origen;
+                }
+            }
+        }
+    }
+
+    public static <E extends Enum<E>> Builder<E> para(Class<E> tipo) {
+        return new Builder<>(tipo);
+    }
+
+    /**
+     * Indica si la transición origen → destino está permitida.
+     */
+    public boolean permite(E origen, E destino) {
+        return (destinos[origen.ordinal()] & (1L << destino.ordinal())) != 0;
+    }
+
+    /**
+     * Valida la transición origen → destino.
+     *
+     * @throws IllegalStateException si la transición no está permitida
+     */
+    public void validar(E origen, E destino) {
+        if (!permite(origen, destino)) {
+            throw new IllegalStateException("Transición de estado no permitida: " + origen + " → " + destino
+                    + ". Permitidas desde " + origen + ": " + destinosPermitidos(origen));
+        }
+    }
+
+    /**
+     * Estados a los que se puede pasar desde el origen indicado.
+     */
+    public EnumSet<E> destinosPermitidos(E origen) {
+        return aEnumSet(destinos[origen.ordinal()]);
+    }
+
+    /**
+     * Estados desde los que se puede llegar al destino indicado.
+     */
+    public EnumSet<E> origenesPermitidos(E destino) {
+        return aEnumSet(origenes[destino.ordinal()]);
+    }
+
+    /**
+     * Indica si el estado no tiene transiciones de salida.
+     */
+    public boolean esTerminal(E estado) {
+        return destinos[estado.ordinal()] == 0L;
+    }
+
+    /**
+     * Convierte el valor almacenado (String) al enum.
+     *
+     * @throws IllegalArgumentException si el valor no corresponde a ningún estado
+     */
+    public E parsear(String valor) {
+        if (valor != null) {
+            for (E estado : estados) {
+                if (estado.name().equals(valor)) {
+                    return estado;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Estado no válido: " + valor + ". Valores permitidos: "
+                + Arrays.stream(estados).map(Enum::name).collect(Collectors.joining(", ")));
+    }
+
+    private EnumSet<E> aEnumSet(long bits) {
+        EnumSet<E> resultado = EnumSet.noneOf(tipo);
+        for (E estado : estados) {
+            if ((bits & (1L << estado.ordinal())) != 0) {
+                resultado.add(estado);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Construye la tabla de transiciones declarando, por estado origen, sus destinos permitidos.
+     */
+    public static final class Builder<E extends Enum<E>> {
+
+        private final Class<E> tipo;
+        private final long[] destinos;
+
+        private Builder(Class<E> tipo) {
+            int cantidad = tipo.getEnumConstants().length;
+            if (cantidad > Long.SIZE) {
+                throw new IllegalArgumentException("MaquinaEstados admite como máximo " + Long.SIZE + " estados");
+            }
+            this.tipo = tipo;
+            this.destinos = new long[cantidad];
+        }
+
+        @SafeVarargs
+        public final Builder<E> permitir(E origen, E... destinosPermitidos) {
+            for (E destino : destinosPermitidos) {
+                destinos[origen.ordinal()] |= 1L << destino.ordinal();
+            }
+            return this;
+        }
+
+        public MaquinaEstados<E> build() {
+            return new MaquinaEstados<>(tipo, destinos.clone());
+        }
+    }
+}
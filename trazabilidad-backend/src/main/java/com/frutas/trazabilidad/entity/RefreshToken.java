@@ -22,7 +22,17 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true, length = 255)
+    /**
+     * Hash SHA-256 (hex) del token. Es lo único que se persiste.
+     */
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * Valor en claro del token. Solo está disponible en memoria al crearlo
+     * (para devolverlo al cliente); nunca se guarda en base de datos.
+     */
+    @Transient
     private String token;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,7 +1,10 @@
 package com.frutas.trazabilidad.exception;
 
+import com.frutas.trazabilidad.dto.ErrorDetail;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
+
 public class ConflictException extends CustomException {
     public ConflictException(String message) {
         super(HttpStatus.CONFLICT, message);
@@ -10,4 +13,8 @@ public class ConflictException extends CustomException {
     public ConflictException(String resourceType, String field, String value) {
         super(HttpStatus.CONFLICT, String.format("%s con %s '%s' ya existe", resourceType, field, value));
     }
+
+    public ConflictException(String message, List<ErrorDetail> errors) {
+        super(HttpStatus.CONFLICT, message, errors);
+    }
 }
\ No newline at end of file
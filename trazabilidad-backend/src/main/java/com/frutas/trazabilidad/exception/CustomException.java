@@ -1,22 +1,32 @@
 package com.frutas.trazabilidad.exception;
 
+import com.frutas.trazabilidad.dto.ErrorDetail;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
+import java.util.List;
+
 @Getter
 public abstract class CustomException extends RuntimeException {
     private final HttpStatus status;
     private final String message;
+    private final List<ErrorDetail> errors;
 
     protected CustomException(HttpStatus status, String message) {
+        this(status, message, (List<ErrorDetail>) null);
+    }
+
+    protected CustomException(HttpStatus status, String message, List<ErrorDetail> errors) {
         super(message);
         this.status = status;
         this.message = message;
+        this.errors = errors;
     }
 
     protected CustomException(HttpStatus status, String message, Throwable cause) {
         super(message, cause);
         this.status = status;
         this.message = message;
+        this.errors = null;
     }
 }
\ No newline at end of file
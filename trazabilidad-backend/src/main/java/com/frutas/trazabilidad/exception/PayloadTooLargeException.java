@@ -0,0 +1,9 @@
+package com.frutas.trazabilidad.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PayloadTooLargeException extends CustomException {
+    public PayloadTooLargeException(String message) {
+        super(HttpStatus.CONTENT_TOO_LARGE, message);
+    }
+}
@@ -5,15 +5,23 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static net.logstash.logback.argument.StructuredArguments.v;
 
 /**
  * Filtro que registra automáticamente información de cada request y response.
@@ -23,6 +31,10 @@ import java.nio.charset.StandardCharsets;
  * - Status code de respuesta
  * - IP del cliente
  * - User agent
+ * La línea de acceso se emite en el logger ACCESS_LOG con campos estructurados
+ * (method, route, uri, status, durationMs, clientIp, userAgent) que el encoder JSON
+ * de producción serializa como campos propios. Los percentiles de latencia por ruta
+ * salen de Micrometer (http.server.requests), no de este filtro.
  * Nota: No loguea el body completo para evitar logs excesivamente grandes,
  * pero se puede activar en desarrollo si es necesario.
  */
@@ -31,6 +43,20 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 public class LoggingFilter extends OncePerRequestFilter {
 
+    private static final Logger accessLog = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    /**
+     * Rutas de subida/descarga de ficheros: se registran en el log de acceso pero no se
+     * envuelven en los wrappers de caché, que copiarían el cuerpo completo en memoria.
+     */
+    private static final List<Pattern> RUTAS_BINARIAS = List.of(
+            Pattern.compile("^/api/documentos-exportacion/[^/]+/archivo$"),
+            Pattern.compile("^/api/etiquetas/lotes-impresion/[^/]+/hoja$"),
+            Pattern.compile("^/api/etiquetas/[^/]+/qr$"),
+            Pattern.compile("^/api/etiquetas/public/qr/[^/]+/imagen$")
+    );
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -38,24 +64,27 @@ public class LoggingFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        // Wrapper para poder leer el request/response body múltiples veces
-        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(request, 1024 * 1024);
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        // Wrapper para poder leer el request/response body múltiples veces (salvo ficheros)
+        boolean binaria = esRutaBinaria(request);
+        HttpServletRequest requestToUse = binaria ? request : new ContentCachingRequestWrapper(request, 1024 * 1024);
+        HttpServletResponse responseToUse = binaria ? response : new ContentCachingResponseWrapper(response);
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         try {
             // Continuar con la cadena de filtros
-            filterChain.doFilter(requestWrapper, responseWrapper);
+            filterChain.doFilter(requestToUse, responseToUse);
 
         } finally {
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
 
             // Loguear información del request/response
-            logRequestResponse(requestWrapper, responseWrapper, duration);
+            logRequestResponse(requestToUse, responseToUse, duration);
 
             // IMPORTANTE: Copiar el contenido del response al output stream real
-            responseWrapper.copyBodyToResponse();
+            if (responseToUse instanceof ContentCachingResponseWrapper responseWrapper) {
+                responseWrapper.copyBodyToResponse();
+            }
         }
     }
 
@@ -63,32 +92,39 @@ public class LoggingFilter extends OncePerRequestFilter {
      * Registra información del request y response
      */
     private void logRequestResponse(
-            ContentCachingRequestWrapper request,
-            ContentCachingResponseWrapper response,
+            HttpServletRequest request,
+            HttpServletResponse response,
             long duration
     ) {
         String method = request.getMethod();
         String uri = request.getRequestURI();
+        String route = method + " " + resolveRoute(request);
         int status = response.getStatus();
         String clientIp = getClientIpAddress(request);
         String userAgent = request.getHeader("User-Agent");
 
-        // Log con nivel según status code
+        // Log con nivel según status code; v() mantiene el texto legible y añade el campo JSON
+        String format = "HTTP {} {} → {} | {}ms | IP: {} | UA: {} {}";
+        Object[] args = {
+                v("method", method), v("uri", uri), v("status", status), v("durationMs", duration),
+                v("clientIp", clientIp), v("userAgent", userAgent), kv("route", route)
+        };
         if (status >= 500) {
-            log.error("HTTP {} {} → {} | {}ms | IP: {} | UA: {}",
-                    method, uri, status, duration, clientIp, userAgent);
+            accessLog.error(format, args);
         } else if (status >= 400) {
-            log.warn("HTTP {} {} → {} | {}ms | IP: {} | UA: {}",
-                    method, uri, status, duration, clientIp, userAgent);
+            accessLog.warn(format, args);
         } else {
-            log.info("HTTP {} {} → {} | {}ms | IP: {} | UA: {}",
-                    method, uri, status, duration, clientIp, userAgent);
+            accessLog.info(format, args);
         }
 
-        // En desarrollo, loguear también el body (opcional)
+        // En desarrollo, loguear también el body (opcional; no disponible en rutas de ficheros)
         if (log.isDebugEnabled()) {
-            logRequestBody(request);
-            logResponseBody(response);
+            if (request instanceof ContentCachingRequestWrapper requestWrapper) {
+                logRequestBody(requestWrapper);
+            }
+            if (response instanceof ContentCachingResponseWrapper responseWrapper) {
+                logResponseBody(responseWrapper);
+            }
         }
     }
 
@@ -114,6 +150,15 @@ public class LoggingFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Patrón de la ruta resuelto por Spring MVC (p.ej. /api/pallets/{id}), para poder
+     * agrupar las líneas de acceso por endpoint sin depender de los ids de la URI.
+     */
+    private String resolveRoute(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
+    }
+
     /**
      * Obtiene la IP real del cliente, considerando proxies
      */
@@ -131,6 +176,11 @@ public class LoggingFilter extends OncePerRequestFilter {
         return request.getRemoteAddr();
     }
 
+    private static boolean esRutaBinaria(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return RUTAS_BINARIAS.stream().anyMatch(ruta -> ruta.matcher(path).matches());
+    }
+
     /**
      * No aplicar el filtro a recursos estáticos
      */
@@ -141,4 +191,4 @@ public class LoggingFilter extends OncePerRequestFilter {
                 path.startsWith("/v3/api-docs") ||
                 path.startsWith("/api-docs");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.frutas.trazabilidad.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Filtro que cuenta las sentencias SQL ejecutadas durante cada request HTTP
+ * para detectar problemas N+1 (cargas lazy por fila en mappers y servicios).
+ * - Publica la métrica trazabilidad.http.sql.sentencias por ruta.
+ * - Registra un WARN con el path cuando se supera app.sql-monitor.umbral-advertencia.
+ * - Fuera de producción añade el header X-SQL-Statement-Count, útil para
+ *   detectar regresiones N+1 en tests de integración.
+ * Se ejecuta dentro de LoggingFilter, cuyo wrapper retrasa el commit de la
+ * respuesta, por lo que el header todavía puede añadirse tras la cadena.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)  // Ejecutar después de LoggingFilter
+@RequiredArgsConstructor
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String SQL_COUNT_HEADER = "X-SQL-Statement-Count";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.sql-monitor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.sql-monitor.umbral-advertencia:25}")
+    private int umbralAdvertencia;
+
+    @Value("${app.sql-monitor.header-enabled:false}")
+    private boolean headerEnabled;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        SqlStatementCountingInspector.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int sentencias = SqlStatementCountingInspector.finalizar();
+            registrar(request, response, sentencias);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, HttpServletResponse response, int sentencias) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNMATCHED";
+
+        DistributionSummary.builder("trazabilidad.http.sql.sentencias")
+                .description("Sentencias SQL ejecutadas por request")
+                .tag("method", request.getMethod())
+                .tag("route", route)
+                .register(meterRegistry)
+                .record(sentencias);
+
+        if (sentencias > umbralAdvertencia) {
+            log.warn("Posible N+1: {} {} ejecutó {} sentencias SQL (umbral: {})",
+                    request.getMethod(), request.getRequestURI(), sentencias, umbralAdvertencia);
+        }
+
+        if (headerEnabled && !response.isCommitted()) {
+            response.setHeader(SQL_COUNT_HEADER, String.valueOf(sentencias));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.startsWith("/swagger-ui") ||
+                path.startsWith("/v3/api-docs") ||
+                path.startsWith("/api-docs") ||
+                path.startsWith("/actuator");
+    }
+}
@@ -0,0 +1,47 @@
+package com.frutas.trazabilidad.filter;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * StatementInspector de Hibernate que cuenta las sentencias SQL ejecutadas
+ * por el hilo actual mientras haya un conteo activo (ver {@link SqlStatementCountFilter}).
+ * Hibernate instancia la clase por reflexión, por eso el estado es estático y por hilo.
+ * No modifica el SQL.
+ */
+public class SqlStatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Inicia el conteo de sentencias en el hilo actual.
+     */
+    public static void iniciar() {
+        CONTADOR.set(new int[1]);
+    }
+
+    /**
+     * Número de sentencias contadas desde {@link #iniciar()} (0 si no hay conteo activo).
+     */
+    public static int actual() {
+        int[] contador = CONTADOR.get();
+        return contador != null ? contador[0] : 0;
+    }
+
+    /**
+     * Finaliza el conteo y devuelve el total de sentencias.
+     */
+    public static int finalizar() {
+        int total = actual();
+        CONTADOR.remove();
+        return total;
+    }
+}
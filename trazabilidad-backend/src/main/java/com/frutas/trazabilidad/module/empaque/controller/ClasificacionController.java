@@ -7,6 +7,10 @@ import com.frutas.trazabilidad.module.empaque.service.ClasificacionService;
 import com.frutas.trazabilidad.dto.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -27,28 +31,34 @@ public class ClasificacionController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ClasificacionResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "fechaClasificacion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ClasificacionResponse> clasificaciones = clasificacionService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(clasificaciones, "Clasificaciones obtenidas exitosamente"));
+        Page<?> clasificaciones = clasificacionService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(clasificaciones, "Clasificaciones obtenidas exitosamente"));
     }
 
     @GetMapping("/recepcion/{recepcionId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ClasificacionResponse>>> listarPorRecepcion(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorRecepcion(
             @PathVariable Long recepcionId,
+            @SortDefault(sort = "fechaClasificacion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ClasificacionResponse> clasificaciones = clasificacionService.listarPorRecepcion(recepcionId, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(clasificaciones, "Clasificaciones de recepción obtenidas"));
+        Page<?> clasificaciones = clasificacionService.listarPorRecepcion(recepcionId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(clasificaciones, "Clasificaciones de recepción obtenidas"));
     }
 
     @GetMapping("/calidad/{calidad}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ClasificacionResponse>>> listarPorCalidad(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorCalidad(
             @PathVariable String calidad,
+            @SortDefault(sort = "fechaClasificacion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ClasificacionResponse> clasificaciones = clasificacionService.listarPorCalidad(user.getEmpresa().getId(), calidad);
-        return ResponseEntity.ok(ApiResponse.success(clasificaciones, "Clasificaciones por calidad obtenidas"));
+        Page<?> clasificaciones = clasificacionService.listarPorCalidad(user.getEmpresa().getId(), calidad, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(clasificaciones, "Clasificaciones por calidad obtenidas"));
     }
 
     @GetMapping("/{id}")
@@ -3,10 +3,15 @@ package com.frutas.trazabilidad.module.empaque.controller;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadRequest;
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadResponse;
+import com.frutas.trazabilidad.module.empaque.dto.DistribucionCalidadResponse;
 import com.frutas.trazabilidad.module.empaque.service.ControlCalidadService;
 import com.frutas.trazabilidad.dto.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,56 +34,82 @@ public class ControlCalidadController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ControlCalidadResponse> controles = controlService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles de calidad obtenidos exitosamente"));
+        Page<?> controles = controlService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles de calidad obtenidos exitosamente"));
     }
 
     @GetMapping("/clasificacion/{clasificacionId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listarPorClasificacion(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorClasificacion(
             @PathVariable Long clasificacionId,
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ControlCalidadResponse> controles = controlService.listarPorClasificacion(clasificacionId, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles de clasificación obtenidos"));
+        Page<?> controles = controlService.listarPorClasificacion(clasificacionId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles de clasificación obtenidos"));
     }
 
     @GetMapping("/pallet/{palletId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listarPorPallet(
-            @PathVariable Long palletId) {
-        List<ControlCalidadResponse> controles = controlService.listarPorPallet(palletId);
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles de pallet obtenidos"));
+    public ResponseEntity<ApiResponse<List<?>>> listarPorPallet(
+            @PathVariable Long palletId,
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @AuthenticationPrincipal User user) {
+        Page<?> controles = controlService.listarPorPallet(palletId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles de pallet obtenidos"));
     }
 
     @GetMapping("/tipo/{tipo}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listarPorTipo(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorTipo(
             @PathVariable String tipo,
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ControlCalidadResponse> controles = controlService.listarPorTipo(user.getEmpresa().getId(), tipo);
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles por tipo obtenidos"));
+        Page<?> controles = controlService.listarPorTipo(user.getEmpresa().getId(), tipo, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles por tipo obtenidos"));
     }
 
     @GetMapping("/resultado/{resultado}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listarPorResultado(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorResultado(
             @PathVariable String resultado,
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<ControlCalidadResponse> controles = controlService.listarPorResultado(user.getEmpresa().getId(), resultado);
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles por resultado obtenidos"));
+        Page<?> controles = controlService.listarPorResultado(user.getEmpresa().getId(), resultado, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles por resultado obtenidos"));
     }
 
     @GetMapping("/rango-fechas")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<ControlCalidadResponse>>> listarPorRangoFechas(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorRangoFechas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @SortDefault(sort = "fechaControl", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @AuthenticationPrincipal User user) {
+        Page<?> controles = controlService.listarPorRangoFechas(
+                user.getEmpresa().getId(), desde, hasta, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(controles, "Controles por rango de fechas obtenidos"));
+    }
+
+    @GetMapping("/analitica/distribucion")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<List<DistribucionCalidadResponse>>> distribucion(
+            @RequestParam(defaultValue = "LOTE") DistribucionCalidadResponse.Dimension dimension,
+            @RequestParam(required = false) String parametro,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
             @AuthenticationPrincipal User user) {
-        List<ControlCalidadResponse> controles = controlService.listarPorRangoFechas(
-                user.getEmpresa().getId(), desde, hasta);
-        return ResponseEntity.ok(ApiResponse.success(controles, "Controles por rango de fechas obtenidos"));
+        List<DistribucionCalidadResponse> distribucion = controlService.distribucion(
+                user.getEmpresa().getId(), dimension, parametro, desde, hasta);
+        return ResponseEntity.ok(ApiResponse.success(distribucion, "Distribución de mediciones obtenida"));
     }
 
     @GetMapping("/{id}")
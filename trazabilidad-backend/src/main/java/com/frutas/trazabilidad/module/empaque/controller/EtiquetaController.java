@@ -5,16 +5,34 @@ import com.frutas.trazabilidad.dto.TrazabilidadPublicaDTO;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaRequest;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaResponse;
+import com.frutas.trazabilidad.module.empaque.dto.LoteEtiquetasRequest;
+import com.frutas.trazabilidad.module.empaque.dto.LoteEtiquetasResponse;
+import com.frutas.trazabilidad.module.empaque.service.CodigoQrService;
+import com.frutas.trazabilidad.module.empaque.service.CodigoQrService.FormatoQr;
 import com.frutas.trazabilidad.module.empaque.service.EtiquetaService;
+import com.frutas.trazabilidad.module.empaque.service.ImpresionEtiquetasService;
+import com.frutas.trazabilidad.module.empaque.service.ImpresionEtiquetasService.FormatoHoja;
 import com.frutas.trazabilidad.dto.ApiResponse;
 import com.frutas.trazabilidad.service.TrazabilidadService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -28,40 +46,51 @@ public class EtiquetaController {
 
     private final EtiquetaService etiquetaService;
     private final TrazabilidadService trazabilidadService;
+    private final CodigoQrService codigoQrService;
+    private final ImpresionEtiquetasService impresionEtiquetasService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EtiquetaResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EtiquetaResponse> etiquetas = etiquetaService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(etiquetas, "Etiquetas obtenidas exitosamente"));
+        Page<?> etiquetas = etiquetaService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(etiquetas, "Etiquetas obtenidas exitosamente"));
     }
 
     @GetMapping("/clasificacion/{clasificacionId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EtiquetaResponse>>> listarPorClasificacion(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorClasificacion(
             @PathVariable Long clasificacionId,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EtiquetaResponse> etiquetas = etiquetaService.listarPorClasificacion(clasificacionId, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(etiquetas, "Etiquetas de clasificación obtenidas"));
+        Page<?> etiquetas = etiquetaService.listarPorClasificacion(
+                clasificacionId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(etiquetas, "Etiquetas de clasificación obtenidas"));
     }
 
     @GetMapping("/estado/{estado}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EtiquetaResponse>>> listarPorEstado(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorEstado(
             @PathVariable String estado,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EtiquetaResponse> etiquetas = etiquetaService.listarPorEstado(user.getEmpresa().getId(), estado);
-        return ResponseEntity.ok(ApiResponse.success(etiquetas, "Etiquetas por estado obtenidas"));
+        Page<?> etiquetas = etiquetaService.listarPorEstado(user.getEmpresa().getId(), estado, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(etiquetas, "Etiquetas por estado obtenidas"));
     }
 
     @GetMapping("/tipo/{tipo}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EtiquetaResponse>>> listarPorTipo(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorTipo(
             @PathVariable String tipo,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EtiquetaResponse> etiquetas = etiquetaService.listarPorTipo(user.getEmpresa().getId(), tipo);
-        return ResponseEntity.ok(ApiResponse.success(etiquetas, "Etiquetas por tipo obtenidas"));
+        Page<?> etiquetas = etiquetaService.listarPorTipo(user.getEmpresa().getId(), tipo, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(etiquetas, "Etiquetas por tipo obtenidas"));
     }
 
     @GetMapping("/{id}")
@@ -111,6 +140,72 @@ public class EtiquetaController {
         return ResponseEntity.ok(ApiResponse.success(null, "Etiqueta eliminada exitosamente"));
     }
 
+    /**
+     * Imagen del QR de una etiqueta (PNG o SVG) para impresión.
+     */
+    @GetMapping("/{id}/qr")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<byte[]> obtenerImagenQr(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "png") String formato,
+            @RequestParam(defaultValue = "300") int tamano,
+            @AuthenticationPrincipal User user) {
+        FormatoQr formatoQr = FormatoQr.parsear(formato);
+        byte[] imagen = codigoQrService.renderizarPorId(id, user.getEmpresa().getId(), tamano, formatoQr);
+        return imagenQr(imagen, formatoQr, CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable());
+    }
+
+    /**
+     * Endpoint público con la imagen del QR por código (PNG o SVG).
+     * El QR solo contiene la URL pública de trazabilidad, que ya es pública.
+     */
+    @GetMapping("/public/qr/{codigoQr}/imagen")
+    public ResponseEntity<byte[]> obtenerImagenQrPublica(
+            @PathVariable String codigoQr,
+            @RequestParam(defaultValue = "png") String formato,
+            @RequestParam(defaultValue = "300") int tamano) {
+        FormatoQr formatoQr = FormatoQr.parsear(formato);
+        byte[] imagen = codigoQrService.renderizarPorCodigo(codigoQr, tamano, formatoQr);
+        return imagenQr(imagen, formatoQr, CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+    }
+
+    /**
+     * Genera en lote las etiquetas de una clasificación (tanda de impresión).
+     */
+    @PostMapping("/lotes-impresion")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<LoteEtiquetasResponse>> generarLoteImpresion(
+            @Valid @RequestBody LoteEtiquetasRequest request,
+            @AuthenticationPrincipal User user) {
+        LoteEtiquetasResponse lote = impresionEtiquetasService.generarLote(request, user.getEmpresa().getId());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(lote, "Tanda de etiquetas generada exitosamente"));
+    }
+
+    /**
+     * Hoja de impresión de una tanda: PDF (A4, 24 etiquetas por página) o ZIP con un PNG por etiqueta.
+     * Se escribe en streaming sobre la respuesta, sin cargar la tanda completa en memoria.
+     */
+    @GetMapping("/lotes-impresion/{loteImpresion}/hoja")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public void descargarHojaImpresion(
+            @PathVariable String loteImpresion,
+            @RequestParam(defaultValue = "pdf") String formato,
+            @RequestParam(defaultValue = "300") int tamano,
+            @AuthenticationPrincipal User user,
+            HttpServletResponse response) throws IOException {
+        Long empresaId = user.getEmpresa().getId();
+        FormatoHoja formatoHoja = FormatoHoja.parsear(formato);
+        int total = impresionEtiquetasService.contarTanda(loteImpresion, empresaId);
+
+        response.setContentType(formatoHoja.getTipoContenido());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("etiquetas-" + loteImpresion + "." + formatoHoja.getExtension())
+                .build().toString());
+        impresionEtiquetasService.escribirHoja(loteImpresion, empresaId, total, formatoHoja, tamano,
+                response.getOutputStream());
+    }
+
     /**
      * Endpoint público para consulta de trazabilidad completa por QR.
      * Accesible sin autenticación para consumidores finales.
@@ -136,4 +231,14 @@ public class EtiquetaController {
         TrazabilidadCompletaDTO trazabilidad = trazabilidadService.obtenerTrazabilidadCompleta(id, user.getEmpresa().getId());
         return ResponseEntity.ok(ApiResponse.success(trazabilidad, "Trazabilidad completa interna obtenida exitosamente"));
     }
+
+    /**
+     * La imagen de un (código, tamaño, formato) nunca cambia: se sirve con caché inmutable.
+     */
+    private ResponseEntity<byte[]> imagenQr(byte[] imagen, FormatoQr formato, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getTipoContenido()))
+                .cacheControl(cacheControl)
+                .body(imagen);
+    }
 }
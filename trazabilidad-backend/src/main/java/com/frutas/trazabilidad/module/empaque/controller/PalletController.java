@@ -1,6 +1,8 @@
 package com.frutas.trazabilidad.module.empaque.controller;
 
 import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.empaque.dto.CambioEstadoMasivoRequest;
+import com.frutas.trazabilidad.module.empaque.dto.CambioEstadoMasivoResponse;
 import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
 import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
 import com.frutas.trazabilidad.module.empaque.service.PalletService;
@@ -9,6 +11,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -29,60 +35,82 @@ public class PalletController {
     private final PalletService palletService;
 
     @GetMapping
-    @Operation(summary = "Listar pallets", description = "Lista todos los pallets de la empresa")
+    @Operation(summary = "Listar pallets", description = "Lista todos los pallets de la empresa con el total de etiquetas. " +
+            "Con incluirEtiquetas=true agrega los códigos de etiqueta de cada pallet; " +
+            "con fields devuelve solo las columnas pedidas")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
             @AuthenticationPrincipal User user) {
-        List<PalletResponse> pallets = palletService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets obtenidos exitosamente"));
+        Page<?> pallets = palletService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets obtenidos exitosamente"));
     }
 
     @GetMapping("/estado/{estado}")
     @Operation(summary = "Listar pallets por estado")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listarPorEstado(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorEstado(
             @PathVariable String estado,
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
             @AuthenticationPrincipal User user) {
-        List<PalletResponse> pallets = palletService.listarPorEstado(user.getEmpresa().getId(), estado);
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets por estado obtenidos"));
+        Page<?> pallets = palletService.listarPorEstado(user.getEmpresa().getId(), estado, pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets por estado obtenidos"));
     }
 
     @GetMapping("/destino")
     @Operation(summary = "Listar pallets por destino")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listarPorDestino(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorDestino(
             @RequestParam String destino,
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
             @AuthenticationPrincipal User user) {
-        List<PalletResponse> pallets = palletService.listarPorDestino(user.getEmpresa().getId(), destino);
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets por destino obtenidos"));
+        Page<?> pallets = palletService.listarPorDestino(user.getEmpresa().getId(), destino, pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets por destino obtenidos"));
     }
 
     @GetMapping("/tipo-fruta/{tipoFruta}")
     @Operation(summary = "Listar pallets por tipo de fruta")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listarPorTipoFruta(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorTipoFruta(
             @PathVariable String tipoFruta,
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
             @AuthenticationPrincipal User user) {
-        List<PalletResponse> pallets = palletService.listarPorTipoFruta(user.getEmpresa().getId(), tipoFruta);
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets por tipo de fruta obtenidos"));
+        Page<?> pallets = palletService.listarPorTipoFruta(user.getEmpresa().getId(), tipoFruta, pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets por tipo de fruta obtenidos"));
     }
 
     @GetMapping("/clasificacion/{clasificacionId}")
     @Operation(summary = "Listar pallets por clasificación", description = "Lista pallets que contienen etiquetas de una clasificación")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listarPorClasificacion(
-            @PathVariable Long clasificacionId) {
-        List<PalletResponse> pallets = palletService.listarPorClasificacion(clasificacionId);
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets por clasificación obtenidos"));
+    public ResponseEntity<ApiResponse<List<?>>> listarPorClasificacion(
+            @PathVariable Long clasificacionId,
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
+            @AuthenticationPrincipal User user) {
+        Page<?> pallets = palletService.listarPorClasificacion(
+                clasificacionId, user.getEmpresa().getId(), pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets por clasificación obtenidos"));
     }
 
     @GetMapping("/listos-envio")
     @Operation(summary = "Listar pallets listos para envío")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA')")
-    public ResponseEntity<ApiResponse<List<PalletResponse>>> listarListosParaEnvio(
+    public ResponseEntity<ApiResponse<List<?>>> listarListosParaEnvio(
+            @SortDefault(sort = "fechaPaletizado", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean incluirEtiquetas,
             @AuthenticationPrincipal User user) {
-        List<PalletResponse> pallets = palletService.listarListosParaEnvio(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(pallets, "Pallets listos para envío obtenidos"));
+        Page<?> pallets = palletService.listarListosParaEnvio(user.getEmpresa().getId(), pageable, fields, incluirEtiquetas);
+        return ResponseEntity.ok(ApiResponse.paginada(pallets, "Pallets listos para envío obtenidos"));
     }
 
     @GetMapping("/{id}")
@@ -105,6 +133,19 @@ public class PalletController {
         return ResponseEntity.ok(ApiResponse.success(pallet, "Pallet creado exitosamente"));
     }
 
+    @PostMapping("/armado")
+    @Operation(summary = "Armar pallet con sus etiquetas",
+            description = "Crea el pallet y asigna todas las etiquetas escaneadas en una sola operación. " +
+                    "Si alguna etiqueta no existe o no está disponible, no se crea el pallet y se listan todas en el error")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<PalletResponse>> armar(
+            @Valid @RequestBody PalletRequest request,
+            @AuthenticationPrincipal User user) {
+        PalletResponse pallet = palletService.armar(request, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(pallet,
+                "Pallet armado con " + pallet.getTotalEtiquetas() + " etiquetas"));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar pallet")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
@@ -127,6 +168,20 @@ public class PalletController {
         return ResponseEntity.ok(ApiResponse.success(pallet, "Estado actualizado exitosamente"));
     }
 
+    @PatchMapping("/estado")
+    @Operation(summary = "Cambiar estado de varios pallets",
+            description = "Valida todos los pallets contra las transiciones permitidas y aplica el cambio en una sola operación. " +
+                    "Si algún pallet no puede cambiar, no se modifica ninguno y se listan todos en el error")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA')")
+    public ResponseEntity<ApiResponse<CambioEstadoMasivoResponse>> cambiarEstadoMasivo(
+            @Valid @RequestBody CambioEstadoMasivoRequest request,
+            @AuthenticationPrincipal User user) {
+        CambioEstadoMasivoResponse resultado = palletService.cambiarEstadoMasivo(
+                request.getPalletsIds(), request.getEstado(), user);
+        return ResponseEntity.ok(ApiResponse.success(resultado,
+                resultado.getTotalActualizados() + " pallets actualizados a " + resultado.getEstadoDestino()));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Eliminar pallet")
     @PreAuthorize("hasRole('ADMIN')")
@@ -7,6 +7,10 @@ import com.frutas.trazabilidad.module.empaque.service.RecepcionPlantaService;
 import com.frutas.trazabilidad.dto.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,39 +32,47 @@ public class RecepcionPlantaController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<RecepcionPlantaResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "fechaRecepcion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<RecepcionPlantaResponse> recepciones = recepcionService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(recepciones, "Recepciones obtenidas exitosamente"));
+        Page<?> recepciones = recepcionService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(recepciones, "Recepciones obtenidas exitosamente"));
     }
 
     @GetMapping("/lote/{loteId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<RecepcionPlantaResponse>>> listarPorLote(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorLote(
             @PathVariable Long loteId,
+            @SortDefault(sort = "fechaRecepcion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<RecepcionPlantaResponse> recepciones = recepcionService.listarPorLote(loteId, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(recepciones, "Recepciones del lote obtenidas"));
+        Page<?> recepciones = recepcionService.listarPorLote(loteId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(recepciones, "Recepciones del lote obtenidas"));
     }
 
     @GetMapping("/estado/{estado}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<RecepcionPlantaResponse>>> listarPorEstado(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorEstado(
             @PathVariable String estado,
+            @SortDefault(sort = "fechaRecepcion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<RecepcionPlantaResponse> recepciones = recepcionService.listarPorEstado(user.getEmpresa().getId(), estado);
-        return ResponseEntity.ok(ApiResponse.success(recepciones, "Recepciones por estado obtenidas"));
+        Page<?> recepciones = recepcionService.listarPorEstado(user.getEmpresa().getId(), estado, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(recepciones, "Recepciones por estado obtenidas"));
     }
 
     @GetMapping("/rango-fechas")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<RecepcionPlantaResponse>>> listarPorRangoFechas(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorRangoFechas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @SortDefault(sort = "fechaRecepcion", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<RecepcionPlantaResponse> recepciones = recepcionService.listarPorRangoFechas(
-                user.getEmpresa().getId(), desde, hasta);
-        return ResponseEntity.ok(ApiResponse.success(recepciones, "Recepciones por rango de fechas obtenidas"));
+        Page<?> recepciones = recepcionService.listarPorRangoFechas(
+                user.getEmpresa().getId(), desde, hasta, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(recepciones, "Recepciones por rango de fechas obtenidas"));
     }
 
     @GetMapping("/{id}")
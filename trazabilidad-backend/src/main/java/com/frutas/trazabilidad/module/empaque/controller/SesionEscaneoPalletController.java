@@ -0,0 +1,102 @@
+package com.frutas.trazabilidad.module.empaque.controller;
+
+import com.frutas.trazabilidad.dto.ApiResponse;
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.empaque.dto.EscaneoEtiquetaResponse;
+import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
+import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.dto.SesionEscaneoResponse;
+import com.frutas.trazabilidad.module.empaque.service.SesionEscaneoPalletService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller REST para el armado de pallets por escaneo incremental.
+ * Flujo: abrir sesión, escanear cada caja y cerrar (el pallet se crea al cerrar).
+ */
+@RestController
+@RequestMapping("/api/pallets/sesiones-escaneo")
+@RequiredArgsConstructor
+@Tag(name = "Pallets", description = "Gestión de pallets para empaque")
+public class SesionEscaneoPalletController {
+
+    private final SesionEscaneoPalletService sesionEscaneoService;
+
+    @PostMapping
+    @Operation(summary = "Abrir sesión de escaneo",
+            description = "Reserva en memoria un pallet nuevo; las etiquetas se agregan escaneándolas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<SesionEscaneoResponse>> abrir(
+            @Valid @RequestBody PalletRequest request,
+            @AuthenticationPrincipal User user) {
+        SesionEscaneoResponse sesion = sesionEscaneoService.abrir(request, user.getEmpresa().getId());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(sesion, "Sesión de escaneo abierta"));
+    }
+
+    @GetMapping("/{sesionId}")
+    @Operation(summary = "Consultar sesión de escaneo", description = "Devuelve los códigos escaneados hasta el momento")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<SesionEscaneoResponse>> consultar(
+            @PathVariable String sesionId,
+            @AuthenticationPrincipal User user) {
+        SesionEscaneoResponse sesion = sesionEscaneoService.consultar(sesionId, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(sesion, "Sesión de escaneo obtenida"));
+    }
+
+    @PostMapping("/{sesionId}/etiquetas")
+    @Operation(summary = "Escanear etiqueta",
+            description = "Registra una caja en la sesión sin escribir en base de datos. " +
+                    "Acepta el código de etiqueta, el UUID del QR o la URL leída del QR; " +
+                    "una misma caja leída por cualquiera de ellos cuenta una sola vez")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<EscaneoEtiquetaResponse>> escanear(
+            @PathVariable String sesionId,
+            @RequestParam String codigo,
+            @AuthenticationPrincipal User user) {
+        EscaneoEtiquetaResponse escaneo = sesionEscaneoService.escanear(sesionId, codigo, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(escaneo,
+                escaneo.getDuplicado() ? "Etiqueta ya escaneada" : "Etiqueta escaneada"));
+    }
+
+    @DeleteMapping("/{sesionId}/etiquetas")
+    @Operation(summary = "Descartar escaneo", description = "Quita una caja de la sesión")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<EscaneoEtiquetaResponse>> descartar(
+            @PathVariable String sesionId,
+            @RequestParam String codigo,
+            @AuthenticationPrincipal User user) {
+        EscaneoEtiquetaResponse escaneo = sesionEscaneoService.descartar(sesionId, codigo, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(escaneo, "Escaneo descartado"));
+    }
+
+    @PostMapping("/{sesionId}/cierre")
+    @Operation(summary = "Cerrar sesión y armar pallet",
+            description = "Crea el pallet y asigna todas las etiquetas escaneadas en una sola transacción. " +
+                    "Si alguna no puede asignarse, la sesión sigue abierta y se listan todas en el error")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<PalletResponse>> cerrar(
+            @PathVariable String sesionId,
+            @AuthenticationPrincipal User user) {
+        PalletResponse pallet = sesionEscaneoService.cerrar(sesionId, user.getEmpresa().getId());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(pallet, "Pallet armado con " + pallet.getTotalEtiquetas() + " etiquetas"));
+    }
+
+    @DeleteMapping("/{sesionId}")
+    @Operation(summary = "Cancelar sesión de escaneo", description = "Descarta los escaneos sin crear el pallet")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<Void>> cancelar(
+            @PathVariable String sesionId,
+            @AuthenticationPrincipal User user) {
+        sesionEscaneoService.cancelar(sesionId, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(null, "Sesión de escaneo cancelada"));
+    }
+}
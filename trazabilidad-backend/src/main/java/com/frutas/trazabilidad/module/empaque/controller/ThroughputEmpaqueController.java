@@ -0,0 +1,42 @@
+package com.frutas.trazabilidad.module.empaque.controller;
+
+import com.frutas.trazabilidad.dto.ApiResponse;
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.empaque.dto.ThroughputHoraResponse;
+import com.frutas.trazabilidad.module.empaque.service.ThroughputEmpaqueService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controller REST para el tablero de rendimiento de la planta de empaque.
+ */
+@RestController
+@RequestMapping("/api/empaque")
+@RequiredArgsConstructor
+@Tag(name = "Empaque", description = "Rendimiento de la planta de empaque")
+public class ThroughputEmpaqueController {
+
+    private final ThroughputEmpaqueService throughputService;
+
+    @GetMapping("/throughput")
+    @Operation(summary = "Rendimiento por hora",
+            description = "Kg recibidos, kg clasificados por calidad, cajas etiquetadas, pallets armados y " +
+                    "pallets despachados por hora. Por defecto, las últimas 24 horas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_PLANTA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<List<ThroughputHoraResponse>>> obtenerThroughput(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @AuthenticationPrincipal User user) {
+        List<ThroughputHoraResponse> horas = throughputService.consultar(user.getEmpresa().getId(), desde, hasta);
+        return ResponseEntity.ok(ApiResponse.success(horas, "Rendimiento de empaque obtenido"));
+    }
+}
@@ -0,0 +1,26 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para cambiar el estado de varios pallets en una sola operación.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoMasivoRequest {
+
+    @NotEmpty(message = "Debe indicar al menos un pallet")
+    @Size(max = 1000, message = "No se pueden cambiar más de 1000 pallets por solicitud")
+    private List<@NotNull Long> palletsIds;
+
+    @NotBlank(message = "El estado destino es obligatorio")
+    private String estado;
+}
@@ -0,0 +1,26 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO con el resultado de un cambio de estado masivo de pallets.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoMasivoResponse {
+
+    private String estadoDestino;
+    private Integer totalActualizados;
+
+    /**
+     * Cantidad de pallets por estado de origen.
+     */
+    private Map<String, Long> porEstadoOrigen;
+}
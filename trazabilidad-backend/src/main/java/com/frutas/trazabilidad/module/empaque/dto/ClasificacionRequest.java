@@ -20,7 +20,9 @@ public class ClasificacionRequest {
     @NotNull(message = "El ID de la recepción es obligatorio")
     private Long recepcionId;
 
-    @NotBlank(message = "El código de clasificación es obligatorio")
+    /**
+     * Opcional: si no se indica, se asigna el siguiente de la serie de la empresa.
+     */
     @Size(max = 50, message = "El código no puede exceder 50 caracteres")
     private String codigoClasificacion;
 
@@ -21,7 +21,9 @@ public class ControlCalidadRequest {
 
     private Long palletId; // Opcional si se controla una clasificación
 
-    @NotBlank(message = "El código de control es obligatorio")
+    /**
+     * Opcional: si no se indica, se asigna el siguiente de la serie de la empresa.
+     */
     @Size(max = 50, message = "El código no puede exceder 50 caracteres")
     private String codigoControl;
 
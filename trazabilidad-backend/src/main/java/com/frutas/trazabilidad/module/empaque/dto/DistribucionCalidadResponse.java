@@ -0,0 +1,39 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta para la distribución de un parámetro de calidad (BRIX, ACIDEZ, FIRMEZA...)
+ * dentro de un grupo de la dimensión pedida.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistribucionCalidadResponse {
+
+    /**
+     * Agrupaciones disponibles para la analítica.
+     */
+    public enum Dimension {
+        LOTE, FINCA, VARIEDAD, SEMANA
+    }
+
+    private String parametro;
+    private Dimension dimension;
+    private String grupo; // Código de lote, nombre de finca, variedad o semana ISO (2024-S05)
+    private Long mediciones;
+    private Double media;
+    private Double desviacionEstandar;
+    private Double minimo;
+    private Double percentil10;
+    private Double mediana;
+    private Double percentil90;
+    private Double maximo;
+    private Double tasaCumplimiento; // 0..1, controles que cumplen especificación
+    private Double diferenciaConMediaParametro; // Media del grupo menos la media global del parámetro
+    private Long ranking; // Posición del grupo por media dentro del parámetro (1 = mayor)
+}
@@ -0,0 +1,25 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de confirmación de un escaneo dentro de una sesión de pallet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EscaneoEtiquetaResponse {
+
+    private String codigo;
+
+    /**
+     * true si el código ya estaba escaneado en la sesión (no se cuenta dos veces).
+     */
+    private Boolean duplicado;
+
+    private Integer totalEscaneadas;
+}
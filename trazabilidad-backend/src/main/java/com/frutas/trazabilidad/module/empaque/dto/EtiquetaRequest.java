@@ -18,7 +18,9 @@ public class EtiquetaRequest {
     @NotNull(message = "El ID de la clasificación es obligatorio")
     private Long clasificacionId;
 
-    @NotBlank(message = "El código de etiqueta es obligatorio")
+    /**
+     * Opcional: si no se indica, se asigna el siguiente de la serie de la empresa.
+     */
     @Size(max = 50, message = "El código no puede exceder 50 caracteres")
     private String codigoEtiqueta;
 
@@ -0,0 +1,44 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para generar en lote las etiquetas de una clasificación (tanda de impresión).
+ * Todas las etiquetas comparten los datos de contenido; los códigos se asignan
+ * correlativos de la serie de etiquetas de la empresa.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteEtiquetasRequest {
+
+    @NotNull(message = "El ID de la clasificación es obligatorio")
+    private Long clasificacionId;
+
+    @NotNull(message = "La cantidad de etiquetas es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser al menos 1")
+    private Integer cantidad;
+
+    @Size(max = 30, message = "El tipo no puede exceder 30 caracteres")
+    @Builder.Default
+    private String tipoEtiqueta = "CAJA";
+
+    @Positive(message = "La cantidad debe ser positiva")
+    private Double cantidadContenida;
+
+    @Size(max = 20, message = "La unidad de medida no puede exceder 20 caracteres")
+    private String unidadMedida;
+
+    @Positive(message = "El peso neto debe ser positivo")
+    private Double pesoNeto;
+
+    @Positive(message = "El peso bruto debe ser positivo")
+    private Double pesoBruto;
+
+    private String observaciones;
+}
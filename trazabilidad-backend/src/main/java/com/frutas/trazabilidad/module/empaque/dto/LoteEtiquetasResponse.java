@@ -0,0 +1,25 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de una tanda de etiquetas generada en lote.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteEtiquetasResponse {
+
+    /**
+     * Identificador de la tanda, para descargar la hoja de impresión.
+     */
+    private String loteImpresion;
+    private Long clasificacionId;
+    private Integer cantidad;
+    private String codigoInicial;
+    private String codigoFinal;
+}
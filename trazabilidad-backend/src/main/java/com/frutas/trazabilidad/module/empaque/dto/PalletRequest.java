@@ -13,7 +13,7 @@ import java.util.List;
  * DTO para crear/actualizar pallet.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PalletRequest {
@@ -20,7 +20,9 @@ public class RecepcionPlantaRequest {
     @NotNull(message = "El ID del lote es obligatorio")
     private Long loteId;
 
-    @NotBlank(message = "El código de recepción es obligatorio")
+    /**
+     * Opcional: si no se indica, se asigna el siguiente de la serie de la empresa.
+     */
     @Size(max = 50, message = "El código de recepción no puede exceder 50 caracteres")
     private String codigoRecepcion;
 
@@ -0,0 +1,37 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el estado de una sesión de escaneo de pallet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SesionEscaneoResponse {
+
+    private String sesionId;
+    private String codigoPallet;
+
+    /**
+     * Cajas previstas al abrir la sesión.
+     */
+    private Integer cajasEsperadas;
+
+    private Integer totalEscaneadas;
+
+    /**
+     * Códigos escaneados en orden de lectura.
+     */
+    private List<String> codigos;
+
+    private LocalDateTime abiertaEn;
+    private LocalDateTime ultimaActividad;
+}
@@ -0,0 +1,26 @@
+package com.frutas.trazabilidad.module.empaque.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO de respuesta para el rendimiento de la planta de empaque en una hora.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThroughputHoraResponse {
+
+    private LocalDateTime hora; // Inicio de la hora
+    private Double kgRecibidos;
+    private Map<String, Double> kgClasificadosPorCalidad;
+    private Long cajasEtiquetadas;
+    private Long palletsArmados;
+    private Long palletsDespachados;
+}
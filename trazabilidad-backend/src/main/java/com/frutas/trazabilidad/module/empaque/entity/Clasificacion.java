@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.empaque.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
@@ -25,6 +26,13 @@ public class Clasificacion {
     @JoinColumn(name = "recepcion_id", nullable = false)
     private RecepcionPlanta recepcion;
 
+    /**
+     * Empresa propietaria (desnormalizada desde recepción para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "codigo_clasificacion", nullable = false, unique = true, length = 50)
     private String codigoClasificacion; // Ej: CLAS-2024-001
 
@@ -70,6 +78,9 @@ public class Clasificacion {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            empresa = recepcion != null ? recepcion.getEmpresa() : null;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
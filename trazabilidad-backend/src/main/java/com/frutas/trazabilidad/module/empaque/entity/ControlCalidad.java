@@ -1,9 +1,13 @@
 package com.frutas.trazabilidad.module.empaque.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Entidad que representa un control de calidad realizado en planta.
@@ -17,6 +21,8 @@ import java.time.LocalDateTime;
 @Builder
 public class ControlCalidad {
 
+    private static final Pattern NUMERO = Pattern.compile("-?\\d+(?:[.,]\\d+)?");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,6 +35,15 @@ public class ControlCalidad {
     @JoinColumn(name = "pallet_id")
     private Pallet pallet;
 
+    /**
+     * Empresa propietaria (desnormalizada desde clasificación o pallet para filtrar por tenant sin joins).
+     * Obligatoria para los controles nuevos; solo los controles históricos sin clasificación
+     * ni pallet quedan sin empresa (desactivados por V7).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "codigo_control", nullable = false, unique = true, length = 50)
     private String codigoControl; // Ej: CC-2024-001
 
@@ -47,6 +62,18 @@ public class ControlCalidad {
     @Column(name = "valor_esperado", length = 100)
     private String valorEsperado;
 
+    /**
+     * Columnas derivadas para la analítica de mediciones (se recalculan al guardar).
+     */
+    @Column(name = "parametro_codigo", length = 200)
+    private String parametroCodigo; // BRIX, ACIDEZ, FIRMEZA
+
+    @Column(name = "valor_medido_num")
+    private Double valorMedidoNumerico;
+
+    @Column(name = "valor_esperado_num")
+    private Double valorEsperadoNumerico;
+
     @Column(name = "cumple_especificacion", nullable = false)
     @Builder.Default
     private Boolean cumpleEspecificacion = true;
@@ -81,12 +108,43 @@ public class ControlCalidad {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            if (clasificacion != null) {
+                empresa = clasificacion.getEmpresa();
+            } else if (pallet != null) {
+                empresa = pallet.getEmpresa();
+            }
+        }
+        normalizarMedicion();
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
 
     @PreUpdate
     protected void onUpdate() {
+        normalizarMedicion();
         updatedAt = LocalDateTime.now();
     }
+
+    /**
+     * Deriva el parámetro normalizado y los valores numéricos de los campos de texto
+     * (misma regla que el backfill de V16__mediciones_control_calidad.sql).
+     */
+    protected void normalizarMedicion() {
+        parametroCodigo = parametroEvaluado == null || parametroEvaluado.isBlank()
+                ? null : parametroEvaluado.trim().toUpperCase(Locale.ROOT);
+        valorMedidoNumerico = extraerNumero(valorMedido);
+        valorEsperadoNumerico = extraerNumero(valorEsperado);
+    }
+
+    /**
+     * Primer número del texto, con coma o punto decimal ("12,5 °Brix" -> 12.5), o null.
+     */
+    static Double extraerNumero(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        Matcher matcher = NUMERO.matcher(valor);
+        return matcher.find() ? Double.valueOf(matcher.group().replace(',', '.')) : null;
+    }
 }
\ No newline at end of file
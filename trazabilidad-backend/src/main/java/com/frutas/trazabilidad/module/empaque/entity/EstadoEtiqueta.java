@@ -0,0 +1,19 @@
+package com.frutas.trazabilidad.module.empaque.entity;
+
+import com.frutas.trazabilidad.entity.MaquinaEstados;
+
+/**
+ * Ciclo de vida de una etiqueta.
+ * Se persiste como String en etiquetas.estado_etiqueta; TRANSICIONES define los cambios permitidos.
+ */
+public enum EstadoEtiqueta {
+    DISPONIBLE,
+    ASIGNADA_PALLET,
+    ENVIADA,
+    ANULADA;
+
+    public static final MaquinaEstados<EstadoEtiqueta> TRANSICIONES = MaquinaEstados.para(EstadoEtiqueta.class)
+            .permitir(DISPONIBLE, ASIGNADA_PALLET, ANULADA)
+            .permitir(ASIGNADA_PALLET, DISPONIBLE, ENVIADA)
+            .build();
+}
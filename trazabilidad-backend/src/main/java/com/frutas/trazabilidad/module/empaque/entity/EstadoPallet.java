@@ -0,0 +1,66 @@
+package com.frutas.trazabilidad.module.empaque.entity;
+
+import com.frutas.trazabilidad.entity.MaquinaEstados;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ciclo de vida de un pallet.
+ * Se persiste como String en pallets.estado_pallet; TRANSICIONES define los cambios permitidos.
+ */
+public enum EstadoPallet {
+    ARMADO,
+    EN_CAMARA,
+    ASIGNADO_ENVIO,
+    DESPACHADO,
+    ENTREGADO,
+    RECHAZADO;
+
+    public static final MaquinaEstados<EstadoPallet> TRANSICIONES = MaquinaEstados.para(EstadoPallet.class)
+            .permitir(ARMADO, EN_CAMARA, ASIGNADO_ENVIO, RECHAZADO)
+            .permitir(EN_CAMARA, ARMADO, ASIGNADO_ENVIO, RECHAZADO)
+            .permitir(ASIGNADO_ENVIO, DESPACHADO, ARMADO)
+            .permitir(DESPACHADO, ENTREGADO, RECHAZADO)
+            .build();
+
+    /**
+     * Estados desde los que un pallet puede asignarse a un envío (listos para envío),
+     * derivados de la tabla de transiciones; se pasan como parámetro a las consultas.
+     */
+    public static final Set<String> ASIGNABLES_A_ENVIO = TRANSICIONES.origenesPermitidos(ASIGNADO_ENVIO).stream()
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * Estados gestionados solo por la asignación/liberación de pallets en un envío
+     * (mantienen el vínculo con el envío y sus totales), no por un cambio de estado manual.
+     */
+    public static final EnumSet<EstadoPallet> GESTIONADOS_POR_ENVIO = EnumSet.of(ASIGNADO_ENVIO);
+
+    /**
+     * Indica si la transición puede solicitarse manualmente (individual o masiva).
+     */
+    public static boolean permiteCambioManual(EstadoPallet origen, EstadoPallet destino) {
+        return !esGestionadoPorEnvio(origen, destino) && TRANSICIONES.permite(origen, destino);
+    }
+
+    /**
+     * Valida un cambio de estado solicitado manualmente.
+     *
+     * @throws IllegalArgumentException si la transición entra o sale de un estado gestionado por el envío
+     * @throws IllegalStateException    si la transición no está permitida
+     */
+    public static void validarCambioManual(EstadoPallet origen, EstadoPallet destino) {
+        if (esGestionadoPorEnvio(origen, destino)) {
+            throw new IllegalArgumentException("La transición " + origen + " → " + destino
+                    + " se realiza asignando o liberando el pallet desde el envío");
+        }
+        TRANSICIONES.validar(origen, destino);
+    }
+
+    private static boolean esGestionadoPorEnvio(EstadoPallet origen, EstadoPallet destino) {
+        return GESTIONADOS_POR_ENVIO.contains(destino) || (GESTIONADOS_POR_ENVIO.contains(origen) && destino == ARMADO);
+    }
+}
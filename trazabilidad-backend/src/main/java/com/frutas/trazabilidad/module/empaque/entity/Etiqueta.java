@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.empaque.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
@@ -19,13 +20,21 @@ import java.util.UUID;
 public class Etiqueta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etiquetas_id_seq")
+    @SequenceGenerator(name = "etiquetas_id_seq", sequenceName = "etiquetas_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "clasificacion_id", nullable = false)
     private Clasificacion clasificacion;
 
+    /**
+     * Empresa propietaria (desnormalizada desde clasificación para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "codigo_etiqueta", nullable = false, unique = true, length = 50)
     private String codigoEtiqueta; // Ej: ETQ-2024-00001
 
@@ -52,7 +61,7 @@ public class Etiqueta {
 
     @Column(name = "estado_etiqueta", nullable = false, length = 30)
     @Builder.Default
-    private String estadoEtiqueta = "DISPONIBLE"; // DISPONIBLE, ASIGNADA_PALLET, ENVIADA
+    private String estadoEtiqueta = EstadoEtiqueta.DISPONIBLE.name(); // Valores y transiciones: EstadoEtiqueta
 
     @Column(name = "url_qr", length = 500)
     private String urlQr; // URL pública para consultar trazabilidad
@@ -60,10 +69,19 @@ public class Etiqueta {
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
 
+    @Column(name = "lote_impresion", length = 36)
+    private String loteImpresion; // Tanda de impresión si se creó en lote (ImpresionEtiquetasService)
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean activo = true;
 
+    /**
+     * Versión para bloqueo optimista (una etiqueta no puede asignarse a dos pallets a la vez).
+     */
+    @Version
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -72,6 +90,9 @@ public class Etiqueta {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            empresa = clasificacion != null ? clasificacion.getEmpresa() : null;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
 
@@ -87,9 +108,15 @@ public class Etiqueta {
     }
 
     /**
-     * Genera la URL pública para consultar la trazabilidad.
+     * Genera la URL pública para consultar la trazabilidad (la que codifica el QR).
+     * Asigna el código QR si aún no existe, ya que se invoca antes de persistir.
+     *
+     * @param baseUrl app.qr-base-url (ya incluye la ruta /public/traza)
      */
     public void generarUrlQr(String baseUrl) {
-        this.urlQr = baseUrl + "/public/traza/" + this.codigoQr;
+        if (this.codigoQr == null) {
+            this.codigoQr = UUID.randomUUID().toString();
+        }
+        this.urlQr = baseUrl + "/" + this.codigoQr;
     }
 }
\ No newline at end of file
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class EtiquetaPallet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etiquetas_pallets_id_seq")
+    @SequenceGenerator(name = "etiquetas_pallets_id_seq", sequenceName = "etiquetas_pallets_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,13 @@
+package com.frutas.trazabilidad.module.empaque.entity;
+
+/**
+ * Métricas de rendimiento horario de la planta de empaque.
+ * Se persiste como String en throughput_empaque_hora.metrica; las de kg se acumulan en gramos.
+ */
+public enum MetricaThroughput {
+    KG_RECIBIDOS,
+    KG_CLASIFICADOS,
+    CAJAS_ETIQUETADAS,
+    PALLETS_ARMADOS,
+    PALLETS_DESPACHADOS
+}
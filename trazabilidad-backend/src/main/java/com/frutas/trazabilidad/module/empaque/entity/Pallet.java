@@ -73,7 +73,7 @@ public class Pallet {
 
     @Column(name = "estado_pallet", nullable = false, length = 30)
     @Builder.Default
-    private String estadoPallet = "ARMADO"; // ARMADO, EN_CAMARA, ASIGNADO_ENVIO, DESPACHADO
+    private String estadoPallet = EstadoPallet.ARMADO.name(); // Valores y transiciones: EstadoPallet
 
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
@@ -94,6 +94,13 @@ public class Pallet {
     @Builder.Default
     private Boolean activo = true;
 
+    /**
+     * Versión para bloqueo optimista: evita que dos operadores asignen o cambien
+     * de estado el mismo pallet a la vez sin ver el cambio del otro.
+     */
+    @Version
+    private Long version;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.empaque.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import com.frutas.trazabilidad.module.produccion.entity.Lote;
 import jakarta.persistence.*;
 import lombok.*;
@@ -26,6 +27,13 @@ public class RecepcionPlanta {
     @JoinColumn(name = "lote_id", nullable = false)
     private Lote lote;
 
+    /**
+     * Empresa propietaria (desnormalizada desde lote para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "codigo_recepcion", nullable = false, unique = true, length = 50)
     private String codigoRecepcion; // Ej: REC-2024-001
 
@@ -75,6 +83,9 @@ public class RecepcionPlanta {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            empresa = lote != null ? lote.getEmpresa() : null;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
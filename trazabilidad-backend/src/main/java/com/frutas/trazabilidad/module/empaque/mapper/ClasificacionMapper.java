@@ -55,7 +55,9 @@ public class ClasificacionMapper {
 
     public void updateEntityFromRequest(Clasificacion entity, ClasificacionRequest request, RecepcionPlanta recepcion) {
         entity.setRecepcion(recepcion);
-        entity.setCodigoClasificacion(request.getCodigoClasificacion());
+        if (request.getCodigoClasificacion() != null && !request.getCodigoClasificacion().isBlank()) {
+            entity.setCodigoClasificacion(request.getCodigoClasificacion());
+        }
         entity.setFechaClasificacion(request.getFechaClasificacion());
         entity.setCalidad(request.getCalidad());
         entity.setCantidadClasificada(request.getCantidadClasificada());
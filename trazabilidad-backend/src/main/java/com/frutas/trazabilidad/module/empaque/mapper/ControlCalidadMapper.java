@@ -2,9 +2,11 @@ package com.frutas.trazabilidad.module.empaque.mapper;
 
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadRequest;
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadResponse;
+import com.frutas.trazabilidad.module.empaque.dto.DistribucionCalidadResponse;
 import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
 import com.frutas.trazabilidad.module.empaque.entity.ControlCalidad;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
+import com.frutas.trazabilidad.module.empaque.repository.ControlCalidadRepository.DistribucionParametro;
 import org.springframework.stereotype.Component;
 
 /**
@@ -60,11 +62,33 @@ public class ControlCalidadMapper {
                 .build();
     }
 
+    public DistribucionCalidadResponse toDistribucion(DistribucionParametro distribucion,
+                                                     DistribucionCalidadResponse.Dimension dimension) {
+        return DistribucionCalidadResponse.builder()
+                .parametro(distribucion.getParametro())
+                .dimension(dimension)
+                .grupo(distribucion.getGrupo())
+                .mediciones(distribucion.getMediciones())
+                .media(distribucion.getMedia())
+                .desviacionEstandar(distribucion.getDesviacion())
+                .minimo(distribucion.getMinimo())
+                .percentil10(distribucion.getP10())
+                .mediana(distribucion.getMediana())
+                .percentil90(distribucion.getP90())
+                .maximo(distribucion.getMaximo())
+                .tasaCumplimiento(distribucion.getCumplimiento())
+                .diferenciaConMediaParametro(distribucion.getDiferencia())
+                .ranking(distribucion.getRanking())
+                .build();
+    }
+
     public void updateEntityFromRequest(ControlCalidad entity, ControlCalidadRequest request,
                                         Clasificacion clasificacion, Pallet pallet) {
         entity.setClasificacion(clasificacion);
         entity.setPallet(pallet);
-        entity.setCodigoControl(request.getCodigoControl());
+        if (request.getCodigoControl() != null && !request.getCodigoControl().isBlank()) {
+            entity.setCodigoControl(request.getCodigoControl());
+        }
         entity.setFechaControl(request.getFechaControl());
         entity.setTipoControl(request.getTipoControl());
         entity.setParametroEvaluado(request.getParametroEvaluado());
@@ -3,6 +3,7 @@ package com.frutas.trazabilidad.module.empaque.mapper;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaRequest;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaResponse;
 import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoEtiqueta;
 import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
 import org.springframework.stereotype.Component;
 
@@ -23,7 +24,7 @@ public class EtiquetaMapper {
                 .pesoBruto(request.getPesoBruto())
                 .numeroCajas(request.getNumeroCajas())
                 .observaciones(request.getObservaciones())
-                .estadoEtiqueta("DISPONIBLE")
+                .estadoEtiqueta(EstadoEtiqueta.DISPONIBLE.name())
                 .activo(true)
                 .build();
     }
@@ -55,7 +56,9 @@ public class EtiquetaMapper {
 
     public void updateEntityFromRequest(Etiqueta entity, EtiquetaRequest request, Clasificacion clasificacion) {
         entity.setClasificacion(clasificacion);
-        entity.setCodigoEtiqueta(request.getCodigoEtiqueta());
+        if (request.getCodigoEtiqueta() != null && !request.getCodigoEtiqueta().isBlank()) {
+            entity.setCodigoEtiqueta(request.getCodigoEtiqueta());
+        }
         entity.setTipoEtiqueta(request.getTipoEtiqueta());
         entity.setCantidadContenida(request.getCantidadContenida());
         entity.setUnidadMedida(request.getUnidadMedida());
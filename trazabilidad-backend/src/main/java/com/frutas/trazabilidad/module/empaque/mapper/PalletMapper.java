@@ -2,11 +2,12 @@ package com.frutas.trazabilidad.module.empaque.mapper;
 
 import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
 import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoPallet;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
+import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 /**
  * Mapper para Pallet.
@@ -29,14 +30,19 @@ public class PalletMapper {
                 .temperaturaAlmacenamiento(request.getTemperaturaAlmacenamiento())
                 .responsablePaletizado(request.getResponsablePaletizado())
                 .observaciones(request.getObservaciones())
-                .estadoPallet("ARMADO")
+                .estadoPallet(EstadoPallet.ARMADO.name())
                 .etiquetas(new ArrayList<>())
                 .activo(true)
                 .build();
     }
 
+    /**
+     * Mapea las columnas propias del pallet. No recorre la colección de etiquetas
+     * (carga perezosa, una consulta por etiqueta): el total y los códigos los completa
+     * el servicio con una consulta agrupada.
+     */
     public PalletResponse toResponse(Pallet entity) {
-        PalletResponse response = PalletResponse.builder()
+        return PalletResponse.builder()
                 .id(entity.getId())
                 .codigoPallet(entity.getCodigoPallet())
                 .fechaPaletizado(entity.getFechaPaletizado())
@@ -55,18 +61,34 @@ public class PalletMapper {
                 .activo(entity.getActivo())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
-                .totalEtiquetas(entity.getEtiquetas() != null ? entity.getEtiquetas().size() : 0)
                 .build();
+    }
 
-        if (entity.getEtiquetas() != null && !entity.getEtiquetas().isEmpty()) {
-            response.setEtiquetasCodigos(
-                    entity.getEtiquetas().stream()
-                            .map(ep -> ep.getEtiqueta().getCodigoEtiqueta())
-                            .collect(Collectors.toList())
-            );
-        }
-
-        return response;
+    /**
+     * Mapea el resumen de listados; el total de etiquetas ya viene calculado en SQL.
+     */
+    public PalletResponse toResponse(PalletRepository.ResumenPallet resumen) {
+        return PalletResponse.builder()
+                .id(resumen.getId())
+                .codigoPallet(resumen.getCodigoPallet())
+                .fechaPaletizado(resumen.getFechaPaletizado())
+                .tipoPallet(resumen.getTipoPallet())
+                .numeroCajas(resumen.getNumeroCajas())
+                .pesoNetoTotal(resumen.getPesoNetoTotal())
+                .pesoBrutoTotal(resumen.getPesoBrutoTotal())
+                .alturaPallet(resumen.getAlturaPallet())
+                .tipoFruta(resumen.getTipoFruta())
+                .calidad(resumen.getCalidad())
+                .destino(resumen.getDestino())
+                .temperaturaAlmacenamiento(resumen.getTemperaturaAlmacenamiento())
+                .responsablePaletizado(resumen.getResponsablePaletizado())
+                .estadoPallet(resumen.getEstadoPallet())
+                .observaciones(resumen.getObservaciones())
+                .activo(resumen.getActivo())
+                .createdAt(resumen.getCreatedAt())
+                .updatedAt(resumen.getUpdatedAt())
+                .totalEtiquetas(resumen.getTotalEtiquetas() != null ? resumen.getTotalEtiquetas().intValue() : 0)
+                .build();
     }
 
     public void updateEntityFromRequest(Pallet entity, PalletRequest request) {
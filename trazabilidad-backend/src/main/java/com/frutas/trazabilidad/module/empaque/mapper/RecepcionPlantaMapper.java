@@ -58,7 +58,9 @@ public class RecepcionPlantaMapper {
 
     public void updateEntityFromRequest(RecepcionPlanta entity, RecepcionPlantaRequest request, Lote lote) {
         entity.setLote(lote);
-        entity.setCodigoRecepcion(request.getCodigoRecepcion());
+        if (request.getCodigoRecepcion() != null && !request.getCodigoRecepcion().isBlank()) {
+            entity.setCodigoRecepcion(request.getCodigoRecepcion());
+        }
         entity.setFechaRecepcion(request.getFechaRecepcion());
         entity.setHoraRecepcion(request.getHoraRecepcion());
         entity.setCantidadRecibida(request.getCantidadRecibida());
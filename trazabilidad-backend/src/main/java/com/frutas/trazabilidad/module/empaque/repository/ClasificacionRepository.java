@@ -1,7 +1,12 @@
 package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,7 +15,12 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ClasificacionRepository extends JpaRepository<Clasificacion, Long> {
+public interface ClasificacionRepository extends JpaRepository<Clasificacion, Long>, JpaSpecificationExecutor<Clasificacion> {
+
+    // Listados paginados: el mapper lee la recepción y su lote
+    @Override
+    @EntityGraph(attributePaths = {"recepcion.lote"})
+    Page<Clasificacion> findAll(Specification<Clasificacion> spec, Pageable pageable);
 
     // Buscar por código único
     Optional<Clasificacion> findByCodigoClasificacion(String codigoClasificacion);
@@ -20,14 +30,14 @@ public interface ClasificacionRepository extends JpaRepository<Clasificacion, Lo
 
     // Listar clasificaciones por empresa
     @Query("SELECT c FROM Clasificacion c " +
-            "WHERE c.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE c.empresa.id = :empresaId " +
             "AND c.activo = true " +
             "ORDER BY c.fechaClasificacion DESC")
     List<Clasificacion> findByEmpresaId(@Param("empresaId") Long empresaId);
 
     // Listar por calidad específica
     @Query("SELECT c FROM Clasificacion c " +
-            "WHERE c.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE c.empresa.id = :empresaId " +
             "AND c.calidad = :calidad " +
             "AND c.activo = true")
     List<Clasificacion> findByEmpresaIdAndCalidad(
@@ -38,17 +48,14 @@ public interface ClasificacionRepository extends JpaRepository<Clasificacion, Lo
     // Estadísticas de calidad por empresa
     @Query("SELECT c.calidad, SUM(c.cantidadClasificada) " +
             "FROM Clasificacion c " +
-            "WHERE c.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE c.empresa.id = :empresaId " +
             "AND c.activo = true " +
             "GROUP BY c.calidad")
     List<Object[]> getEstadisticasCalidadByEmpresa(@Param("empresaId") Long empresaId);
 
-    // Verificar código único
-    boolean existsByCodigoClasificacion(String codigoClasificacion);
-
     // Validar pertenencia a empresa
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END " +
             "FROM Clasificacion c " +
-            "WHERE c.id = :id AND c.recepcion.lote.finca.empresa.id = :empresaId")
+            "WHERE c.id = :id AND c.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 }
\ No newline at end of file
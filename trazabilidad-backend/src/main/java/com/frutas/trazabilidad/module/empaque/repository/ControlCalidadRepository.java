@@ -1,7 +1,12 @@
 package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.ControlCalidad;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +16,12 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ControlCalidadRepository extends JpaRepository<ControlCalidad, Long> {
+public interface ControlCalidadRepository extends JpaRepository<ControlCalidad, Long>, JpaSpecificationExecutor<ControlCalidad> {
+
+    // Listados paginados: el mapper lee la clasificación y el pallet
+    @Override
+    @EntityGraph(attributePaths = {"clasificacion", "pallet"})
+    Page<ControlCalidad> findAll(Specification<ControlCalidad> spec, Pageable pageable);
 
     // Buscar por código
     Optional<ControlCalidad> findByCodigoControl(String codigoControl);
@@ -22,11 +32,10 @@ public interface ControlCalidadRepository extends JpaRepository<ControlCalidad,
     // Listar controles por pallet
     List<ControlCalidad> findByPalletIdAndActivoTrueOrderByFechaControlDesc(Long palletId);
 
-    // Listar por empresa (vía clasificación O vía pallet con etiquetas)
+    // Listar por empresa (empresa heredada de la clasificación o del pallet)
     @Query("SELECT c FROM ControlCalidad c " +
             "WHERE c.activo = true " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL) " +
+            "AND c.empresa.id = :empresaId " +
             "ORDER BY c.fechaControl DESC")
     List<ControlCalidad> findByEmpresaId(@Param("empresaId") Long empresaId);
 
@@ -34,8 +43,7 @@ public interface ControlCalidadRepository extends JpaRepository<ControlCalidad,
     @Query("SELECT c FROM ControlCalidad c " +
             "WHERE c.activo = true " +
             "AND c.tipoControl = :tipo " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL)")
+            "AND c.empresa.id = :empresaId")
     List<ControlCalidad> findByEmpresaIdAndTipo(
             @Param("empresaId") Long empresaId,
             @Param("tipo") String tipo
@@ -45,8 +53,7 @@ public interface ControlCalidadRepository extends JpaRepository<ControlCalidad,
     @Query("SELECT c FROM ControlCalidad c " +
             "WHERE c.activo = true " +
             "AND c.resultado = :resultado " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL)")
+            "AND c.empresa.id = :empresaId")
     List<ControlCalidad> findByEmpresaIdAndResultado(
             @Param("empresaId") Long empresaId,
             @Param("resultado") String resultado
@@ -56,8 +63,7 @@ public interface ControlCalidadRepository extends JpaRepository<ControlCalidad,
     @Query("SELECT c FROM ControlCalidad c " +
             "WHERE c.activo = true " +
             "AND c.fechaControl BETWEEN :desde AND :hasta " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL) " +
+            "AND c.empresa.id = :empresaId " +
             "ORDER BY c.fechaControl DESC")
     List<ControlCalidad> findByEmpresaIdAndFechaBetween(
             @Param("empresaId") Long empresaId,
@@ -69,19 +75,87 @@ public interface ControlCalidadRepository extends JpaRepository<ControlCalidad,
     @Query("SELECT c.resultado, COUNT(c) " +
             "FROM ControlCalidad c " +
             "WHERE c.activo = true " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL) " +
+            "AND c.empresa.id = :empresaId " +
             "GROUP BY c.resultado")
     List<Object[]> getEstadisticasResultados(@Param("empresaId") Long empresaId);
 
-    // Verificar código único
-    boolean existsByCodigoControl(String codigoControl);
+    // ==================== ANALÍTICA DE MEDICIONES ====================
+
+    /**
+     * Distribución de un parámetro medido dentro de un grupo (lote, finca, variedad o semana).
+     */
+    interface DistribucionParametro {
+        String getParametro();
+        String getGrupo();
+        Long getMediciones();
+        Double getMedia();
+        Double getDesviacion();
+        Double getMinimo();
+        Double getP10();
+        Double getMediana();
+        Double getP90();
+        Double getMaximo();
+        Double getCumplimiento();
+        Double getDiferencia();
+        Long getRanking();
+    }
+
+    /**
+     * Estadísticas por parámetro y grupo calculadas en la base de datos: percentiles con
+     * percentile_cont y, con funciones de ventana sobre los grupos, la diferencia de cada
+     * grupo con la media global del parámetro y su posición por media.
+     * El grupo sigue la cadena clasificación → recepción → lote → finca; los controles
+     * hechos solo sobre pallets quedan con grupo null salvo en la dimensión SEMANA.
+     * La dimensión FINCA agrupa por id de finca (dos fincas pueden llamarse igual) y
+     * devuelve su nombre como etiqueta del grupo.
+     * Usa el índice parcial idx_control_medicion (ver V16__mediciones_control_calidad.sql).
+     */
+    @Query(value = "SELECT d.parametro AS parametro, COALESCE(d.nombre, d.clave) AS grupo, d.mediciones AS mediciones, " +
+            "d.media AS media, d.desviacion AS desviacion, d.minimo AS minimo, d.p10 AS p10, " +
+            "d.mediana AS mediana, d.p90 AS p90, d.maximo AS maximo, d.cumplimiento AS cumplimiento, " +
+            "d.media - SUM(d.suma) OVER (PARTITION BY d.parametro) " +
+            "    / CAST(SUM(d.mediciones) OVER (PARTITION BY d.parametro) AS DOUBLE PRECISION) AS diferencia, " +
+            "RANK() OVER (PARTITION BY d.parametro ORDER BY d.media DESC) AS ranking " +
+            "FROM (" +
+            "  SELECT c.parametro_codigo AS parametro, " +
+            "  CASE CAST(:dimension AS VARCHAR) " +
+            "    WHEN 'LOTE' THEN l.codigo_lote " +
+            "    WHEN 'FINCA' THEN CAST(f.id AS VARCHAR) " +
+            "    WHEN 'VARIEDAD' THEN l.variedad " +
+            "    ELSE TO_CHAR(c.fecha_control, 'IYYY-\"S\"IW') END AS clave, " +
+            "  MIN(CASE CAST(:dimension AS VARCHAR) WHEN 'FINCA' THEN f.nombre END) AS nombre, " +
+            "  COUNT(*) AS mediciones, " +
+            "  SUM(c.valor_medido_num) AS suma, " +
+            "  AVG(c.valor_medido_num) AS media, " +
+            "  STDDEV_SAMP(c.valor_medido_num) AS desviacion, " +
+            "  MIN(c.valor_medido_num) AS minimo, " +
+            "  PERCENTILE_CONT(0.1) WITHIN GROUP (ORDER BY c.valor_medido_num) AS p10, " +
+            "  PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY c.valor_medido_num) AS mediana, " +
+            "  PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY c.valor_medido_num) AS p90, " +
+            "  MAX(c.valor_medido_num) AS maximo, " +
+            "  CAST(AVG(CASE WHEN c.cumple_especificacion THEN 1 ELSE 0 END) AS DOUBLE PRECISION) AS cumplimiento " +
+            "  FROM controles_calidad c " +
+            "  LEFT JOIN clasificaciones cl ON cl.id = c.clasificacion_id " +
+            "  LEFT JOIN recepciones_planta r ON r.id = cl.recepcion_id " +
+            "  LEFT JOIN lotes l ON l.id = r.lote_id " +
+            "  LEFT JOIN fincas f ON f.id = l.finca_id " +
+            "  WHERE c.empresa_id = :empresaId AND c.activo = true " +
+            "  AND c.valor_medido_num IS NOT NULL " +
+            "  AND c.fecha_control BETWEEN :desde AND :hasta " +
+            "  AND (CAST(:parametro AS VARCHAR) IS NULL OR c.parametro_codigo = :parametro) " +
+            "  GROUP BY 1, 2" +
+            ") d " +
+            "ORDER BY d.parametro, grupo", nativeQuery = true)
+    List<DistribucionParametro> findDistribucion(@Param("empresaId") Long empresaId,
+                                                 @Param("dimension") String dimension,
+                                                 @Param("parametro") String parametro,
+                                                 @Param("desde") LocalDate desde,
+                                                 @Param("hasta") LocalDate hasta);
 
     // Validar pertenencia a empresa (por clasificación o pallet)
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END " +
             "FROM ControlCalidad c " +
             "WHERE c.id = :id " +
-            "AND (c.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
-            "     OR c.pallet IS NOT NULL)")
+            "AND c.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.frutas.trazabilidad.module.empaque.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio JDBC de lectura de las tandas de impresión de etiquetas: la hoja de
+ * impresión recorre la tanda por bloques con proyecciones planas, sin cargar entidades.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EtiquetaLoteRepository {
+
+    private static final String SQL_IMPRESION =
+            "SELECT e.id, e.codigo_etiqueta, e.codigo_qr, c.codigo_clasificacion, c.calidad " +
+            "FROM etiquetas e JOIN clasificaciones c ON c.id = e.clasificacion_id " +
+            "WHERE e.lote_impresion = ? AND e.empresa_id = ? AND e.activo = true AND e.id > ? " +
+            "ORDER BY e.id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Datos que se imprimen en cada etiqueta de la hoja.
+     */
+    public record EtiquetaImpresion(Long id, String codigoEtiqueta, String codigoQr,
+                                    String codigoClasificacion, String calidad) {
+    }
+
+    /**
+     * Número de etiquetas activas de una tanda de la empresa.
+     */
+    public int countTanda(String loteImpresion, Long empresaId) {
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM etiquetas WHERE lote_impresion = ? AND empresa_id = ? AND activo = true",
+                Integer.class, loteImpresion, empresaId);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Siguiente página de etiquetas de una tanda, por id (keyset).
+     */
+    public List<EtiquetaImpresion> findParaImpresion(String loteImpresion, Long empresaId, long despuesDeId, int limite) {
+        return jdbcTemplate.query(SQL_IMPRESION,
+                (rs, i) -> new EtiquetaImpresion(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)),
+                loteImpresion, empresaId, despuesDeId, limite);
+    }
+}
@@ -2,8 +2,12 @@ package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.EtiquetaPallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +22,23 @@ public interface EtiquetaPalletRepository extends JpaRepository<EtiquetaPallet,
      * Verifica si una etiqueta ya está asignada a un pallet.
      */
     boolean existsByEtiquetaIdAndActivoTrue(Long etiquetaId);
+
+    /**
+     * Proyección con el código de una etiqueta y el pallet que la contiene.
+     */
+    interface CodigoEtiquetaPallet {
+        Long getPalletId();
+        String getCodigoEtiqueta();
+    }
+
+    /**
+     * Obtiene en una sola consulta los códigos de etiqueta de un conjunto de pallets,
+     * ordenados por pallet y posición dentro del pallet.
+     */
+    @Query("SELECT ep.pallet.id AS palletId, e.codigoEtiqueta AS codigoEtiqueta " +
+            "FROM EtiquetaPallet ep " +
+            "JOIN ep.etiqueta e " +
+            "WHERE ep.pallet.id IN :palletIds " +
+            "ORDER BY ep.pallet.id, ep.posicionEnPallet, ep.id")
+    List<CodigoEtiquetaPallet> findCodigosByPalletIds(@Param("palletIds") Collection<Long> palletIds);
 }
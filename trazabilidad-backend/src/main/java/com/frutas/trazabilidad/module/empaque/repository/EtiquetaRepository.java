@@ -1,20 +1,40 @@
 package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long> {
+public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long>, JpaSpecificationExecutor<Etiqueta> {
+
+    // Listados paginados: el mapper recorre clasificación, recepción, lote y finca
+    @Override
+    @EntityGraph(attributePaths = {"clasificacion.recepcion.lote.finca"})
+    Page<Etiqueta> findAll(Specification<Etiqueta> spec, Pageable pageable);
 
     // Buscar por código QR (para consulta pública)
     Optional<Etiqueta> findByCodigoQr(String codigoQr);
 
+    // Verificar que un código QR corresponde a una etiqueta activa (render público del QR)
+    boolean existsByCodigoQrAndActivoTrue(String codigoQr);
+
+    // Código QR de una etiqueta validando pertenencia a empresa (sin cargar la entidad)
+    @Query("SELECT e.codigoQr FROM Etiqueta e WHERE e.id = :id AND e.empresa.id = :empresaId")
+    Optional<String> findCodigoQrByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
+
     // Buscar por código etiqueta
     Optional<Etiqueta> findByCodigoEtiqueta(String codigoEtiqueta);
 
@@ -23,14 +43,14 @@ public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long> {
 
     // Listar etiquetas por empresa
     @Query("SELECT e FROM Etiqueta e " +
-            "WHERE e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE e.empresa.id = :empresaId " +
             "AND e.activo = true " +
             "ORDER BY e.createdAt DESC")
     List<Etiqueta> findByEmpresaId(@Param("empresaId") Long empresaId);
 
     // Listar etiquetas por estado
     @Query("SELECT e FROM Etiqueta e " +
-            "WHERE e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE e.empresa.id = :empresaId " +
             "AND e.estadoEtiqueta = :estado " +
             "AND e.activo = true")
     List<Etiqueta> findByEmpresaIdAndEstado(
@@ -40,7 +60,7 @@ public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long> {
 
     // Listar etiquetas por tipo
     @Query("SELECT e FROM Etiqueta e " +
-            "WHERE e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
+            "WHERE e.empresa.id = :empresaId " +
             "AND e.tipoEtiqueta = :tipo " +
             "AND e.activo = true")
     List<Etiqueta> findByEmpresaIdAndTipo(
@@ -48,29 +68,91 @@ public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long> {
             @Param("tipo") String tipo
     );
 
-    // Verificar códigos únicos
-    boolean existsByCodigoEtiqueta(String codigoEtiqueta);
-    boolean existsByCodigoQr(String codigoQr);
-
     // Validar pertenencia a empresa
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END " +
             "FROM Etiqueta e " +
-            "WHERE e.id = :id AND e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId")
+            "WHERE e.id = :id AND e.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     // Buscar etiqueta por ID validando pertenencia a empresa
     @Query("SELECT e FROM Etiqueta e " +
-            "WHERE e.id = :id AND e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId")
+            "WHERE e.id = :id AND e.empresa.id = :empresaId")
     Optional<Etiqueta> findByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     // Listar etiquetas por clasificación validando empresa
     @Query("SELECT e FROM Etiqueta e " +
             "WHERE e.clasificacion.id = :clasificacionId " +
-            "AND e.clasificacion.recepcion.lote.finca.empresa.id = :empresaId " +
+            "AND e.empresa.id = :empresaId " +
             "AND e.activo = true " +
             "ORDER BY e.createdAt DESC")
     List<Etiqueta> findByClasificacionIdAndEmpresaId(
             @Param("clasificacionId") Long clasificacionId,
             @Param("empresaId") Long empresaId
     );
-}
\ No newline at end of file
+
+    /**
+     * Proyección con los datos mínimos para validar la disponibilidad de una etiqueta.
+     */
+    interface DisponibilidadEtiqueta {
+        Long getId();
+        String getCodigoEtiqueta();
+        String getEstadoEtiqueta();
+        Boolean getActivo();
+    }
+
+    /**
+     * Obtiene en una sola consulta el estado de un conjunto de etiquetas de la empresa.
+     * Los IDs que no aparecen en el resultado no existen o pertenecen a otra empresa.
+     */
+    @Query("SELECT e.id AS id, e.codigoEtiqueta AS codigoEtiqueta, " +
+            "e.estadoEtiqueta AS estadoEtiqueta, e.activo AS activo " +
+            "FROM Etiqueta e " +
+            "WHERE e.id IN :ids " +
+            "AND e.empresa.id = :empresaId")
+    List<DisponibilidadEtiqueta> findDisponibilidadByIdsAndEmpresaId(@Param("ids") Collection<Long> ids,
+                                                                     @Param("empresaId") Long empresaId);
+
+    /**
+     * Proyección para resolver códigos escaneados (código de etiqueta o UUID del QR) a IDs,
+     * con el estado necesario para rechazar en el escaneo las etiquetas no disponibles.
+     */
+    interface IdentificacionEtiqueta {
+        Long getId();
+        String getCodigoEtiqueta();
+        String getCodigoQr();
+        String getEstadoEtiqueta();
+        Boolean getActivo();
+    }
+
+    /**
+     * Resuelve en una sola consulta un conjunto de códigos escaneados, aceptando tanto
+     * el código impreso de la etiqueta como el UUID de su QR.
+     */
+    @Query("SELECT e.id AS id, e.codigoEtiqueta AS codigoEtiqueta, e.codigoQr AS codigoQr, " +
+            "e.estadoEtiqueta AS estadoEtiqueta, e.activo AS activo " +
+            "FROM Etiqueta e " +
+            "WHERE (e.codigoEtiqueta IN :codigos OR e.codigoQr IN :codigos) " +
+            "AND e.empresa.id = :empresaId")
+    List<IdentificacionEtiqueta> findIdentificacionByCodigosAndEmpresaId(@Param("codigos") Collection<String> codigos,
+                                                                         @Param("empresaId") Long empresaId);
+
+    /**
+     * Marca un conjunto de etiquetas como asignadas a pallet con un único UPDATE
+     * (origen DISPONIBLE, destino ASIGNADA_PALLET, como nombres de EstadoEtiqueta).
+     * Repite la condición de disponibilidad para que una asignación concurrente se
+     * detecte comparando el número de filas actualizadas, e incrementa la versión
+     * para que operaciones que tengan la etiqueta cargada fallen por bloqueo optimista.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Etiqueta e SET e.estadoEtiqueta = :destino, " +
+            "e.updatedAt = :ahora, e.version = e.version + 1 " +
+            "WHERE e.id IN :ids " +
+            "AND e.empresa.id = :empresaId " +
+            "AND e.estadoEtiqueta = :origen " +
+            "AND e.activo = true")
+    int asignarAPalletMasivo(@Param("ids") Collection<Long> ids,
+                             @Param("empresaId") Long empresaId,
+                             @Param("origen") String origen,
+                             @Param("destino") String destino,
+                             @Param("ahora") LocalDateTime ahora);
+}
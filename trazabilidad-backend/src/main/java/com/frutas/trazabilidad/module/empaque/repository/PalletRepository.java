@@ -1,11 +1,18 @@
 package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
+import com.frutas.trazabilidad.module.logistica.entity.Envio;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,14 +62,17 @@ public interface PalletRepository extends JpaRepository<Pallet, Long> {
     boolean existsByCodigoPalletAndEmpresaId(String codigoPallet, Long empresaId);
 
     /**
-     * Busca pallets listos para envío (armados o en cámara) dentro de una empresa.
+     * Busca pallets listos para envío dentro de una empresa.
+     *
+     * @param estados estados asignables a un envío (EstadoPallet.ASIGNABLES_A_ENVIO)
      */
     @Query("SELECT p FROM Pallet p " +
             "WHERE p.empresa.id = :empresaId " +
-            "AND p.estadoPallet IN ('ARMADO', 'EN_CAMARA') " +
+            "AND p.estadoPallet IN :estados " +
             "AND p.activo = true " +
             "ORDER BY p.fechaPaletizado")
-    List<Pallet> findPalletsListosParaEnvio(@Param("empresaId") Long empresaId);
+    List<Pallet> findPalletsListosParaEnvio(@Param("empresaId") Long empresaId,
+                                            @Param("estados") Collection<String> estados);
 
     /**
      * Cuenta pallets activos por empresa.
@@ -80,6 +90,231 @@ public interface PalletRepository extends JpaRepository<Pallet, Long> {
             "ORDER BY p.fechaPaletizado DESC")
     List<Pallet> findByClasificacionId(@Param("clasificacionId") Long clasificacionId);
 
+    // ==================== RESÚMENES PARA LISTADOS ====================
+
+    /**
+     * Proyección de un pallet para listados: columnas propias más el total de etiquetas
+     * calculado en SQL, sin cargar la colección de etiquetas.
+     */
+    interface ResumenPallet {
+        Long getId();
+        String getCodigoPallet();
+        LocalDate getFechaPaletizado();
+        String getTipoPallet();
+        Integer getNumeroCajas();
+        Double getPesoNetoTotal();
+        Double getPesoBrutoTotal();
+        Double getAlturaPallet();
+        String getTipoFruta();
+        String getCalidad();
+        String getDestino();
+        Double getTemperaturaAlmacenamiento();
+        String getResponsablePaletizado();
+        String getEstadoPallet();
+        String getObservaciones();
+        Boolean getActivo();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        Long getTotalEtiquetas();
+    }
+
+    String SELECT_RESUMEN = "SELECT p.id AS id, p.codigoPallet AS codigoPallet, " +
+            "p.fechaPaletizado AS fechaPaletizado, p.tipoPallet AS tipoPallet, p.numeroCajas AS numeroCajas, " +
+            "p.pesoNetoTotal AS pesoNetoTotal, p.pesoBrutoTotal AS pesoBrutoTotal, " +
+            "p.alturaPallet AS alturaPallet, p.tipoFruta AS tipoFruta, p.calidad AS calidad, " +
+            "p.destino AS destino, p.temperaturaAlmacenamiento AS temperaturaAlmacenamiento, " +
+            "p.responsablePaletizado AS responsablePaletizado, p.estadoPallet AS estadoPallet, " +
+            "p.observaciones AS observaciones, p.activo AS activo, " +
+            "p.createdAt AS createdAt, p.updatedAt AS updatedAt, " +
+            "(SELECT COUNT(ep) FROM EtiquetaPallet ep WHERE ep.pallet = p) AS totalEtiquetas " +
+            "FROM Pallet p ";
+
+    // Conteo para la paginación; el orden de los resúmenes lo define el Pageable
+    String COUNT_RESUMEN = "SELECT COUNT(p) FROM Pallet p ";
+
+    /**
+     * Resumen de los pallets activos de una empresa.
+     */
+    @Query(value = SELECT_RESUMEN + "WHERE p.empresa.id = :empresaId AND p.activo = true",
+            countQuery = COUNT_RESUMEN + "WHERE p.empresa.id = :empresaId AND p.activo = true")
+    Page<ResumenPallet> findResumenByEmpresaId(@Param("empresaId") Long empresaId, Pageable pageable);
+
+    /**
+     * Resumen de pallets por estado dentro de una empresa.
+     */
+    @Query(value = SELECT_RESUMEN +
+            "WHERE p.empresa.id = :empresaId AND p.estadoPallet = :estado AND p.activo = true",
+            countQuery = COUNT_RESUMEN +
+                    "WHERE p.empresa.id = :empresaId AND p.estadoPallet = :estado AND p.activo = true")
+    Page<ResumenPallet> findResumenByEmpresaIdAndEstado(@Param("empresaId") Long empresaId,
+                                                        @Param("estado") String estado,
+                                                        Pageable pageable);
+
+    /**
+     * Resumen de pallets por destino (búsqueda parcial) dentro de una empresa.
+     */
+    @Query(value = SELECT_RESUMEN +
+            "WHERE p.empresa.id = :empresaId AND p.activo = true " +
+            "AND LOWER(p.destino) LIKE LOWER(CONCAT('%', :destino, '%'))",
+            countQuery = COUNT_RESUMEN +
+                    "WHERE p.empresa.id = :empresaId AND p.activo = true " +
+                    "AND LOWER(p.destino) LIKE LOWER(CONCAT('%', :destino, '%'))")
+    Page<ResumenPallet> findResumenByEmpresaIdAndDestino(@Param("empresaId") Long empresaId,
+                                                         @Param("destino") String destino,
+                                                         Pageable pageable);
+
+    /**
+     * Resumen de pallets por tipo de fruta dentro de una empresa.
+     */
+    @Query(value = SELECT_RESUMEN +
+            "WHERE p.empresa.id = :empresaId AND p.tipoFruta = :tipoFruta AND p.activo = true",
+            countQuery = COUNT_RESUMEN +
+                    "WHERE p.empresa.id = :empresaId AND p.tipoFruta = :tipoFruta AND p.activo = true")
+    Page<ResumenPallet> findResumenByEmpresaIdAndTipoFruta(@Param("empresaId") Long empresaId,
+                                                           @Param("tipoFruta") String tipoFruta,
+                                                           Pageable pageable);
+
+    /**
+     * Resumen de pallets listos para envío dentro de una empresa.
+     *
+     * @param estados estados asignables a un envío (EstadoPallet.ASIGNABLES_A_ENVIO)
+     */
+    @Query(value = SELECT_RESUMEN +
+            "WHERE p.empresa.id = :empresaId " +
+            "AND p.estadoPallet IN :estados " +
+            "AND p.activo = true",
+            countQuery = COUNT_RESUMEN +
+                    "WHERE p.empresa.id = :empresaId " +
+                    "AND p.estadoPallet IN :estados " +
+                    "AND p.activo = true")
+    Page<ResumenPallet> findResumenListosParaEnvio(@Param("empresaId") Long empresaId,
+                                                   @Param("estados") Collection<String> estados,
+                                                   Pageable pageable);
+
+    /**
+     * Resumen de pallets de la empresa con etiquetas de una clasificación dada.
+     */
+    @Query(value = SELECT_RESUMEN +
+            "WHERE p.empresa.id = :empresaId AND p.activo = true " +
+            "AND EXISTS (SELECT 1 FROM EtiquetaPallet ep JOIN ep.etiqueta e " +
+            "WHERE ep.pallet = p AND e.clasificacion.id = :clasificacionId)",
+            countQuery = COUNT_RESUMEN +
+                    "WHERE p.empresa.id = :empresaId AND p.activo = true " +
+                    "AND EXISTS (SELECT 1 FROM EtiquetaPallet ep JOIN ep.etiqueta e " +
+                    "WHERE ep.pallet = p AND e.clasificacion.id = :clasificacionId)")
+    Page<ResumenPallet> findResumenByClasificacionId(@Param("clasificacionId") Long clasificacionId,
+                                                     @Param("empresaId") Long empresaId,
+                                                     Pageable pageable);
+
+    // ==================== ASIGNACIÓN MASIVA A ENVÍOS ====================
+
+    /**
+     * Proyección con los datos mínimos para validar la disponibilidad de un pallet.
+     */
+    interface DisponibilidadPallet {
+        Long getId();
+        String getCodigoPallet();
+        String getEstadoPallet();
+        Boolean getActivo();
+        Long getEnvioId();
+    }
+
+    /**
+     * Proyección con los totales agregados de un conjunto de pallets.
+     */
+    interface TotalesEnvio {
+        Long getNumeroPallets();
+        Long getNumeroCajas();
+        Double getPesoNetoTotal();
+        Double getPesoBrutoTotal();
+    }
+
+    /**
+     * Obtiene en una sola consulta el estado de un conjunto de pallets de la empresa.
+     * Los IDs que no aparecen en el resultado no existen o pertenecen a otra empresa.
+     */
+    @Query("SELECT p.id AS id, p.codigoPallet AS codigoPallet, " +
+            "p.estadoPallet AS estadoPallet, p.activo AS activo, en.id AS envioId " +
+            "FROM Pallet p LEFT JOIN p.envio en " +
+            "WHERE p.id IN :ids " +
+            "AND p.empresa.id = :empresaId")
+    List<DisponibilidadPallet> findDisponibilidadByIdsAndEmpresaId(@Param("ids") Collection<Long> ids,
+                                                                   @Param("empresaId") Long empresaId);
+
+    /**
+     * Asigna un conjunto de pallets a un envío con un único UPDATE (destino ASIGNADO_ENVIO,
+     * orígenes EstadoPallet.ASIGNABLES_A_ENVIO, como nombres de EstadoPallet).
+     * Repite la condición de disponibilidad para que un cambio concurrente de estado
+     * se detecte comparando el número de filas actualizadas, e incrementa la versión
+     * para que operaciones que tengan el pallet cargado fallen por bloqueo optimista.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Pallet p SET p.envio = :envio, p.estadoPallet = :destino, " +
+            "p.updatedAt = :ahora, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids " +
+            "AND p.empresa.id = :empresaId " +
+            "AND p.estadoPallet IN :origenes " +
+            "AND p.activo = true")
+    int asignarAEnvio(@Param("envio") Envio envio,
+                      @Param("ids") Collection<Long> ids,
+                      @Param("empresaId") Long empresaId,
+                      @Param("origenes") Collection<String> origenes,
+                      @Param("destino") String destino,
+                      @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Libera un conjunto de pallets de un envío con un único UPDATE.
+     * Solo actualiza pallets activos del envío que siguen en el estado de origen, por lo
+     * que un cambio concurrente de estado se detecta comparando el número de filas.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Pallet p SET p.envio = null, p.estadoPallet = :destino, " +
+            "p.updatedAt = :ahora, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids " +
+            "AND p.envio.id = :envioId " +
+            "AND p.estadoPallet = :origen " +
+            "AND p.activo = true")
+    int desasignarDeEnvio(@Param("envioId") Long envioId,
+                          @Param("ids") Collection<Long> ids,
+                          @Param("origen") String origen,
+                          @Param("destino") String destino,
+                          @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Calcula en una sola consulta los totales de un subconjunto de pallets de un envío.
+     * Se usa para obtener el delta a aplicar sobre los totales del envío cuando
+     * esos pallets entran o salen, sin cargar el resto de pallets del envío.
+     */
+    @Query("SELECT COUNT(p) AS numeroPallets, " +
+            "COALESCE(SUM(p.numeroCajas), 0) AS numeroCajas, " +
+            "COALESCE(SUM(p.pesoNetoTotal), 0.0) AS pesoNetoTotal, " +
+            "COALESCE(SUM(p.pesoBrutoTotal), 0.0) AS pesoBrutoTotal " +
+            "FROM Pallet p " +
+            "WHERE p.envio.id = :envioId " +
+            "AND p.id IN :ids")
+    TotalesEnvio calcularTotalesPorIds(@Param("envioId") Long envioId,
+                                       @Param("ids") Collection<Long> ids);
+
+    // ==================== CAMBIO DE ESTADO MASIVO ====================
+
+    /**
+     * Cambia el estado de un conjunto de pallets con un único UPDATE.
+     * Solo actualiza pallets cuyo estado actual está entre los orígenes permitidos para
+     * el destino, por lo que un cambio concurrente se detecta por el número de filas.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Pallet p SET p.estadoPallet = :destino, " +
+            "p.updatedAt = :ahora, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids " +
+            "AND p.empresa.id = :empresaId " +
+            "AND p.activo = true " +
+            "AND p.estadoPallet IN :origenes")
+    int cambiarEstadoMasivo(@Param("ids") Collection<Long> ids,
+                            @Param("empresaId") Long empresaId,
+                            @Param("destino") String destino,
+                            @Param("origenes") Collection<String> origenes,
+                            @Param("ahora") LocalDateTime ahora);
+
     // ==================== MÉTODOS LEGACY (SIN FILTRO - DEPRECADOS) ====================
 
     /**
@@ -125,12 +360,12 @@ public interface PalletRepository extends JpaRepository<Pallet, Long> {
     boolean existsByCodigoPallet(String codigoPallet);
 
     /**
-     * @deprecated Use findPalletsListosParaEnvio(empresaId) instead
+     * @deprecated Use findPalletsListosParaEnvio(empresaId, estados) instead
      */
     @Deprecated
     @Query("SELECT p FROM Pallet p " +
-            "WHERE p.estadoPallet IN ('ARMADO', 'EN_CAMARA') " +
+            "WHERE p.estadoPallet IN :estados " +
             "AND p.activo = true " +
             "ORDER BY p.fechaPaletizado")
-    List<Pallet> findPalletsListosParaEnvioSinFiltro();
+    List<Pallet> findPalletsListosParaEnvioSinFiltro(@Param("estados") Collection<String> estados);
 }
@@ -1,7 +1,12 @@
 package com.frutas.trazabilidad.module.empaque.repository;
 
 import com.frutas.trazabilidad.module.empaque.entity.RecepcionPlanta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +16,12 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RecepcionPlantaRepository extends JpaRepository<RecepcionPlanta, Long> {
+public interface RecepcionPlantaRepository extends JpaRepository<RecepcionPlanta, Long>, JpaSpecificationExecutor<RecepcionPlanta> {
+
+    // Listados paginados: el mapper lee el lote y su finca
+    @Override
+    @EntityGraph(attributePaths = {"lote.finca"})
+    Page<RecepcionPlanta> findAll(Specification<RecepcionPlanta> spec, Pageable pageable);
 
     // Buscar por código único
     Optional<RecepcionPlanta> findByCodigoRecepcion(String codigoRecepcion);
@@ -19,16 +29,16 @@ public interface RecepcionPlantaRepository extends JpaRepository<RecepcionPlanta
     // Listar recepciones por lote
     List<RecepcionPlanta> findByLoteIdAndActivoTrueOrderByFechaRecepcionDesc(Long loteId);
 
-    // Listar recepciones por empresa (vía lote)
+    // Listar recepciones por empresa
     @Query("SELECT r FROM RecepcionPlanta r " +
-            "WHERE r.lote.finca.empresa.id = :empresaId " +
+            "WHERE r.empresa.id = :empresaId " +
             "AND r.activo = true " +
             "ORDER BY r.fechaRecepcion DESC")
     List<RecepcionPlanta> findByEmpresaId(@Param("empresaId") Long empresaId);
 
     // Listar recepciones por estado
     @Query("SELECT r FROM RecepcionPlanta r " +
-            "WHERE r.lote.finca.empresa.id = :empresaId " +
+            "WHERE r.empresa.id = :empresaId " +
             "AND r.estadoRecepcion = :estado " +
             "AND r.activo = true")
     List<RecepcionPlanta> findByEmpresaIdAndEstado(
@@ -38,7 +48,7 @@ public interface RecepcionPlantaRepository extends JpaRepository<RecepcionPlanta
 
     // Recepciones por rango de fechas
     @Query("SELECT r FROM RecepcionPlanta r " +
-            "WHERE r.lote.finca.empresa.id = :empresaId " +
+            "WHERE r.empresa.id = :empresaId " +
             "AND r.fechaRecepcion BETWEEN :desde AND :hasta " +
             "AND r.activo = true " +
             "ORDER BY r.fechaRecepcion DESC")
@@ -48,18 +58,15 @@ public interface RecepcionPlantaRepository extends JpaRepository<RecepcionPlanta
             @Param("hasta") LocalDate hasta
     );
 
-    // Verificar si código ya existe
-    boolean existsByCodigoRecepcion(String codigoRecepcion);
-
     // Validar pertenencia a empresa
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END " +
             "FROM RecepcionPlanta r " +
-            "WHERE r.id = :id AND r.lote.finca.empresa.id = :empresaId")
+            "WHERE r.id = :id AND r.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     // Validar recepción pertenencia a empresa
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END " +
             "FROM RecepcionPlanta r " +
-            "WHERE r.id = :recepcionId AND r.lote.finca.empresa.id = :empresaId")
+            "WHERE r.id = :recepcionId AND r.empresa.id = :empresaId")
     boolean existsByRecepcionIdAndEmpresaId(@Param("recepcionId") Long recepcionId, @Param("empresaId") Long empresaId);
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.frutas.trazabilidad.module.empaque.repository;
+
+import com.frutas.trazabilidad.module.empaque.entity.MetricaThroughput;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositorio JDBC para los rollups horarios de rendimiento de empaque (throughput_empaque_hora).
+ * Se escribe por JDBC batch con deltas que se suman al valor guardado, sin entidades JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ThroughputEmpaqueRepository {
+
+    private static final String SQL_ACUMULAR =
+            "INSERT INTO throughput_empaque_hora AS t (empresa_id, hora, metrica, calidad, valor) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (empresa_id, hora, metrica, calidad) DO UPDATE SET valor = t.valor + EXCLUDED.valor";
+
+    private static final int[] TIPOS = {
+            Types.BIGINT, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.BIGINT
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Valor de una métrica en una hora; calidad es cadena vacía salvo en KG_CLASIFICADOS.
+     */
+    public record RollupHora(Long empresaId, LocalDateTime hora, MetricaThroughput metrica, String calidad,
+                             long valor) {
+    }
+
+    /**
+     * Suma los deltas sobre los rollups guardados (upsert por JDBC batch).
+     * Los deltas deben llegar ordenados por clave para que varias instancias bloqueen
+     * las filas en el mismo orden y no se produzcan deadlocks.
+     */
+    public void acumular(List<RollupHora> deltas) {
+        List<Object[]> filas = new ArrayList<>(deltas.size());
+        for (RollupHora delta : deltas) {
+            filas.add(new Object[]{
+                    delta.empresaId(), delta.hora(), delta.metrica().name(), delta.calidad(), delta.valor()
+            });
+        }
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR, filas, TIPOS);
+    }
+
+    /**
+     * Rollups de una empresa en el rango de horas [desde, hasta).
+     */
+    public List<RollupHora> findRollups(Long empresaId, LocalDateTime desde, LocalDateTime hasta) {
+        return jdbcTemplate.query(
+                "SELECT empresa_id, hora, metrica, calidad, valor FROM throughput_empaque_hora " +
+                "WHERE empresa_id = ? AND hora >= ? AND hora < ? ORDER BY hora",
+                (rs, fila) -> new RollupHora(
+                        rs.getLong("empresa_id"),
+                        rs.getObject("hora", LocalDateTime.class),
+                        MetricaThroughput.valueOf(rs.getString("metrica")),
+                        rs.getString("calidad"),
+                        rs.getLong("valor")),
+                empresaId, desde, hasta);
+    }
+}
@@ -8,13 +8,17 @@ import com.frutas.trazabilidad.module.empaque.mapper.ClasificacionMapper;
 import com.frutas.trazabilidad.module.empaque.repository.ClasificacionRepository;
 import com.frutas.trazabilidad.module.empaque.repository.RecepcionPlantaRepository;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService.TipoCodigo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Servicio para gestión de clasificaciones.
  */
@@ -25,27 +29,26 @@ public class ClasificacionService {
     private final ClasificacionRepository clasificacionRepository;
     private final RecepcionPlantaRepository recepcionRepository;
     private final ClasificacionMapper mapper;
+    private final SecuenciaCodigoService secuenciaCodigoService;
+    private final ListadoService listadoService;
+    private final ThroughputEmpaqueService throughputService;
 
     @Transactional(readOnly = true)
-    public List<ClasificacionResponse> listarPorEmpresa(Long empresaId) {
-        return clasificacionRepository.findByEmpresaId(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ClasificacionResponse> listarPorRecepcion(Long recepcionId, Long empresaId) {
+    public Page<?> listarPorRecepcion(Long recepcionId, Long empresaId, Pageable pageable, String campos) {
         validarRecepcionPertenencia(recepcionId, empresaId);
-        return clasificacionRepository.findByRecepcionIdAndActivoTrueOrderByFechaClasificacionDesc(recepcionId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<Clasificacion>igual("recepcion.id", recepcionId)
+                .and(Especificaciones.activos()), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ClasificacionResponse> listarPorCalidad(Long empresaId, String calidad) {
-        return clasificacionRepository.findByEmpresaIdAndCalidad(empresaId, calidad).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorCalidad(Long empresaId, String calidad, Pageable pageable, String campos) {
+        return listar(Especificaciones.<Clasificacion>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("calidad", calidad)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
@@ -59,11 +62,6 @@ public class ClasificacionService {
 
     @Transactional
     public ClasificacionResponse crear(ClasificacionRequest request, Long empresaId) {
-        // Validar código único
-        if (clasificacionRepository.existsByCodigoClasificacion(request.getCodigoClasificacion())) {
-            throw new IllegalArgumentException("Ya existe una clasificación con el código: " + request.getCodigoClasificacion());
-        }
-
         // Validar recepción
         RecepcionPlanta recepcion = recepcionRepository.findById(request.getRecepcionId())
                 .orElseThrow(() -> new ResourceNotFoundException("Recepción no encontrada con ID: " + request.getRecepcionId()));
@@ -71,7 +69,12 @@ public class ClasificacionService {
         validarRecepcionPertenencia(recepcion.getId(), empresaId);
 
         Clasificacion clasificacion = mapper.toEntity(request, recepcion);
+        if (clasificacion.getCodigoClasificacion() == null || clasificacion.getCodigoClasificacion().isBlank()) {
+            clasificacion.setCodigoClasificacion(secuenciaCodigoService.siguienteCodigo(empresaId, TipoCodigo.CLASIFICACION));
+        }
         Clasificacion saved = clasificacionRepository.save(clasificacion);
+        throughputService.registrarClasificacion(empresaId, saved.getCalidad(),
+                saved.getCantidadClasificada(), saved.getUnidadMedida());
 
         return mapper.toResponse(saved);
     }
@@ -83,12 +86,6 @@ public class ClasificacionService {
 
         validarPertenenciaEmpresa(clasificacion, empresaId);
 
-        // Validar código único si cambió
-        if (!clasificacion.getCodigoClasificacion().equals(request.getCodigoClasificacion()) &&
-                clasificacionRepository.existsByCodigoClasificacion(request.getCodigoClasificacion())) {
-            throw new IllegalArgumentException("Ya existe una clasificación con el código: " + request.getCodigoClasificacion());
-        }
-
         // Validar recepción
         RecepcionPlanta recepcion = recepcionRepository.findById(request.getRecepcionId())
                 .orElseThrow(() -> new ResourceNotFoundException("Recepción no encontrada con ID: " + request.getRecepcionId()));
@@ -112,6 +109,11 @@ public class ClasificacionService {
         clasificacionRepository.save(clasificacion);
     }
 
+    private Page<?> listar(Specification<Clasificacion> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(clasificacionRepository, Clasificacion.class, filtro, pageable, campos,
+                ClasificacionResponse.class, mapper::toResponse);
+    }
+
     private void validarRecepcionPertenencia(Long recepcionId, Long empresaId) {
         if (!recepcionRepository.existsByRecepcionIdAndEmpresaId(recepcionId, empresaId)) {
             throw new IllegalArgumentException("La recepción no pertenece a la empresa del usuario");
@@ -119,7 +121,7 @@ public class ClasificacionService {
     }
 
     private void validarPertenenciaEmpresa(Clasificacion clasificacion, Long empresaId) {
-        if (!clasificacion.getRecepcion().getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!clasificacion.getEmpresa().getId().equals(empresaId)) {
             throw new IllegalArgumentException("La clasificación no pertenece a la empresa del usuario");
         }
     }
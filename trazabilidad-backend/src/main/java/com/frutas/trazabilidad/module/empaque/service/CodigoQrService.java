@@ -0,0 +1,249 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renderiza el código QR de las etiquetas en PNG o SVG.
+ * El QR codifica la URL pública de trazabilidad (app.qr-base-url + "/" + codigoQr),
+ * que depende solo del código, así que la imagen de un mismo (código, tamaño, formato)
+ * nunca cambia: se guarda en una caché LRU acotada por bytes (app.qr.cache.tamano-maximo)
+ * y las impresoras que piden repetidamente los mismos códigos no vuelven a codificarlos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CodigoQrService {
+
+    public static final int TAMANO_MINIMO = 64;
+    public static final int TAMANO_MAXIMO = 2048;
+
+    private final EtiquetaRepository etiquetaRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.qr-base-url}")
+    private String qrBaseUrl;
+
+    @Value("${app.qr.cache.tamano-maximo:32MB}")
+    private DataSize tamanoMaximoCache;
+
+    private final LinkedHashMap<ClaveImagen, byte[]> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytesEnCache;
+
+    private Counter aciertos;
+    private Counter fallos;
+
+    /**
+     * Formatos de imagen soportados.
+     */
+    public enum FormatoQr {
+        PNG("image/png"),
+        SVG("image/svg+xml");
+
+        private final String tipoContenido;
+
+        FormatoQr(String tipoContenido) {
+            this.tipoContenido = tipoContenido;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public static FormatoQr parsear(String formato) {
+            try {
+                return valueOf(formato.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de QR no soportado: " + formato + " (use png o svg)");
+            }
+        }
+    }
+
+    private record ClaveImagen(String codigoQr, int tamano, FormatoQr formato) {
+    }
+
+    @PostConstruct
+    void init() {
+        aciertos = meterRegistry.counter("trazabilidad.qr.cache", "resultado", "acierto");
+        fallos = meterRegistry.counter("trazabilidad.qr.cache", "resultado", "fallo");
+    }
+
+    /**
+     * Imagen del QR de una etiqueta activa a partir de su código (consulta pública).
+     * Las imágenes en caché se sirven sin consultar la base de datos.
+     */
+    @Transactional(readOnly = true)
+    public byte[] renderizarPorCodigo(String codigoQr, int tamano, FormatoQr formato) {
+        ClaveImagen clave = new ClaveImagen(normalizarCodigo(codigoQr), validarTamano(tamano), formato);
+        byte[] imagen = buscarEnCache(clave);
+        if (imagen != null) {
+            return imagen;
+        }
+        if (!etiquetaRepository.existsByCodigoQrAndActivoTrue(clave.codigoQr())) {
+            throw new ResourceNotFoundException("Etiqueta", clave.codigoQr());
+        }
+        return renderizarYGuardar(clave);
+    }
+
+    /**
+     * Imagen del QR de una etiqueta de la empresa.
+     */
+    @Transactional(readOnly = true)
+    public byte[] renderizarPorId(Long etiquetaId, Long empresaId, int tamano, FormatoQr formato) {
+        String codigoQr = etiquetaRepository.findCodigoQrByIdAndEmpresaId(etiquetaId, empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Etiqueta", etiquetaId));
+        ClaveImagen clave = new ClaveImagen(codigoQr, validarTamano(tamano), formato);
+        byte[] imagen = buscarEnCache(clave);
+        return imagen != null ? imagen : renderizarYGuardar(clave);
+    }
+
+    private byte[] buscarEnCache(ClaveImagen clave) {
+        byte[] imagen;
+        synchronized (cache) {
+            imagen = cache.get(clave);
+        }
+        (imagen != null ? aciertos : fallos).increment();
+        return imagen;
+    }
+
+    private byte[] renderizarYGuardar(ClaveImagen clave) {
+        // Se codifica fuera del bloqueo; dos peticiones simultáneas del mismo código
+        // pueden codificarlo dos veces, con el mismo resultado
+        byte[] imagen = codificar(clave);
+        long maximo = tamanoMaximoCache.toBytes();
+        if (imagen.length > maximo) {
+            return imagen;
+        }
+        synchronized (cache) {
+            byte[] anterior = cache.put(clave, imagen);
+            bytesEnCache += imagen.length - (anterior != null ? anterior.length : 0);
+            Iterator<byte[]> antiguos = cache.values().iterator();
+            while (bytesEnCache > maximo && antiguos.hasNext()) {
+                bytesEnCache -= antiguos.next().length;
+                antiguos.remove();
+            }
+        }
+        return imagen;
+    }
+
+    /**
+     * Matriz del QR con un módulo por unidad (incluye el margen), sin caché.
+     * La usan las hojas de etiquetas en lote, donde cada código se imprime una sola vez.
+     */
+    public BitMatrix codificarMatriz(String codigoQr) {
+        return matriz(codigoQr, 0);
+    }
+
+    /**
+     * PNG del QR sin caché (hojas de etiquetas en lote).
+     */
+    public byte[] renderizarPng(String codigoQr, int tamano) {
+        return codificar(new ClaveImagen(codigoQr, validarTamano(tamano), FormatoQr.PNG));
+    }
+
+    private byte[] codificar(ClaveImagen clave) {
+        return switch (clave.formato()) {
+            case PNG -> {
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                try {
+                    MatrixToImageWriter.writeToStream(matriz(clave.codigoQr(), clave.tamano()), "PNG", salida);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo escribir la imagen del código QR", e);
+                }
+                yield salida.toByteArray();
+            }
+            // Un módulo por unidad; el SVG escala con viewBox
+            case SVG -> aSvg(matriz(clave.codigoQr(), 0), clave.tamano());
+        };
+    }
+
+    /**
+     * @param tamano lado en píxeles, o 0 para un módulo por unidad
+     */
+    private BitMatrix matriz(String codigoQr, int tamano) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        hints.put(EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name());
+        hints.put(EncodeHintType.MARGIN, 2);
+
+        try {
+            return new QRCodeWriter().encode(qrBaseUrl + "/" + codigoQr, BarcodeFormat.QR_CODE, tamano, tamano, hints);
+        } catch (WriterException e) {
+            throw new IllegalStateException("No se pudo generar el código QR", e);
+        }
+    }
+
+    /**
+     * SVG con un único path: un rectángulo por cada tramo horizontal de módulos oscuros.
+     */
+    private byte[] aSvg(BitMatrix matriz, int tamano) {
+        int ancho = matriz.getWidth();
+        int alto = matriz.getHeight();
+        StringBuilder svg = new StringBuilder(ancho * alto);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(tamano)
+                .append("\" height=\"").append(tamano)
+                .append("\" viewBox=\"0 0 ").append(ancho).append(' ').append(alto)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < alto; y++) {
+            int x = 0;
+            while (x < ancho) {
+                if (!matriz.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int inicio = x;
+                while (x < ancho && matriz.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(inicio).append(' ').append(y)
+                        .append('h').append(x - inicio).append("v1h-").append(x - inicio).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String normalizarCodigo(String codigoQr) {
+        try {
+            return UUID.fromString(codigoQr).toString();
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Etiqueta", codigoQr);
+        }
+    }
+
+    private int validarTamano(int tamano) {
+        if (tamano < TAMANO_MINIMO || tamano > TAMANO_MAXIMO) {
+            throw new IllegalArgumentException(
+                    "El tamaño del QR debe estar entre " + TAMANO_MINIMO + " y " + TAMANO_MAXIMO + " píxeles");
+        }
+        return tamano;
+    }
+}
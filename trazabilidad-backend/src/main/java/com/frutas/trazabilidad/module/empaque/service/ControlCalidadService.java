@@ -1,7 +1,9 @@
 package com.frutas.trazabilidad.module.empaque.service;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadRequest;
 import com.frutas.trazabilidad.module.empaque.dto.ControlCalidadResponse;
+import com.frutas.trazabilidad.module.empaque.dto.DistribucionCalidadResponse;
 import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
 import com.frutas.trazabilidad.module.empaque.entity.ControlCalidad;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
@@ -10,13 +12,21 @@ import com.frutas.trazabilidad.module.empaque.repository.ClasificacionRepository
 import com.frutas.trazabilidad.module.empaque.repository.ControlCalidadRepository;
 import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService.TipoCodigo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 /**
  * Servicio para gestión de controles de calidad.
@@ -28,49 +38,70 @@ public class ControlCalidadService {
     private final ControlCalidadRepository controlRepository;
     private final ClasificacionRepository clasificacionRepository;
     private final PalletRepository palletRepository;
+    private final EmpresaRepository empresaRepository;
     private final ControlCalidadMapper mapper;
+    private final SecuenciaCodigoService secuenciaCodigoService;
+    private final ListadoService listadoService;
+
+    /**
+     * Ventana por defecto de la analítica cuando no se indica desde.
+     */
+    private static final int DIAS_ANALITICA_DEFECTO = 90;
 
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorEmpresa(Long empresaId) {
-        return controlRepository.findByEmpresaId(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorClasificacion(Long clasificacionId, Long empresaId) {
+    public Page<?> listarPorClasificacion(Long clasificacionId, Long empresaId, Pageable pageable, String campos) {
         validarClasificacionPertenencia(clasificacionId, empresaId);
-        return controlRepository.findByClasificacionIdAndActivoTrueOrderByFechaControlDesc(clasificacionId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<ControlCalidad>igual("clasificacion.id", clasificacionId)
+                .and(Especificaciones.activos()), pageable, campos);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<?> listarPorPallet(Long palletId, Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.<ControlCalidad>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("pallet.id", palletId)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorPallet(Long palletId) {
-        return controlRepository.findByPalletIdAndActivoTrueOrderByFechaControlDesc(palletId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorTipo(Long empresaId, String tipo, Pageable pageable, String campos) {
+        return listar(Especificaciones.<ControlCalidad>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("tipoControl", tipo)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorTipo(Long empresaId, String tipo) {
-        return controlRepository.findByEmpresaIdAndTipo(empresaId, tipo).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorResultado(Long empresaId, String resultado, Pageable pageable, String campos) {
+        return listar(Especificaciones.<ControlCalidad>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("resultado", resultado)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorResultado(Long empresaId, String resultado) {
-        return controlRepository.findByEmpresaIdAndResultado(empresaId, resultado).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorRangoFechas(Long empresaId, LocalDate desde, LocalDate hasta,
+                                       Pageable pageable, String campos) {
+        return listar(Especificaciones.<ControlCalidad>activosDeEmpresa(empresaId)
+                .and(Especificaciones.entre("fechaControl", desde, hasta)), pageable, campos);
     }
 
+    /**
+     * Distribución de las mediciones numéricas por parámetro y grupo (lote, finca, variedad
+     * o semana). Sin parámetro se devuelven todos; sin fechas, los últimos 90 días.
+     */
     @Transactional(readOnly = true)
-    public List<ControlCalidadResponse> listarPorRangoFechas(Long empresaId, LocalDate desde, LocalDate hasta) {
-        return controlRepository.findByEmpresaIdAndFechaBetween(empresaId, desde, hasta).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public List<DistribucionCalidadResponse> distribucion(Long empresaId, DistribucionCalidadResponse.Dimension dimension,
+                                                          String parametro, LocalDate desde, LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusDays(DIAS_ANALITICA_DEFECTO);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        String codigo = parametro == null || parametro.isBlank() ? null : parametro.trim().toUpperCase(Locale.ROOT);
+
+        return controlRepository.findDistribucion(empresaId, dimension.name(), codigo, inicio, fin).stream()
+                .map(d -> mapper.toDistribucion(d, dimension))
+                .toList();
     }
 
     @Transactional(readOnly = true)
@@ -84,11 +115,6 @@ public class ControlCalidadService {
 
     @Transactional
     public ControlCalidadResponse crear(ControlCalidadRequest request, Long empresaId) {
-        // Validar código único
-        if (controlRepository.existsByCodigoControl(request.getCodigoControl())) {
-            throw new IllegalArgumentException("Ya existe un control con el código: " + request.getCodigoControl());
-        }
-
         // Validar que al menos uno esté presente (clasificación o pallet)
         if (request.getClasificacionId() == null && request.getPalletId() == null) {
             throw new IllegalArgumentException("Debe especificar clasificación o pallet para el control");
@@ -104,11 +130,17 @@ public class ControlCalidadService {
         }
 
         if (request.getPalletId() != null) {
-            pallet = palletRepository.findById(request.getPalletId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Pallet no encontrado con ID: " + request.getPalletId()));
+            pallet = buscarPalletDeEmpresa(request.getPalletId(), empresaId);
         }
 
+        Empresa empresa = empresaRepository.findById(empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Empresa", empresaId));
+
         ControlCalidad control = mapper.toEntity(request, clasificacion, pallet);
+        control.setEmpresa(empresa);
+        if (control.getCodigoControl() == null || control.getCodigoControl().isBlank()) {
+            control.setCodigoControl(secuenciaCodigoService.siguienteCodigo(empresaId, TipoCodigo.CONTROL_CALIDAD));
+        }
         ControlCalidad saved = controlRepository.save(control);
 
         return mapper.toResponse(saved);
@@ -121,12 +153,6 @@ public class ControlCalidadService {
 
         validarPertenenciaEmpresa(control, empresaId);
 
-        // Validar código único si cambió
-        if (!control.getCodigoControl().equals(request.getCodigoControl()) &&
-                controlRepository.existsByCodigoControl(request.getCodigoControl())) {
-            throw new IllegalArgumentException("Ya existe un control con el código: " + request.getCodigoControl());
-        }
-
         Clasificacion clasificacion = null;
         Pallet pallet = null;
 
@@ -137,8 +163,7 @@ public class ControlCalidadService {
         }
 
         if (request.getPalletId() != null) {
-            pallet = palletRepository.findById(request.getPalletId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Pallet no encontrado con ID: " + request.getPalletId()));
+            pallet = buscarPalletDeEmpresa(request.getPalletId(), empresaId);
         }
 
         mapper.updateEntityFromRequest(control, request, clasificacion, pallet);
@@ -158,6 +183,19 @@ public class ControlCalidadService {
         controlRepository.save(control);
     }
 
+    private Page<?> listar(Specification<ControlCalidad> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(controlRepository, ControlCalidad.class, filtro, pageable, campos,
+                ControlCalidadResponse.class, mapper::toResponse);
+    }
+
+    /**
+     * Pallet de la empresa del usuario; si pertenece a otra empresa se responde como inexistente.
+     */
+    private Pallet buscarPalletDeEmpresa(Long palletId, Long empresaId) {
+        return palletRepository.findByIdAndEmpresaId(palletId, empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pallet no encontrado con ID: " + palletId));
+    }
+
     private void validarClasificacionPertenencia(Long clasificacionId, Long empresaId) {
         if (!clasificacionRepository.existsByIdAndEmpresaId(clasificacionId, empresaId)) {
             throw new IllegalArgumentException("La clasificación no pertenece a la empresa del usuario");
@@ -165,19 +203,7 @@ public class ControlCalidadService {
     }
 
     private void validarPertenenciaEmpresa(ControlCalidad control, Long empresaId) {
-        boolean perteneceAEmpresa = false;
-
-        if (control.getClasificacion() != null) {
-            perteneceAEmpresa = control.getClasificacion().getRecepcion().getLote()
-                    .getFinca().getEmpresa().getId().equals(empresaId);
-        }
-
-        // Si no se validó por clasificación, verificar vía repositorio
-        if (!perteneceAEmpresa) {
-            perteneceAEmpresa = controlRepository.existsByIdAndEmpresaId(control.getId(), empresaId);
-        }
-
-        if (!perteneceAEmpresa) {
+        if (control.getEmpresa() == null || !control.getEmpresa().getId().equals(empresaId)) {
             throw new IllegalArgumentException("El control no pertenece a la empresa del usuario");
         }
     }
@@ -3,19 +3,24 @@ package com.frutas.trazabilidad.module.empaque.service;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaRequest;
 import com.frutas.trazabilidad.module.empaque.dto.EtiquetaResponse;
 import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoEtiqueta;
 import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
 import com.frutas.trazabilidad.module.empaque.mapper.EtiquetaMapper;
 import com.frutas.trazabilidad.module.empaque.repository.ClasificacionRepository;
 import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService.TipoCodigo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Servicio para gestión de etiquetas con código QR.
  */
@@ -26,6 +31,9 @@ public class EtiquetaService {
     private final EtiquetaRepository etiquetaRepository;
     private final ClasificacionRepository clasificacionRepository;
     private final EtiquetaMapper mapper;
+    private final SecuenciaCodigoService secuenciaCodigoService;
+    private final ListadoService listadoService;
+    private final ThroughputEmpaqueService throughputService;
 
     /**
      * URL base para generar enlaces QR públicos.
@@ -34,32 +42,27 @@ public class EtiquetaService {
     private String qrBaseUrl;
 
     @Transactional(readOnly = true)
-    public List<EtiquetaResponse> listarPorEmpresa(Long empresaId) {
-        return etiquetaRepository.findByEmpresaId(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<EtiquetaResponse> listarPorClasificacion(Long clasificacionId, Long empresaId) {
+    public Page<?> listarPorClasificacion(Long clasificacionId, Long empresaId, Pageable pageable, String campos) {
         validarClasificacionPertenencia(clasificacionId, empresaId);
-        return etiquetaRepository.findByClasificacionIdAndActivoTrueOrderByCreatedAtDesc(clasificacionId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<Etiqueta>igual("clasificacion.id", clasificacionId)
+                .and(Especificaciones.activos()), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<EtiquetaResponse> listarPorEstado(Long empresaId, String estado) {
-        return etiquetaRepository.findByEmpresaIdAndEstado(empresaId, estado).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEstado(Long empresaId, String estado, Pageable pageable, String campos) {
+        return listar(Especificaciones.<Etiqueta>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("estadoEtiqueta", estado)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<EtiquetaResponse> listarPorTipo(Long empresaId, String tipo) {
-        return etiquetaRepository.findByEmpresaIdAndTipo(empresaId, tipo).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorTipo(Long empresaId, String tipo, Pageable pageable, String campos) {
+        return listar(Especificaciones.<Etiqueta>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("tipoEtiqueta", tipo)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
@@ -81,11 +84,6 @@ public class EtiquetaService {
 
     @Transactional
     public EtiquetaResponse crear(EtiquetaRequest request, Long empresaId) {
-        // Validar código único
-        if (etiquetaRepository.existsByCodigoEtiqueta(request.getCodigoEtiqueta())) {
-            throw new IllegalArgumentException("Ya existe una etiqueta con el código: " + request.getCodigoEtiqueta());
-        }
-
         // Validar clasificación
         Clasificacion clasificacion = clasificacionRepository.findById(request.getClasificacionId())
                 .orElseThrow(() -> new ResourceNotFoundException("Clasificación no encontrada con ID: " + request.getClasificacionId()));
@@ -93,12 +91,16 @@ public class EtiquetaService {
         validarClasificacionPertenencia(clasificacion.getId(), empresaId);
 
         Etiqueta etiqueta = mapper.toEntity(request, clasificacion);
+        if (etiqueta.getCodigoEtiqueta() == null || etiqueta.getCodigoEtiqueta().isBlank()) {
+            etiqueta.setCodigoEtiqueta(secuenciaCodigoService.siguienteCodigo(empresaId, TipoCodigo.ETIQUETA));
+        }
 
         // Generar URL del QR (el UUID ya se genera en @PrePersist)
         // El QR apuntará al frontend: http://localhost:5173/public/traza/{uuid}
         etiqueta.generarUrlQr(qrBaseUrl);
 
         Etiqueta saved = etiquetaRepository.save(etiqueta);
+        throughputService.registrarEtiquetas(empresaId, saved.getTipoEtiqueta(), 1);
 
         return mapper.toResponse(saved);
     }
@@ -110,12 +112,6 @@ public class EtiquetaService {
 
         validarPertenenciaEmpresa(etiqueta, empresaId);
 
-        // Validar código único si cambió
-        if (!etiqueta.getCodigoEtiqueta().equals(request.getCodigoEtiqueta()) &&
-                etiquetaRepository.existsByCodigoEtiqueta(request.getCodigoEtiqueta())) {
-            throw new IllegalArgumentException("Ya existe una etiqueta con el código: " + request.getCodigoEtiqueta());
-        }
-
         // Validar clasificación
         Clasificacion clasificacion = clasificacionRepository.findById(request.getClasificacionId())
                 .orElseThrow(() -> new ResourceNotFoundException("Clasificación no encontrada con ID: " + request.getClasificacionId()));
@@ -146,12 +142,30 @@ public class EtiquetaService {
 
         validarPertenenciaEmpresa(etiqueta, empresaId);
 
-        etiqueta.setEstadoEtiqueta(nuevoEstado);
+        EstadoEtiqueta destino = EstadoEtiqueta.TRANSICIONES.parsear(nuevoEstado);
+        EstadoEtiqueta origen = EstadoEtiqueta.TRANSICIONES.parsear(etiqueta.getEstadoEtiqueta());
+        if (origen == destino) {
+            return mapper.toResponse(etiqueta);
+        }
+        // La asignación y liberación de etiquetas la gestionan el armado y la eliminación del pallet
+        if (destino == EstadoEtiqueta.ASIGNADA_PALLET
+                || (origen == EstadoEtiqueta.ASIGNADA_PALLET && destino == EstadoEtiqueta.DISPONIBLE)) {
+            throw new IllegalArgumentException("La transición " + origen + " → " + destino
+                    + " se realiza al armar o eliminar el pallet");
+        }
+        EstadoEtiqueta.TRANSICIONES.validar(origen, destino);
+
+        etiqueta.setEstadoEtiqueta(destino.name());
         Etiqueta updated = etiquetaRepository.save(etiqueta);
 
         return mapper.toResponse(updated);
     }
 
+    private Page<?> listar(Specification<Etiqueta> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(etiquetaRepository, Etiqueta.class, filtro, pageable, campos,
+                EtiquetaResponse.class, mapper::toResponse);
+    }
+
     private void validarClasificacionPertenencia(Long clasificacionId, Long empresaId) {
         if (!clasificacionRepository.existsByIdAndEmpresaId(clasificacionId, empresaId)) {
             throw new IllegalArgumentException("La clasificación no pertenece a la empresa del usuario");
@@ -159,7 +173,7 @@ public class EtiquetaService {
     }
 
     private void validarPertenenciaEmpresa(Etiqueta etiqueta, Long empresaId) {
-        if (!etiqueta.getClasificacion().getRecepcion().getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!etiqueta.getEmpresa().getId().equals(empresaId)) {
             throw new IllegalArgumentException("La etiqueta no pertenece a la empresa del usuario");
         }
     }
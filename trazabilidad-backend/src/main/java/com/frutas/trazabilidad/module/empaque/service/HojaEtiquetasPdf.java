@@ -0,0 +1,192 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaLoteRepository.EtiquetaImpresion;
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Escritor en streaming de una hoja de etiquetas en PDF (A4, 3 x 8 etiquetas por página).
+ * Cada QR se dibuja como vectores (un rectángulo por tramo de módulos oscuros), así que
+ * se imprime nítido a cualquier resolución sin incrustar imágenes.
+ * Las páginas se escriben según se completan: en memoria solo está la página en curso
+ * y la tabla de offsets del xref (8 bytes por objeto).
+ */
+final class HojaEtiquetasPdf implements AutoCloseable {
+
+    static final int ETIQUETAS_POR_PAGINA = 24;
+
+    private static final int COLUMNAS = 3;
+    private static final int FILAS = 8;
+    private static final double ANCHO_PAGINA = 595.28;
+    private static final double ALTO_PAGINA = 841.89;
+    private static final double MARGEN = 20;
+    private static final double ANCHO_CELDA = (ANCHO_PAGINA - 2 * MARGEN) / COLUMNAS;
+    private static final double ALTO_CELDA = (ALTO_PAGINA - 2 * MARGEN) / FILAS;
+    private static final double LADO_QR = 88;
+    private static final int CARACTERES_POR_LINEA = 20;
+
+    // Objetos fijos: 1 catálogo, 2 árbol de páginas, 3 y 4 fuentes; luego página y contenido alternados
+    private static final int PRIMER_OBJETO_PAGINA = 5;
+
+    private final OutputStream salida;
+    private final int paginas;
+    private final long[] offsets;
+    private long posicion;
+
+    private final StringBuilder contenido = new StringBuilder(64 * 1024);
+    private int enPagina;
+    private int paginaActual;
+
+    /**
+     * @param total número de etiquetas que se van a agregar (determina el número de páginas)
+     */
+    HojaEtiquetasPdf(OutputStream salida, int total) throws IOException {
+        this.salida = salida;
+        this.paginas = Math.max(1, (total + ETIQUETAS_POR_PAGINA - 1) / ETIQUETAS_POR_PAGINA);
+        this.offsets = new long[PRIMER_OBJETO_PAGINA + 2 * paginas];
+
+        escribir("%PDF-1.4\n%âãÏÓ\n");
+        objeto(1, "<< /Type /Catalog /Pages 2 0 R >>");
+
+        StringBuilder hijos = new StringBuilder();
+        for (int i = 0; i < paginas; i++) {
+            hijos.append(objetoPagina(i)).append(" 0 R ");
+        }
+        objeto(2, "<< /Type /Pages /Count " + paginas + " /Kids [" + hijos + "] >>");
+        objeto(3, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        objeto(4, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+    }
+
+    /**
+     * Agrega una etiqueta en la siguiente celda libre.
+     *
+     * @param qr matriz del QR con un módulo por unidad
+     */
+    void agregar(EtiquetaImpresion etiqueta, BitMatrix qr) throws IOException {
+        if (paginaActual >= paginas) {
+            throw new IllegalStateException("Se agregaron más etiquetas de las declaradas");
+        }
+
+        int columna = enPagina % COLUMNAS;
+        int fila = enPagina / COLUMNAS;
+        double x = MARGEN + columna * ANCHO_CELDA;
+        double arriba = ALTO_PAGINA - MARGEN - fila * ALTO_CELDA;
+        double yQr = arriba - (ALTO_CELDA - LADO_QR) / 2;
+
+        // QR: escala de módulos a puntos e inversión del eje Y (las filas de la matriz van hacia abajo)
+        double escala = LADO_QR / qr.getWidth();
+        contenido.append("q ").append(num(escala)).append(" 0 0 ").append(num(-escala)).append(' ')
+                .append(num(x + 6)).append(' ').append(num(yQr)).append(" cm\n");
+        for (int y = 0; y < qr.getHeight(); y++) {
+            int m = 0;
+            while (m < qr.getWidth()) {
+                if (!qr.get(m, y)) {
+                    m++;
+                    continue;
+                }
+                int inicio = m;
+                while (m < qr.getWidth() && qr.get(m, y)) {
+                    m++;
+                }
+                contenido.append(inicio).append(' ').append(y).append(' ').append(m - inicio).append(" 1 re\n");
+            }
+        }
+        contenido.append("f Q\n");
+
+        // Texto a la derecha del QR
+        double xTexto = x + LADO_QR + 12;
+        double yTexto = arriba - 30;
+        String codigo = etiqueta.codigoEtiqueta();
+        for (int i = 0; i < codigo.length() && i < 3 * CARACTERES_POR_LINEA; i += CARACTERES_POR_LINEA) {
+            texto("F2", 8, xTexto, yTexto, codigo.substring(i, Math.min(codigo.length(), i + CARACTERES_POR_LINEA)));
+            yTexto -= 10;
+        }
+        yTexto -= 4;
+        texto("F1", 7, xTexto, yTexto, etiqueta.codigoClasificacion());
+        texto("F1", 7, xTexto, yTexto - 9, etiqueta.calidad());
+
+        if (++enPagina == ETIQUETAS_POR_PAGINA) {
+            cerrarPagina();
+        }
+    }
+
+    /**
+     * Completa las páginas declaradas, escribe el xref y vacía la salida (no la cierra).
+     */
+    @Override
+    public void close() throws IOException {
+        while (paginaActual < paginas) {
+            cerrarPagina();
+        }
+
+        long inicioXref = posicion;
+        StringBuilder xref = new StringBuilder("xref\n0 ").append(offsets.length).append("\n0000000000 65535 f \n");
+        for (int i = 1; i < offsets.length; i++) {
+            xref.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets[i]));
+        }
+        xref.append("trailer\n<< /Size ").append(offsets.length).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(inicioXref).append("\n%%EOF\n");
+        escribir(xref.toString());
+        salida.flush();
+    }
+
+    private void cerrarPagina() throws IOException {
+        int numeroPagina = objetoPagina(paginaActual);
+        objeto(numeroPagina, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + num(ANCHO_PAGINA) + " " + num(ALTO_PAGINA)
+                + "] /Resources << /Font << /F1 3 0 R /F2 4 0 R >> >> /Contents " + (numeroPagina + 1) + " 0 R >>");
+
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream(contenido.length() / 4);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(comprimido)) {
+            deflater.write(contenido.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        offsets[numeroPagina + 1] = posicion;
+        escribir((numeroPagina + 1) + " 0 obj\n<< /Length " + comprimido.size() + " /Filter /FlateDecode >>\nstream\n");
+        comprimido.writeTo(salida);
+        posicion += comprimido.size();
+        escribir("\nendstream\nendobj\n");
+
+        contenido.setLength(0);
+        enPagina = 0;
+        paginaActual++;
+    }
+
+    private void texto(String fuente, int tamano, double x, double y, String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        contenido.append("BT /").append(fuente).append(' ').append(tamano).append(" Tf ")
+                .append(num(x)).append(' ').append(num(y)).append(" Td (");
+        for (char c : valor.toCharArray()) {
+            if (c == '(' || c == ')' || c == '\\') {
+                contenido.append('\\');
+            }
+            contenido.append(c < 32 ? ' ' : c);
+        }
+        contenido.append(") Tj ET\n");
+    }
+
+    private void objeto(int numero, String diccionario) throws IOException {
+        offsets[numero] = posicion;
+        escribir(numero + " 0 obj\n" + diccionario + "\nendobj\n");
+    }
+
+    private void escribir(String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.ISO_8859_1);
+        salida.write(bytes);
+        posicion += bytes.length;
+    }
+
+    private static int objetoPagina(int pagina) {
+        return PRIMER_OBJETO_PAGINA + 2 * pagina;
+    }
+
+    private static String num(double valor) {
+        return String.format(Locale.ROOT, "%.3f", valor);
+    }
+}
@@ -0,0 +1,264 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.module.empaque.dto.LoteEtiquetasRequest;
+import com.frutas.trazabilidad.module.empaque.dto.LoteEtiquetasResponse;
+import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
+import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
+import com.frutas.trazabilidad.module.empaque.repository.ClasificacionRepository;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaLoteRepository;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaLoteRepository.EtiquetaImpresion;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService.TipoCodigo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Servicio de tandas de impresión: genera en lote las etiquetas de una clasificación
+ * y produce la hoja de impresión (PDF o ZIP de PNG) en streaming.
+ * La hoja se procesa por bloques: cada bloque se lee con una consulta corta, sus QR
+ * se renderizan en paralelo y se escriben en orden, así que la memoria no depende
+ * del tamaño de la tanda.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImpresionEtiquetasService {
+
+    private final ClasificacionRepository clasificacionRepository;
+    private final EtiquetaRepository etiquetaRepository;
+    private final EtiquetaLoteRepository etiquetaLoteRepository;
+    private final CodigoQrService codigoQrService;
+    private final SecuenciaCodigoService secuenciaCodigoService;
+    private final ThroughputEmpaqueService throughputService;
+
+    @Value("${app.qr-base-url}")
+    private String qrBaseUrl;
+
+    @Value("${app.impresion-etiquetas.max-cantidad:10000}")
+    private int maxCantidad;
+
+    @Value("${app.impresion-etiquetas.tamano-bloque:256}")
+    private int tamanoBloque;
+
+    /**
+     * Pool propio para el renderizado (CPU): no compite con el executor de auditoría
+     * ni con los hilos del servidor más allá de un hilo por núcleo.
+     */
+    private ExecutorService renderExecutor;
+
+    public enum FormatoHoja {
+        PDF("application/pdf", "pdf"),
+        ZIP("application/zip", "zip");
+
+        private final String tipoContenido;
+        private final String extension;
+
+        FormatoHoja(String tipoContenido, String extension) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static FormatoHoja parsear(String formato) {
+            try {
+                return valueOf(formato.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de hoja no soportado: " + formato + " (pdf o zip)");
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger secuencia = new AtomicInteger();
+        renderExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread hilo = new Thread(r, "render-qr-" + secuencia.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Crea las etiquetas de una tanda con códigos correlativos de la serie de etiquetas
+     * de la empresa, reservados en bloque con una sola operación en la BD.
+     */
+    @Transactional
+    public LoteEtiquetasResponse generarLote(LoteEtiquetasRequest request, Long empresaId) {
+        if (request.getCantidad() > maxCantidad) {
+            throw new IllegalArgumentException("Una tanda no puede superar " + maxCantidad + " etiquetas");
+        }
+
+        Clasificacion clasificacion = clasificacionRepository.findById(request.getClasificacionId())
+                .filter(c -> c.getEmpresa().getId().equals(empresaId))
+                .orElseThrow(() -> new ResourceNotFoundException("Clasificación", request.getClasificacionId()));
+        if (!Boolean.TRUE.equals(clasificacion.getActivo())) {
+            throw new IllegalStateException("La clasificación " + clasificacion.getCodigoClasificacion() + " no está activa");
+        }
+
+        String loteImpresion = UUID.randomUUID().toString();
+        String tipoEtiqueta = request.getTipoEtiqueta() != null ? request.getTipoEtiqueta() : "CAJA";
+        List<String> codigos = secuenciaCodigoService.reservarCodigos(empresaId, TipoCodigo.ETIQUETA, request.getCantidad());
+
+        List<Etiqueta> etiquetas = new ArrayList<>(codigos.size());
+        for (String codigoEtiqueta : codigos) {
+            Etiqueta etiqueta = Etiqueta.builder()
+                    .clasificacion(clasificacion)
+                    .empresa(clasificacion.getEmpresa())
+                    .codigoEtiqueta(codigoEtiqueta)
+                    .tipoEtiqueta(tipoEtiqueta)
+                    .cantidadContenida(request.getCantidadContenida())
+                    .unidadMedida(request.getUnidadMedida())
+                    .pesoNeto(request.getPesoNeto())
+                    .pesoBruto(request.getPesoBruto())
+                    .observaciones(request.getObservaciones())
+                    .loteImpresion(loteImpresion)
+                    .build();
+            etiqueta.generarUrlQr(qrBaseUrl);
+            etiquetas.add(etiqueta);
+        }
+        // Ids por secuencia pooled-lo: Hibernate agrupa los INSERT en batches de hibernate.jdbc.batch_size
+        etiquetaRepository.saveAll(etiquetas);
+        throughputService.registrarEtiquetas(empresaId, tipoEtiqueta, etiquetas.size());
+
+        log.info("Tanda de impresión {} generada: {} etiquetas para clasificación {}",
+                loteImpresion, etiquetas.size(), clasificacion.getCodigoClasificacion());
+
+        return LoteEtiquetasResponse.builder()
+                .loteImpresion(loteImpresion)
+                .clasificacionId(clasificacion.getId())
+                .cantidad(etiquetas.size())
+                .codigoInicial(codigos.getFirst())
+                .codigoFinal(codigos.getLast())
+                .build();
+    }
+
+    /**
+     * Número de etiquetas de la tanda; lanza 404 si no existe para la empresa.
+     * Se llama antes de escribir cabeceras para poder responder con error JSON.
+     */
+    public int contarTanda(String loteImpresion, Long empresaId) {
+        int total = etiquetaLoteRepository.countTanda(loteImpresion, empresaId);
+        if (total == 0) {
+            throw new ResourceNotFoundException("Tanda de impresión", loteImpresion);
+        }
+        return total;
+    }
+
+    /**
+     * Escribe la hoja de impresión de la tanda en la salida.
+     * Sin transacción: cada bloque es una consulta independiente y no se mantiene
+     * una conexión abierta mientras se escribe hacia el cliente.
+     *
+     * @param total  número de etiquetas devuelto por {@link #contarTanda}
+     * @param tamano lado en píxeles de cada PNG (solo formato ZIP)
+     */
+    public void escribirHoja(String loteImpresion, Long empresaId, int total, FormatoHoja formato,
+                             int tamano, OutputStream salida) throws IOException {
+        if (tamano < CodigoQrService.TAMANO_MINIMO || tamano > CodigoQrService.TAMANO_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño debe estar entre " + CodigoQrService.TAMANO_MINIMO
+                    + " y " + CodigoQrService.TAMANO_MAXIMO + " píxeles");
+        }
+
+        long inicio = System.nanoTime();
+        int escritas;
+        if (formato == FormatoHoja.PDF) {
+            try (HojaEtiquetasPdf pdf = new HojaEtiquetasPdf(salida, total)) {
+                escritas = procesarBloques(loteImpresion, empresaId, total,
+                        e -> codigoQrService.codificarMatriz(e.codigoQr()),
+                        (e, matriz) -> pdf.agregar(e, matriz));
+            }
+        } else {
+            ZipOutputStream zip = new ZipOutputStream(salida);
+            // Los PNG ya están comprimidos: deflate solo gastaría CPU
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            escritas = procesarBloques(loteImpresion, empresaId, total,
+                    e -> codigoQrService.renderizarPng(e.codigoQr(), tamano),
+                    (e, png) -> {
+                        zip.putNextEntry(new ZipEntry(e.codigoEtiqueta() + ".png"));
+                        zip.write(png);
+                        zip.closeEntry();
+                    });
+            zip.finish();
+            zip.flush();
+        }
+
+        log.info("Hoja {} de la tanda {} escrita: {} etiquetas en {} ms", formato.getExtension(), loteImpresion,
+                escritas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escribir(EtiquetaImpresion etiqueta, T resultado) throws IOException;
+    }
+
+    /**
+     * Recorre la tanda por bloques (keyset por id), renderiza cada bloque en paralelo
+     * y escribe los resultados en el orden de la tanda. Como mucho hay un bloque en memoria.
+     * Se detiene en {@code total} para que el PDF no reciba más etiquetas de las declaradas.
+     */
+    private <T> int procesarBloques(String loteImpresion, Long empresaId, int total,
+                                    Function<EtiquetaImpresion, T> render, Escritor<T> escritor) throws IOException {
+        int escritas = 0;
+        long ultimoId = 0;
+        while (escritas < total) {
+            List<EtiquetaImpresion> bloque = etiquetaLoteRepository.findParaImpresion(
+                    loteImpresion, empresaId, ultimoId, Math.min(tamanoBloque, total - escritas));
+            if (bloque.isEmpty()) {
+                break;
+            }
+
+            List<CompletableFuture<T>> resultados = bloque.stream()
+                    .map(e -> CompletableFuture.supplyAsync(() -> render.apply(e), renderExecutor))
+                    .toList();
+            try {
+                for (int i = 0; i < bloque.size(); i++) {
+                    escritor.escribir(bloque.get(i), resultados.get(i).join());
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException causa ? causa : e;
+            } finally {
+                // Si el cliente corta la descarga, no seguir renderizando el resto del bloque
+                resultados.forEach(r -> r.cancel(false));
+            }
+
+            escritas += bloque.size();
+            ultimoId = bloque.getLast().id();
+        }
+        return escritas;
+    }
+}
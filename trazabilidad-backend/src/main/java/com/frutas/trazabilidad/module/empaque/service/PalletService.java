@@ -1,21 +1,49 @@
 package com.frutas.trazabilidad.module.empaque.service;
 
+import com.frutas.trazabilidad.dto.ErrorDetail;
 import com.frutas.trazabilidad.entity.Empresa;
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.empaque.dto.CambioEstadoMasivoResponse;
 import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
 import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoEtiqueta;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoPallet;
 import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
 import com.frutas.trazabilidad.module.empaque.entity.EtiquetaPallet;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
 import com.frutas.trazabilidad.module.empaque.mapper.PalletMapper;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaPalletRepository;
 import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
 import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import com.frutas.trazabilidad.module.logistica.service.AuditoriaEventoService;
 import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.exception.ConflictException;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.service.ListadoService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.MeterTag;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -30,65 +58,85 @@ public class PalletService {
     private final EtiquetaRepository etiquetaRepository;
     private final EmpresaRepository empresaRepository;
     private final PalletMapper mapper;
+    private final EnvioRepository envioRepository;
+    private final AuditoriaEventoService auditoriaService;
+    private final EtiquetaPalletRepository etiquetaPalletRepository;
+    private final ListadoService listadoService;
+    private final ThroughputEmpaqueService throughputService;
+
+    private static final int MAX_IDS_POR_CONSULTA = 1000;
+
+    @Value("${app.pallets.max-etiquetas-armado:1000}")
+    private int maxEtiquetasArmado;
 
     /**
      * Lista todos los pallets activos de una empresa.
+     * El total de etiquetas se calcula en SQL; los códigos solo se cargan si se piden.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarPorEmpresa(Long empresaId) {
-        return palletRepository.findByEmpresaIdAndActivoTrueOrderByFechaPaletizadoDesc(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos, boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.activosDeEmpresa(empresaId),
+                orden -> palletRepository.findResumenByEmpresaId(empresaId, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
      * Lista pallets por estado dentro de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarPorEstado(Long empresaId, String estado) {
-        return palletRepository.findByEmpresaIdAndEstadoPalletAndActivoTrue(empresaId, estado).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEstado(Long empresaId, String estado, Pageable pageable, String campos,
+                                   boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.<Pallet>activosDeEmpresa(empresaId)
+                        .and(Especificaciones.igual("estadoPallet", estado)),
+                orden -> palletRepository.findResumenByEmpresaIdAndEstado(empresaId, estado, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
      * Lista pallets por destino dentro de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarPorDestino(Long empresaId, String destino) {
-        return palletRepository.findByEmpresaIdAndDestinoContainingIgnoreCaseAndActivoTrue(empresaId, destino).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorDestino(Long empresaId, String destino, Pageable pageable, String campos,
+                                    boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.<Pallet>activosDeEmpresa(empresaId)
+                        .and(Especificaciones.contiene("destino", destino)),
+                orden -> palletRepository.findResumenByEmpresaIdAndDestino(empresaId, destino, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
      * Lista pallets por tipo de fruta dentro de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarPorTipoFruta(Long empresaId, String tipoFruta) {
-        return palletRepository.findByEmpresaIdAndTipoFrutaAndActivoTrue(empresaId, tipoFruta).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorTipoFruta(Long empresaId, String tipoFruta, Pageable pageable, String campos,
+                                      boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.<Pallet>activosDeEmpresa(empresaId)
+                        .and(Especificaciones.igual("tipoFruta", tipoFruta)),
+                orden -> palletRepository.findResumenByEmpresaIdAndTipoFruta(empresaId, tipoFruta, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
-     * Lista pallets que contienen etiquetas de una clasificación dada.
+     * Lista pallets de la empresa que contienen etiquetas de una clasificación dada.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarPorClasificacion(Long clasificacionId) {
-        return palletRepository.findByClasificacionId(clasificacionId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorClasificacion(Long clasificacionId, Long empresaId, Pageable pageable, String campos,
+                                          boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.<Pallet>activosDeEmpresa(empresaId)
+                        .and(conEtiquetasDeClasificacion(clasificacionId)),
+                orden -> palletRepository.findResumenByClasificacionId(clasificacionId, empresaId, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
      * Lista pallets listos para envío dentro de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<PalletResponse> listarListosParaEnvio(Long empresaId) {
-        return palletRepository.findPalletsListosParaEnvio(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarListosParaEnvio(Long empresaId, Pageable pageable, String campos, boolean incluirEtiquetas) {
+        return resumenes(Especificaciones.<Pallet>activosDeEmpresa(empresaId)
+                        .and(Especificaciones.en("estadoPallet", EstadoPallet.ASIGNABLES_A_ENVIO)),
+                orden -> palletRepository.findResumenListosParaEnvio(empresaId, EstadoPallet.ASIGNABLES_A_ENVIO, orden),
+                pageable, campos, incluirEtiquetas);
     }
 
     /**
@@ -99,14 +147,15 @@ public class PalletService {
         Pallet pallet = palletRepository.findByIdAndEmpresaId(id, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pallet", id));
 
-        return mapper.toResponse(pallet);
+        return conEtiquetas(mapper.toResponse(pallet));
     }
 
     /**
      * Crea un nuevo pallet asignándolo a la empresa.
      */
     @Transactional
-    public PalletResponse crear(PalletRequest request, Long empresaId) {
+    @Timed(value = "trazabilidad.pallet.creacion", histogram = true)
+    public PalletResponse crear(PalletRequest request, @MeterTag(key = "empresa") Long empresaId) {
         // Validar código único dentro de la empresa
         if (palletRepository.existsByCodigoPalletAndEmpresaId(request.getCodigoPallet(), empresaId)) {
             throw new IllegalArgumentException("Ya existe un pallet con el código: " + request.getCodigoPallet());
@@ -128,8 +177,9 @@ public class PalletService {
                 Etiqueta etiqueta = etiquetaRepository.findByIdAndEmpresaId(etiquetaId, empresaId)
                         .orElseThrow(() -> new ResourceNotFoundException("Etiqueta", etiquetaId));
 
-                // Validar que la etiqueta esté disponible
-                if (!"DISPONIBLE".equals(etiqueta.getEstadoEtiqueta())) {
+                // Validar que la etiqueta esté disponible (transición permitida hacia ASIGNADA_PALLET)
+                EstadoEtiqueta estadoEtiqueta = EstadoEtiqueta.TRANSICIONES.parsear(etiqueta.getEstadoEtiqueta());
+                if (!EstadoEtiqueta.TRANSICIONES.permite(estadoEtiqueta, EstadoEtiqueta.ASIGNADA_PALLET)) {
                     throw new IllegalArgumentException("La etiqueta " + etiqueta.getCodigoEtiqueta() + " no está disponible");
                 }
 
@@ -143,45 +193,174 @@ public class PalletService {
                 pallet.getEtiquetas().add(ep);
 
                 // Cambiar estado de etiqueta
-                etiqueta.setEstadoEtiqueta("ASIGNADA_PALLET");
+                etiqueta.setEstadoEtiqueta(EstadoEtiqueta.ASIGNADA_PALLET.name());
             }
         }
 
         Pallet saved = palletRepository.save(pallet);
-        return mapper.toResponse(saved);
+        throughputService.registrarPalletsArmados(empresaId, 1);
+        return conEtiquetas(mapper.toResponse(saved));
+    }
+
+    /**
+     * Arma un pallet con todas sus etiquetas en una sola operación (estaciones de
+     * paletizado que escanean cientos de cajas por pallet). A diferencia de crear,
+     * no carga cada etiqueta: una consulta IN valida todas, un único UPDATE las marca
+     * como asignadas y las relaciones etiqueta-pallet se insertan en batch.
+     * Si alguna etiqueta no puede asignarse no se crea el pallet y se listan todas en el error.
+     */
+    @Transactional
+    @Timed(value = "trazabilidad.pallet.armado", histogram = true)
+    public PalletResponse armar(PalletRequest request, @MeterTag(key = "empresa") Long empresaId) {
+        if (request.getEtiquetasIds() == null || request.getEtiquetasIds().isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar las etiquetas del pallet");
+        }
+        if (palletRepository.existsByCodigoPalletAndEmpresaId(request.getCodigoPallet(), empresaId)) {
+            throw new IllegalArgumentException("Ya existe un pallet con el código: " + request.getCodigoPallet());
+        }
+
+        Empresa empresa = empresaRepository.findById(empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Empresa", empresaId));
+
+        Pallet pallet = mapper.toEntity(request);
+        pallet.setEmpresa(empresa);
+        Pallet saved = palletRepository.save(pallet);
+
+        List<String> codigos = asignarEtiquetasMasivo(saved, request.getEtiquetasIds(), empresaId, 0);
+        throughputService.registrarPalletsArmados(empresaId, 1);
+
+        // Las relaciones no se agregan a pallet.getEtiquetas(): el mapper cargaría cada etiqueta
+        PalletResponse response = mapper.toResponse(saved);
+        response.setTotalEtiquetas(codigos.size());
+        response.setEtiquetasCodigos(codigos);
+        return response;
+    }
+
+    /**
+     * Asigna un conjunto de etiquetas a un pallet ya persistido con un número fijo de
+     * sentencias, independiente de la cantidad de etiquetas. Las etiquetas repetidas
+     * (doble escaneo) se asignan una sola vez, en el orden del primer escaneo.
+     *
+     * @param posicionInicial última posición ocupada en el pallet (0 si está vacío)
+     * @return códigos de las etiquetas asignadas, en orden de posición
+     */
+    List<String> asignarEtiquetasMasivo(Pallet pallet, List<Long> etiquetasIds, Long empresaId, int posicionInicial) {
+        Set<Long> ids = new LinkedHashSet<>(etiquetasIds);
+        if (ids.size() > maxEtiquetasArmado) {
+            throw new IllegalArgumentException("No se pueden asignar más de " + maxEtiquetasArmado
+                    + " etiquetas en una operación");
+        }
+
+        Map<Long, EtiquetaRepository.DisponibilidadEtiqueta> actuales = etiquetaRepository
+                .findDisponibilidadByIdsAndEmpresaId(ids, empresaId)
+                .stream()
+                .collect(Collectors.toMap(EtiquetaRepository.DisponibilidadEtiqueta::getId, Function.identity()));
+
+        List<ErrorDetail> errores = new ArrayList<>();
+        List<String> codigos = new ArrayList<>(ids.size());
+        for (Long etiquetaId : ids) {
+            EtiquetaRepository.DisponibilidadEtiqueta etiqueta = actuales.get(etiquetaId);
+            if (etiqueta == null || !Boolean.TRUE.equals(etiqueta.getActivo())) {
+                errores.add(errorEtiqueta(etiquetaId, "Etiqueta no encontrada con ID: " + etiquetaId));
+            } else if (!EstadoEtiqueta.DISPONIBLE.name().equals(etiqueta.getEstadoEtiqueta())) {
+                errores.add(errorEtiqueta(etiquetaId, "La etiqueta " + etiqueta.getCodigoEtiqueta()
+                        + " no está disponible (" + etiqueta.getEstadoEtiqueta() + ")"));
+            } else {
+                codigos.add(etiqueta.getCodigoEtiqueta());
+            }
+        }
+
+        if (!errores.isEmpty()) {
+            throw new ConflictException(errores.size() + " etiqueta(s) no pueden asignarse al pallet", errores);
+        }
+
+        int actualizadas = etiquetaRepository.asignarAPalletMasivo(ids, empresaId,
+                EstadoEtiqueta.DISPONIBLE.name(), EstadoEtiqueta.ASIGNADA_PALLET.name(), LocalDateTime.now());
+        if (actualizadas != ids.size()) {
+            throw new IllegalStateException(
+                    "Algunas etiquetas cambiaron de estado durante la operación. Intente nuevamente.");
+        }
+
+        // Referencias sin consulta: los INSERT se agrupan en batch (ids por secuencia pooled-lo)
+        List<EtiquetaPallet> relaciones = new ArrayList<>(ids.size());
+        int posicion = posicionInicial;
+        for (Long etiquetaId : ids) {
+            relaciones.add(EtiquetaPallet.builder()
+                    .etiqueta(etiquetaRepository.getReferenceById(etiquetaId))
+                    .pallet(pallet)
+                    .posicionEnPallet(++posicion)
+                    .activo(true)
+                    .build());
+        }
+        etiquetaPalletRepository.saveAll(relaciones);
+
+        return codigos;
     }
 
     /**
      * Actualiza un pallet existente, validando pertenencia a la empresa.
+     * Si el pallet está asignado a un envío y cambian sus cajas o pesos, el delta
+     * se aplica atómicamente sobre los totales del envío. Los pallets de un envío
+     * cerrado no se pueden modificar (sus totales forman parte del hash de cierre).
      */
     @Transactional
     public PalletResponse actualizar(Long id, PalletRequest request, Long empresaId) {
         Pallet pallet = palletRepository.findByIdAndEmpresaId(id, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pallet", id));
 
+        if (pallet.getEnvio() != null && pallet.getEnvio().estaCerrado()) {
+            throw new IllegalStateException("No se puede modificar un pallet de un envío cerrado");
+        }
+
         // Validar código único si cambió (dentro de la empresa)
         if (!pallet.getCodigoPallet().equals(request.getCodigoPallet()) &&
                 palletRepository.existsByCodigoPalletAndEmpresaId(request.getCodigoPallet(), empresaId)) {
             throw new IllegalArgumentException("Ya existe un pallet con el código: " + request.getCodigoPallet());
         }
 
+        int cajasAnteriores = valor(pallet.getNumeroCajas());
+        double pesoNetoAnterior = valor(pallet.getPesoNetoTotal());
+        double pesoBrutoAnterior = valor(pallet.getPesoBrutoTotal());
+
         mapper.updateEntityFromRequest(pallet, request);
         Pallet updated = palletRepository.save(pallet);
 
-        return mapper.toResponse(updated);
+        if (pallet.getEnvio() != null) {
+            int deltaCajas = valor(pallet.getNumeroCajas()) - cajasAnteriores;
+            double deltaPesoNeto = valor(pallet.getPesoNetoTotal()) - pesoNetoAnterior;
+            double deltaPesoBruto = valor(pallet.getPesoBrutoTotal()) - pesoBrutoAnterior;
+            if (deltaCajas != 0 || deltaPesoNeto != 0.0 || deltaPesoBruto != 0.0) {
+                envioRepository.ajustarTotales(pallet.getEnvio().getId(), 0,
+                        deltaCajas, deltaPesoNeto, deltaPesoBruto, LocalDateTime.now());
+            }
+        }
+
+        return conEtiquetas(mapper.toResponse(updated));
     }
 
     /**
      * Elimina (desactiva) un pallet, validando pertenencia a la empresa.
+     * Un pallet asignado a un envío debe liberarse antes desde el envío, para que
+     * sus cajas y pesos se descuenten de los totales.
      */
     @Transactional
     public void eliminar(Long id, Long empresaId) {
         Pallet pallet = palletRepository.findByIdAndEmpresaId(id, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pallet", id));
 
+        if (pallet.getEnvio() != null) {
+            throw new IllegalStateException(pallet.getEnvio().estaCerrado()
+                    ? "No se puede eliminar un pallet de un envío cerrado"
+                    : "El pallet está asignado al envío " + pallet.getEnvio().getCodigoEnvio()
+                    + "; libérelo del envío antes de eliminarlo");
+        }
+
         // Liberar etiquetas asociadas
         for (EtiquetaPallet ep : pallet.getEtiquetas()) {
-            ep.getEtiqueta().setEstadoEtiqueta("DISPONIBLE");
+            Etiqueta etiqueta = ep.getEtiqueta();
+            EstadoEtiqueta.TRANSICIONES.validar(
+                    EstadoEtiqueta.TRANSICIONES.parsear(etiqueta.getEstadoEtiqueta()), EstadoEtiqueta.DISPONIBLE);
+            etiqueta.setEstadoEtiqueta(EstadoEtiqueta.DISPONIBLE.name());
         }
 
         pallet.setActivo(false);
@@ -189,16 +368,190 @@ public class PalletService {
     }
 
     /**
-     * Cambia el estado de un pallet, validando pertenencia a la empresa.
+     * Cambia el estado de un pallet, validando pertenencia a la empresa y
+     * que la transición esté permitida por EstadoPallet.TRANSICIONES.
      */
     @Transactional
     public PalletResponse cambiarEstado(Long id, String nuevoEstado, Long empresaId) {
         Pallet pallet = palletRepository.findByIdAndEmpresaId(id, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pallet", id));
 
-        pallet.setEstadoPallet(nuevoEstado);
+        EstadoPallet destino = EstadoPallet.TRANSICIONES.parsear(nuevoEstado);
+        EstadoPallet origen = EstadoPallet.TRANSICIONES.parsear(pallet.getEstadoPallet());
+        if (origen == destino) {
+            return conEtiquetas(mapper.toResponse(pallet));
+        }
+        EstadoPallet.validarCambioManual(origen, destino);
+
+        pallet.setEstadoPallet(destino.name());
         Pallet updated = palletRepository.save(pallet);
+        if (destino == EstadoPallet.DESPACHADO) {
+            throughputService.registrarPalletsDespachados(empresaId, 1);
+        }
+
+        return conEtiquetas(mapper.toResponse(updated));
+    }
+
+    /**
+     * Cambia el estado de varios pallets en una sola operación.
+     * Valida todos los pallets con una consulta IN contra la tabla de transiciones,
+     * reporta en un solo error todos los que no pueden cambiar, aplica el cambio con
+     * un único UPDATE y registra un único evento de auditoría agregado.
+     * Los pallets que ya están en el estado destino se ignoran.
+     */
+    @Transactional
+    public CambioEstadoMasivoResponse cambiarEstadoMasivo(List<Long> palletsIds, String nuevoEstado, User usuario) {
+        Long empresaId = usuario.getEmpresa().getId();
+        EstadoPallet destino = EstadoPallet.TRANSICIONES.parsear(nuevoEstado);
+        Set<Long> ids = new LinkedHashSet<>(palletsIds);
+
+        Map<Long, PalletRepository.DisponibilidadPallet> actuales = palletRepository
+                .findDisponibilidadByIdsAndEmpresaId(ids, empresaId)
+                .stream()
+                .collect(Collectors.toMap(PalletRepository.DisponibilidadPallet::getId, Function.identity()));
+
+        List<ErrorDetail> errores = new ArrayList<>();
+        List<Long> aCambiar = new ArrayList<>(ids.size());
+        Map<String, Long> porEstadoOrigen = new TreeMap<>();
+        for (Long palletId : ids) {
+            PalletRepository.DisponibilidadPallet pallet = actuales.get(palletId);
+            if (pallet == null || !Boolean.TRUE.equals(pallet.getActivo())) {
+                errores.add(errorPallet(palletId, "Pallet no encontrado con ID: " + palletId));
+                continue;
+            }
+            EstadoPallet origen;
+            try {
+                origen = EstadoPallet.TRANSICIONES.parsear(pallet.getEstadoPallet());
+            } catch (IllegalArgumentException e) {
+                errores.add(errorPallet(palletId, "El pallet " + pallet.getCodigoPallet()
+                        + " tiene un estado no reconocido: " + pallet.getEstadoPallet()));
+                continue;
+            }
+            if (origen == destino) {
+                continue;
+            }
+            if (!EstadoPallet.permiteCambioManual(origen, destino)) {
+                errores.add(errorPallet(palletId, "El pallet " + pallet.getCodigoPallet()
+                        + " no puede pasar de " + origen + " a " + destino));
+                continue;
+            }
+            aCambiar.add(palletId);
+            porEstadoOrigen.merge(origen.name(), 1L, Long::sum);
+        }
+
+        if (!errores.isEmpty()) {
+            throw new ConflictException(errores.size() + " pallet(s) no pueden cambiar a " + destino, errores);
+        }
+
+        if (!aCambiar.isEmpty()) {
+            Set<String> origenes = EstadoPallet.TRANSICIONES.origenesPermitidos(destino).stream()
+                    .filter(origen -> EstadoPallet.permiteCambioManual(origen, destino))
+                    .map(Enum::name)
+                    .collect(Collectors.toSet());
+
+            int actualizados = palletRepository.cambiarEstadoMasivo(
+                    aCambiar, empresaId, destino.name(), origenes, LocalDateTime.now());
+            if (actualizados != aCambiar.size()) {
+                throw new IllegalStateException(
+                        "Algunos pallets cambiaron de estado durante la operación. Intente nuevamente.");
+            }
+            if (destino == EstadoPallet.DESPACHADO) {
+                throughputService.registrarPalletsDespachados(empresaId, actualizados);
+            }
+
+            // Un único registro agregado (no corresponde a un pallet concreto: entidadId 0)
+            auditoriaService.registrarActualizacion(
+                    "PALLET",
+                    0L,
+                    "MASIVO",
+                    "Cambio de estado masivo de " + aCambiar.size() + " pallets a " + destino,
+                    "Por estado de origen: " + porEstadoOrigen + " | Pallets: " + aCambiar,
+                    destino.name(),
+                    usuario
+            );
+        }
+
+        return CambioEstadoMasivoResponse.builder()
+                .estadoDestino(destino.name())
+                .totalActualizados(aCambiar.size())
+                .porEstadoOrigen(porEstadoOrigen)
+                .build();
+    }
+
+    /**
+     * Página de resúmenes (consulta JPQL con el total de etiquetas) o, si se piden campos,
+     * solo esas columnas con el filtro equivalente; en ese caso no se incluyen etiquetas.
+     */
+    private Page<?> resumenes(Specification<Pallet> filtro, Function<Pageable, Page<PalletRepository.ResumenPallet>> consulta,
+                              Pageable pageable, String campos, boolean incluirEtiquetas) {
+        if (campos != null && !campos.isBlank()) {
+            return listadoService.proyectar(Pallet.class, filtro, pageable, campos, PalletResponse.class);
+        }
+        Page<PalletResponse> pagina = consulta.apply(listadoService.ordenar(Pallet.class, PalletResponse.class, pageable))
+                .map(mapper::toResponse);
+        if (incluirEtiquetas) {
+            completarEtiquetas(pagina.getContent());
+        }
+        return pagina;
+    }
+
+    private static Specification<Pallet> conEtiquetasDeClasificacion(Long clasificacionId) {
+        return (root, query, cb) -> {
+            Subquery<Long> etiquetas = query.subquery(Long.class);
+            Root<EtiquetaPallet> ep = etiquetas.from(EtiquetaPallet.class);
+            etiquetas.select(ep.get("id")).where(
+                    cb.equal(ep.get("pallet"), root),
+                    cb.equal(ep.get("etiqueta").get("clasificacion").get("id"), clasificacionId));
+            return cb.exists(etiquetas);
+        };
+    }
+
+    private PalletResponse conEtiquetas(PalletResponse response) {
+        completarEtiquetas(List.of(response));
+        return response;
+    }
+
+    /**
+     * Completa total y códigos de etiquetas de varios pallets con una consulta por cada
+     * bloque de hasta 1000 pallets, en lugar de recorrer la colección perezosa de cada uno.
+     */
+    private void completarEtiquetas(List<PalletResponse> responses) {
+        Map<Long, List<String>> codigosPorPallet = new HashMap<>();
+        List<Long> ids = responses.stream().map(PalletResponse::getId).toList();
+        for (int desde = 0; desde < ids.size(); desde += MAX_IDS_POR_CONSULTA) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + MAX_IDS_POR_CONSULTA, ids.size()));
+            for (EtiquetaPalletRepository.CodigoEtiquetaPallet fila : etiquetaPalletRepository.findCodigosByPalletIds(bloque)) {
+                codigosPorPallet.computeIfAbsent(fila.getPalletId(), id -> new ArrayList<>()).add(fila.getCodigoEtiqueta());
+            }
+        }
+        for (PalletResponse response : responses) {
+            List<String> codigos = codigosPorPallet.getOrDefault(response.getId(), List.of());
+            response.setTotalEtiquetas(codigos.size());
+            response.setEtiquetasCodigos(codigos);
+        }
+    }
+
+    private static ErrorDetail errorPallet(Long palletId, String mensaje) {
+        return ErrorDetail.builder()
+                .field("palletsIds")
+                .message(mensaje)
+                .rejectedValue(palletId)
+                .build();
+    }
+
+    private static ErrorDetail errorEtiqueta(Long etiquetaId, String mensaje) {
+        return ErrorDetail.builder()
+                .field("etiquetasIds")
+                .message(mensaje)
+                .rejectedValue(etiquetaId)
+                .build();
+    }
+
+    private static int valor(Integer numero) {
+        return Objects.requireNonNullElse(numero, 0);
+    }
 
-        return mapper.toResponse(updated);
+    private static double valor(Double numero) {
+        return Objects.requireNonNullElse(numero, 0.0);
     }
 }
@@ -8,13 +8,18 @@ import com.frutas.trazabilidad.module.empaque.repository.RecepcionPlantaReposito
 import com.frutas.trazabilidad.module.produccion.entity.Lote;
 import com.frutas.trazabilidad.module.produccion.repository.LoteRepository;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService;
+import com.frutas.trazabilidad.service.SecuenciaCodigoService.TipoCodigo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de recepciones en planta.
@@ -26,34 +31,33 @@ public class RecepcionPlantaService {
     private final RecepcionPlantaRepository recepcionRepository;
     private final LoteRepository loteRepository;
     private final RecepcionPlantaMapper mapper;
+    private final SecuenciaCodigoService secuenciaCodigoService;
+    private final ListadoService listadoService;
+    private final ThroughputEmpaqueService throughputService;
 
     @Transactional(readOnly = true)
-    public List<RecepcionPlantaResponse> listarPorEmpresa(Long empresaId) {
-        return recepcionRepository.findByEmpresaId(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<RecepcionPlantaResponse> listarPorLote(Long loteId, Long empresaId) {
+    public Page<?> listarPorLote(Long loteId, Long empresaId, Pageable pageable, String campos) {
         validarLotePertenencia(loteId, empresaId);
-        return recepcionRepository.findByLoteIdAndActivoTrueOrderByFechaRecepcionDesc(loteId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<RecepcionPlanta>igual("lote.id", loteId)
+                .and(Especificaciones.activos()), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<RecepcionPlantaResponse> listarPorEstado(Long empresaId, String estado) {
-        return recepcionRepository.findByEmpresaIdAndEstado(empresaId, estado).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEstado(Long empresaId, String estado, Pageable pageable, String campos) {
+        return listar(Especificaciones.<RecepcionPlanta>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("estadoRecepcion", estado)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<RecepcionPlantaResponse> listarPorRangoFechas(Long empresaId, LocalDate desde, LocalDate hasta) {
-        return recepcionRepository.findByEmpresaIdAndFechaBetween(empresaId, desde, hasta).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorRangoFechas(Long empresaId, LocalDate desde, LocalDate hasta,
+                                       Pageable pageable, String campos) {
+        return listar(Especificaciones.<RecepcionPlanta>activosDeEmpresa(empresaId)
+                .and(Especificaciones.entre("fechaRecepcion", desde, hasta)), pageable, campos);
     }
 
     @Transactional(readOnly = true)
@@ -67,11 +71,6 @@ public class RecepcionPlantaService {
 
     @Transactional
     public RecepcionPlantaResponse crear(RecepcionPlantaRequest request, Long empresaId) {
-        // Validar código único
-        if (recepcionRepository.existsByCodigoRecepcion(request.getCodigoRecepcion())) {
-            throw new IllegalArgumentException("Ya existe una recepción con el código: " + request.getCodigoRecepcion());
-        }
-
         // Validar lote
         Lote lote = loteRepository.findById(request.getLoteId())
                 .orElseThrow(() -> new ResourceNotFoundException("Lote no encontrado con ID: " + request.getLoteId()));
@@ -79,7 +78,11 @@ public class RecepcionPlantaService {
         validarLotePertenencia(lote.getId(), empresaId);
 
         RecepcionPlanta recepcion = mapper.toEntity(request, lote);
+        if (recepcion.getCodigoRecepcion() == null || recepcion.getCodigoRecepcion().isBlank()) {
+            recepcion.setCodigoRecepcion(secuenciaCodigoService.siguienteCodigo(empresaId, TipoCodigo.RECEPCION));
+        }
         RecepcionPlanta saved = recepcionRepository.save(recepcion);
+        throughputService.registrarRecepcion(empresaId, saved.getCantidadRecibida(), saved.getUnidadMedida());
 
         return mapper.toResponse(saved);
     }
@@ -91,12 +94,6 @@ public class RecepcionPlantaService {
 
         validarPertenenciaEmpresa(recepcion, empresaId);
 
-        // Validar código único si cambió
-        if (!recepcion.getCodigoRecepcion().equals(request.getCodigoRecepcion()) &&
-                recepcionRepository.existsByCodigoRecepcion(request.getCodigoRecepcion())) {
-            throw new IllegalArgumentException("Ya existe una recepción con el código: " + request.getCodigoRecepcion());
-        }
-
         // Validar lote
         Lote lote = loteRepository.findById(request.getLoteId())
                 .orElseThrow(() -> new ResourceNotFoundException("Lote no encontrado con ID: " + request.getLoteId()));
@@ -133,6 +130,11 @@ public class RecepcionPlantaService {
         return mapper.toResponse(updated);
     }
 
+    private Page<?> listar(Specification<RecepcionPlanta> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(recepcionRepository, RecepcionPlanta.class, filtro, pageable, campos,
+                RecepcionPlantaResponse.class, mapper::toResponse);
+    }
+
     private void validarLotePertenencia(Long loteId, Long empresaId) {
         if (!loteRepository.existsByIdAndEmpresaId(loteId, empresaId)) {
             throw new IllegalArgumentException("El lote no pertenece a la empresa del usuario");
@@ -140,7 +142,7 @@ public class RecepcionPlantaService {
     }
 
     private void validarPertenenciaEmpresa(RecepcionPlanta recepcion, Long empresaId) {
-        if (!recepcion.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!recepcion.getEmpresa().getId().equals(empresaId)) {
             throw new IllegalArgumentException("La recepción no pertenece a la empresa del usuario");
         }
     }
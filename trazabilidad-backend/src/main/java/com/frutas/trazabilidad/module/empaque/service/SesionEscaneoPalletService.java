@@ -0,0 +1,329 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.module.empaque.dto.EscaneoEtiquetaResponse;
+import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
+import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.dto.SesionEscaneoResponse;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoEtiqueta;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
+import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sesiones de escaneo incremental para estaciones de paletizado.
+ * El operador abre la sesión con los datos del pallet, escanea las cajas una a una y
+ * la cierra. Cada escaneo se resuelve a la etiqueta (una consulta de solo lectura por
+ * código impreso o UUID del QR) y se guarda en memoria, de modo que la misma caja leída
+ * por ambos códigos cuenta una sola vez, y una etiqueta no disponible se rechaza en el
+ * momento; al cerrar, el pallet se arma en una sola transacción con {@link PalletService#armar}.
+ * El estado vive en el nodo que abrió la sesión: con varias instancias el balanceador
+ * debe mantener afinidad de sesión para estas rutas.
+ * Métrica: trazabilidad.pallet.escaneo.sesiones (sesiones abiertas).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SesionEscaneoPalletService {
+
+    private static final int MAX_LONGITUD_CODIGO = 50;
+
+    private final PalletService palletService;
+    private final PalletRepository palletRepository;
+    private final EtiquetaRepository etiquetaRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+
+    /**
+     * Pallets (empresa, código) con una sesión abierta; se reservan de forma atómica al abrir.
+     */
+    private final Set<PalletEnSesion> palletsEnSesion = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.pallets.sesiones-escaneo.inactividad-minutos:30}")
+    private long inactividadMinutos;
+
+    @Value("${app.pallets.sesiones-escaneo.max-sesiones:500}")
+    private int maxSesiones;
+
+    @Value("${app.pallets.max-etiquetas-armado:1000}")
+    private int maxEtiquetasArmado;
+
+    @PostConstruct
+    void registrarGauge() {
+        Gauge.builder("trazabilidad.pallet.escaneo.sesiones", sesiones, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre una sesión de escaneo para un pallet nuevo. Las etiquetas del request se ignoran:
+     * se agregan escaneándolas. El número de cajas se toma como el previsto.
+     */
+    public SesionEscaneoResponse abrir(PalletRequest request, Long empresaId) {
+        if (sesiones.size() >= maxSesiones) {
+            throw new IllegalStateException("Se alcanzó el máximo de sesiones de escaneo abiertas. Intente más tarde.");
+        }
+        String codigoPallet = request.getCodigoPallet();
+        PalletEnSesion pallet = new PalletEnSesion(empresaId, codigoPallet);
+        if (!palletsEnSesion.add(pallet)) {
+            throw new IllegalStateException("Ya hay una sesión de escaneo abierta para el pallet: " + codigoPallet);
+        }
+
+        Sesion sesion;
+        try {
+            if (palletRepository.existsByCodigoPalletAndEmpresaId(codigoPallet, empresaId)) {
+                throw new IllegalArgumentException("Ya existe un pallet con el código: " + codigoPallet);
+            }
+            sesion = new Sesion(UUID.randomUUID().toString(), empresaId, request.toBuilder().etiquetasIds(null).build());
+            sesiones.put(sesion.id, sesion);
+        } catch (RuntimeException e) {
+            palletsEnSesion.remove(pallet);
+            throw e;
+        }
+        log.info("Sesión de escaneo {} abierta para pallet {} (empresa {})", sesion.id, codigoPallet, empresaId);
+        return toResponse(sesion, false);
+    }
+
+    /**
+     * Registra un escaneo. Acepta el código impreso, el UUID del QR o la URL completa
+     * que contiene el QR. Una etiqueta ya leída (por cualquiera de sus códigos) no se
+     * cuenta dos veces; una etiqueta que no está DISPONIBLE se rechaza sin agregarla.
+     */
+    public EscaneoEtiquetaResponse escanear(String sesionId, String codigoLeido, Long empresaId) {
+        String codigo = normalizarCodigo(codigoLeido);
+        Sesion sesion = obtener(sesionId, empresaId);
+        EtiquetaRepository.IdentificacionEtiqueta etiqueta = etiquetaRepository
+                .findIdentificacionByCodigosAndEmpresaId(List.of(codigo), empresaId).stream()
+                .filter(e -> Boolean.TRUE.equals(e.getActivo()))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Etiqueta no encontrada con código: " + codigo));
+        if (!EstadoEtiqueta.DISPONIBLE.name().equals(etiqueta.getEstadoEtiqueta())) {
+            throw new IllegalStateException("La etiqueta " + etiqueta.getCodigoEtiqueta()
+                    + " no está disponible (" + etiqueta.getEstadoEtiqueta() + ")");
+        }
+        synchronized (sesion) {
+            verificarAbierta(sesion);
+            boolean duplicado = sesion.etiquetas.containsKey(etiqueta.getId());
+            if (!duplicado) {
+                if (sesion.etiquetas.size() >= maxEtiquetasArmado) {
+                    throw new IllegalArgumentException("No se pueden asignar más de " + maxEtiquetasArmado
+                            + " etiquetas en una operación");
+                }
+                sesion.etiquetas.put(etiqueta.getId(), new EtiquetaEscaneada(
+                        etiqueta.getId(), etiqueta.getCodigoEtiqueta(), etiqueta.getCodigoQr()));
+            }
+            sesion.ultimaActividad = LocalDateTime.now();
+            return EscaneoEtiquetaResponse.builder()
+                    .codigo(etiqueta.getCodigoEtiqueta())
+                    .duplicado(duplicado)
+                    .totalEscaneadas(sesion.etiquetas.size())
+                    .build();
+        }
+    }
+
+    /**
+     * Descarta un escaneo (caja retirada del pallet o leída por error).
+     */
+    public EscaneoEtiquetaResponse descartar(String sesionId, String codigoLeido, Long empresaId) {
+        String codigo = normalizarCodigo(codigoLeido);
+        Sesion sesion = obtener(sesionId, empresaId);
+        synchronized (sesion) {
+            verificarAbierta(sesion);
+            EtiquetaEscaneada etiqueta = sesion.etiquetas.values().stream()
+                    .filter(e -> e.corresponde(codigo))
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "La etiqueta " + codigo + " no está escaneada en la sesión"));
+            sesion.etiquetas.remove(etiqueta.id());
+            sesion.ultimaActividad = LocalDateTime.now();
+            return EscaneoEtiquetaResponse.builder()
+                    .codigo(etiqueta.codigoEtiqueta())
+                    .duplicado(false)
+                    .totalEscaneadas(sesion.etiquetas.size())
+                    .build();
+        }
+    }
+
+    /**
+     * Devuelve el estado de la sesión con los códigos escaneados.
+     */
+    public SesionEscaneoResponse consultar(String sesionId, Long empresaId) {
+        Sesion sesion = obtener(sesionId, empresaId);
+        synchronized (sesion) {
+            return toResponse(sesion, true);
+        }
+    }
+
+    /**
+     * Cierra la sesión armando el pallet con todas las etiquetas escaneadas en una sola
+     * transacción. Si alguna etiqueta no puede asignarse la sesión sigue abierta para
+     * que el operador descarte esas cajas y vuelva a cerrar.
+     */
+    public PalletResponse cerrar(String sesionId, Long empresaId) {
+        Sesion sesion = obtener(sesionId, empresaId);
+        List<Long> etiquetasIds;
+        synchronized (sesion) {
+            verificarAbierta(sesion);
+            if (sesion.etiquetas.isEmpty()) {
+                throw new IllegalArgumentException("No se ha escaneado ninguna etiqueta");
+            }
+            sesion.cerrando = true;
+            etiquetasIds = List.copyOf(sesion.etiquetas.keySet());
+        }
+
+        try {
+            // Copia: el request de la sesión no se modifica si el armado falla y se reintenta.
+            // El número de cajas del pallet es el de etiquetas escaneadas
+            PalletResponse pallet = palletService.armar(sesion.datos.toBuilder()
+                    .etiquetasIds(etiquetasIds)
+                    .numeroCajas(etiquetasIds.size())
+                    .build(), empresaId);
+            finalizar(sesion);
+            log.info("Sesión de escaneo {} cerrada: pallet {} con {} etiquetas",
+                    sesionId, pallet.getCodigoPallet(), etiquetasIds.size());
+            return pallet;
+        } catch (RuntimeException e) {
+            synchronized (sesion) {
+                sesion.cerrando = false;
+                sesion.ultimaActividad = LocalDateTime.now();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cancela la sesión descartando los escaneos; no se crea ningún pallet.
+     */
+    public void cancelar(String sesionId, Long empresaId) {
+        Sesion sesion = obtener(sesionId, empresaId);
+        synchronized (sesion) {
+            verificarAbierta(sesion);
+            finalizar(sesion);
+        }
+        log.info("Sesión de escaneo {} cancelada con {} etiquetas escaneadas", sesionId, sesion.etiquetas.size());
+    }
+
+    /**
+     * Descarta las sesiones sin actividad durante app.pallets.sesiones-escaneo.inactividad-minutos.
+     */
+    @Scheduled(fixedDelayString = "PT1M", initialDelayString = "PT1M")
+    public void limpiarSesionesInactivas() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(inactividadMinutos);
+        sesiones.values().removeIf(sesion -> {
+            synchronized (sesion) {
+                boolean expirada = !sesion.cerrando && sesion.ultimaActividad.isBefore(limite);
+                if (expirada) {
+                    palletsEnSesion.remove(new PalletEnSesion(sesion.empresaId, sesion.datos.getCodigoPallet()));
+                    log.warn("Sesión de escaneo {} del pallet {} expirada por inactividad ({} etiquetas descartadas)",
+                            sesion.id, sesion.datos.getCodigoPallet(), sesion.etiquetas.size());
+                }
+                return expirada;
+            }
+        });
+    }
+
+    private Sesion obtener(String sesionId, Long empresaId) {
+        Sesion sesion = sesiones.get(sesionId);
+        // Una sesión de otra empresa se trata como inexistente
+        if (sesion == null || !sesion.empresaId.equals(empresaId)) {
+            throw new ResourceNotFoundException("Sesión de escaneo no encontrada o expirada: " + sesionId);
+        }
+        return sesion;
+    }
+
+    private void finalizar(Sesion sesion) {
+        sesiones.remove(sesion.id);
+        palletsEnSesion.remove(new PalletEnSesion(sesion.empresaId, sesion.datos.getCodigoPallet()));
+    }
+
+    private static void verificarAbierta(Sesion sesion) {
+        if (sesion.cerrando) {
+            throw new IllegalStateException("La sesión de escaneo se está cerrando");
+        }
+    }
+
+    /**
+     * El QR contiene la URL pública de trazabilidad; el código es su último segmento.
+     */
+    static String normalizarCodigo(String codigoLeido) {
+        String codigo = codigoLeido == null ? "" : codigoLeido.trim();
+        int barra = codigo.lastIndexOf('/');
+        if (barra >= 0) {
+            codigo = codigo.substring(barra + 1);
+        }
+        if (codigo.isEmpty() || codigo.length() > MAX_LONGITUD_CODIGO) {
+            throw new IllegalArgumentException("Código de etiqueta inválido: " + codigoLeido);
+        }
+        return codigo;
+    }
+
+    private static SesionEscaneoResponse toResponse(Sesion sesion, boolean incluirCodigos) {
+        return SesionEscaneoResponse.builder()
+                .sesionId(sesion.id)
+                .codigoPallet(sesion.datos.getCodigoPallet())
+                .cajasEsperadas(sesion.cajasEsperadas)
+                .totalEscaneadas(sesion.etiquetas.size())
+                .codigos(incluirCodigos ? sesion.codigos() : null)
+                .abiertaEn(sesion.abiertaEn)
+                .ultimaActividad(sesion.ultimaActividad)
+                .build();
+    }
+
+    private record PalletEnSesion(Long empresaId, String codigoPallet) {
+    }
+
+    /**
+     * Etiqueta escaneada, con sus dos códigos para poder descartarla por cualquiera de ellos.
+     */
+    private record EtiquetaEscaneada(Long id, String codigoEtiqueta, String codigoQr) {
+        boolean corresponde(String codigo) {
+            return codigo.equals(codigoEtiqueta) || codigo.equals(codigoQr);
+        }
+    }
+
+    /**
+     * Estado de una sesión; se accede sincronizando sobre la propia instancia.
+     */
+    private static final class Sesion {
+        private final String id;
+        private final Long empresaId;
+        private final PalletRequest datos;
+        private final Integer cajasEsperadas;
+        private final Map<Long, EtiquetaEscaneada> etiquetas = new LinkedHashMap<>();  // Por ID, en orden de escaneo
+        private final LocalDateTime abiertaEn = LocalDateTime.now();
+        private LocalDateTime ultimaActividad = abiertaEn;
+        private boolean cerrando;
+
+        private Sesion(String id, Long empresaId, PalletRequest datos) {
+            this.id = id;
+            this.empresaId = empresaId;
+            this.datos = datos;
+            this.cajasEsperadas = datos.getNumeroCajas();
+        }
+
+        /**
+         * Códigos impresos de las etiquetas escaneadas, en orden de escaneo.
+         */
+        private List<String> codigos() {
+            List<String> codigos = new ArrayList<>(etiquetas.size());
+            etiquetas.values().forEach(e -> codigos.add(e.codigoEtiqueta()));
+            return codigos;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.module.empaque.dto.ThroughputHoraResponse;
+import com.frutas.trazabilidad.module.empaque.entity.MetricaThroughput;
+import com.frutas.trazabilidad.module.empaque.repository.ThroughputEmpaqueRepository;
+import com.frutas.trazabilidad.module.empaque.repository.ThroughputEmpaqueRepository.RollupHora;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rendimiento horario de la planta de empaque por empresa: kg recibidos, kg clasificados
+ * por calidad, cajas etiquetadas, pallets armados y pallets despachados.
+ * Los servicios de empaque registran cada operación al confirmarse su transacción en
+ * contadores LongAdder en memoria (por empresa, hora, métrica y calidad), de modo que
+ * las operaciones concurrentes no compiten por un mismo contador ni escriben en la BD.
+ * Un job vuelca periódicamente los deltas pendientes a throughput_empaque_hora.
+ * La consulta sirve desde memoria las horas contadas completas desde el arranque (hasta
+ * app.throughput.horas-memoria); las anteriores se leen de los rollups más lo aún no volcado.
+ * Los contadores son locales a la instancia: con varias instancias los rollups suman los
+ * deltas de todas, pero las horas servidas desde memoria solo reflejan la instancia que responde.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThroughputEmpaqueService {
+
+    private static final String SIN_CALIDAD = "";
+
+    private static final Comparator<RollupHora> ORDEN_ROLLUPS = Comparator
+            .comparing(RollupHora::empresaId)
+            .thenComparing(RollupHora::hora)
+            .thenComparing(RollupHora::metrica)
+            .thenComparing(RollupHora::calidad);
+
+    private final ThroughputEmpaqueRepository throughputRepository;
+
+    @Value("${app.throughput.horas-memoria:48}")
+    private int horasMemoria;
+
+    @Value("${app.throughput.max-horas-consulta:744}")
+    private int maxHorasConsulta;
+
+    private final Map<ClaveContador, Contador> contadores = new ConcurrentHashMap<>();
+
+    /**
+     * Las horas anteriores no se contaron completas en memoria (solo están enteras en los rollups).
+     */
+    private final LocalDateTime primeraHoraCompleta = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+
+    public void registrarRecepcion(Long empresaId, Double cantidad, String unidadMedida) {
+        Long gramos = gramos(cantidad, unidadMedida);
+        if (gramos != null) {
+            incrementar(empresaId, MetricaThroughput.KG_RECIBIDOS, SIN_CALIDAD, gramos);
+        }
+    }
+
+    public void registrarClasificacion(Long empresaId, String calidad, Double cantidad, String unidadMedida) {
+        Long gramos = gramos(cantidad, unidadMedida);
+        if (gramos != null) {
+            incrementar(empresaId, MetricaThroughput.KG_CLASIFICADOS, calidad.trim().toUpperCase(Locale.ROOT), gramos);
+        }
+    }
+
+    /**
+     * Solo las etiquetas de tipo CAJA cuentan como cajas etiquetadas.
+     */
+    public void registrarEtiquetas(Long empresaId, String tipoEtiqueta, int cantidad) {
+        if ("CAJA".equalsIgnoreCase(tipoEtiqueta)) {
+            incrementar(empresaId, MetricaThroughput.CAJAS_ETIQUETADAS, SIN_CALIDAD, cantidad);
+        }
+    }
+
+    public void registrarPalletsArmados(Long empresaId, int cantidad) {
+        incrementar(empresaId, MetricaThroughput.PALLETS_ARMADOS, SIN_CALIDAD, cantidad);
+    }
+
+    public void registrarPalletsDespachados(Long empresaId, int cantidad) {
+        incrementar(empresaId, MetricaThroughput.PALLETS_DESPACHADOS, SIN_CALIDAD, cantidad);
+    }
+
+    /**
+     * Rendimiento por hora de una empresa en el rango [desde, hasta), con todas las horas
+     * del rango (en cero las que no tuvieron actividad).
+     *
+     * @param desde inicio del rango, truncado a la hora (por defecto, 24 horas antes de hasta)
+     * @param hasta fin del rango (por defecto, ahora)
+     */
+    public List<ThroughputHoraResponse> consultar(Long empresaId, LocalDateTime desde, LocalDateTime hasta) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime fin = hasta != null ? hasta : ahora;
+        LocalDateTime inicio = (desde != null ? desde : fin.minusHours(24)).truncatedTo(ChronoUnit.HOURS);
+        if (!inicio.isBefore(fin)) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior a la fecha final");
+        }
+        if (Duration.between(inicio, fin).toHours() > maxHorasConsulta) {
+            throw new IllegalArgumentException("El rango solicitado supera " + maxHorasConsulta + " horas");
+        }
+
+        Map<LocalDateTime, Acumulado> horas = new TreeMap<>();
+        LocalDateTime desdeMemoria = max(primeraHoraCompleta, ahora.truncatedTo(ChronoUnit.HOURS).minusHours(horasMemoria));
+
+        if (inicio.isBefore(desdeMemoria)) {
+            LocalDateTime finRollups = fin.isBefore(desdeMemoria) ? fin : desdeMemoria;
+            // Sincronizado con el volcado: un delta está en los rollups o pendiente en memoria, nunca en ambos
+            synchronized (this) {
+                for (RollupHora rollup : throughputRepository.findRollups(empresaId, inicio, finRollups)) {
+                    horas.computeIfAbsent(rollup.hora(), h -> new Acumulado())
+                            .sumar(rollup.metrica(), rollup.calidad(), rollup.valor());
+                }
+                contadores.forEach((clave, contador) -> {
+                    long pendiente = contador.pendiente();
+                    if (pendiente != 0 && clave.esDe(empresaId, inicio, finRollups)) {
+                        horas.computeIfAbsent(clave.hora(), h -> new Acumulado())
+                                .sumar(clave.metrica(), clave.calidad(), pendiente);
+                    }
+                });
+            }
+        }
+
+        if (fin.isAfter(desdeMemoria)) {
+            LocalDateTime inicioMemoria = max(inicio, desdeMemoria);
+            contadores.forEach((clave, contador) -> {
+                if (clave.esDe(empresaId, inicioMemoria, fin)) {
+                    horas.computeIfAbsent(clave.hora(), h -> new Acumulado())
+                            .sumar(clave.metrica(), clave.calidad(), contador.valor.sum());
+                }
+            });
+        }
+
+        List<ThroughputHoraResponse> respuesta = new ArrayList<>();
+        for (LocalDateTime hora = inicio; hora.isBefore(fin); hora = hora.plusHours(1)) {
+            respuesta.add(horas.getOrDefault(hora, new Acumulado()).toResponse(hora));
+        }
+        return respuesta;
+    }
+
+    /**
+     * Vuelca a los rollups lo acumulado desde el último volcado y libera las horas antiguas
+     * ya volcadas. Si la escritura falla, los deltas siguen pendientes para el próximo intento.
+     */
+    @Scheduled(fixedDelayString = "${app.throughput.intervalo-volcado:PT1M}",
+            initialDelayString = "${app.throughput.intervalo-volcado:PT1M}")
+    @PreDestroy
+    public synchronized void volcar() {
+        List<RollupHora> deltas = new ArrayList<>();
+        Map<Contador, Long> totales = new HashMap<>();
+        contadores.forEach((clave, contador) -> {
+            long total = contador.valor.sum();
+            if (total != contador.persistido) {
+                deltas.add(new RollupHora(clave.empresaId(), clave.hora(), clave.metrica(), clave.calidad(),
+                        total - contador.persistido));
+                totales.put(contador, total);
+            }
+        });
+
+        if (!deltas.isEmpty()) {
+            deltas.sort(ORDEN_ROLLUPS);
+            try {
+                throughputRepository.acumular(deltas);
+            } catch (DataAccessException e) {
+                log.warn("No se pudo volcar el rendimiento de empaque ({} contadores pendientes): {}",
+                        deltas.size(), e.getMessage());
+                return;
+            }
+            totales.forEach((contador, total) -> contador.persistido = total);
+            log.debug("Rendimiento de empaque volcado: {} contadores", deltas.size());
+        }
+
+        LocalDateTime limite = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(horasMemoria);
+        contadores.entrySet().removeIf(e -> e.getKey().hora().isBefore(limite) && e.getValue().pendiente() == 0);
+    }
+
+    /**
+     * Suma al confirmarse la transacción en curso (o de inmediato si no hay una), para no
+     * contar operaciones revertidas.
+     */
+    private void incrementar(Long empresaId, MetricaThroughput metrica, String calidad, long valor) {
+        if (valor <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sumar(empresaId, metrica, calidad, valor);
+                }
+            });
+        } else {
+            sumar(empresaId, metrica, calidad, valor);
+        }
+    }
+
+    private void sumar(Long empresaId, MetricaThroughput metrica, String calidad, long valor) {
+        ClaveContador clave = new ClaveContador(empresaId, LocalDateTime.now().truncatedTo(ChronoUnit.HOURS),
+                metrica, calidad);
+        contadores.computeIfAbsent(clave, c -> new Contador()).valor.add(valor);
+    }
+
+    /**
+     * Cantidad en gramos, o null si la unidad no es de peso (p. ej. cajas).
+     */
+    private static Long gramos(Double cantidad, String unidadMedida) {
+        if (cantidad == null || unidadMedida == null) {
+            return null;
+        }
+        long factor = switch (unidadMedida.trim().toLowerCase(Locale.ROOT)) {
+            case "kg", "kilo", "kilos", "kilogramos" -> 1_000L;
+            case "t", "ton", "tonelada", "toneladas" -> 1_000_000L;
+            default -> 0L;
+        };
+        return factor == 0 ? null : Math.round(cantidad * factor);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private record ClaveContador(Long empresaId, LocalDateTime hora, MetricaThroughput metrica, String calidad) {
+
+        private boolean esDe(Long empresa, LocalDateTime desde, LocalDateTime hasta) {
+            return empresaId.equals(empresa) && !hora.isBefore(desde) && hora.isBefore(hasta);
+        }
+    }
+
+    /**
+     * Contador de una clave: valor acumulado en memoria y parte ya volcada a los rollups.
+     * persistido solo se escribe en el volcado (sincronizado).
+     */
+    private static final class Contador {
+        private final LongAdder valor = new LongAdder();
+        private volatile long persistido;
+
+        private long pendiente() {
+            return valor.sum() - persistido;
+        }
+    }
+
+    /**
+     * Valores de una hora al armar la respuesta.
+     */
+    private static final class Acumulado {
+        private final long[] valores = new long[MetricaThroughput.values().length];
+        private final Map<String, Long> gramosPorCalidad = new TreeMap<>();
+
+        private void sumar(MetricaThroughput metrica, String calidad, long valor) {
+            valores[metrica.ordinal()] += valor;
+            if (metrica == MetricaThroughput.KG_CLASIFICADOS) {
+                gramosPorCalidad.merge(calidad, valor, Long::sum);
+            }
+        }
+
+        private ThroughputHoraResponse toResponse(LocalDateTime hora) {
+            Map<String, Double> kgPorCalidad = new TreeMap<>();
+            gramosPorCalidad.forEach((calidad, gramos) -> kgPorCalidad.put(calidad, gramos / 1000.0));
+            return ThroughputHoraResponse.builder()
+                    .hora(hora)
+                    .kgRecibidos(valores[MetricaThroughput.KG_RECIBIDOS.ordinal()] / 1000.0)
+                    .kgClasificadosPorCalidad(kgPorCalidad)
+                    .cajasEtiquetadas(valores[MetricaThroughput.CAJAS_ETIQUETADAS.ordinal()])
+                    .palletsArmados(valores[MetricaThroughput.PALLETS_ARMADOS.ordinal()])
+                    .palletsDespachados(valores[MetricaThroughput.PALLETS_DESPACHADOS.ordinal()])
+                    .build();
+        }
+    }
+}
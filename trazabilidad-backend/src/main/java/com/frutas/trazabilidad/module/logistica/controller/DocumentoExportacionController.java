@@ -5,17 +5,34 @@ import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.logistica.dto.DocumentoExportacionRequest;
 import com.frutas.trazabilidad.module.logistica.dto.DocumentoExportacionResponse;
 import com.frutas.trazabilidad.module.logistica.service.DocumentoExportacionService;
+import com.frutas.trazabilidad.module.logistica.service.DocumentoExportacionService.ArchivoDocumento;
 import com.frutas.trazabilidad.security.InputSanitizer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 
@@ -117,6 +134,66 @@ public class DocumentoExportacionController {
         return ResponseEntity.ok(ApiResponse.success(documento, "Documento obtenido exitosamente"));
     }
 
+    @PutMapping(value = "/{id}/archivo",
+            consumes = {MediaType.APPLICATION_PDF_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE})
+    @Operation(summary = "Subir archivo del documento",
+            description = "Guarda el archivo enviado como cuerpo de la petición (en streaming). " +
+                    "Si el documento tiene hashArchivo, el contenido debe coincidir con él")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
+    public ResponseEntity<ApiResponse<DocumentoExportacionResponse>> subirArchivo(
+            @PathVariable Long id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipoArchivo,
+            InputStream cuerpo,
+            @AuthenticationPrincipal User user) {
+
+        DocumentoExportacionResponse response = documentoService.adjuntarArchivo(
+                id, cuerpo, tipoArchivo, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(response, "Archivo almacenado exitosamente"));
+    }
+
+    @PostMapping(value = "/{id}/archivo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Subir archivo del documento (multipart)",
+            description = "Variante multipart/form-data (campo 'archivo') para formularios web")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
+    public ResponseEntity<ApiResponse<DocumentoExportacionResponse>> subirArchivoMultipart(
+            @PathVariable Long id,
+            @RequestParam("archivo") MultipartFile archivo,
+            @AuthenticationPrincipal User user) throws IOException {
+
+        try (InputStream contenido = archivo.getInputStream()) {
+            DocumentoExportacionResponse response = documentoService.adjuntarArchivo(
+                    id, contenido, archivo.getContentType(), user.getEmpresa().getId());
+            return ResponseEntity.ok(ApiResponse.success(response, "Archivo almacenado exitosamente"));
+        }
+    }
+
+    @GetMapping("/{id}/archivo")
+    @Operation(summary = "Descargar archivo del documento",
+            description = "Descarga el archivo almacenado. Admite peticiones parciales (header Range)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public void descargarArchivo(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        ArchivoDocumento archivo = documentoService.obtenerArchivo(id, user.getEmpresa().getId());
+        enviarArchivo(archivo, request, response);
+    }
+
+    @GetMapping("/{id}/archivo/verificacion")
+    @Operation(summary = "Verificar integridad del archivo",
+            description = "Recalcula el SHA-256 del archivo almacenado y lo compara con hashArchivo")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<Boolean>> verificarArchivo(
+            @PathVariable Long id,
+            @AuthenticationPrincipal User user) {
+
+        boolean integro = documentoService.verificarArchivo(id, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(integro,
+                integro ? "El archivo coincide con su hash SHA-256" : "El archivo NO coincide con su hash SHA-256"));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Eliminar documento", description = "Elimina (desactiva) un documento")
     @PreAuthorize("hasRole('ADMIN')")
@@ -128,6 +205,82 @@ public class DocumentoExportacionController {
         return ResponseEntity.ok(ApiResponse.success(null, "Documento eliminado exitosamente"));
     }
 
+    /**
+     * Escribe el archivo en la respuesta con FileChannel.transferTo, sin cargarlo en memoria.
+     * El ETag es el SHA-256 (contenido inmutable). Se atiende un único rango de bytes
+     * (206); si se piden varios rangos o el header Range no es válido se envía el archivo
+     * completo, y un rango que empieza fuera del archivo responde 416.
+     */
+    private void enviarArchivo(ArchivoDocumento archivo, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        String etag = "\"" + archivo.hash() + "\"";
+        long tamano = Files.size(archivo.ruta());
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long inicio = 0;
+        long longitud = tamano;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // Con If-Range, el rango solo aplica si el cliente tiene la misma versión del archivo
+        HttpRange rango = ifRange == null || ifRange.equals(etag)
+                ? rangoUnico(request.getHeader(HttpHeaders.RANGE))
+                : null;
+        if (rango != null) {
+            inicio = rango.getRangeStart(tamano);
+            long fin = rango.getRangeEnd(tamano);
+            if (inicio >= tamano || fin < inicio) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            longitud = fin - inicio + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+        }
+
+        response.setContentType(archivo.tipoArchivo());
+        response.setContentLengthLong(longitud);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(archivo.nombre(), StandardCharsets.UTF_8).build().toString());
+
+        try (FileChannel origen = FileChannel.open(archivo.ruta(), StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long restante = longitud;
+            while (restante > 0) {
+                long enviados = origen.transferTo(posicion, restante, destino);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    /**
+     * Devuelve el rango pedido si el header Range contiene exactamente uno; un header
+     * ausente, sintácticamente inválido o con varios rangos se ignora (RFC 9110 §14.2).
+     */
+    private static HttpRange rangoUnico(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> rangos = HttpRange.parseRanges(header);
+            return rangos.size() == 1 ? rangos.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Sanitiza los campos de texto libre del request.
      */
@@ -4,17 +4,27 @@ import com.frutas.trazabilidad.dto.ApiResponse;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.logistica.dto.EnvioRequest;
 import com.frutas.trazabilidad.module.logistica.dto.EnvioResponse;
+import com.frutas.trazabilidad.module.logistica.dto.VentanaTelemetriaResponse;
+import com.frutas.trazabilidad.module.logistica.entity.EstadoEnvio;
 import com.frutas.trazabilidad.module.logistica.service.EnvioService;
+import com.frutas.trazabilidad.module.logistica.service.TelemetriaService;
+import com.frutas.trazabilidad.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +39,8 @@ import java.util.Map;
 public class EnvioController {
 
     private final EnvioService envioService;
+    private final IdempotencyService idempotencyService;
+    private final TelemetriaService telemetriaService;
 
     @PostMapping
     @Operation(summary = "Crear envío", description = "Crea un nuevo envío de exportación")
@@ -53,7 +65,8 @@ public class EnvioController {
     }
 
     @PostMapping("/{id}/pallets")
-    @Operation(summary = "Asignar pallets al envío", description = "Asigna una lista de pallets a un envío")
+    @Operation(summary = "Asignar pallets al envío", description = "Asigna una lista de pallets a un envío. " +
+            "La asignación es completa o no se realiza: si algún pallet no está disponible se listan todos en el error")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA', 'OPERADOR_PLANTA')")
     public ResponseEntity<ApiResponse<EnvioResponse>> asignarPallets(
             @PathVariable Long id,
@@ -64,45 +77,72 @@ public class EnvioController {
         return ResponseEntity.ok(ApiResponse.success(response, "Pallets asignados exitosamente"));
     }
 
+    @DeleteMapping("/{id}/pallets")
+    @Operation(summary = "Liberar pallets del envío", description = "Quita una lista de pallets de un envío y los devuelve a estado ARMADO")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA', 'OPERADOR_PLANTA')")
+    public ResponseEntity<ApiResponse<EnvioResponse>> desasignarPallets(
+            @PathVariable Long id,
+            @RequestBody Map<String, List<Long>> body,
+            @AuthenticationPrincipal User user) {
+        List<Long> palletsIds = body.get("palletsIds");
+        EnvioResponse response = envioService.desasignarPallets(id, palletsIds, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(response, "Pallets liberados exitosamente"));
+    }
+
     @PatchMapping("/{id}/estado")
-    @Operation(summary = "Cambiar estado del envío", description = "Actualiza el estado de un envío")
+    @Operation(summary = "Cambiar estado del envío", description = "Actualiza el estado de un envío. " +
+            "Acepta el header Idempotency-Key: un reintento con la misma clave devuelve la respuesta original")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
     public ResponseEntity<ApiResponse<EnvioResponse>> cambiarEstado(
             @PathVariable Long id,
             @RequestBody Map<String, String> body,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal User user) {
-        String estado = body.get("estado");
-        EnvioResponse response = envioService.cambiarEstado(id, estado, user.getEmpresa().getId());
+        // Se valida antes de reservar la clave: la operación guardada solo lleva estados conocidos
+        EstadoEnvio estado = EstadoEnvio.TRANSICIONES.parsear(body.get("estado"));
+        Long empresaId = user.getEmpresa().getId();
+        EnvioResponse response = idempotencyService.ejecutar(idempotencyKey, empresaId,
+                "ENVIO_ESTADO:" + estado.name(), id, EnvioResponse.class,
+                () -> envioService.cambiarEstado(id, estado.name(), empresaId));
         return ResponseEntity.ok(ApiResponse.success(response, "Estado actualizado exitosamente"));
     }
 
     @PostMapping("/{id}/cerrar")
-    @Operation(summary = "Cerrar envío", description = "Cierra un envío, generando hash de integridad")
+    @Operation(summary = "Cerrar envío", description = "Cierra un envío, generando hash de integridad. " +
+            "Acepta el header Idempotency-Key: un reintento con la misma clave devuelve la respuesta original")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
     public ResponseEntity<ApiResponse<EnvioResponse>> cerrar(
             @PathVariable Long id,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal User user) {
-        EnvioResponse response = envioService.cerrar(id, user.getEmpresa().getId());
+        Long empresaId = user.getEmpresa().getId();
+        EnvioResponse response = idempotencyService.ejecutar(idempotencyKey, empresaId,
+                "ENVIO_CERRAR", id, EnvioResponse.class,
+                () -> envioService.cerrar(id, empresaId));
         return ResponseEntity.ok(ApiResponse.success(response, "Envío cerrado exitosamente"));
     }
 
     @GetMapping
     @Operation(summary = "Listar envíos", description = "Lista todos los envíos de la empresa")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EnvioResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EnvioResponse> envios = envioService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(envios, "Envíos obtenidos exitosamente"));
+        Page<?> envios = envioService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(envios, "Envíos obtenidos exitosamente"));
     }
 
     @GetMapping("/estado/{estado}")
     @Operation(summary = "Listar envíos por estado", description = "Lista envíos filtrados por estado")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<EnvioResponse>>> listarPorEstado(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorEstado(
             @PathVariable String estado,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<EnvioResponse> envios = envioService.listarPorEstado(estado, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(envios, "Envíos por estado obtenidos"));
+        Page<?> envios = envioService.listarPorEstado(estado, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(envios, "Envíos por estado obtenidos"));
     }
 
     @GetMapping("/{id}")
@@ -115,6 +155,22 @@ public class EnvioController {
         return ResponseEntity.ok(ApiResponse.success(envio, "Envío obtenido exitosamente"));
     }
 
+    @GetMapping("/{id}/telemetria")
+    @Operation(summary = "Telemetría del envío",
+            description = "Temperatura y humedad mínima, máxima y promedio por ventana (1m, 15m o 1h). " +
+                    "Sin resolución se elige según el rango; por defecto, las últimas 24 horas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<List<VentanaTelemetriaResponse>>> obtenerTelemetria(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String resolucion,
+            @AuthenticationPrincipal User user) {
+        List<VentanaTelemetriaResponse> ventanas = telemetriaService.consultarVentanas(
+                id, user.getEmpresa().getId(), desde, hasta, resolucion);
+        return ResponseEntity.ok(ApiResponse.success(ventanas, "Telemetría obtenida exitosamente"));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Eliminar envío", description = "Elimina (desactiva) un envío")
     @PreAuthorize("hasRole('ADMIN')")
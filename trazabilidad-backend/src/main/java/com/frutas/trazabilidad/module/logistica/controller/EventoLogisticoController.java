@@ -4,6 +4,8 @@ import com.frutas.trazabilidad.dto.ApiResponse;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.logistica.dto.EventoLogisticoRequest;
 import com.frutas.trazabilidad.module.logistica.dto.EventoLogisticoResponse;
+import com.frutas.trazabilidad.module.logistica.dto.IngestaEventosResponse;
+import com.frutas.trazabilidad.module.logistica.service.EventoIngestaService;
 import com.frutas.trazabilidad.module.logistica.service.EventoLogisticoService;
 import com.frutas.trazabilidad.security.InputSanitizer;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,11 +13,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -29,6 +33,7 @@ import java.util.List;
 public class EventoLogisticoController {
 
     private final EventoLogisticoService eventoService;
+    private final EventoIngestaService ingestaService;
     private final InputSanitizer sanitizer;
 
     @PostMapping
@@ -52,6 +57,20 @@ public class EventoLogisticoController {
                 .body(ApiResponse.success(response, "Evento registrado exitosamente"));
     }
 
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Ingesta masiva de lecturas",
+            description = "Registra lecturas de sensores de contenedores (array JSON o NDJSON, una lectura por línea). " +
+                    "Las lecturas repetidas por envío y fecha/hora se descartan")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
+    public ResponseEntity<ApiResponse<IngestaEventosResponse>> ingerirLote(
+            InputStream cuerpo,
+            @AuthenticationPrincipal User user) {
+
+        // El cuerpo se lee en streaming: no se materializa la lista completa de lecturas
+        IngestaEventosResponse response = ingestaService.ingerir(cuerpo, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(response, "Lecturas procesadas: " + response.getInsertadas() + " registradas"));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar evento", description = "Actualiza un evento existente")
     @PreAuthorize("hasAnyRole('ADMIN', 'OPERADOR_LOGISTICA')")
@@ -84,6 +103,22 @@ public class EventoLogisticoController {
         return ResponseEntity.ok(ApiResponse.success(eventos, "Eventos obtenidos exitosamente"));
     }
 
+    @GetMapping("/cercanos")
+    @Operation(summary = "Buscar eventos cercanos",
+            description = "Eventos registrados dentro de un radio (km) de un punto en las últimas horas (24 por defecto)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<List<EventoLogisticoResponse>>> buscarCercanos(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam double radioKm,
+            @RequestParam(defaultValue = "24") int horas,
+            @AuthenticationPrincipal User user) {
+
+        List<EventoLogisticoResponse> eventos = eventoService.buscarCercanos(
+                latitud, longitud, radioKm, horas, user.getEmpresa().getId());
+        return ResponseEntity.ok(ApiResponse.success(eventos, "Eventos obtenidos exitosamente"));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener evento por ID", description = "Obtiene los detalles de un evento")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
@@ -46,7 +46,7 @@ public class DocumentoExportacionRequest {
 
     private Long tamanoArchivo;
 
-    @Size(max = 64, message = "El hash del archivo debe ser SHA-256 (64 caracteres)")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "El hash del archivo debe ser SHA-256 (64 caracteres hexadecimales)")
     private String hashArchivo;
 
     @Size(max = 1000, message = "La descripción no puede exceder 1000 caracteres")
@@ -42,6 +42,7 @@ public class DocumentoExportacionResponse {
     private Long tamanoArchivo;
     private String hashArchivo;
     private Boolean tieneArchivo;
+    private Boolean archivoAlmacenado;
 
     // Estado
     private String estado;
@@ -0,0 +1,37 @@
+package com.frutas.trazabilidad.module.logistica.dto;
+
+import com.frutas.trazabilidad.dto.ErrorDetail;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una ingesta masiva de lecturas de contenedor.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestaEventosResponse {
+
+    private Integer recibidas;
+    private Integer insertadas;
+
+    /**
+     * Lecturas descartadas por repetir (envío, fecha y hora) en el lote o en la base de datos.
+     */
+    private Integer duplicadas;
+
+    /**
+     * Lecturas inválidas o de contenedores sin envío activo.
+     */
+    private Integer rechazadas;
+
+    /**
+     * Detalle de las primeras lecturas rechazadas (campo = posición en el lote).
+     */
+    private List<ErrorDetail> errores;
+}
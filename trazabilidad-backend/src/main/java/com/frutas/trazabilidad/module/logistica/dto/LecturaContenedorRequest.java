@@ -0,0 +1,44 @@
+package com.frutas.trazabilidad.module.logistica.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lectura de sensor enviada por un transportista o dispositivo IoT.
+ * Se registra en la telemetría del envío asociado al contenedor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LecturaContenedorRequest {
+
+    @NotBlank(message = "El código de contenedor es obligatorio")
+    @Size(max = 50, message = "El código de contenedor no puede exceder 50 caracteres")
+    private String codigoContenedor;
+
+    /**
+     * Fecha y hora de la lectura (UTC).
+     */
+    @NotNull(message = "La fecha y hora de la lectura es obligatoria")
+    private LocalDateTime fechaHora;
+
+    @DecimalMin(value = "-60.0", message = "Temperatura fuera de rango")
+    @DecimalMax(value = "80.0", message = "Temperatura fuera de rango")
+    private Double temperaturaRegistrada;
+
+    @DecimalMin(value = "0.0", message = "Humedad fuera de rango")
+    @DecimalMax(value = "100.0", message = "Humedad fuera de rango")
+    private Double humedadRegistrada;
+
+    @DecimalMin(value = "-90.0", message = "Latitud inválida")
+    @DecimalMax(value = "90.0", message = "Latitud inválida")
+    private Double latitud;
+
+    @DecimalMin(value = "-180.0", message = "Longitud inválida")
+    @DecimalMax(value = "180.0", message = "Longitud inválida")
+    private Double longitud;
+}
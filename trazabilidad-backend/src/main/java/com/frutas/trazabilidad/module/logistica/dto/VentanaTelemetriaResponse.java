@@ -0,0 +1,30 @@
+package com.frutas.trazabilidad.module.logistica.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con las estadísticas de temperatura y humedad de una ventana de telemetría.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentanaTelemetriaResponse {
+
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+    private Integer muestras;
+
+    private Double temperaturaMin;
+    private Double temperaturaMax;
+    private Double temperaturaPromedio;
+
+    private Double humedadMin;
+    private Double humedadMax;
+    private Double humedadPromedio;
+}
@@ -26,7 +26,8 @@ import java.time.LocalDateTime;
 public class AuditoriaEvento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auditoria_eventos_id_seq")
+    @SequenceGenerator(name = "auditoria_eventos_id_seq", sequenceName = "auditoria_eventos_id_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.logistica.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -32,6 +33,13 @@ public class DocumentoExportacion {
     @JoinColumn(name = "envio_id", nullable = false)
     private Envio envio;
 
+    /**
+     * Empresa propietaria (desnormalizada desde envío para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     /**
      * Tipo de documento.
      * Valores: PACKING_LIST, CERTIFICADO_FITOSANITARIO, FACTURA_COMERCIAL,
@@ -92,10 +100,19 @@ public class DocumentoExportacion {
 
     /**
      * Hash SHA-256 del archivo (para verificar integridad).
+     * Si se declara antes de subir el archivo, la subida debe coincidir con él.
      */
     @Column(length = 64)
     private String hashArchivo;
 
+    /**
+     * Indica si el archivo está guardado en el almacén propio (AlmacenArchivosService).
+     * En ese caso hashArchivo identifica el archivo y los datos del archivo no se
+     * modifican desde la actualización del documento.
+     */
+    @Column(nullable = false)
+    private Boolean archivoAlmacenado = false;
+
     /**
      * Estado del documento.
      * Valores: GENERADO, FIRMADO, ENVIADO, APROBADO, RECHAZADO
@@ -140,6 +157,16 @@ public class DocumentoExportacion {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Hereda la empresa del envío al persistir si no se asignó explícitamente.
+     */
+    @PrePersist
+    protected void asignarEmpresa() {
+        if (empresa == null) {
+            empresa = envio != null ? envio.getEmpresa() : null;
+        }
+    }
+
     // Métodos de utilidad
 
     /**
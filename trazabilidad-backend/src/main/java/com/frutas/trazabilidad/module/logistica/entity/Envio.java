@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.logistica.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
 import jakarta.persistence.*;
@@ -7,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
@@ -21,6 +23,7 @@ import java.util.List;
 @Entity
 @Table(name = "envios")
 @EntityListeners(com.frutas.trazabilidad.listener.AuditEntityListener.class)
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +47,13 @@ public class Envio {
     @JoinColumn(name = "usuario_id", nullable = false)
     private User usuario;
 
+    /**
+     * Empresa propietaria (desnormalizada desde usuario creador para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     /**
      * Fecha en que se creó la orden de envío.
      */
@@ -128,7 +138,7 @@ public class Envio {
 
     /**
      * Estado del envío.
-     * Valores: CREADO, EN_PREPARACION, CARGADO, EN_TRANSITO, EN_PUERTO, DESPACHADO, CERRADO
+     * Valores y transiciones permitidas: ver EstadoEnvio.
      */
     @Column(nullable = false, length = 30)
     private String estado = "CREADO";
@@ -195,6 +205,16 @@ public class Envio {
     @Column(nullable = false)
     private Boolean activo = true;
 
+    /**
+     * Versión para bloqueo optimista de cambios de estado y cierre.
+     * Los totales se ajustan con UPDATE atómicos que no incrementan la versión ni se
+     * copian sobre la entidad cargada, por lo que asignar o liberar pallets no la ensucia;
+     * @DynamicUpdate garantiza que un flush por otro cambio solo escriba las columnas
+     * modificadas y no sobrescriba esos totales con valores leídos antes.
+     */
+    @Version
+    private Long version;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -221,6 +241,16 @@ public class Envio {
     @JoinColumn(name = "usuario_cierre_id")
     private User usuarioCierre;
 
+    /**
+     * Hereda la empresa del usuario creador al persistir si no se asignó explícitamente.
+     */
+    @PrePersist
+    protected void asignarEmpresa() {
+        if (empresa == null) {
+            empresa = usuario != null ? usuario.getEmpresa() : null;
+        }
+    }
+
     // Métodos de utilidad
 
     /**
@@ -0,0 +1,39 @@
+package com.frutas.trazabilidad.module.logistica.entity;
+
+import com.frutas.trazabilidad.entity.MaquinaEstados;
+
+import java.util.EnumSet;
+
+/**
+ * Ciclo de vida de un envío.
+ * Se persiste como String en envios.estado; TRANSICIONES define los cambios permitidos.
+ * CERRADO solo se alcanza mediante el cierre del envío (genera el hash de integridad).
+ */
+public enum EstadoEnvio {
+    CREADO,
+    EN_PREPARACION,
+    LISTO_ENVIO,
+    CARGADO,
+    EN_TRANSITO,
+    EN_PUERTO_ORIGEN,
+    EN_PUERTO_DESTINO,
+    ENTREGADO,
+    CERRADO,
+    CANCELADO;
+
+    public static final MaquinaEstados<EstadoEnvio> TRANSICIONES = MaquinaEstados.para(EstadoEnvio.class)
+            .permitir(CREADO, EN_PREPARACION, CANCELADO)
+            .permitir(EN_PREPARACION, LISTO_ENVIO, CARGADO, CANCELADO)
+            .permitir(LISTO_ENVIO, CARGADO, EN_TRANSITO, CERRADO, CANCELADO)
+            .permitir(CARGADO, EN_TRANSITO, CERRADO, CANCELADO)
+            .permitir(EN_TRANSITO, EN_PUERTO_ORIGEN, EN_PUERTO_DESTINO, ENTREGADO, CERRADO)
+            .permitir(EN_PUERTO_ORIGEN, EN_TRANSITO, EN_PUERTO_DESTINO, CERRADO)
+            .permitir(EN_PUERTO_DESTINO, ENTREGADO, CERRADO)
+            .permitir(ENTREGADO, CERRADO)
+            .build();
+
+    /**
+     * Estados en los que el envío aún no se ha cargado y admite asignar o liberar pallets.
+     */
+    public static final EnumSet<EstadoEnvio> MODIFICABLES_PALLETS = EnumSet.of(CREADO, EN_PREPARACION, LISTO_ENVIO);
+}
@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.logistica.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -22,7 +23,8 @@ import java.time.LocalTime;
 public class EventoLogistico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_logisticos_id_seq")
+    @SequenceGenerator(name = "eventos_logisticos_id_seq", sequenceName = "eventos_logisticos_id_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -32,6 +34,13 @@ public class EventoLogistico {
     @JoinColumn(name = "envio_id", nullable = false)
     private Envio envio;
 
+    /**
+     * Empresa propietaria (desnormalizada desde envío para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     /**
      * Código único del evento (opcional).
      * Ejemplo: "EVT-2025-001"
@@ -163,6 +172,16 @@ public class EventoLogistico {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Hereda la empresa del envío al persistir si no se asignó explícitamente.
+     */
+    @PrePersist
+    protected void asignarEmpresa() {
+        if (empresa == null) {
+            empresa = envio != null ? envio.getEmpresa() : null;
+        }
+    }
+
     // Métodos de utilidad
 
     /**
@@ -0,0 +1,78 @@
+package com.frutas.trazabilidad.module.logistica.entity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Resoluciones de las ventanas agregadas de telemetría.
+ * Se persiste como minutos en telemetria_envio_agregado.resolucion_minutos.
+ */
+public enum ResolucionTelemetria {
+    MINUTO(1, "1m"),
+    CUARTO_HORA(15, "15m"),
+    HORA(60, "1h");
+
+    private final int minutos;
+    private final String codigo;
+
+    ResolucionTelemetria(int minutos, String codigo) {
+        this.minutos = minutos;
+        this.codigo = codigo;
+    }
+
+    public int getMinutos() {
+        return minutos;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public Duration getDuracion() {
+        return Duration.ofMinutes(minutos);
+    }
+
+    /**
+     * Inicio de la ventana que contiene el instante (UTC, alineado a múltiplos de la resolución).
+     */
+    public LocalDateTime inicioVentana(LocalDateTime instante) {
+        long segundosVentana = minutos * 60L;
+        long segundos = instante.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(segundos, segundosVentana) * segundosVentana, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Indica si el rango cabe en el máximo de ventanas con esta resolución.
+     */
+    public boolean cabeEn(Duration rango, int maxVentanas) {
+        return rango.toMinutes() / minutos <= maxVentanas;
+    }
+
+    /**
+     * Resolución más fina cuyo número de ventanas en el rango no supera el máximo indicado.
+     *
+     * @throws IllegalArgumentException si ni la resolución más gruesa cabe en el máximo
+     */
+    public static ResolucionTelemetria para(Duration rango, int maxVentanas) {
+        for (ResolucionTelemetria resolucion : values()) {
+            if (resolucion.cabeEn(rango, maxVentanas)) {
+                return resolucion;
+            }
+        }
+        throw new IllegalArgumentException("El rango solicitado supera " + maxVentanas +
+                " ventanas de " + HORA.codigo + "; use un rango menor");
+    }
+
+    /**
+     * Convierte el código del API (1m, 15m, 1h) a la resolución.
+     */
+    public static ResolucionTelemetria parsear(String codigo) {
+        for (ResolucionTelemetria resolucion : values()) {
+            if (resolucion.codigo.equalsIgnoreCase(codigo) || resolucion.name().equalsIgnoreCase(codigo)) {
+                return resolucion;
+            }
+        }
+        throw new IllegalArgumentException("Resolución inválida: " + codigo + ". Valores permitidos: 1m, 15m, 1h");
+    }
+}
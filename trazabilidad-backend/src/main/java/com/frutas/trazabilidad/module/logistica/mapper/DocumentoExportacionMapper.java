@@ -6,6 +6,8 @@ import com.frutas.trazabilidad.module.logistica.entity.DocumentoExportacion;
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
 import org.springframework.stereotype.Component;
 
+import java.util.Locale;
+
 @Component
 public class DocumentoExportacionMapper {
 
@@ -21,7 +23,7 @@ public class DocumentoExportacionMapper {
         doc.setUrlArchivo(request.getUrlArchivo());
         doc.setTipoArchivo(request.getTipoArchivo());
         doc.setTamanoArchivo(request.getTamanoArchivo());
-        doc.setHashArchivo(request.getHashArchivo());
+        doc.setHashArchivo(normalizarHash(request.getHashArchivo()));
         doc.setDescripcion(request.getDescripcion());
         doc.setValorDeclarado(request.getValorDeclarado());
         doc.setMoneda(request.getMoneda());
@@ -38,10 +40,13 @@ public class DocumentoExportacionMapper {
         doc.setFechaVencimiento(request.getFechaVencimiento());
         doc.setEntidadEmisora(request.getEntidadEmisora());
         doc.setFuncionarioEmisor(request.getFuncionarioEmisor());
-        doc.setUrlArchivo(request.getUrlArchivo());
-        doc.setTipoArchivo(request.getTipoArchivo());
-        doc.setTamanoArchivo(request.getTamanoArchivo());
-        doc.setHashArchivo(request.getHashArchivo());
+        // Los datos de un archivo almacenado solo cambian al subir otro archivo
+        if (!Boolean.TRUE.equals(doc.getArchivoAlmacenado())) {
+            doc.setUrlArchivo(request.getUrlArchivo());
+            doc.setTipoArchivo(request.getTipoArchivo());
+            doc.setTamanoArchivo(request.getTamanoArchivo());
+            doc.setHashArchivo(normalizarHash(request.getHashArchivo()));
+        }
         doc.setDescripcion(request.getDescripcion());
         doc.setValorDeclarado(request.getValorDeclarado());
         doc.setMoneda(request.getMoneda());
@@ -65,6 +70,7 @@ public class DocumentoExportacionMapper {
                 .tamanoArchivo(doc.getTamanoArchivo())
                 .hashArchivo(doc.getHashArchivo())
                 .tieneArchivo(doc.tieneArchivo())
+                .archivoAlmacenado(doc.getArchivoAlmacenado())
                 .estado(doc.getEstado())
                 .estaAprobado(doc.estaAprobado())
                 .descripcion(doc.getDescripcion())
@@ -76,4 +82,8 @@ public class DocumentoExportacionMapper {
                 .updatedAt(doc.getUpdatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+    private String normalizarHash(String hash) {
+        return hash != null ? hash.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -65,8 +65,8 @@ public class EnvioMapper {
                 .codigoEnvio(envio.getCodigoEnvio())
                 .usuarioId(envio.getUsuario().getId())
                 .usuarioNombre(envio.getUsuario().getNombre())
-                .empresaId(envio.getUsuario().getEmpresa().getId())
-                .empresaNombre(envio.getUsuario().getEmpresa().getRazonSocial())
+                .empresaId(envio.getEmpresa().getId())
+                .empresaNombre(envio.getEmpresa().getRazonSocial())
                 .fechaCreacion(envio.getFechaCreacion())
                 .fechaSalidaEstimada(envio.getFechaSalidaEstimada())
                 .fechaSalidaReal(envio.getFechaSalidaReal())
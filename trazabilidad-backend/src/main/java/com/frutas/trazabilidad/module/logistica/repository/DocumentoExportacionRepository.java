@@ -57,7 +57,7 @@ public interface DocumentoExportacionRepository extends JpaRepository<DocumentoE
     /**
      * Lista documentos próximos a vencer.
      */
-    @Query("SELECT d FROM DocumentoExportacion d WHERE d.envio.usuario.empresa.id = :empresaId " +
+    @Query("SELECT d FROM DocumentoExportacion d WHERE d.empresa.id = :empresaId " +
             "AND d.fechaVencimiento BETWEEN :desde AND :hasta " +
             "AND d.activo = true " +
             "ORDER BY d.fechaVencimiento ASC")
@@ -70,7 +70,7 @@ public interface DocumentoExportacionRepository extends JpaRepository<DocumentoE
     /**
      * Lista documentos por entidad emisora.
      */
-    @Query("SELECT d FROM DocumentoExportacion d WHERE d.envio.usuario.empresa.id = :empresaId " +
+    @Query("SELECT d FROM DocumentoExportacion d WHERE d.empresa.id = :empresaId " +
             "AND d.entidadEmisora LIKE %:entidadEmisora% " +
             "AND d.activo = true " +
             "ORDER BY d.fechaEmision DESC")
@@ -80,10 +80,10 @@ public interface DocumentoExportacionRepository extends JpaRepository<DocumentoE
     );
 
     /**
-     * Verifica si un documento pertenece a la empresa (a través del envío).
+     * Verifica si un documento pertenece a la empresa.
      */
     @Query("SELECT CASE WHEN COUNT(d) > 0 THEN true ELSE false END FROM DocumentoExportacion d " +
-            "WHERE d.id = :documentoId AND d.envio.usuario.empresa.id = :empresaId")
+            "WHERE d.id = :documentoId AND d.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("documentoId") Long documentoId, @Param("empresaId") Long empresaId);
 
     /**
@@ -95,7 +95,7 @@ public interface DocumentoExportacionRepository extends JpaRepository<DocumentoE
     /**
      * Busca documento por ID validando pertenencia a empresa.
      */
-    @Query("SELECT d FROM DocumentoExportacion d WHERE d.id = :id AND d.envio.usuario.empresa.id = :empresaId")
+    @Query("SELECT d FROM DocumentoExportacion d WHERE d.id = :id AND d.empresa.id = :empresaId")
     Optional<DocumentoExportacion> findByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     /**
@@ -108,6 +108,6 @@ public interface DocumentoExportacionRepository extends JpaRepository<DocumentoE
      * Verifica si existe documento con número en empresa.
      */
     @Query("SELECT CASE WHEN COUNT(d) > 0 THEN true ELSE false END FROM DocumentoExportacion d " +
-            "WHERE d.numeroDocumento = :numeroDocumento AND d.envio.usuario.empresa.id = :empresaId AND d.activo = true")
+            "WHERE d.numeroDocumento = :numeroDocumento AND d.empresa.id = :empresaId AND d.activo = true")
     boolean existsByNumeroDocumentoAndEmpresaId(@Param("numeroDocumento") String numeroDocumento, @Param("empresaId") Long empresaId);
 }
\ No newline at end of file
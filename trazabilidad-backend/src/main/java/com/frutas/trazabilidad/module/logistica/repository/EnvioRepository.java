@@ -1,12 +1,20 @@
 package com.frutas.trazabilidad.module.logistica.repository;
 
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +22,12 @@ import java.util.Optional;
  * Repositorio para gestión de envíos/exportaciones.
  */
 @Repository
-public interface EnvioRepository extends JpaRepository<Envio, Long> {
+public interface EnvioRepository extends JpaRepository<Envio, Long>, JpaSpecificationExecutor<Envio> {
+
+    // Listados paginados: el mapper lee el usuario, la empresa y el usuario de cierre
+    @Override
+    @EntityGraph(attributePaths = {"usuario", "empresa", "usuarioCierre"})
+    Page<Envio> findAll(Specification<Envio> spec, Pageable pageable);
 
     /**
      * Busca un envío por su código único.
@@ -27,27 +40,27 @@ public interface EnvioRepository extends JpaRepository<Envio, Long> {
     boolean existsByCodigoEnvio(String codigoEnvio);
 
     /**
-     * Lista envíos por empresa (a través del usuario creador).
+     * Lista envíos por empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaId(@Param("empresaId") Long empresaId);
 
     /**
      * Lista envíos por estado y empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.estado = :estado AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.estado = :estado AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndEstado(@Param("empresaId") Long empresaId, @Param("estado") String estado);
 
     /**
      * Lista envíos por país de destino y empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.paisDestino = :paisDestino AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.paisDestino = :paisDestino AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndPaisDestino(@Param("empresaId") Long empresaId, @Param("paisDestino") String paisDestino);
 
     /**
      * Lista envíos por rango de fechas de creación y empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.fechaCreacion BETWEEN :desde AND :hasta AND e.activo = true ORDER BY e.fechaCreacion DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.fechaCreacion BETWEEN :desde AND :hasta AND e.activo = true ORDER BY e.fechaCreacion DESC")
     List<Envio> findByEmpresaIdAndFechaCreacionBetween(
             @Param("empresaId") Long empresaId,
             @Param("desde") LocalDate desde,
@@ -57,7 +70,7 @@ public interface EnvioRepository extends JpaRepository<Envio, Long> {
     /**
      * Lista envíos pendientes de salida (fecha estimada próxima).
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId " +
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId " +
             "AND e.estado IN ('CREADO', 'EN_PREPARACION', 'CARGADO') " +
             "AND e.fechaSalidaEstimada BETWEEN :desde AND :hasta " +
             "AND e.activo = true " +
@@ -71,57 +84,95 @@ public interface EnvioRepository extends JpaRepository<Envio, Long> {
     /**
      * Busca envíos por exportador.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.exportador LIKE %:exportador% AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.exportador LIKE %:exportador% AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndExportador(@Param("empresaId") Long empresaId, @Param("exportador") String exportador);
 
     /**
      * Busca envíos por transportista.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.transportista LIKE %:transportista% AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.transportista LIKE %:transportista% AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndTransportista(@Param("empresaId") Long empresaId, @Param("transportista") String transportista);
 
     /**
      * Busca envíos por código de contenedor.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.codigoContenedor = :codigoContenedor AND e.activo = true")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.codigoContenedor = :codigoContenedor AND e.activo = true")
     Optional<Envio> findByEmpresaIdAndCodigoContenedor(@Param("empresaId") Long empresaId, @Param("codigoContenedor") String codigoContenedor);
 
+    /**
+     * Proyección mínima para resolver envíos por código de contenedor.
+     */
+    interface EnvioPorContenedor {
+        Long getId();
+        String getCodigoContenedor();
+    }
+
+    /**
+     * Resuelve en una sola consulta los envíos de varios contenedores (ingesta de lecturas).
+     * Excluye envíos cancelados; si un contenedor se reutilizó, el más reciente aparece primero.
+     */
+    @Query("SELECT e.id AS id, e.codigoContenedor AS codigoContenedor FROM Envio e " +
+            "WHERE e.empresa.id = :empresaId AND e.codigoContenedor IN :codigos " +
+            "AND e.activo = true AND e.estado <> 'CANCELADO' " +
+            "ORDER BY e.createdAt DESC")
+    List<EnvioPorContenedor> findIdsByEmpresaIdAndCodigoContenedorIn(
+            @Param("empresaId") Long empresaId,
+            @Param("codigos") Collection<String> codigos
+    );
+
+    /**
+     * Proyección con la consigna de temperatura del contenedor de un envío.
+     */
+    interface ConsignaFrio {
+        Long getId();
+        String getCodigoEnvio();
+        String getCodigoContenedor();
+        Double getTemperaturaContenedor();
+    }
+
+    /**
+     * Obtiene la consigna de temperatura de un envío (monitor de cadena de frío).
+     */
+    @Query("SELECT e.id AS id, e.codigoEnvio AS codigoEnvio, e.codigoContenedor AS codigoContenedor, " +
+            "e.temperaturaContenedor AS temperaturaContenedor FROM Envio e WHERE e.id = :id")
+    Optional<ConsignaFrio> findConsignaFrioById(@Param("id") Long id);
+
     /**
      * Verifica si un envío pertenece a una empresa.
      */
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM Envio e " +
-            "WHERE e.id = :envioId AND e.usuario.empresa.id = :empresaId")
+            "WHERE e.id = :envioId AND e.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("envioId") Long envioId, @Param("empresaId") Long empresaId);
 
     /**
      * Busca envío por ID validando pertenencia a empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.id = :id AND e.usuario.empresa.id = :empresaId")
+    @Query("SELECT e FROM Envio e WHERE e.id = :id AND e.empresa.id = :empresaId")
     Optional<Envio> findByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     /**
      * Lista envíos activos por empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndActivoTrue(@Param("empresaId") Long empresaId);
 
     /**
      * Lista envíos activos por estado y empresa.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId AND e.estado = :estado AND e.activo = true ORDER BY e.createdAt DESC")
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId AND e.estado = :estado AND e.activo = true ORDER BY e.createdAt DESC")
     List<Envio> findByEmpresaIdAndEstadoAndActivoTrue(@Param("empresaId") Long empresaId, @Param("estado") String estado);
 
     /**
      * Verifica si existe código de envío en una empresa.
      */
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM Envio e " +
-            "WHERE e.codigoEnvio = :codigoEnvio AND e.usuario.empresa.id = :empresaId")
+            "WHERE e.codigoEnvio = :codigoEnvio AND e.empresa.id = :empresaId")
     boolean existsByCodigoEnvioAndEmpresaId(@Param("codigoEnvio") String codigoEnvio, @Param("empresaId") Long empresaId);
 
     /**
      * Lista envíos cerrados en un rango de fechas.
      */
-    @Query("SELECT e FROM Envio e WHERE e.usuario.empresa.id = :empresaId " +
+    @Query("SELECT e FROM Envio e WHERE e.empresa.id = :empresaId " +
             "AND e.estado = 'CERRADO' " +
             "AND e.fechaCierre BETWEEN :desde AND :hasta " +
             "ORDER BY e.fechaCierre DESC")
@@ -130,4 +181,96 @@ public interface EnvioRepository extends JpaRepository<Envio, Long> {
             @Param("desde") LocalDate desde,
             @Param("hasta") LocalDate hasta
     );
-}
\ No newline at end of file
+
+    // ==================== TOTALES AGREGADOS ====================
+
+    /**
+     * Proyección con los totales almacenados de un envío.
+     */
+    interface TotalesEnvio {
+        Integer getNumeroPallets();
+        Integer getNumeroCajas();
+        Double getPesoNetoTotal();
+        Double getPesoBrutoTotal();
+    }
+
+    /**
+     * Proyección de un envío cuyos totales almacenados no coinciden con sus pallets.
+     */
+    interface DesviacionTotales {
+        Long getEnvioId();
+        String getCodigoEnvio();
+        String getEstado();
+        Integer getNumeroPallets();
+        Long getPalletsReales();
+        Long getCajasReales();
+        Double getPesoNetoReal();
+        Double getPesoBrutoReal();
+    }
+
+    /**
+     * Ajusta los totales del envío sumando los deltas de forma atómica en la base de datos,
+     * por lo que ajustes concurrentes (asignaciones, cambios de peso) no pierden incrementos.
+     * No incrementa la versión; quien lo invoque no debe copiar los totales resultantes sobre
+     * una entidad Envio gestionada, ya que su flush sí la incrementaría.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Envio e SET " +
+            "e.numeroPallets = COALESCE(e.numeroPallets, 0) + :pallets, " +
+            "e.numeroCajas = COALESCE(e.numeroCajas, 0) + :cajas, " +
+            "e.pesoNetoTotal = COALESCE(e.pesoNetoTotal, 0.0) + :pesoNeto, " +
+            "e.pesoBrutoTotal = COALESCE(e.pesoBrutoTotal, 0.0) + :pesoBruto, " +
+            "e.updatedAt = :ahora " +
+            "WHERE e.id = :envioId")
+    int ajustarTotales(@Param("envioId") Long envioId,
+                       @Param("pallets") int pallets,
+                       @Param("cajas") int cajas,
+                       @Param("pesoNeto") double pesoNeto,
+                       @Param("pesoBruto") double pesoBruto,
+                       @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Fija los totales del envío a valores absolutos (usado por la reconciliación).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Envio e SET " +
+            "e.numeroPallets = :pallets, " +
+            "e.numeroCajas = :cajas, " +
+            "e.pesoNetoTotal = :pesoNeto, " +
+            "e.pesoBrutoTotal = :pesoBruto, " +
+            "e.updatedAt = :ahora " +
+            "WHERE e.id = :envioId")
+    int fijarTotales(@Param("envioId") Long envioId,
+                     @Param("pallets") int pallets,
+                     @Param("cajas") int cajas,
+                     @Param("pesoNeto") double pesoNeto,
+                     @Param("pesoBruto") double pesoBruto,
+                     @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Lee los totales almacenados del envío sin cargar la entidad ni sus pallets.
+     */
+    @Query("SELECT e.numeroPallets AS numeroPallets, e.numeroCajas AS numeroCajas, " +
+            "e.pesoNetoTotal AS pesoNetoTotal, e.pesoBrutoTotal AS pesoBrutoTotal " +
+            "FROM Envio e WHERE e.id = :envioId")
+    TotalesEnvio findTotalesById(@Param("envioId") Long envioId);
+
+    /**
+     * Detecta en una sola consulta los envíos activos cuyos totales almacenados
+     * difieren de la suma real de sus pallets (tolerancia de 0.001 kg en pesos).
+     */
+    @Query("SELECT e.id AS envioId, e.codigoEnvio AS codigoEnvio, e.estado AS estado, " +
+            "e.numeroPallets AS numeroPallets, " +
+            "COUNT(p) AS palletsReales, " +
+            "COALESCE(SUM(p.numeroCajas), 0) AS cajasReales, " +
+            "COALESCE(SUM(p.pesoNetoTotal), 0.0) AS pesoNetoReal, " +
+            "COALESCE(SUM(p.pesoBrutoTotal), 0.0) AS pesoBrutoReal " +
+            "FROM Envio e LEFT JOIN e.pallets p " +
+            "WHERE e.activo = true " +
+            "GROUP BY e.id, e.codigoEnvio, e.estado, e.numeroPallets, e.numeroCajas, e.pesoNetoTotal, e.pesoBrutoTotal " +
+            "HAVING COUNT(p) <> COALESCE(e.numeroPallets, 0) " +
+            "OR COALESCE(SUM(p.numeroCajas), 0) <> COALESCE(e.numeroCajas, 0) " +
+            "OR ABS(COALESCE(SUM(p.pesoNetoTotal), 0.0) - COALESCE(e.pesoNetoTotal, 0.0)) > 0.001 " +
+            "OR ABS(COALESCE(SUM(p.pesoBrutoTotal), 0.0) - COALESCE(e.pesoBrutoTotal, 0.0)) > 0.001")
+    List<DesviacionTotales> findDesviacionesTotales();
+}
@@ -7,6 +7,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,7 +48,7 @@ public interface EventoLogisticoRepository extends JpaRepository<EventoLogistico
     /**
      * Lista eventos logísticos por empresa y rango de fechas.
      */
-    @Query("SELECT e FROM EventoLogistico e WHERE e.envio.usuario.empresa.id = :empresaId " +
+    @Query("SELECT e FROM EventoLogistico e WHERE e.empresa.id = :empresaId " +
             "AND e.fechaEvento BETWEEN :desde AND :hasta " +
             "AND e.activo = true " +
             "ORDER BY e.fechaEvento DESC")
@@ -59,17 +61,17 @@ public interface EventoLogisticoRepository extends JpaRepository<EventoLogistico
     /**
      * Lista eventos logísticos por ubicación.
      */
-    @Query("SELECT e FROM EventoLogistico e WHERE e.envio.usuario.empresa.id = :empresaId " +
+    @Query("SELECT e FROM EventoLogistico e WHERE e.empresa.id = :empresaId " +
             "AND e.ubicacion LIKE %:ubicacion% " +
             "AND e.activo = true " +
             "ORDER BY e.fechaEvento DESC")
     List<EventoLogistico> findByEmpresaIdAndUbicacion(@Param("empresaId") Long empresaId, @Param("ubicacion") String ubicacion);
 
     /**
-     * Verifica si un evento pertenece a la empresa (a través del envío).
+     * Verifica si un evento pertenece a la empresa.
      */
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM EventoLogistico e " +
-            "WHERE e.id = :eventoId AND e.envio.usuario.empresa.id = :empresaId")
+            "WHERE e.id = :eventoId AND e.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("eventoId") Long eventoId, @Param("empresaId") Long empresaId);
 
     /**
@@ -81,7 +83,7 @@ public interface EventoLogisticoRepository extends JpaRepository<EventoLogistico
     /**
      * Busca evento por ID validando pertenencia a empresa.
      */
-    @Query("SELECT e FROM EventoLogistico e WHERE e.id = :id AND e.envio.usuario.empresa.id = :empresaId")
+    @Query("SELECT e FROM EventoLogistico e WHERE e.id = :id AND e.empresa.id = :empresaId")
     java.util.Optional<EventoLogistico> findByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     /**
@@ -90,4 +92,32 @@ public interface EventoLogisticoRepository extends JpaRepository<EventoLogistico
     @Query("SELECT e FROM EventoLogistico e WHERE e.envio.id = :envioId AND e.activo = true " +
             "ORDER BY e.fechaEvento ASC, e.horaEvento ASC")
     List<EventoLogistico> findByEnvioIdAndActivoTrueOrderByFechaEventoAsc(@Param("envioId") Long envioId);
-}
\ No newline at end of file
+
+    /**
+     * IDs de eventos activos de una empresa registrados dentro de un radio desde una fecha y hora,
+     * ordenados del más reciente al más antiguo.
+     * La caja (lat/lon min/max) filtra con el índice GiST idx_evento_ubicacion_gist y
+     * distancia_km descarta las esquinas (ver V11__indices_geoespaciales.sql).
+     */
+    @Query(value = "SELECT e.id FROM eventos_logisticos e " +
+            "WHERE e.empresa_id = :empresaId AND e.activo = true " +
+            "AND e.fecha_evento >= CAST(:desde AS date) " +
+            "AND (e.fecha_evento + e.hora_evento) >= :desde " +
+            "AND point(e.longitud, e.latitud) <@ box(point(:lonMin, :latMin), point(:lonMax, :latMax)) " +
+            "AND distancia_km(:latitud, :longitud, e.latitud, e.longitud) <= :radioKm " +
+            "ORDER BY e.fecha_evento DESC, e.hora_evento DESC " +
+            "LIMIT :limite", nativeQuery = true)
+    List<Long> findIdsCercanos(@Param("empresaId") Long empresaId,
+                               @Param("latitud") double latitud, @Param("longitud") double longitud,
+                               @Param("radioKm") double radioKm,
+                               @Param("latMin") double latMin, @Param("latMax") double latMax,
+                               @Param("lonMin") double lonMin, @Param("lonMax") double lonMax,
+                               @Param("desde") LocalDateTime desde,
+                               @Param("limite") int limite);
+
+    /**
+     * Carga eventos por ID junto con su envío (evita una consulta por evento al mapear).
+     */
+    @Query("SELECT e FROM EventoLogistico e JOIN FETCH e.envio WHERE e.id IN :ids")
+    List<EventoLogistico> findAllWithEnvioByIdIn(@Param("ids") Collection<Long> ids);
+}
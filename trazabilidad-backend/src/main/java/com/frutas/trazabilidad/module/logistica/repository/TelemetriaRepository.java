@@ -0,0 +1,267 @@
+package com.frutas.trazabilidad.module.logistica.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Repositorio JDBC para la telemetría de envíos (telemetria_envio y telemetria_envio_agregado).
+ * Las tablas son de solo inserción y se escriben por JDBC batch, sin entidades JPA,
+ * para no cargar el contexto de persistencia con miles de lecturas por segundo.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TelemetriaRepository {
+
+    /**
+     * Un único INSERT con las lecturas como arrays; RETURNING identifica las insertadas sin
+     * depender de los conteos por fila de un batch (que el driver no informa si reescribe
+     * los batches con reWriteBatchedInserts).
+     */
+    private static final String SQL_INSERT_LECTURAS =
+            "INSERT INTO telemetria_envio (envio_id, registrado_en, empresa_id, temperatura, humedad, latitud, longitud) " +
+            "SELECT * FROM UNNEST(CAST(? AS BIGINT[]), CAST(? AS TIMESTAMP[]), CAST(? AS BIGINT[]), " +
+            "CAST(? AS REAL[]), CAST(? AS REAL[]), CAST(? AS DOUBLE PRECISION[]), CAST(? AS DOUBLE PRECISION[])) " +
+            "ON CONFLICT DO NOTHING RETURNING envio_id, registrado_en";
+
+    /**
+     * Suma conteos y sumas y combina mínimos/máximos (LEAST/GREATEST ignoran NULL).
+     */
+    private static final String SQL_ACUMULAR_VENTANA =
+            "INSERT INTO telemetria_envio_agregado AS a (envio_id, resolucion_minutos, inicio_ventana, empresa_id, " +
+            "muestras, temperatura_muestras, temperatura_min, temperatura_max, temperatura_suma, " +
+            "humedad_muestras, humedad_min, humedad_max, humedad_suma) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (envio_id, resolucion_minutos, inicio_ventana) DO UPDATE SET " +
+            "muestras = a.muestras + EXCLUDED.muestras, " +
+            "temperatura_muestras = a.temperatura_muestras + EXCLUDED.temperatura_muestras, " +
+            "temperatura_min = LEAST(a.temperatura_min, EXCLUDED.temperatura_min), " +
+            "temperatura_max = GREATEST(a.temperatura_max, EXCLUDED.temperatura_max), " +
+            "temperatura_suma = a.temperatura_suma + EXCLUDED.temperatura_suma, " +
+            "humedad_muestras = a.humedad_muestras + EXCLUDED.humedad_muestras, " +
+            "humedad_min = LEAST(a.humedad_min, EXCLUDED.humedad_min), " +
+            "humedad_max = GREATEST(a.humedad_max, EXCLUDED.humedad_max), " +
+            "humedad_suma = a.humedad_suma + EXCLUDED.humedad_suma";
+
+    private static final int[] TIPOS_VENTANA = {
+            Types.BIGINT, Types.SMALLINT, Types.TIMESTAMP, Types.BIGINT, Types.INTEGER,
+            Types.INTEGER, Types.REAL, Types.REAL, Types.DOUBLE,
+            Types.INTEGER, Types.REAL, Types.REAL, Types.DOUBLE
+    };
+
+    private static final String COLUMNAS_VENTANA =
+            "envio_id, resolucion_minutos, inicio_ventana, empresa_id, muestras, " +
+            "temperatura_muestras, temperatura_min, temperatura_max, temperatura_suma, " +
+            "humedad_muestras, humedad_min, humedad_max, humedad_suma";
+
+    private static final RowMapper<VentanaAgregada> VENTANA_MAPPER = TelemetriaRepository::mapearVentana;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lectura cruda de un contenedor.
+     */
+    public record LecturaTelemetria(Long envioId, Long empresaId, LocalDateTime registradoEn,
+                                    Double temperatura, Double humedad, Double latitud, Double longitud) {
+    }
+
+    /**
+     * Ventana agregada; el promedio se obtiene como suma / muestras de cada magnitud.
+     */
+    public record VentanaAgregada(Long envioId, int resolucionMinutos, LocalDateTime inicioVentana, Long empresaId,
+                                  int muestras,
+                                  int temperaturaMuestras, Double temperaturaMin, Double temperaturaMax,
+                                  double temperaturaSuma,
+                                  int humedadMuestras, Double humedadMin, Double humedadMax,
+                                  double humedadSuma) {
+
+        public Double getTemperaturaPromedio() {
+            return temperaturaMuestras > 0 ? temperaturaSuma / temperaturaMuestras : null;
+        }
+
+        public Double getHumedadPromedio() {
+            return humedadMuestras > 0 ? humedadSuma / humedadMuestras : null;
+        }
+    }
+
+    private record ClaveLectura(Long envioId, LocalDateTime registradoEn) {
+    }
+
+    /**
+     * Resumen de la telemetría de un envío (primera y última ventana con lecturas).
+     */
+    public record ResumenTelemetria(long muestras,
+                                    Double temperaturaMin, Double temperaturaMax, Double temperaturaPromedio,
+                                    Double humedadMin, Double humedadMax, Double humedadPromedio,
+                                    LocalDateTime primeraVentana, LocalDateTime ultimaVentana) {
+    }
+
+    /**
+     * Inserta lecturas con una sola sentencia; las ya existentes (misma PK) se ignoran.
+     * La hora de registro se trunca a microsegundos (precisión de la columna).
+     *
+     * @return lecturas efectivamente insertadas; de las repetidas dentro de la lista, solo la primera
+     */
+    public List<LecturaTelemetria> insertarLecturas(List<LecturaTelemetria> lecturas) {
+        int total = lecturas.size();
+        Long[] envios = new Long[total];
+        Timestamp[] registros = new Timestamp[total];
+        Long[] empresas = new Long[total];
+        Float[] temperaturas = new Float[total];
+        Float[] humedades = new Float[total];
+        Double[] latitudes = new Double[total];
+        Double[] longitudes = new Double[total];
+        List<LecturaTelemetria> normalizadas = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            LecturaTelemetria lectura = lecturas.get(i);
+            LocalDateTime registradoEn = lectura.registradoEn().truncatedTo(ChronoUnit.MICROS);
+            normalizadas.add(new LecturaTelemetria(lectura.envioId(), lectura.empresaId(), registradoEn,
+                    lectura.temperatura(), lectura.humedad(), lectura.latitud(), lectura.longitud()));
+            envios[i] = lectura.envioId();
+            registros[i] = Timestamp.valueOf(registradoEn);
+            empresas[i] = lectura.empresaId();
+            temperaturas[i] = lectura.temperatura() != null ? lectura.temperatura().floatValue() : null;
+            humedades[i] = lectura.humedad() != null ? lectura.humedad().floatValue() : null;
+            latitudes[i] = lectura.latitud();
+            longitudes[i] = lectura.longitud();
+        }
+
+        Set<ClaveLectura> insertadas = new HashSet<>(jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_INSERT_LECTURAS);
+            ps.setArray(1, con.createArrayOf("bigint", envios));
+            ps.setArray(2, con.createArrayOf("timestamp", registros));
+            ps.setArray(3, con.createArrayOf("bigint", empresas));
+            ps.setArray(4, con.createArrayOf("float4", temperaturas));
+            ps.setArray(5, con.createArrayOf("float4", humedades));
+            ps.setArray(6, con.createArrayOf("float8", latitudes));
+            ps.setArray(7, con.createArrayOf("float8", longitudes));
+            return ps;
+        }, (rs, fila) -> new ClaveLectura(rs.getLong("envio_id"),
+                rs.getObject("registrado_en", LocalDateTime.class))));
+
+        List<LecturaTelemetria> resultado = new ArrayList<>(insertadas.size());
+        for (LecturaTelemetria lectura : normalizadas) {
+            if (insertadas.remove(new ClaveLectura(lectura.envioId(), lectura.registradoEn()))) {
+                resultado.add(lectura);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Acumula ventanas parciales sobre las ya almacenadas (upsert por JDBC batch).
+     * Las ventanas deben llegar ordenadas por clave para que transacciones concurrentes
+     * bloqueen las filas en el mismo orden y no se produzcan deadlocks.
+     */
+    public void acumularVentanas(List<VentanaAgregada> ventanas) {
+        List<Object[]> filas = new ArrayList<>(ventanas.size());
+        for (VentanaAgregada v : ventanas) {
+            filas.add(new Object[]{
+                    v.envioId(), v.resolucionMinutos(), v.inicioVentana(), v.empresaId(), v.muestras(),
+                    v.temperaturaMuestras(), v.temperaturaMin(), v.temperaturaMax(), v.temperaturaSuma(),
+                    v.humedadMuestras(), v.humedadMin(), v.humedadMax(), v.humedadSuma()
+            });
+        }
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR_VENTANA, filas, TIPOS_VENTANA);
+    }
+
+    /**
+     * Ventanas de un envío en el rango [desde, hasta), en orden cronológico.
+     */
+    public List<VentanaAgregada> findVentanas(Long envioId, Long empresaId, int resolucionMinutos,
+                                              LocalDateTime desde, LocalDateTime hasta) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNAS_VENTANA + " FROM telemetria_envio_agregado " +
+                "WHERE envio_id = ? AND empresa_id = ? AND resolucion_minutos = ? " +
+                "AND inicio_ventana >= ? AND inicio_ventana < ? ORDER BY inicio_ventana",
+                VENTANA_MAPPER, envioId, empresaId, resolucionMinutos, desde, hasta);
+    }
+
+    /**
+     * Resumen de toda la telemetría de un envío, combinando sus ventanas de la resolución
+     * indicada (la horaria es la que se conserva más tiempo).
+     */
+    public Optional<ResumenTelemetria> findResumen(Long envioId, int resolucionMinutos) {
+        List<ResumenTelemetria> resumen = jdbcTemplate.query(
+                "SELECT SUM(muestras) AS muestras, " +
+                "MIN(temperatura_min) AS temperatura_min, MAX(temperatura_max) AS temperatura_max, " +
+                "SUM(temperatura_suma) / NULLIF(SUM(temperatura_muestras), 0) AS temperatura_promedio, " +
+                "MIN(humedad_min) AS humedad_min, MAX(humedad_max) AS humedad_max, " +
+                "SUM(humedad_suma) / NULLIF(SUM(humedad_muestras), 0) AS humedad_promedio, " +
+                "MIN(inicio_ventana) AS primera_ventana, MAX(inicio_ventana) AS ultima_ventana " +
+                "FROM telemetria_envio_agregado WHERE envio_id = ? AND resolucion_minutos = ? " +
+                "HAVING COUNT(*) > 0",
+                (rs, fila) -> new ResumenTelemetria(
+                        rs.getLong("muestras"),
+                        doubleONulo(rs, "temperatura_min"),
+                        doubleONulo(rs, "temperatura_max"),
+                        doubleONulo(rs, "temperatura_promedio"),
+                        doubleONulo(rs, "humedad_min"),
+                        doubleONulo(rs, "humedad_max"),
+                        doubleONulo(rs, "humedad_promedio"),
+                        rs.getObject("primera_ventana", LocalDateTime.class),
+                        rs.getObject("ultima_ventana", LocalDateTime.class)),
+                envioId, resolucionMinutos);
+        return resumen.stream().findFirst();
+    }
+
+    /**
+     * Elimina un lote de lecturas crudas anteriores a la fecha indicada.
+     *
+     * @return filas eliminadas (menor que el lote cuando no quedan más)
+     */
+    public int deleteLecturasAnterioresA(LocalDateTime limite, int lote) {
+        return jdbcTemplate.update(
+                "DELETE FROM telemetria_envio WHERE ctid IN (" +
+                "SELECT ctid FROM telemetria_envio WHERE registrado_en < ? LIMIT ?)",
+                limite, lote);
+    }
+
+    /**
+     * Elimina un lote de ventanas de una resolución anteriores a la fecha indicada.
+     *
+     * @return filas eliminadas (menor que el lote cuando no quedan más)
+     */
+    public int deleteVentanasAnterioresA(int resolucionMinutos, LocalDateTime limite, int lote) {
+        return jdbcTemplate.update(
+                "DELETE FROM telemetria_envio_agregado WHERE ctid IN (" +
+                "SELECT ctid FROM telemetria_envio_agregado WHERE resolucion_minutos = ? AND inicio_ventana < ? LIMIT ?)",
+                resolucionMinutos, limite, lote);
+    }
+
+    private static VentanaAgregada mapearVentana(ResultSet rs, int fila) throws SQLException {
+        return new VentanaAgregada(
+                rs.getLong("envio_id"),
+                rs.getInt("resolucion_minutos"),
+                rs.getObject("inicio_ventana", LocalDateTime.class),
+                rs.getLong("empresa_id"),
+                rs.getInt("muestras"),
+                rs.getInt("temperatura_muestras"),
+                doubleONulo(rs, "temperatura_min"),
+                doubleONulo(rs, "temperatura_max"),
+                rs.getDouble("temperatura_suma"),
+                rs.getInt("humedad_muestras"),
+                doubleONulo(rs, "humedad_min"),
+                doubleONulo(rs, "humedad_max"),
+                rs.getDouble("humedad_suma"));
+    }
+
+    private static Double doubleONulo(ResultSet rs, String columna) throws SQLException {
+        double valor = rs.getDouble(columna);
+        return rs.wasNull() ? null : valor;
+    }
+}
@@ -1,5 +1,7 @@
 package com.frutas.trazabilidad.module.logistica.service;
 
+import com.frutas.trazabilidad.config.AsyncConfig;
+import com.frutas.trazabilidad.config.MetricsConfig;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.repository.UserRepository;
 import com.frutas.trazabilidad.module.logistica.dto.AuditoriaEventoResponse;
@@ -7,6 +9,8 @@ import com.frutas.trazabilidad.module.logistica.entity.AuditoriaEvento;
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
 import com.frutas.trazabilidad.module.logistica.mapper.AuditoriaEventoMapper;
 import com.frutas.trazabilidad.module.logistica.repository.AuditoriaEventoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.MeterTag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -39,8 +43,9 @@ public class AuditoriaEventoService {
      * Registrar creación de entidad.
      */
     @Transactional
+    @Timed(value = "trazabilidad.auditoria.registro", extraTags = {"accion", "CREATE", "modo", "sync"})
     public void registrarCreacion(String tipoEntidad, Long entidadId, String codigoEntidad,
-                                  String descripcion, User usuario) {
+                                  String descripcion, @MeterTag(key = "empresa", expression = "empresa.id") User usuario) {
         registrarEvento(
                 usuario,
                 tipoEntidad,
@@ -59,9 +64,10 @@ public class AuditoriaEventoService {
      * Registrar actualización de entidad.
      */
     @Transactional
+    @Timed(value = "trazabilidad.auditoria.registro", extraTags = {"accion", "UPDATE", "modo", "sync"})
     public void registrarActualizacion(String tipoEntidad, Long entidadId, String codigoEntidad,
                                        String descripcion, String datosAnteriores, String datosNuevos,
-                                       User usuario) {
+                                       @MeterTag(key = "empresa", expression = "empresa.id") User usuario) {
         registrarEvento(
                 usuario,
                 tipoEntidad,
@@ -80,8 +86,9 @@ public class AuditoriaEventoService {
      * Registrar eliminación de entidad.
      */
     @Transactional
+    @Timed(value = "trazabilidad.auditoria.registro", extraTags = {"accion", "DELETE", "modo", "sync"})
     public void registrarEliminacion(String tipoEntidad, Long entidadId, String codigoEntidad,
-                                     String descripcion, User usuario) {
+                                     String descripcion, @MeterTag(key = "empresa", expression = "empresa.id") User usuario) {
         registrarEvento(
                 usuario,
                 tipoEntidad,
@@ -96,14 +103,38 @@ public class AuditoriaEventoService {
         );
     }
 
+    /**
+     * Registrar incidencia detectada automáticamente (p. ej. excursión de cadena de frío).
+     */
+    @Transactional
+    @Timed(value = "trazabilidad.auditoria.registro", extraTags = {"accion", "INCIDENT", "modo", "sync"})
+    public void registrarIncidencia(String tipoEntidad, Long entidadId, String codigoEntidad,
+                                    String descripcion, String datosNuevos,
+                                    @MeterTag(key = "empresa", expression = "empresa.id") User usuario) {
+        registrarEvento(
+                usuario,
+                tipoEntidad,
+                entidadId,
+                codigoEntidad,
+                "INCIDENT",
+                descripcion,
+                null,
+                datosNuevos,
+                "WARNING",
+                false
+        );
+    }
+
     // ========== MÉTODOS ASÍNCRONOS PARA JPA LISTENERS ==========
 
     /**
      * Versión asíncrona de registrarCreacion para uso en JPA EntityListeners.
      * Se ejecuta en una transacción separada para evitar ConcurrentModificationException.
      */
-    @Async
+    @Async(AsyncConfig.AUDITORIA_EXECUTOR)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Timed(value = "trazabilidad.auditoria.registro",
+            extraTags = {"accion", "CREATE", "modo", "async", "empresa", MetricsConfig.SIN_EMPRESA})
     public void registrarCreacionAsync(String tipoEntidad, Long entidadId, String codigoEntidad,
                                        String descripcion, Long usuarioId) {
         try {
@@ -132,8 +163,10 @@ public class AuditoriaEventoService {
     /**
      * Versión asíncrona de registrarActualizacion para uso en JPA EntityListeners.
      */
-    @Async
+    @Async(AsyncConfig.AUDITORIA_EXECUTOR)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Timed(value = "trazabilidad.auditoria.registro",
+            extraTags = {"accion", "UPDATE", "modo", "async", "empresa", MetricsConfig.SIN_EMPRESA})
     public void registrarActualizacionAsync(String tipoEntidad, Long entidadId, String codigoEntidad,
                                             String descripcion, String datosAnteriores, String datosNuevos,
                                             Long usuarioId) {
@@ -163,8 +196,10 @@ public class AuditoriaEventoService {
     /**
      * Versión asíncrona de registrarEliminacion para uso en JPA EntityListeners.
      */
-    @Async
+    @Async(AsyncConfig.AUDITORIA_EXECUTOR)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Timed(value = "trazabilidad.auditoria.registro",
+            extraTags = {"accion", "DELETE", "modo", "async", "empresa", MetricsConfig.SIN_EMPRESA})
     public void registrarEliminacionAsync(String tipoEntidad, Long entidadId, String codigoEntidad,
                                           String descripcion, Long usuarioId) {
         try {
@@ -194,7 +229,8 @@ public class AuditoriaEventoService {
      * Registrar cierre de envío (CRÍTICO - va a blockchain).
      */
     @Transactional
-    public void registrarCierreEnvio(Envio envio, User usuario) {
+    @Timed(value = "trazabilidad.auditoria.registro", extraTags = {"accion", "CLOSE", "modo", "sync"})
+    public void registrarCierreEnvio(Envio envio, @MeterTag(key = "empresa", expression = "empresa.id") User usuario) {
         String descripcion = String.format(
                 "Cierre de envío %s con %d pallets, peso total: %.2f kg",
                 envio.getCodigoEnvio(),
@@ -292,6 +328,7 @@ public class AuditoriaEventoService {
      * Validar integridad de la cadena blockchain.
      */
     @Transactional(readOnly = true)
+    @Timed(value = "trazabilidad.auditoria.validacion", histogram = true)
     public boolean validarIntegridadCadena() {
         String email = Objects.requireNonNull(SecurityContextHolder.getContext().getAuthentication()).getName();
         User usuario = userRepository.findByEmail(email)
@@ -391,7 +428,7 @@ public class AuditoriaEventoService {
             return "PRODUCCION";
         } else if (tipoEntidad.matches("RECEPCION|CLASIFICACION|ETIQUETA|PALLET|CONTROL_CALIDAD")) {
             return "EMPAQUE";
-        } else if (tipoEntidad.matches("ENVIO|EVENTO_LOGISTICO|DOCUMENTO")) {
+        } else if (tipoEntidad.matches("ENVIO|EVENTO_LOGISTICO|DOCUMENTO|TELEMETRIA_ENVIO")) {
             return "LOGISTICA";
         }
         return "SISTEMA";
@@ -0,0 +1,285 @@
+package com.frutas.trazabilidad.module.logistica.service;
+
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.logistica.entity.EventoLogistico;
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import com.frutas.trazabilidad.module.logistica.repository.EventoLogisticoRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.LecturaTelemetria;
+import com.frutas.trazabilidad.repository.EmpresaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detección en streaming de excursiones de cadena de frío.
+ * Cada lectura (telemetría ingerida o evento logístico con temperatura/humedad) se
+ * evalúa contra el estado en memoria de su envío, sin consultar el historial:
+ * - Temperatura: fuera de la consigna del envío (temperaturaContenedor) ± app.cadena-frio.tolerancia-grados.
+ * - Humedad: fuera de [app.cadena-frio.humedad-min, app.cadena-frio.humedad-max], si están configurados.
+ * Una excursión se confirma cuando las lecturas se mantienen fuera de rango durante
+ * app.cadena-frio.duracion-minutos consecutivos; un hueco entre lecturas mayor que
+ * app.cadena-frio.max-hueco-minutos reinicia la racha. Al confirmarse se registra un
+ * evento logístico con incidencia y un evento de auditoría (una vez por racha).
+ * El estado es local a la instancia y se pierde al reiniciar: una racha en curso vuelve
+ * a contarse desde la siguiente lectura fuera de rango.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CadenaFrioMonitorService {
+
+    public static final String TIPO_EXCURSION_TEMPERATURA = "EXCURSION_TEMPERATURA";
+    public static final String TIPO_EXCURSION_HUMEDAD = "EXCURSION_HUMEDAD";
+
+    private static final String RESPONSABLE = "Monitor de cadena de frío";
+
+    private final EnvioRepository envioRepository;
+    private final EventoLogisticoRepository eventoRepository;
+    private final EmpresaRepository empresaRepository;
+    private final AuditoriaEventoService auditoriaService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cadena-frio.tolerancia-grados:2.0}")
+    private double toleranciaGrados;
+
+    @Value("${app.cadena-frio.duracion-minutos:15}")
+    private long duracionMinutos;
+
+    @Value("${app.cadena-frio.max-hueco-minutos:10}")
+    private long maxHuecoMinutos;
+
+    @Value("${app.cadena-frio.humedad-min:#{null}}")
+    private Double humedadMin;
+
+    @Value("${app.cadena-frio.humedad-max:#{null}}")
+    private Double humedadMax;
+
+    @Value("${app.cadena-frio.inactividad-horas:24}")
+    private long inactividadHoras;
+
+    private final Map<Long, MonitorEnvio> monitores = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        // Transacción propia: la incidencia se registra aunque la transacción del llamador falle o siga abierta
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Evalúa lecturas nuevas y registra las excursiones que se confirmen.
+     * Las lecturas anteriores a la última evaluada de su envío (llegadas fuera de orden) se ignoran.
+     *
+     * @param usuario usuario que origina las lecturas (autor de la auditoría)
+     */
+    public void evaluar(List<LecturaTelemetria> lecturas, User usuario) {
+        if (lecturas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<LecturaTelemetria>> porEnvio = new LinkedHashMap<>();
+        for (LecturaTelemetria lectura : lecturas) {
+            if (lectura.temperatura() != null || lectura.humedad() != null) {
+                porEnvio.computeIfAbsent(lectura.envioId(), id -> new ArrayList<>()).add(lectura);
+            }
+        }
+
+        List<Excursion> excursiones = new ArrayList<>();
+        porEnvio.forEach((envioId, delEnvio) -> {
+            MonitorEnvio monitor = obtenerMonitor(envioId);
+            if (monitor == null) {
+                return;
+            }
+            delEnvio.sort(Comparator.comparing(LecturaTelemetria::registradoEn));
+            synchronized (monitor) {
+                for (LecturaTelemetria lectura : delEnvio) {
+                    monitor.evaluar(lectura, excursiones);
+                }
+            }
+        });
+
+        for (Excursion excursion : excursiones) {
+            registrarExcursion(excursion, usuario);
+        }
+    }
+
+    /**
+     * Descarta la consigna en memoria de un envío (p. ej. tras cambiar su temperatura de contenedor).
+     */
+    public void invalidarConsigna(Long envioId) {
+        monitores.remove(envioId);
+    }
+
+    /**
+     * Libera el estado de envíos sin lecturas recientes (entregados, cerrados o sin sensor).
+     */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1H")
+    public void liberarInactivos() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(inactividadHoras);
+        int antes = monitores.size();
+        monitores.values().removeIf(monitor -> monitor.ultimaActividad.isBefore(limite));
+        log.debug("Monitor de cadena de frío: {} envíos liberados, {} activos", antes - monitores.size(), monitores.size());
+    }
+
+    private MonitorEnvio obtenerMonitor(Long envioId) {
+        MonitorEnvio monitor = monitores.get(envioId);
+        if (monitor != null) {
+            return monitor;
+        }
+        // Una consulta por envío al recibir su primera lectura; luego todo se evalúa en memoria
+        return envioRepository.findConsignaFrioById(envioId)
+                .map(consigna -> monitores.computeIfAbsent(envioId, id -> new MonitorEnvio(consigna)))
+                .orElse(null);
+    }
+
+    private void registrarExcursion(Excursion excursion, User usuario) {
+        EnvioRepository.ConsignaFrio consigna = excursion.consigna();
+        String detalle = excursion.describir();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LecturaTelemetria lectura = excursion.lectura();
+                EventoLogistico evento = new EventoLogistico();
+                evento.setEnvio(envioRepository.getReferenceById(consigna.getId()));
+                evento.setEmpresa(empresaRepository.getReferenceById(lectura.empresaId()));
+                evento.setTipoEvento(excursion.temperatura() ? TIPO_EXCURSION_TEMPERATURA : TIPO_EXCURSION_HUMEDAD);
+                evento.setFechaEvento(excursion.inicio().toLocalDate());
+                evento.setHoraEvento(excursion.inicio().toLocalTime());
+                evento.setUbicacion(consigna.getCodigoContenedor() != null
+                        ? "Contenedor " + consigna.getCodigoContenedor()
+                        : "Envío " + consigna.getCodigoEnvio());
+                evento.setLatitud(lectura.latitud());
+                evento.setLongitud(lectura.longitud());
+                evento.setResponsable(RESPONSABLE);
+                if (excursion.temperatura()) {
+                    evento.setTemperaturaRegistrada(excursion.extremo());
+                } else {
+                    evento.setHumedadRegistrada(excursion.extremo());
+                }
+                evento.setIncidencia(true);
+                evento.setDetalleIncidencia(detalle);
+                evento = eventoRepository.save(evento);
+
+                auditoriaService.registrarIncidencia(
+                        "EVENTO_LOGISTICO",
+                        evento.getId(),
+                        consigna.getCodigoEnvio(),
+                        "Excursión de cadena de frío en envío " + consigna.getCodigoEnvio() + ": " + detalle,
+                        String.format(Locale.ROOT, "{tipo:'%s',inicio:'%s',extremo:%.2f}",
+                                evento.getTipoEvento(), excursion.inicio(), excursion.extremo()),
+                        usuario
+                );
+            });
+            meterRegistry.counter("trazabilidad.cadena_frio.excursiones",
+                    "magnitud", excursion.temperatura() ? "temperatura" : "humedad").increment();
+            log.warn("Excursión de cadena de frío en envío {}: {}", consigna.getCodigoEnvio(), detalle);
+        } catch (RuntimeException e) {
+            // Las lecturas ya están guardadas: un fallo aquí no debe abortar la ingesta
+            log.error("No se pudo registrar la excursión del envío {}: {}", consigna.getCodigoEnvio(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Estado en memoria de un envío: consigna y racha fuera de rango de cada magnitud.
+     */
+    private final class MonitorEnvio {
+        private final EnvioRepository.ConsignaFrio consigna;
+        private final Racha temperatura = new Racha();
+        private final Racha humedad = new Racha();
+        private volatile LocalDateTime ultimaActividad = LocalDateTime.now();
+
+        private MonitorEnvio(EnvioRepository.ConsignaFrio consigna) {
+            this.consigna = consigna;
+        }
+
+        private void evaluar(LecturaTelemetria lectura, List<Excursion> excursiones) {
+            ultimaActividad = LocalDateTime.now();
+            Double consignaTemperatura = consigna.getTemperaturaContenedor();
+            if (lectura.temperatura() != null && consignaTemperatura != null) {
+                temperatura.evaluar(lectura, lectura.temperatura(),
+                        consignaTemperatura - toleranciaGrados, consignaTemperatura + toleranciaGrados)
+                        .ifPresent(inicio -> excursiones.add(new Excursion(consigna, lectura, true, inicio,
+                                temperatura.extremo, consignaTemperatura - toleranciaGrados,
+                                consignaTemperatura + toleranciaGrados, duracionMinutos)));
+            }
+            if (lectura.humedad() != null && (humedadMin != null || humedadMax != null)) {
+                double min = humedadMin != null ? humedadMin : Double.NEGATIVE_INFINITY;
+                double max = humedadMax != null ? humedadMax : Double.POSITIVE_INFINITY;
+                humedad.evaluar(lectura, lectura.humedad(), min, max)
+                        .ifPresent(inicio -> excursiones.add(new Excursion(consigna, lectura, false, inicio,
+                                humedad.extremo, min, max, duracionMinutos)));
+            }
+        }
+    }
+
+    /**
+     * Racha de lecturas consecutivas fuera de rango de una magnitud.
+     */
+    private final class Racha {
+        private LocalDateTime inicio;     // primera lectura fuera de rango (null = en rango)
+        private LocalDateTime ultima;     // última lectura evaluada
+        private double extremo;           // valor más alejado del rango en la racha
+        private boolean notificada;
+
+        /**
+         * @return inicio de la racha si con esta lectura se confirma la excursión
+         */
+        private Optional<LocalDateTime> evaluar(LecturaTelemetria lectura, double valor, double min, double max) {
+            LocalDateTime instante = lectura.registradoEn();
+            if (ultima != null && !instante.isAfter(ultima)) {
+                return Optional.empty();
+            }
+            boolean hueco = ultima != null && Duration.between(ultima, instante).toMinutes() > maxHuecoMinutos;
+            ultima = instante;
+
+            if (valor >= min && valor <= max) {
+                inicio = null;
+                notificada = false;
+                return Optional.empty();
+            }
+
+            if (inicio == null || hueco) {
+                inicio = instante;
+                extremo = valor;
+                notificada = false;
+            } else if (Math.abs(valor - (valor > max ? max : min)) > Math.abs(extremo - (extremo > max ? max : min))) {
+                extremo = valor;
+            }
+
+            if (!notificada && Duration.between(inicio, instante).toMinutes() >= duracionMinutos) {
+                notificada = true;
+                return Optional.of(inicio);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private record Excursion(EnvioRepository.ConsignaFrio consigna, LecturaTelemetria lectura, boolean temperatura,
+                             LocalDateTime inicio, double extremo, double min, double max, long minutos) {
+
+        private String describir() {
+            String magnitud = temperatura ? "Temperatura" : "Humedad";
+            String unidad = temperatura ? "°C" : "%";
+            return String.format(Locale.ROOT, "%s fuera de rango [%s, %s] %s durante al menos %d minutos desde %s; valor extremo %.1f %s",
+                    magnitud, limite(min), limite(max), unidad, minutos, inicio, extremo, unidad);
+        }
+
+        private static String limite(double valor) {
+            return Double.isInfinite(valor) ? "-" : String.format(Locale.ROOT, "%.1f", valor);
+        }
+    }
+}
@@ -11,11 +11,18 @@ import com.frutas.trazabilidad.module.logistica.mapper.DocumentoExportacionMappe
 import com.frutas.trazabilidad.module.logistica.repository.DocumentoExportacionRepository;
 import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
 import com.frutas.trazabilidad.security.TenantContext;
+import com.frutas.trazabilidad.service.AlmacenArchivosService;
+import com.frutas.trazabilidad.service.AlmacenArchivosService.ArchivoAlmacenado;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +38,17 @@ public class DocumentoExportacionService {
     private final DocumentoExportacionMapper documentoMapper;
     private final AuditoriaEventoService auditoriaService;
     private final TenantContext tenantContext;
+    private final AlmacenArchivosService almacenArchivos;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.almacen-archivos.tipos-permitidos:application/pdf,image/jpeg,image/png}")
+    private List<String> tiposPermitidos;
+
+    /**
+     * Archivo almacenado de un documento, listo para descargar.
+     */
+    public record ArchivoDocumento(Path ruta, String hash, long tamano, String tipoArchivo, String nombre) {
+    }
 
     @Transactional
     public DocumentoExportacionResponse crear(DocumentoExportacionRequest request, Long empresaId) {
@@ -150,6 +168,111 @@ public class DocumentoExportacionService {
         );
     }
 
+    /**
+     * Guarda el archivo de un documento en el almacén (SHA-256) y lo asocia al documento.
+     * Si el documento se registró con un hashArchivo, el contenido debe coincidir con él.
+     * El archivo se escribe sin transacción abierta (una subida lenta no retiene una
+     * conexión) y el documento se actualiza después en una transacción corta, por lo
+     * que debe invocarse desde el controller.
+     */
+    public DocumentoExportacionResponse adjuntarArchivo(Long id, InputStream contenido, String tipoArchivo,
+                                                        Long empresaId) {
+        User usuario = tenantContext.getCurrentUser();
+        validarPertenenciaEmpresa(usuario, empresaId);
+        String tipo = validarTipoArchivo(tipoArchivo);
+
+        DocumentoExportacion documento = documentoRepository.findByIdAndEmpresaId(id, empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento", id));
+        if (documento.estaAprobado()) {
+            throw new IllegalStateException("No se puede reemplazar el archivo de un documento aprobado");
+        }
+
+        // El hash declarado al registrar el documento se verifica contra el contenido subido
+        String hashEsperado = Boolean.TRUE.equals(documento.getArchivoAlmacenado()) ? null : documento.getHashArchivo();
+        ArchivoAlmacenado archivo = almacenArchivos.guardar(contenido, hashEsperado);
+
+        return transactionTemplate.execute(status -> {
+            DocumentoExportacion actual = documentoRepository.findByIdAndEmpresaId(id, empresaId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Documento", id));
+            String hashAnterior = Boolean.TRUE.equals(actual.getArchivoAlmacenado()) ? actual.getHashArchivo() : null;
+
+            actual.setHashArchivo(archivo.hash());
+            actual.setTamanoArchivo(archivo.tamano());
+            actual.setTipoArchivo(tipo);
+            actual.setUrlArchivo("/api/documentos-exportacion/" + id + "/archivo");
+            actual.setArchivoAlmacenado(true);
+            actual = documentoRepository.save(actual);
+
+            auditoriaService.registrarActualizacion(
+                    "DOCUMENTO",
+                    actual.getId(),
+                    actual.getNumeroDocumento(),
+                    "Archivo adjuntado (" + archivo.tamano() + " bytes, SHA-256 " + archivo.hash() + ")",
+                    hashAnterior,
+                    archivo.hash(),
+                    usuario
+            );
+
+            return documentoMapper.toResponse(actual);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public ArchivoDocumento obtenerArchivo(Long id, Long empresaId) {
+        DocumentoExportacion documento = documentoRepository.findByIdAndEmpresaId(id, empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento", id));
+        if (!Boolean.TRUE.equals(documento.getArchivoAlmacenado())) {
+            throw new ResourceNotFoundException("El documento no tiene un archivo almacenado");
+        }
+
+        Path ruta = almacenArchivos.obtener(documento.getHashArchivo());
+        String nombre = documento.getNumeroDocumento().replaceAll("[^A-Za-z0-9._-]", "_")
+                + extensionDe(documento.getTipoArchivo());
+        return new ArchivoDocumento(ruta, documento.getHashArchivo(), documento.getTamanoArchivo(),
+                documento.getTipoArchivo(), nombre);
+    }
+
+    /**
+     * Recalcula el SHA-256 del archivo almacenado y lo compara con hashArchivo.
+     * Una discrepancia se registra como incidencia en la auditoría.
+     *
+     * @return true si el archivo está íntegro
+     */
+    @Transactional
+    public boolean verificarArchivo(Long id, Long empresaId) {
+        ArchivoDocumento archivo = obtenerArchivo(id, empresaId);
+        boolean integro = almacenArchivos.verificar(archivo.hash());
+        if (!integro) {
+            auditoriaService.registrarIncidencia(
+                    "DOCUMENTO",
+                    id,
+                    archivo.nombre(),
+                    "El archivo almacenado no coincide con su hash SHA-256",
+                    archivo.hash(),
+                    tenantContext.getCurrentUser()
+            );
+        }
+        return integro;
+    }
+
+    private String validarTipoArchivo(String tipoArchivo) {
+        String tipo = tipoArchivo == null ? "" : tipoArchivo.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        if (!tiposPermitidos.contains(tipo)) {
+            throw new IllegalArgumentException("Tipo de archivo no permitido. Tipos aceptados: "
+                    + String.join(", ", tiposPermitidos));
+        }
+        return tipo;
+    }
+
+    private String extensionDe(String tipoArchivo) {
+        return switch (tipoArchivo) {
+            case "application/pdf" -> ".pdf";
+            case "image/jpeg" -> ".jpg";
+            case "image/png" -> ".png";
+            default -> "";
+        };
+    }
+
     private void validarPertenenciaEmpresa(User usuario, Long empresaId) {
         if (!usuario.getEmpresa().getId().equals(empresaId)) {
             throw new ForbiddenException("No tiene permisos para esta operación");
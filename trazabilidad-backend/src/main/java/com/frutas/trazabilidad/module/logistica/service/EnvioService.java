@@ -1,18 +1,28 @@
 package com.frutas.trazabilidad.module.logistica.service;
 
+import com.frutas.trazabilidad.dto.ErrorDetail;
 import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.exception.ConflictException;
 import com.frutas.trazabilidad.exception.ForbiddenException;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.repository.Especificaciones;
 import com.frutas.trazabilidad.repository.UserRepository;
-import com.frutas.trazabilidad.module.empaque.entity.Pallet;
 import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
 import com.frutas.trazabilidad.module.logistica.dto.EnvioRequest;
 import com.frutas.trazabilidad.module.logistica.dto.EnvioResponse;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoPallet;
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
+import com.frutas.trazabilidad.module.logistica.entity.EstadoEnvio;
 import com.frutas.trazabilidad.module.logistica.mapper.EnvioMapper;
 import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
 import com.frutas.trazabilidad.security.TenantContext;
+import com.frutas.trazabilidad.service.ListadoService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.MeterTag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,7 +31,13 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +54,8 @@ public class EnvioService {
     private final EnvioMapper envioMapper;
     private final AuditoriaEventoService auditoriaService;
     private final TenantContext tenantContext;
+    private final CadenaFrioMonitorService cadenaFrioMonitor;
+    private final ListadoService listadoService;
 
     /**
      * Crear un nuevo envío.
@@ -63,10 +81,6 @@ public class EnvioService {
             asignarPallets(envio, request.getPalletsIds(), empresaId);
         }
 
-        // Calcular totales después de asignar pallets
-        calcularTotales(envio);
-        envio = envioRepository.save(envio);
-
         // Auditar
         auditoriaService.registrarCreacion(
                 "ENVIO",
@@ -76,7 +90,7 @@ public class EnvioService {
                 usuario
         );
 
-        return envioMapper.toResponse(envio);
+        return conTotalesActuales(envio);
     }
 
     /**
@@ -97,10 +111,17 @@ public class EnvioService {
 
         // Actualizar datos
         String datosAnteriores = capturarDatosEnvio(envio);
+        Double consignaAnterior = envio.getTemperaturaContenedor();
+        String contenedorAnterior = envio.getCodigoContenedor();
         envioMapper.updateEntity(envio, request);
-        calcularTotales(envio);
         envio = envioRepository.save(envio);
 
+        // El monitor de cadena de frío guarda la consigna en memoria
+        if (!Objects.equals(consignaAnterior, envio.getTemperaturaContenedor())
+                || !Objects.equals(contenedorAnterior, envio.getCodigoContenedor())) {
+            cadenaFrioMonitor.invalidarConsigna(envio.getId());
+        }
+
         // Auditar
         auditoriaService.registrarActualizacion(
                 "ENVIO",
@@ -130,9 +151,12 @@ public class EnvioService {
             throw new IllegalStateException("No se puede modificar un envío cerrado");
         }
 
+        if (palletsIds == null || palletsIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un pallet para asignar");
+        }
+        validarPalletsModificables(envio);
+
         asignarPallets(envio, palletsIds, empresaId);
-        calcularTotales(envio);
-        envio = envioRepository.save(envio);
 
         auditoriaService.registrarActualizacion(
                 "ENVIO",
@@ -144,11 +168,64 @@ public class EnvioService {
                 usuario
         );
 
-        return envioMapper.toResponse(envio);
+        return conTotalesActuales(envio);
     }
 
     /**
-     * Cambiar estado de un envío.
+     * Liberar pallets de un envío (vuelven a estado ARMADO).
+     */
+    @Transactional
+    public EnvioResponse desasignarPallets(Long envioId, List<Long> palletsIds, Long empresaId) {
+        User usuario = tenantContext.getCurrentUser();
+        validarPertenenciaEmpresa(usuario, empresaId);
+
+        Envio envio = envioRepository.findByIdAndEmpresaId(envioId, empresaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Envío", envioId));
+
+        if (envio.estaCerrado()) {
+            throw new IllegalStateException("No se puede modificar un envío cerrado");
+        }
+
+        if (palletsIds == null || palletsIds.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un pallet para liberar");
+        }
+
+        validarPalletsModificables(envio);
+        EstadoPallet.TRANSICIONES.validar(EstadoPallet.ASIGNADO_ENVIO, EstadoPallet.ARMADO);
+
+        Set<Long> ids = new LinkedHashSet<>(palletsIds);
+        validarLiberables(envio, ids, empresaId);
+
+        // Delta calculado antes del UPDATE, mientras los pallets siguen asociados al envío
+        PalletRepository.TotalesEnvio delta = palletRepository.calcularTotalesPorIds(envio.getId(), ids);
+
+        // El UPDATE repite la condición de estado: si otra transacción cambió algún
+        // pallet entre la validación y la liberación, se revierte todo
+        int liberados = palletRepository.desasignarDeEnvio(envio.getId(), ids,
+                EstadoPallet.ASIGNADO_ENVIO.name(), EstadoPallet.ARMADO.name(), LocalDateTime.now());
+        if (liberados != ids.size()) {
+            throw new IllegalStateException(
+                    "Algunos pallets cambiaron de estado durante la liberación. Intente nuevamente.");
+        }
+
+        ajustarTotales(envio, delta, -1);
+
+        auditoriaService.registrarActualizacion(
+                "ENVIO",
+                envio.getId(),
+                envio.getCodigoEnvio(),
+                "Liberación de " + ids.size() + " pallets del envío",
+                "Pallets: " + ids,
+                null,
+                usuario
+        );
+
+        return conTotalesActuales(envio);
+    }
+
+    /**
+     * Cambiar estado de un envío, validando la transición contra EstadoEnvio.TRANSICIONES.
+     * Solicitar el estado actual no modifica nada (la operación es idempotente).
      */
     @Transactional
     public EnvioResponse cambiarEstado(Long id, String nuevoEstado, Long empresaId) {
@@ -158,11 +235,22 @@ public class EnvioService {
         Envio envio = envioRepository.findByIdAndEmpresaId(id, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Envío", id));
 
+        EstadoEnvio destino = EstadoEnvio.TRANSICIONES.parsear(nuevoEstado);
+        if (destino == EstadoEnvio.CERRADO) {
+            throw new IllegalArgumentException("Para cerrar el envío use la operación de cierre");
+        }
+
+        EstadoEnvio origen = EstadoEnvio.TRANSICIONES.parsear(envio.getEstado());
+        if (origen == destino) {
+            return envioMapper.toResponse(envio);
+        }
+        EstadoEnvio.TRANSICIONES.validar(origen, destino);
+
         String estadoAnterior = envio.getEstado();
-        envio.setEstado(nuevoEstado);
+        envio.setEstado(destino.name());
 
         // Si el estado es EN_TRANSITO, registrar fecha de salida real
-        if ("EN_TRANSITO".equals(nuevoEstado) && envio.getFechaSalidaReal() == null) {
+        if (destino == EstadoEnvio.EN_TRANSITO && envio.getFechaSalidaReal() == null) {
             envio.setFechaSalidaReal(LocalDate.now());
         }
 
@@ -185,7 +273,8 @@ public class EnvioService {
      * Cerrar un envío (genera hash SHA-256 blockchain).
      */
     @Transactional
-    public EnvioResponse cerrar(Long id, Long empresaId) {
+    @Timed(value = "trazabilidad.envio.cierre", histogram = true)
+    public EnvioResponse cerrar(Long id, @MeterTag(key = "empresa") Long empresaId) {
         User usuario = tenantContext.getCurrentUser();
         validarPertenenciaEmpresa(usuario, empresaId);
 
@@ -195,9 +284,10 @@ public class EnvioService {
         if (envio.estaCerrado()) {
             throw new IllegalStateException("El envío ya está cerrado");
         }
+        EstadoEnvio.TRANSICIONES.validar(EstadoEnvio.TRANSICIONES.parsear(envio.getEstado()), EstadoEnvio.CERRADO);
 
-        // Validar que tenga pallets asignados
-        if (envio.getPallets() == null || envio.getPallets().isEmpty()) {
+        // Validar que tenga pallets asignados (según el total mantenido, sin cargar los pallets)
+        if (envio.getNumeroPallets() == null || envio.getNumeroPallets() == 0) {
             throw new IllegalStateException("El envío debe tener al menos un pallet asignado");
         }
 
@@ -205,7 +295,7 @@ public class EnvioService {
         String datosParaHash = generarDatosParaHash(envio);
         String hash = generarHashSHA256(datosParaHash);
 
-        envio.setEstado("CERRADO");
+        envio.setEstado(EstadoEnvio.CERRADO.name());
         envio.setFechaCierre(LocalDateTime.now());
         envio.setUsuarioCierre(usuario);
         envio.setHashCierre(hash);
@@ -222,22 +312,17 @@ public class EnvioService {
      * Listar envíos por empresa.
      */
     @Transactional(readOnly = true)
-    public List<EnvioResponse> listarPorEmpresa(Long empresaId) {
-        return envioRepository.findByEmpresaIdAndActivoTrue(empresaId)
-                .stream()
-                .map(envioMapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     /**
      * Listar envíos por estado.
      */
     @Transactional(readOnly = true)
-    public List<EnvioResponse> listarPorEstado(String estado, Long empresaId) {
-        return envioRepository.findByEmpresaIdAndEstadoAndActivoTrue(empresaId, estado)
-                .stream()
-                .map(envioMapper::toResponse)
-                .collect(Collectors.toList());
+    public Page<?> listarPorEstado(String estado, Long empresaId, Pageable pageable, String campos) {
+        return listar(Especificaciones.<Envio>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("estado", estado)), pageable, campos);
     }
 
     /**
@@ -279,48 +364,148 @@ public class EnvioService {
 
     // ========== MÉTODOS AUXILIARES ==========
 
+    private Page<?> listar(Specification<Envio> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(envioRepository, Envio.class, filtro, pageable, campos,
+                EnvioResponse.class, envioMapper::toResponse);
+    }
+
     private void validarPertenenciaEmpresa(User usuario, Long empresaId) {
         if (!usuario.getEmpresa().getId().equals(empresaId)) {
             throw new ForbiddenException("No tiene permisos para esta operación");
         }
     }
 
-    private void asignarPallets(Envio envio, List<Long> palletsIds, Long empresaId) {
-        for (Long palletId : palletsIds) {
-            // Buscar pallet validando que pertenezca a la empresa
-            Pallet pallet = palletRepository.findByIdAndEmpresaId(palletId, empresaId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Pallet", palletId));
-
-            // Validar que el pallet esté disponible
-            if (!"ARMADO".equals(pallet.getEstadoPallet()) && !"EN_CAMARA".equals(pallet.getEstadoPallet())) {
-                throw new IllegalStateException("El pallet " + pallet.getCodigoPallet() + " no está disponible para asignación");
+    /**
+     * Los pallets solo pueden asignarse o liberarse mientras el envío no se ha cargado.
+     */
+    private void validarPalletsModificables(Envio envio) {
+        EstadoEnvio estado = EstadoEnvio.TRANSICIONES.parsear(envio.getEstado());
+        if (!EstadoEnvio.MODIFICABLES_PALLETS.contains(estado)) {
+            throw new IllegalStateException("No se pueden modificar los pallets de un envío en estado " + estado);
+        }
+    }
+
+    /**
+     * Verifica con una consulta IN que todos los pallets pertenecen al envío y siguen
+     * asignados a él; si alguno no puede liberarse, se reportan todos en un solo error.
+     */
+    private void validarLiberables(Envio envio, Set<Long> ids, Long empresaId) {
+        Map<Long, PalletRepository.DisponibilidadPallet> actuales = palletRepository
+                .findDisponibilidadByIdsAndEmpresaId(ids, empresaId)
+                .stream()
+                .collect(Collectors.toMap(PalletRepository.DisponibilidadPallet::getId, Function.identity()));
+
+        List<ErrorDetail> noLiberables = new ArrayList<>();
+        for (Long palletId : ids) {
+            PalletRepository.DisponibilidadPallet pallet = actuales.get(palletId);
+            if (pallet == null || !Boolean.TRUE.equals(pallet.getActivo())) {
+                noLiberables.add(ErrorDetail.builder()
+                        .field("palletsIds")
+                        .message("Pallet no encontrado con ID: " + palletId)
+                        .rejectedValue(palletId)
+                        .build());
+            } else if (!envio.getId().equals(pallet.getEnvioId())) {
+                noLiberables.add(ErrorDetail.builder()
+                        .field("palletsIds")
+                        .message("El pallet " + pallet.getCodigoPallet() + " no pertenece al envío " + envio.getCodigoEnvio())
+                        .rejectedValue(palletId)
+                        .build());
+            } else if (!EstadoPallet.ASIGNADO_ENVIO.name().equals(pallet.getEstadoPallet())) {
+                noLiberables.add(ErrorDetail.builder()
+                        .field("palletsIds")
+                        .message("El pallet " + pallet.getCodigoPallet() + " no puede liberarse (estado: "
+                                + pallet.getEstadoPallet() + ")")
+                        .rejectedValue(palletId)
+                        .build());
             }
+        }
 
-            // Asignar al envío y agregar a la lista para calcularTotales
-            pallet.setEnvio(envio);
-            pallet.setEstadoPallet("ASIGNADO_ENVIO");
-            palletRepository.save(pallet);
-            envio.getPallets().add(pallet);
+        if (!noLiberables.isEmpty()) {
+            throw new ConflictException(
+                    noLiberables.size() + " pallet(s) no pueden liberarse del envío: " +
+                            noLiberables.stream().map(ErrorDetail::getMessage).collect(Collectors.joining(". ")),
+                    noLiberables);
         }
     }
 
-    private void calcularTotales(Envio envio) {
-        if (envio.getPallets() != null && !envio.getPallets().isEmpty()) {
-            double pesoNeto = envio.getPallets().stream()
-                    .mapToDouble(p -> p.getPesoNetoTotal() != null ? p.getPesoNetoTotal() : 0.0)
-                    .sum();
-            double pesoBruto = envio.getPallets().stream()
-                    .mapToDouble(p -> p.getPesoBrutoTotal() != null ? p.getPesoBrutoTotal() : 0.0)
-                    .sum();
-            int totalCajas = envio.getPallets().stream()
-                    .mapToInt(p -> p.getNumeroCajas() != null ? p.getNumeroCajas() : 0)
-                    .sum();
-
-            envio.setPesoNetoTotal(pesoNeto);
-            envio.setPesoBrutoTotal(pesoBruto);
-            envio.setNumeroPallets(envio.getPallets().size());
-            envio.setNumeroCajas(totalCajas);
+    /**
+     * Asigna pallets al envío con operaciones de conjunto: una consulta IN valida
+     * la disponibilidad de todos los pallets, un único UPDATE los asigna y, si alguno
+     * no está disponible, se reportan todos en un solo error.
+     */
+    private void asignarPallets(Envio envio, List<Long> palletsIds, Long empresaId) {
+        Set<Long> ids = new LinkedHashSet<>(palletsIds);
+        Map<Long, PalletRepository.DisponibilidadPallet> disponibilidad = palletRepository
+                .findDisponibilidadByIdsAndEmpresaId(ids, empresaId)
+                .stream()
+                .collect(Collectors.toMap(PalletRepository.DisponibilidadPallet::getId, Function.identity()));
+
+        List<ErrorDetail> noDisponibles = new ArrayList<>();
+        for (Long palletId : ids) {
+            PalletRepository.DisponibilidadPallet pallet = disponibilidad.get(palletId);
+            if (pallet == null || !Boolean.TRUE.equals(pallet.getActivo())) {
+                noDisponibles.add(ErrorDetail.builder()
+                        .field("palletsIds")
+                        .message("Pallet no encontrado con ID: " + palletId)
+                        .rejectedValue(palletId)
+                        .build());
+            } else if (!EstadoPallet.ASIGNABLES_A_ENVIO.contains(pallet.getEstadoPallet())) {
+                noDisponibles.add(ErrorDetail.builder()
+                        .field("palletsIds")
+                        .message("El pallet " + pallet.getCodigoPallet() + " no está disponible para asignación (estado: "
+                                + pallet.getEstadoPallet() + ")")
+                        .rejectedValue(palletId)
+                        .build());
+            }
         }
+
+        if (!noDisponibles.isEmpty()) {
+            throw new ConflictException(
+                    noDisponibles.size() + " pallet(s) no disponibles para asignación: " +
+                            noDisponibles.stream().map(ErrorDetail::getMessage).collect(Collectors.joining(". ")),
+                    noDisponibles);
+        }
+
+        // El UPDATE repite la condición de disponibilidad: si otra transacción cambió
+        // el estado de algún pallet entre la validación y la asignación, se revierte todo
+        int asignados = palletRepository.asignarAEnvio(envio, ids, empresaId,
+                EstadoPallet.ASIGNABLES_A_ENVIO, EstadoPallet.ASIGNADO_ENVIO.name(), LocalDateTime.now());
+        if (asignados != ids.size()) {
+            throw new IllegalStateException(
+                    "Algunos pallets cambiaron de estado durante la asignación. Intente nuevamente.");
+        }
+
+        ajustarTotales(envio, palletRepository.calcularTotalesPorIds(envio.getId(), ids), 1);
+    }
+
+    /**
+     * Suma (signo 1) o resta (signo -1) los totales de un grupo de pallets a los totales
+     * del envío con un UPDATE atómico. Los valores resultantes no se copian sobre la entidad
+     * gestionada: la dejarían sucia y su flush incrementaría la versión, haciendo fallar por
+     * bloqueo optimista a las asignaciones y liberaciones concurrentes del mismo envío.
+     */
+    private void ajustarTotales(Envio envio, PalletRepository.TotalesEnvio delta, int signo) {
+        envioRepository.ajustarTotales(
+                envio.getId(),
+                signo * delta.getNumeroPallets().intValue(),
+                signo * delta.getNumeroCajas().intValue(),
+                signo * delta.getPesoNetoTotal(),
+                signo * delta.getPesoBrutoTotal(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Construye la respuesta con los totales leídos de la base de datos, ya que los de la
+     * entidad gestionada no reflejan los ajustes atómicos realizados en esta transacción.
+     */
+    private EnvioResponse conTotalesActuales(Envio envio) {
+        EnvioResponse response = envioMapper.toResponse(envio);
+        EnvioRepository.TotalesEnvio totales = envioRepository.findTotalesById(envio.getId());
+        response.setNumeroPallets(totales.getNumeroPallets());
+        response.setNumeroCajas(totales.getNumeroCajas());
+        response.setPesoNetoTotal(totales.getPesoNetoTotal());
+        response.setPesoBrutoTotal(totales.getPesoBrutoTotal());
+        return response;
     }
 
     private String generarDatosParaHash(Envio envio) {
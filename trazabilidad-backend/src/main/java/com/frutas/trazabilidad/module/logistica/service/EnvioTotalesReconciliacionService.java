@@ -0,0 +1,82 @@
+package com.frutas.trazabilidad.module.logistica.service;
+
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reconciliación periódica de los totales de envíos.
+ * Los totales (pallets, cajas, pesos) se mantienen de forma incremental en cada
+ * asignación, liberación o cambio de peso de un pallet; este job detecta con una
+ * única consulta agregada los envíos cuyo total almacenado se desvió de la suma real
+ * de sus pallets (p. ej. por cambios manuales en BD) y los corrige.
+ * Los envíos CERRADO no se corrigen: su hash de cierre se calculó sobre los totales
+ * almacenados, así que solo se reporta la desviación.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EnvioTotalesReconciliacionService {
+
+    private final EnvioRepository envioRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.envio.reconciliacion.corregir:true}")
+    private boolean corregir;
+
+    /**
+     * Detecta y corrige desviaciones. Se ejecuta según app.envio.reconciliacion.cron
+     * (por defecto cada noche a las 03:30).
+     *
+     * @return número de envíos corregidos
+     */
+    @Scheduled(cron = "${app.envio.reconciliacion.cron:0 30 3 * * *}")
+    @Transactional
+    public int reconciliar() {
+        List<EnvioRepository.DesviacionTotales> desviaciones = envioRepository.findDesviacionesTotales();
+        if (desviaciones.isEmpty()) {
+            log.debug("Reconciliación de totales de envíos: sin desviaciones");
+            return 0;
+        }
+
+        int corregidos = 0;
+        for (EnvioRepository.DesviacionTotales desviacion : desviaciones) {
+            meterRegistry.counter("trazabilidad.envio.totales.desviaciones",
+                    "estado", desviacion.getEstado()).increment();
+
+            if ("CERRADO".equals(desviacion.getEstado())) {
+                log.error("Totales del envío cerrado {} difieren de sus pallets (almacenado: {} pallets, real: {}). " +
+                                "No se corrige para preservar el hash de cierre",
+                        desviacion.getCodigoEnvio(), desviacion.getNumeroPallets(), desviacion.getPalletsReales());
+                continue;
+            }
+
+            log.warn("Totales desviados en envío {}: almacenado {} pallets, real {} pallets / {} cajas / {} kg netos",
+                    desviacion.getCodigoEnvio(), desviacion.getNumeroPallets(), desviacion.getPalletsReales(),
+                    desviacion.getCajasReales(), desviacion.getPesoNetoReal());
+
+            if (corregir) {
+                envioRepository.fijarTotales(
+                        desviacion.getEnvioId(),
+                        desviacion.getPalletsReales().intValue(),
+                        desviacion.getCajasReales().intValue(),
+                        desviacion.getPesoNetoReal(),
+                        desviacion.getPesoBrutoReal(),
+                        LocalDateTime.now());
+                corregidos++;
+            }
+        }
+
+        log.info("Reconciliación de totales de envíos: {} desviaciones detectadas, {} corregidas",
+                desviaciones.size(), corregidos);
+        return corregidos;
+    }
+}
@@ -0,0 +1,245 @@
+package com.frutas.trazabilidad.module.logistica.service;
+
+import com.frutas.trazabilidad.dto.ErrorDetail;
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.exception.ForbiddenException;
+import com.frutas.trazabilidad.module.logistica.dto.IngestaEventosResponse;
+import com.frutas.trazabilidad.module.logistica.dto.LecturaContenedorRequest;
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.LecturaTelemetria;
+import com.frutas.trazabilidad.security.InputSanitizer;
+import com.frutas.trazabilidad.security.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Ingesta masiva de lecturas de sensores de contenedores (transportistas / IoT).
+ * El cuerpo (array JSON o NDJSON) se lee en streaming y se procesa en lotes de
+ * app.ingesta-eventos.tamano-lote lecturas, cada uno en su propia transacción:
+ * - Los envíos se resuelven por código de contenedor con una consulta por lote
+ *   (y se recuerdan para los lotes siguientes).
+ * - Las lecturas repetidas por (envío, fecha y hora) dentro de un lote se descartan
+ *   en memoria; entre lotes y contra lo ya almacenado, mediante ON CONFLICT DO NOTHING
+ *   sobre la PK de telemetria_envio. Reenviar el mismo lote es seguro y la memoria
+ *   usada no crece con el tamaño del cuerpo.
+ * - Las lecturas se guardan como telemetría (TelemetriaService), no como eventos
+ *   logísticos, y se insertan por JDBC batch.
+ * - Tras el commit de cada lote, las lecturas nuevas pasan por el monitor de cadena
+ *   de frío (CadenaFrioMonitorService), que registra las excursiones confirmadas.
+ * Se audita un único resumen por petición en lugar de un evento por lectura.
+ * Debe invocarse fuera de una transacción (desde el controller).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventoIngestaService {
+
+    private static final int MAX_ERRORES_REPORTADOS = 100;
+
+    private final EnvioRepository envioRepository;
+    private final TelemetriaService telemetriaService;
+    private final CadenaFrioMonitorService cadenaFrioMonitor;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditoriaEventoService auditoriaService;
+    private final TenantContext tenantContext;
+    private final InputSanitizer sanitizer;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ingesta-eventos.tamano-lote:1000}")
+    private int tamanoLote;
+
+    /**
+     * Lee e inserta las lecturas del cuerpo de la petición.
+     * Un error de sintaxis JSON detiene la lectura: las lecturas anteriores quedan
+     * registradas y el error se informa en la respuesta.
+     *
+     * @param cuerpo    array JSON o NDJSON de {@link LecturaContenedorRequest}
+     * @param empresaId empresa del usuario (solo se resuelven sus envíos)
+     */
+    public IngestaEventosResponse ingerir(InputStream cuerpo, Long empresaId) {
+        User usuario = tenantContext.getCurrentUser();
+        if (!usuario.getEmpresa().getId().equals(empresaId)) {
+            throw new ForbiddenException("No tiene permisos para esta operación");
+        }
+
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+        Map<String, Long> envioPorContenedor = new HashMap<>();
+        List<LecturaPendiente> pendientes = new ArrayList<>(tamanoLote);
+
+        try (MappingIterator<LecturaContenedorRequest> lecturas =
+                     jsonMapper.readerFor(LecturaContenedorRequest.class).readValues(cuerpo)) {
+            int posicion = 0;
+            while (true) {
+                LecturaContenedorRequest lectura;
+                try {
+                    if (!lecturas.hasNextValue()) {
+                        break;
+                    }
+                    lectura = lecturas.nextValue();
+                } catch (JacksonException e) {
+                    resultado.recibidas++;
+                    resultado.rechazar(posicion, "JSON inválido, se detuvo la lectura: " + e.getOriginalMessage());
+                    break;
+                }
+
+                resultado.recibidas++;
+                Set<ConstraintViolation<LecturaContenedorRequest>> violaciones =
+                        lectura != null ? validator.validate(lectura) : Set.of();
+                if (lectura == null) {
+                    resultado.rechazar(posicion, "Lectura vacía");
+                } else if (violaciones.isEmpty()) {
+                    pendientes.add(new LecturaPendiente(posicion, normalizar(lectura)));
+                } else {
+                    resultado.rechazar(posicion, violaciones.iterator().next().getMessage());
+                }
+                posicion++;
+
+                if (pendientes.size() >= tamanoLote) {
+                    cadenaFrioMonitor.evaluar(
+                            procesarLote(pendientes, empresaId, envioPorContenedor, resultado), usuario);
+                    pendientes.clear();
+                }
+            }
+        }
+
+        if (!pendientes.isEmpty()) {
+            cadenaFrioMonitor.evaluar(
+                    procesarLote(pendientes, empresaId, envioPorContenedor, resultado), usuario);
+        }
+
+        registrarMetricas(resultado);
+        if (resultado.recibidas > 0) {
+            auditoriaService.registrarCreacion(
+                    "TELEMETRIA_ENVIO",
+                    0L,
+                    "LOTE",
+                    String.format("Ingesta de lecturas de contenedor: %d recibidas, %d insertadas, %d duplicadas, %d rechazadas",
+                            resultado.recibidas, resultado.insertadas, resultado.duplicadas, resultado.rechazadas),
+                    usuario
+            );
+        }
+
+        log.info("Ingesta de lecturas empresa {}: {} recibidas, {} insertadas, {} duplicadas, {} rechazadas en {}ms",
+                empresaId, resultado.recibidas, resultado.insertadas, resultado.duplicadas, resultado.rechazadas,
+                (System.nanoTime() - inicio) / 1_000_000);
+
+        return IngestaEventosResponse.builder()
+                .recibidas(resultado.recibidas)
+                .insertadas(resultado.insertadas)
+                .duplicadas(resultado.duplicadas)
+                .rechazadas(resultado.rechazadas)
+                .errores(resultado.errores)
+                .build();
+    }
+
+    /**
+     * Resuelve envíos, deduplica e inserta un lote de lecturas en una transacción.
+     *
+     * @return lecturas insertadas, para evaluarlas tras el commit
+     */
+    private List<LecturaTelemetria> procesarLote(List<LecturaPendiente> pendientes, Long empresaId,
+                              Map<String, Long> envioPorContenedor, Resultado resultado) {
+        return transactionTemplate.execute(status -> {
+            // Una sola consulta para los contenedores que aún no se resolvieron en esta petición
+            Set<String> nuevos = new HashSet<>();
+            for (LecturaPendiente pendiente : pendientes) {
+                String codigo = pendiente.lectura().getCodigoContenedor();
+                if (!envioPorContenedor.containsKey(codigo)) {
+                    nuevos.add(codigo);
+                }
+            }
+            if (!nuevos.isEmpty()) {
+                for (EnvioRepository.EnvioPorContenedor envio :
+                        envioRepository.findIdsByEmpresaIdAndCodigoContenedorIn(empresaId, nuevos)) {
+                    // Ordenados por fecha de creación descendente: gana el envío más reciente
+                    envioPorContenedor.putIfAbsent(envio.getCodigoContenedor(), envio.getId());
+                }
+                nuevos.forEach(codigo -> envioPorContenedor.putIfAbsent(codigo, null));
+            }
+
+            List<LecturaTelemetria> filas = new ArrayList<>(pendientes.size());
+            Set<ClaveLectura> vistas = new HashSet<>();
+            for (LecturaPendiente pendiente : pendientes) {
+                LecturaContenedorRequest lectura = pendiente.lectura();
+                Long envioId = envioPorContenedor.get(lectura.getCodigoContenedor());
+                if (envioId == null) {
+                    resultado.rechazar(pendiente.posicion(),
+                            "No existe un envío activo para el contenedor " + lectura.getCodigoContenedor());
+                    continue;
+                }
+                if (!vistas.add(new ClaveLectura(envioId, lectura.getFechaHora()))) {
+                    resultado.duplicadas++;
+                    continue;
+                }
+                filas.add(new LecturaTelemetria(envioId, empresaId, lectura.getFechaHora(),
+                        lectura.getTemperaturaRegistrada(), lectura.getHumedadRegistrada(),
+                        lectura.getLatitud(), lectura.getLongitud()));
+            }
+
+            List<LecturaTelemetria> insertadas = telemetriaService.registrarLecturas(filas);
+            resultado.insertadas += insertadas.size();
+            resultado.duplicadas += filas.size() - insertadas.size();  // ya existían (lotes anteriores o base de datos)
+            return insertadas;
+        });
+    }
+
+    /**
+     * Sanitiza el código de contenedor y trunca la hora a microsegundos (precisión de
+     * TIMESTAMP en PostgreSQL), para que la deduplicación en memoria coincida con la PK.
+     */
+    private LecturaContenedorRequest normalizar(LecturaContenedorRequest lectura) {
+        lectura.setFechaHora(lectura.getFechaHora().truncatedTo(ChronoUnit.MICROS));
+        lectura.setCodigoContenedor(sanitizer.sanitizeStrict(lectura.getCodigoContenedor().trim()));
+        return lectura;
+    }
+
+    private void registrarMetricas(Resultado resultado) {
+        meterRegistry.counter("trazabilidad.eventos.ingesta.lecturas", "resultado", "insertada")
+                .increment(resultado.insertadas);
+        meterRegistry.counter("trazabilidad.eventos.ingesta.lecturas", "resultado", "duplicada")
+                .increment(resultado.duplicadas);
+        meterRegistry.counter("trazabilidad.eventos.ingesta.lecturas", "resultado", "rechazada")
+                .increment(resultado.rechazadas);
+    }
+
+    private record LecturaPendiente(int posicion, LecturaContenedorRequest lectura) {
+    }
+
+    private record ClaveLectura(Long envioId, LocalDateTime fechaHora) {
+    }
+
+    /**
+     * Contadores acumulados de la petición (se procesa en un único hilo).
+     */
+    private static final class Resultado {
+        private int recibidas;
+        private int insertadas;
+        private int duplicadas;
+        private int rechazadas;
+        private final List<ErrorDetail> errores = new ArrayList<>();
+
+        private void rechazar(int posicion, String mensaje) {
+            rechazadas++;
+            if (errores.size() < MAX_ERRORES_REPORTADOS) {
+                errores.add(new ErrorDetail("lecturas[" + posicion + "]", mensaje));
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.logistica.service;
 
+import com.frutas.trazabilidad.entity.AreaBusqueda;
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.exception.ForbiddenException;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
@@ -10,12 +11,17 @@ import com.frutas.trazabilidad.module.logistica.entity.EventoLogistico;
 import com.frutas.trazabilidad.module.logistica.mapper.EventoLogisticoMapper;
 import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
 import com.frutas.trazabilidad.module.logistica.repository.EventoLogisticoRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.LecturaTelemetria;
 import com.frutas.trazabilidad.security.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -26,11 +32,17 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EventoLogisticoService {
 
+    private static final int MAX_HORAS_BUSQUEDA = 24 * 30;
+
     private final EventoLogisticoRepository eventoRepository;
     private final EnvioRepository envioRepository;
     private final EventoLogisticoMapper eventoMapper;
     private final AuditoriaEventoService auditoriaService;
     private final TenantContext tenantContext;
+    private final CadenaFrioMonitorService cadenaFrioMonitor;
+
+    @Value("${app.busqueda-geografica.max-resultados:500}")
+    private int maxResultados;
 
     @Transactional
     public EventoLogisticoResponse crear(EventoLogisticoRequest request, Long empresaId) {
@@ -44,6 +56,13 @@ public class EventoLogisticoService {
         EventoLogistico evento = eventoMapper.toEntity(request, envio);
         evento = eventoRepository.save(evento);
 
+        // Las mediciones registradas manualmente también pasan por el monitor de cadena de frío
+        if (evento.getTemperaturaRegistrada() != null || evento.getHumedadRegistrada() != null) {
+            cadenaFrioMonitor.evaluar(List.of(new LecturaTelemetria(envio.getId(), empresaId,
+                    evento.getFechaHoraEvento(), evento.getTemperaturaRegistrada(), evento.getHumedadRegistrada(),
+                    evento.getLatitud(), evento.getLongitud())), usuario);
+        }
+
         auditoriaService.registrarCreacion(
                 "EVENTO_LOGISTICO",
                 evento.getId(),
@@ -92,6 +111,34 @@ public class EventoLogisticoService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lista los eventos registrados dentro de un radio en las últimas horas
+     * (p. ej. envíos que pasaron cerca de un puerto), del más reciente al más antiguo.
+     */
+    @Transactional(readOnly = true)
+    public List<EventoLogisticoResponse> buscarCercanos(double latitud, double longitud, double radioKm,
+                                                        int horas, Long empresaId) {
+        if (horas < 1 || horas > MAX_HORAS_BUSQUEDA) {
+            throw new IllegalArgumentException("Las horas deben estar entre 1 y " + MAX_HORAS_BUSQUEDA);
+        }
+        AreaBusqueda area = new AreaBusqueda(latitud, longitud, radioKm);
+
+        List<Long> ids = eventoRepository.findIdsCercanos(empresaId, area.latitud(), area.longitud(), area.radioKm(),
+                area.getLatitudMin(), area.getLatitudMax(), area.getLongitudMin(), area.getLongitudMax(),
+                LocalDateTime.now().minusHours(horas), maxResultados);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Se conserva el orden de la consulta espacial
+        Map<Long, EventoLogistico> eventos = eventoRepository.findAllWithEnvioByIdIn(ids).stream()
+                .collect(Collectors.toMap(EventoLogistico::getId, Function.identity()));
+        return ids.stream()
+                .map(eventos::get)
+                .map(eventoMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public EventoLogisticoResponse obtenerPorId(Long id, Long empresaId) {
         EventoLogistico evento = eventoRepository.findByIdAndEmpresaId(id, empresaId)
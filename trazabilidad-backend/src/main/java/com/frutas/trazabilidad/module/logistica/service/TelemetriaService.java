@@ -0,0 +1,217 @@
+package com.frutas.trazabilidad.module.logistica.service;
+
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.module.logistica.dto.VentanaTelemetriaResponse;
+import com.frutas.trazabilidad.module.logistica.entity.ResolucionTelemetria;
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.LecturaTelemetria;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.VentanaAgregada;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * Servicio de telemetría de contenedores (temperatura / humedad por envío).
+ * Las lecturas crudas se guardan en telemetria_envio y, en la misma transacción,
+ * se acumulan en ventanas de 1, 15 y 60 minutos (conteo, mínimo, máximo y suma),
+ * de modo que las consultas por rango y el resumen de cadena de frío leen pocas
+ * filas agregadas en lugar de todas las lecturas.
+ * Un job diario elimina las lecturas crudas y las ventanas finas antiguas; las
+ * ventanas horarias se conservan.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TelemetriaService {
+
+    private static final Comparator<VentanaAgregada> ORDEN_VENTANAS = Comparator
+            .comparing(VentanaAgregada::envioId)
+            .thenComparingInt(VentanaAgregada::resolucionMinutos)
+            .thenComparing(VentanaAgregada::inicioVentana);
+
+    private final TelemetriaRepository telemetriaRepository;
+    private final EnvioRepository envioRepository;
+
+    @Value("${app.telemetria.max-ventanas:1500}")
+    private int maxVentanas;
+
+    @Value("${app.telemetria.retencion.crudo-dias:30}")
+    private int retencionCrudoDias;
+
+    @Value("${app.telemetria.retencion.minuto-dias:30}")
+    private int retencionMinutoDias;
+
+    @Value("${app.telemetria.retencion.cuarto-hora-dias:180}")
+    private int retencionCuartoHoraDias;
+
+    @Value("${app.telemetria.retencion.tamano-lote:5000}")
+    private int tamanoLoteLimpieza;
+
+    /**
+     * Inserta las lecturas y acumula las que eran nuevas en las ventanas agregadas.
+     *
+     * @return lecturas efectivamente insertadas (sin los duplicados ya almacenados)
+     */
+    @Transactional
+    public List<LecturaTelemetria> registrarLecturas(List<LecturaTelemetria> lecturas) {
+        if (lecturas.isEmpty()) {
+            return List.of();
+        }
+
+        List<LecturaTelemetria> insertadas = telemetriaRepository.insertarLecturas(lecturas);
+
+        Map<ClaveVentana, Acumulador> ventanas = new HashMap<>();
+        for (LecturaTelemetria lectura : insertadas) {
+            for (ResolucionTelemetria resolucion : ResolucionTelemetria.values()) {
+                ClaveVentana clave = new ClaveVentana(lectura.envioId(), resolucion.getMinutos(),
+                        resolucion.inicioVentana(lectura.registradoEn()));
+                ventanas.computeIfAbsent(clave, c -> new Acumulador(lectura.empresaId())).agregar(lectura);
+            }
+        }
+
+        if (!ventanas.isEmpty()) {
+            List<VentanaAgregada> parciales = new ArrayList<>(ventanas.size());
+            ventanas.forEach((clave, acumulador) -> parciales.add(acumulador.toVentana(clave)));
+            parciales.sort(ORDEN_VENTANAS);
+            telemetriaRepository.acumularVentanas(parciales);
+        }
+
+        return insertadas;
+    }
+
+    /**
+     * Estadísticas por ventana de un envío en el rango [desde, hasta).
+     * Si no se indica resolución se elige la más fina que no supere app.telemetria.max-ventanas;
+     * si ni la de 1h cabe, el rango se rechaza (400).
+     *
+     * @param desde      inicio del rango (por defecto, 24 horas antes de hasta)
+     * @param hasta      fin del rango (por defecto, ahora)
+     * @param resolucion 1m, 15m o 1h (opcional)
+     */
+    @Transactional(readOnly = true)
+    public List<VentanaTelemetriaResponse> consultarVentanas(Long envioId, Long empresaId,
+                                                             LocalDateTime desde, LocalDateTime hasta,
+                                                             String resolucion) {
+        if (!envioRepository.existsByIdAndEmpresaId(envioId, empresaId)) {
+            throw new ResourceNotFoundException("Envío", envioId);
+        }
+
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusHours(24);
+        if (!inicio.isBefore(fin)) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior a la fecha final");
+        }
+
+        Duration rango = Duration.between(inicio, fin);
+        ResolucionTelemetria res;
+        if (resolucion == null || resolucion.isBlank()) {
+            res = ResolucionTelemetria.para(rango, maxVentanas);
+        } else {
+            res = ResolucionTelemetria.parsear(resolucion);
+            if (!res.cabeEn(rango, maxVentanas)) {
+                throw new IllegalArgumentException("El rango solicitado supera " + maxVentanas +
+                        " ventanas de " + res.getCodigo() + "; use una resolución mayor o un rango menor");
+            }
+        }
+
+        return telemetriaRepository.findVentanas(envioId, empresaId, res.getMinutos(),
+                        res.inicioVentana(inicio), fin)
+                .stream()
+                .map(v -> VentanaTelemetriaResponse.builder()
+                        .inicio(v.inicioVentana())
+                        .fin(v.inicioVentana().plus(res.getDuracion()))
+                        .muestras(v.muestras())
+                        .temperaturaMin(v.temperaturaMin())
+                        .temperaturaMax(v.temperaturaMax())
+                        .temperaturaPromedio(v.getTemperaturaPromedio())
+                        .humedadMin(v.humedadMin())
+                        .humedadMax(v.humedadMax())
+                        .humedadPromedio(v.getHumedadPromedio())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Elimina lecturas crudas y ventanas de 1 y 15 minutos fuera del periodo de retención.
+     * Cada DELETE afecta a un lote acotado de filas (transacciones cortas).
+     */
+    @Scheduled(cron = "${app.telemetria.retencion.cron:0 45 2 * * *}")
+    public void limpiarTelemetriaAntigua() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int crudas = eliminarPorLotes(() -> telemetriaRepository.deleteLecturasAnterioresA(
+                ahora.minusDays(retencionCrudoDias), tamanoLoteLimpieza));
+        int minuto = eliminarPorLotes(() -> telemetriaRepository.deleteVentanasAnterioresA(
+                ResolucionTelemetria.MINUTO.getMinutos(), ahora.minusDays(retencionMinutoDias), tamanoLoteLimpieza));
+        int cuartoHora = eliminarPorLotes(() -> telemetriaRepository.deleteVentanasAnterioresA(
+                ResolucionTelemetria.CUARTO_HORA.getMinutos(), ahora.minusDays(retencionCuartoHoraDias), tamanoLoteLimpieza));
+
+        log.info("Limpieza de telemetría: {} lecturas crudas, {} ventanas de 1m y {} ventanas de 15m eliminadas",
+                crudas, minuto, cuartoHora);
+    }
+
+    private int eliminarPorLotes(IntSupplier eliminarLote) {
+        int total = 0;
+        int eliminados;
+        do {
+            eliminados = eliminarLote.getAsInt();
+            total += eliminados;
+        } while (eliminados == tamanoLoteLimpieza);
+        return total;
+    }
+
+    private record ClaveVentana(Long envioId, int resolucionMinutos, LocalDateTime inicioVentana) {
+    }
+
+    /**
+     * Agregado parcial de una ventana con las lecturas de la transacción actual.
+     */
+    private static final class Acumulador {
+        private final Long empresaId;
+        private int muestras;
+        private int temperaturaMuestras;
+        private Double temperaturaMin;
+        private Double temperaturaMax;
+        private double temperaturaSuma;
+        private int humedadMuestras;
+        private Double humedadMin;
+        private Double humedadMax;
+        private double humedadSuma;
+
+        private Acumulador(Long empresaId) {
+            this.empresaId = empresaId;
+        }
+
+        private void agregar(LecturaTelemetria lectura) {
+            muestras++;
+            Double temperatura = lectura.temperatura();
+            if (temperatura != null) {
+                temperaturaMuestras++;
+                temperaturaSuma += temperatura;
+                temperaturaMin = temperaturaMin == null ? temperatura : Math.min(temperaturaMin, temperatura);
+                temperaturaMax = temperaturaMax == null ? temperatura : Math.max(temperaturaMax, temperatura);
+            }
+            Double humedad = lectura.humedad();
+            if (humedad != null) {
+                humedadMuestras++;
+                humedadSuma += humedad;
+                humedadMin = humedadMin == null ? humedad : Math.min(humedadMin, humedad);
+                humedadMax = humedadMax == null ? humedad : Math.max(humedadMax, humedad);
+            }
+        }
+
+        private VentanaAgregada toVentana(ClaveVentana clave) {
+            return new VentanaAgregada(clave.envioId(), clave.resolucionMinutos(), clave.inicioVentana(), empresaId,
+                    muestras, temperaturaMuestras, temperaturaMin, temperaturaMax, temperaturaSuma,
+                    humedadMuestras, humedadMin, humedadMax, humedadSuma);
+        }
+    }
+}
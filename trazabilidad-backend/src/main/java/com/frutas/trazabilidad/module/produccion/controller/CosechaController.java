@@ -9,6 +9,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,22 +35,27 @@ public class CosechaController {
     @GetMapping
     @Operation(summary = "Listar todas las cosechas", description = "Obtiene todas las cosechas de la empresa")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<CosechaResponse>>> listar(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "fechaCosecha", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestHeader("Authorization") String token) {
         Long empresaId = jwtUtil.extractEmpresaId(token.substring(7));
-        List<CosechaResponse> cosechas = cosechaService.listarPorEmpresa(empresaId);
-        return ResponseEntity.ok(ApiResponse.success(cosechas, "Cosechas obtenidas exitosamente"));
+        Page<?> cosechas = cosechaService.listarPorEmpresa(empresaId, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(cosechas, "Cosechas obtenidas exitosamente"));
     }
 
     @GetMapping("/lote/{loteId}")
     @Operation(summary = "Listar cosechas por lote", description = "Obtiene todas las cosechas de un lote específico")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<CosechaResponse>>> listarPorLote(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorLote(
             @PathVariable Long loteId,
+            @SortDefault(sort = "fechaCosecha", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @RequestHeader("Authorization") String token) {
 
         Long empresaId = jwtUtil.extractEmpresaId(token.substring(7));
-        List<CosechaResponse> cosechas = cosechaService.listarPorLote(loteId, empresaId);
-        return ResponseEntity.ok(ApiResponse.success(cosechas, "Cosechas del lote obtenidas exitosamente"));
+        Page<?> cosechas = cosechaService.listarPorLote(loteId, empresaId, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(cosechas, "Cosechas del lote obtenidas exitosamente"));
     }
 
     @GetMapping("/{id}")
@@ -102,11 +111,13 @@ public class CosechaController {
     @GetMapping("/recientes")
     @Operation(summary = "Cosechas recientes", description = "Obtiene las cosechas de los últimos 30 días")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<CosechaResponse>>> recientes(
+    public ResponseEntity<ApiResponse<List<?>>> recientes(
+            @SortDefault(sort = "fechaCosecha", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @RequestHeader("Authorization") String token) {
 
         Long empresaId = jwtUtil.extractEmpresaId(token.substring(7));
-        List<CosechaResponse> cosechas = cosechaService.listarRecientes(empresaId);
-        return ResponseEntity.ok(ApiResponse.success(cosechas, "Cosechas recientes obtenidas"));
+        Page<?> cosechas = cosechaService.listarRecientes(empresaId, pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(cosechas, "Cosechas recientes obtenidas"));
     }
 }
\ No newline at end of file
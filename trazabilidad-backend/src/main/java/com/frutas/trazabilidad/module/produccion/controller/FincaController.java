@@ -9,6 +9,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,10 +36,12 @@ public class FincaController {
     @GetMapping
     @Operation(summary = "Listar fincas", description = "Obtiene todas las fincas activas de la empresa")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<FincaResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "nombre", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<FincaResponse> fincas = fincaService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(fincas, "Fincas obtenidas exitosamente"));
+        Page<?> fincas = fincaService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(fincas, "Fincas obtenidas exitosamente"));
     }
 
     @GetMapping("/{id}")
@@ -83,10 +89,25 @@ public class FincaController {
     @GetMapping("/buscar")
     @Operation(summary = "Buscar fincas por nombre", description = "Busca fincas que contengan el texto especificado")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<FincaResponse>>> buscarPorNombre(
+    public ResponseEntity<ApiResponse<List<?>>> buscarPorNombre(
             @RequestParam String nombre,
+            @SortDefault(sort = "nombre", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<FincaResponse> fincas = fincaService.buscarPorNombre(nombre, user.getEmpresa().getId());
+        Page<?> fincas = fincaService.buscarPorNombre(nombre, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(fincas, "Búsqueda completada"));
+    }
+
+    @GetMapping("/cercanas")
+    @Operation(summary = "Buscar fincas cercanas",
+            description = "Fincas dentro de un radio (km) de un punto, ordenadas por distancia")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
+    public ResponseEntity<ApiResponse<List<FincaResponse>>> buscarCercanas(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam double radioKm,
+            @AuthenticationPrincipal User user) {
+        List<FincaResponse> fincas = fincaService.buscarCercanas(latitud, longitud, radioKm, user.getEmpresa().getId());
         return ResponseEntity.ok(ApiResponse.success(fincas, "Búsqueda completada"));
     }
 }
@@ -9,6 +9,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,20 +36,24 @@ public class LoteController {
     @GetMapping
     @Operation(summary = "Listar todos los lotes", description = "Obtiene todos los lotes de la empresa")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<LoteResponse>>> listar(
+    public ResponseEntity<ApiResponse<List<?>>> listar(
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<LoteResponse> lotes = loteService.listarPorEmpresa(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(lotes, "Lotes obtenidos exitosamente"));
+        Page<?> lotes = loteService.listarPorEmpresa(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(lotes, "Lotes obtenidos exitosamente"));
     }
 
     @GetMapping("/finca/{fincaId}")
     @Operation(summary = "Listar lotes por finca", description = "Obtiene todos los lotes de una finca específica")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<LoteResponse>>> listarPorFinca(
+    public ResponseEntity<ApiResponse<List<?>>> listarPorFinca(
             @PathVariable Long fincaId,
+            @SortDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<LoteResponse> lotes = loteService.listarPorFinca(fincaId, user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(lotes, "Lotes de la finca obtenidos exitosamente"));
+        Page<?> lotes = loteService.listarPorFinca(fincaId, user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(lotes, "Lotes de la finca obtenidos exitosamente"));
     }
 
     @GetMapping("/{id}")
@@ -93,9 +101,11 @@ public class LoteController {
     @GetMapping("/listos-cosechar")
     @Operation(summary = "Lotes listos para cosechar", description = "Obtiene los lotes que están listos para cosechar")
     @PreAuthorize("hasAnyRole('ADMIN', 'PRODUCTOR', 'OPERADOR_PLANTA', 'OPERADOR_LOGISTICA', 'AUDITOR')")
-    public ResponseEntity<ApiResponse<List<LoteResponse>>> listosParaCosechar(
+    public ResponseEntity<ApiResponse<List<?>>> listosParaCosechar(
+            @SortDefault(sort = "fechaPrimeraCosechaEstimada", direction = Sort.Direction.ASC) Pageable pageable,
+            @RequestParam(required = false) String fields,
             @AuthenticationPrincipal User user) {
-        List<LoteResponse> lotes = loteService.listarListosParaCosechar(user.getEmpresa().getId());
-        return ResponseEntity.ok(ApiResponse.success(lotes, "Lotes listos para cosechar obtenidos"));
+        Page<?> lotes = loteService.listarListosParaCosechar(user.getEmpresa().getId(), pageable, fields);
+        return ResponseEntity.ok(ApiResponse.paginada(lotes, "Lotes listos para cosechar obtenidos"));
     }
 }
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class ActividadAgronomica {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "actividades_agronomicas_id_seq")
+    @SequenceGenerator(name = "actividades_agronomicas_id_seq", sequenceName = "actividades_agronomicas_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
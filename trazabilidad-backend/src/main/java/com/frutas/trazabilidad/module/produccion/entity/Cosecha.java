@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.produccion.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
@@ -19,13 +20,21 @@ import java.time.LocalDateTime;
 public class Cosecha {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cosechas_id_seq")
+    @SequenceGenerator(name = "cosechas_id_seq", sequenceName = "cosechas_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lote_id", nullable = false)
     private Lote lote;
 
+    /**
+     * Empresa propietaria (desnormalizada desde lote para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "fecha_cosecha", nullable = false)
     private LocalDate fechaCosecha;
 
@@ -72,6 +81,9 @@ public class Cosecha {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            empresa = lote != null ? lote.getEmpresa() : null;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
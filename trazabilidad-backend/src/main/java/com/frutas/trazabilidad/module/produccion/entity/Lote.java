@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.produccion.entity;
 
+import com.frutas.trazabilidad.entity.Empresa;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
@@ -31,6 +32,13 @@ public class Lote {
     @JoinColumn(name = "finca_id", nullable = false)
     private Finca finca;
 
+    /**
+     * Empresa propietaria (desnormalizada desde finca para filtrar por tenant sin joins).
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empresa_id", nullable = false)
+    private Empresa empresa;
+
     @Column(name = "codigo_lote", nullable = false, length = 50)
     private String codigoLote;
 
@@ -87,6 +95,9 @@ public class Lote {
 
     @PrePersist
     protected void onCreate() {
+        if (empresa == null) {
+            empresa = finca != null ? finca.getEmpresa() : null;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
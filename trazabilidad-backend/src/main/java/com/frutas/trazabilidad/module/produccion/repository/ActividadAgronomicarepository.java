@@ -54,7 +54,7 @@ public interface ActividadAgronomicarepository extends JpaRepository<ActividadAg
     /**
      * Busca todas las actividades de los lotes de una empresa.
      */
-    @Query("SELECT a FROM ActividadAgronomica a WHERE a.lote.finca.empresa.id = :empresaId " +
+    @Query("SELECT a FROM ActividadAgronomica a WHERE a.lote.empresa.id = :empresaId " +
             "AND a.activo = true ORDER BY a.fechaActividad DESC")
     List<ActividadAgronomica> findAllByEmpresaId(@Param("empresaId") Long empresaId);
 }
\ No newline at end of file
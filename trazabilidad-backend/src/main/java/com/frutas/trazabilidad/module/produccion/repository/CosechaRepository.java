@@ -1,7 +1,12 @@
 package com.frutas.trazabilidad.module.produccion.repository;
 
 import com.frutas.trazabilidad.module.produccion.entity.Cosecha;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +18,12 @@ import java.util.List;
  * Repositorio para la entidad Cosecha.
  */
 @Repository
-public interface CosechaRepository extends JpaRepository<Cosecha, Long> {
+public interface CosechaRepository extends JpaRepository<Cosecha, Long>, JpaSpecificationExecutor<Cosecha> {
+
+    // Listados paginados: el mapper lee el lote
+    @Override
+    @EntityGraph(attributePaths = {"lote"})
+    Page<Cosecha> findAll(Specification<Cosecha> spec, Pageable pageable);
 
     /**
      * Busca todas las cosechas de un lote ordenadas por fecha descendente.
@@ -48,14 +58,14 @@ public interface CosechaRepository extends JpaRepository<Cosecha, Long> {
     /**
      * Busca cosechas de una empresa.
      */
-    @Query("SELECT c FROM Cosecha c WHERE c.lote.finca.empresa.id = :empresaId " +
+    @Query("SELECT c FROM Cosecha c WHERE c.empresa.id = :empresaId " +
             "AND c.activo = true ORDER BY c.fechaCosecha DESC")
     List<Cosecha> findByEmpresaId(@Param("empresaId") Long empresaId);
 
     /**
      * Busca cosechas recientes (últimos N días) de una empresa.
      */
-    @Query("SELECT c FROM Cosecha c WHERE c.lote.finca.empresa.id = :empresaId " +
+    @Query("SELECT c FROM Cosecha c WHERE c.empresa.id = :empresaId " +
             "AND c.activo = true " +
             "AND c.fechaCosecha >= :fechaDesde " +
             "ORDER BY c.fechaCosecha DESC")
@@ -70,7 +80,7 @@ public interface CosechaRepository extends JpaRepository<Cosecha, Long> {
     /**
      * Busca cosechas por calidad inicial.
      */
-    @Query("SELECT c FROM Cosecha c WHERE c.lote.finca.empresa.id = :empresaId " +
+    @Query("SELECT c FROM Cosecha c WHERE c.empresa.id = :empresaId " +
             "AND c.calidadInicial = :calidadInicial AND c.activo = true")
     List<Cosecha> findByEmpresaIdAndCalidadInicial(@Param("empresaId") Long empresaId,
                                                    @Param("calidadInicial") String calidadInicial);
@@ -79,7 +89,7 @@ public interface CosechaRepository extends JpaRepository<Cosecha, Long> {
      * Calcula total cosechado por empresa en un rango de fechas.
      */
     @Query("SELECT COALESCE(SUM(c.cantidadCosechada), 0) FROM Cosecha c " +
-            "WHERE c.lote.finca.empresa.id = :empresaId " +
+            "WHERE c.empresa.id = :empresaId " +
             "AND c.activo = true " +
             "AND c.fechaCosecha BETWEEN :fechaInicio AND :fechaFin")
     Double sumCantidadByEmpresaIdAndFechaBetween(@Param("empresaId") Long empresaId,
@@ -1,11 +1,17 @@
 package com.frutas.trazabilidad.module.produccion.repository;
 
 import com.frutas.trazabilidad.module.produccion.entity.Finca;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +20,12 @@ import java.util.Optional;
  * Incluye queries con aislamiento multiempresa.
  */
 @Repository
-public interface FincaRepository extends JpaRepository<Finca, Long> {
+public interface FincaRepository extends JpaRepository<Finca, Long>, JpaSpecificationExecutor<Finca> {
+
+    // Listados paginados: el mapper lee la empresa
+    @Override
+    @EntityGraph(attributePaths = {"empresa"})
+    Page<Finca> findAll(Specification<Finca> spec, Pageable pageable);
 
     /**
      * Busca todas las fincas activas de una empresa.
@@ -62,4 +73,43 @@ public interface FincaRepository extends JpaRepository<Finca, Long> {
             "AND f.activo = true AND f.areaHectareas >= :areaMinima")
     List<Finca> findByEmpresaIdAndAreaMayorA(@Param("empresaId") Long empresaId,
                                              @Param("areaMinima") Double areaMinima);
-}
\ No newline at end of file
+
+    /**
+     * Busca fincas activas de una empresa dentro de un radio, ordenadas por distancia.
+     * La caja (lat/lon min/max) filtra con el índice GiST idx_finca_ubicacion_gist y
+     * distancia_km descarta las esquinas (ver V11__indices_geoespaciales.sql).
+     */
+    @Query(value = "SELECT f.* FROM fincas f " +
+            "WHERE f.empresa_id = :empresaId AND f.activo = true " +
+            "AND point(f.longitud, f.latitud) <@ box(point(:lonMin, :latMin), point(:lonMax, :latMax)) " +
+            "AND distancia_km(:latitud, :longitud, f.latitud, f.longitud) <= :radioKm " +
+            "ORDER BY distancia_km(:latitud, :longitud, f.latitud, f.longitud) " +
+            "LIMIT :limite", nativeQuery = true)
+    List<Finca> findCercanas(@Param("empresaId") Long empresaId,
+                             @Param("latitud") double latitud, @Param("longitud") double longitud,
+                             @Param("radioKm") double radioKm,
+                             @Param("latMin") double latMin, @Param("latMax") double latMax,
+                             @Param("lonMin") double lonMin, @Param("lonMax") double lonMax,
+                             @Param("limite") int limite);
+
+    /**
+     * Lotes activos y certificaciones vigentes de varias fincas en una sola consulta
+     * agrupada, para los listados (evita dos conteos por finca).
+     */
+    @Query("SELECT f.id AS fincaId, COUNT(DISTINCT l.id) AS totalLotes, " +
+            "COUNT(DISTINCT c.id) AS totalCertificacionesVigentes " +
+            "FROM Finca f " +
+            "LEFT JOIN Lote l ON l.finca.id = f.id AND l.activo = true " +
+            "LEFT JOIN Certificacion c ON c.finca.id = f.id AND c.activo = true AND c.estado = 'VIGENTE' " +
+            "WHERE f.id IN :fincaIds GROUP BY f.id")
+    List<TotalesFinca> findTotalesPorFinca(@Param("fincaIds") Collection<Long> fincaIds);
+
+    /**
+     * Totales de una finca para la respuesta del listado.
+     */
+    interface TotalesFinca {
+        Long getFincaId();
+        Long getTotalLotes();
+        Long getTotalCertificacionesVigentes();
+    }
+}
@@ -1,7 +1,12 @@
 package com.frutas.trazabilidad.module.produccion.repository;
 
 import com.frutas.trazabilidad.module.produccion.entity.Lote;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,7 +19,12 @@ import java.util.Optional;
  * Repositorio para la entidad Lote.
  */
 @Repository
-public interface LoteRepository extends JpaRepository<Lote, Long> {
+public interface LoteRepository extends JpaRepository<Lote, Long>, JpaSpecificationExecutor<Lote> {
+
+    // Listados paginados: el mapper lee la finca
+    @Override
+    @EntityGraph(attributePaths = {"finca"})
+    Page<Lote> findAll(Specification<Lote> spec, Pageable pageable);
 
     /**
      * Busca todos los lotes activos de una finca.
@@ -24,7 +34,7 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
     /**
      * Busca un lote por ID verificando que pertenezca a la empresa.
      */
-    @Query("SELECT l FROM Lote l WHERE l.id = :id AND l.finca.empresa.id = :empresaId")
+    @Query("SELECT l FROM Lote l WHERE l.id = :id AND l.empresa.id = :empresaId")
     Optional<Lote> findByIdAndEmpresaId(@Param("id") Long id, @Param("empresaId") Long empresaId);
 
     /**
@@ -40,7 +50,7 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
     /**
      * Busca todos los lotes activos de una empresa.
      */
-    @Query("SELECT l FROM Lote l WHERE l.finca.empresa.id = :empresaId AND l.activo = true")
+    @Query("SELECT l FROM Lote l WHERE l.empresa.id = :empresaId AND l.activo = true")
     List<Lote> findAllByEmpresaId(@Param("empresaId") Long empresaId);
 
     /**
@@ -51,7 +61,7 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
     /**
      * Busca lotes listos para cosechar (fecha estimada <= hoy).
      */
-    @Query("SELECT l FROM Lote l WHERE l.finca.empresa.id = :empresaId " +
+    @Query("SELECT l FROM Lote l WHERE l.empresa.id = :empresaId " +
             "AND l.activo = true AND l.estadoLote = 'ACTIVO' " +
             "AND l.fechaPrimeraCosechaEstimada <= CURRENT_DATE")
     List<Lote> findListosParaCosechar(@Param("empresaId") Long empresaId);
@@ -64,7 +74,7 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
     /**
      * Busca lotes por tipo de fruta en toda la empresa.
      */
-    @Query("SELECT l FROM Lote l WHERE l.finca.empresa.id = :empresaId " +
+    @Query("SELECT l FROM Lote l WHERE l.empresa.id = :empresaId " +
             "AND l.tipoFruta = :tipoFruta AND l.activo = true")
     List<Lote> findByEmpresaIdAndTipoFruta(@Param("empresaId") Long empresaId,
                                            @Param("tipoFruta") String tipoFruta);
@@ -73,7 +83,7 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
      * Verifica si existe un lote con el ID dado que pertenece a la empresa.
      */
     @Query("SELECT CASE WHEN COUNT(l) > 0 THEN true ELSE false END " +
-            "FROM Lote l WHERE l.id = :loteId AND l.finca.empresa.id = :empresaId")
+            "FROM Lote l WHERE l.id = :loteId AND l.empresa.id = :empresaId")
     boolean existsByIdAndEmpresaId(@Param("loteId") Long loteId, @Param("empresaId") Long empresaId);
 
     /**
@@ -78,7 +78,7 @@ public class ActividadAgronomicarService {
                 .orElseThrow(() -> new ResourceNotFoundException("Actividad Agronómica", id));
 
         // Validar que pertenece a la empresa
-        if (!actividad.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!actividad.getLote().getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Actividad Agronómica", id);
         }
 
@@ -121,7 +121,7 @@ public class ActividadAgronomicarService {
                 .orElseThrow(() -> new ResourceNotFoundException("Actividad Agronómica", id));
 
         // Validar que pertenece a la empresa
-        if (!actividad.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!actividad.getLote().getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Actividad Agronómica", id);
         }
 
@@ -146,7 +146,7 @@ public class ActividadAgronomicarService {
                 .orElseThrow(() -> new ResourceNotFoundException("Actividad Agronómica", id));
 
         // Validar que pertenece a la empresa
-        if (!actividad.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!actividad.getLote().getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Actividad Agronómica", id);
         }
 
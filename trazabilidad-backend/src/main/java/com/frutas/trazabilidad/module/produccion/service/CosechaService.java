@@ -8,14 +8,17 @@ import com.frutas.trazabilidad.module.produccion.entity.Lote;
 import com.frutas.trazabilidad.module.produccion.mapper.CosechaMapper;
 import com.frutas.trazabilidad.module.produccion.repository.CosechaRepository;
 import com.frutas.trazabilidad.module.produccion.repository.LoteRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de cosechas.
@@ -28,37 +31,31 @@ public class CosechaService {
     private final CosechaRepository cosechaRepository;
     private final LoteRepository loteRepository;
     private final CosechaMapper cosechaMapper;
+    private final ListadoService listadoService;
 
     /**
      * Lista todas las cosechas de un lote.
      */
     @Transactional(readOnly = true)
-    public List<CosechaResponse> listarPorLote(Long loteId, Long empresaId) {
+    public Page<?> listarPorLote(Long loteId, Long empresaId, Pageable pageable, String campos) {
         log.debug("Listando cosechas de lote {} para empresa {}", loteId, empresaId);
 
         // Validar que el lote existe y pertenece a la empresa
         loteRepository.findByIdAndEmpresaId(loteId, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Lote", loteId));
 
-        List<Cosecha> cosechas = cosechaRepository.findByLoteIdAndActivoTrueOrderByFechaCosechaDesc(loteId);
-
-        return cosechas.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<Cosecha>igual("lote.id", loteId)
+                .and(Especificaciones.activos()), pageable, campos);
     }
 
     /**
      * Lista todas las cosechas de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<CosechaResponse> listarPorEmpresa(Long empresaId) {
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
         log.debug("Listando todas las cosechas para empresa {}", empresaId);
 
-        List<Cosecha> cosechas = cosechaRepository.findByEmpresaId(empresaId);
-
-        return cosechas.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     /**
@@ -72,7 +69,7 @@ public class CosechaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cosecha", id));
 
         // Validar que pertenece a la empresa
-        if (!cosecha.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!cosecha.getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Cosecha", id);
         }
 
@@ -125,7 +122,7 @@ public class CosechaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cosecha", id));
 
         // Validar que pertenece a la empresa
-        if (!cosecha.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!cosecha.getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Cosecha", id);
         }
 
@@ -150,7 +147,7 @@ public class CosechaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cosecha", id));
 
         // Validar que pertenece a la empresa
-        if (!cosecha.getLote().getFinca().getEmpresa().getId().equals(empresaId)) {
+        if (!cosecha.getEmpresa().getId().equals(empresaId)) {
             throw new ResourceNotFoundException("Cosecha", id);
         }
 
@@ -164,19 +161,21 @@ public class CosechaService {
      * Lista cosechas recientes (últimos 30 días).
      */
     @Transactional(readOnly = true)
-    public List<CosechaResponse> listarRecientes(Long empresaId) {
+    public Page<?> listarRecientes(Long empresaId, Pageable pageable, String campos) {
         log.debug("Buscando cosechas recientes para empresa {}", empresaId);
 
         LocalDate fechaDesde = LocalDate.now().minusDays(30);
-        List<Cosecha> cosechas = cosechaRepository.findCosechasRecientes(empresaId, fechaDesde);
-
-        return cosechas.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<Cosecha>activosDeEmpresa(empresaId)
+                .and(Especificaciones.desde("fechaCosecha", fechaDesde)), pageable, campos);
     }
 
     // --- Métodos privados de ayuda ---
 
+    private Page<?> listar(Specification<Cosecha> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(cosechaRepository, Cosecha.class, filtro, pageable, campos,
+                CosechaResponse.class, this::convertirAResponse);
+    }
+
     private CosechaResponse convertirAResponse(Cosecha cosecha) {
         CosechaResponse response = cosechaMapper.toResponse(cosecha);
 
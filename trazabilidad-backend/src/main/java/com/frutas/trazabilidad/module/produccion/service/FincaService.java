@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.module.produccion.service;
 
+import com.frutas.trazabilidad.entity.AreaBusqueda;
 import com.frutas.trazabilidad.entity.Empresa;
 import com.frutas.trazabilidad.exception.ConflictException;
 import com.frutas.trazabilidad.exception.ForbiddenException;
@@ -12,12 +13,20 @@ import com.frutas.trazabilidad.module.produccion.repository.CertificacionReposit
 import com.frutas.trazabilidad.module.produccion.repository.FincaRepository;
 import com.frutas.trazabilidad.module.produccion.repository.LoteRepository;
 import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -34,19 +43,19 @@ public class FincaService {
     private final LoteRepository loteRepository;
     private final CertificacionRepository certificacionRepository;
     private final FincaMapper fincaMapper;
+    private final ListadoService listadoService;
+
+    @Value("${app.busqueda-geografica.max-resultados:500}")
+    private int maxResultados;
 
     /**
      * Lista todas las fincas activas de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<FincaResponse> listarPorEmpresa(Long empresaId) {
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
         log.debug("Listando fincas para empresa: {}", empresaId);
 
-        List<Finca> fincas = fincaRepository.findByEmpresaIdAndActivoTrue(empresaId);
-
-        return fincas.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     /**
@@ -143,18 +152,34 @@ public class FincaService {
      * Busca fincas por nombre parcial.
      */
     @Transactional(readOnly = true)
-    public List<FincaResponse> buscarPorNombre(String nombre, Long empresaId) {
+    public Page<?> buscarPorNombre(String nombre, Long empresaId, Pageable pageable, String campos) {
         log.debug("Buscando fincas con nombre que contenga '{}' para empresa {}", nombre, empresaId);
 
-        List<Finca> fincas = fincaRepository.findByEmpresaIdAndNombreContaining(empresaId, nombre);
+        return listar(Especificaciones.<Finca>activosDeEmpresa(empresaId)
+                .and(Especificaciones.contiene("nombre", nombre)), pageable, campos);
+    }
 
-        return fincas.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+    /**
+     * Busca fincas activas dentro de un radio (p. ej. alrededor de un reporte de contaminación),
+     * ordenadas de la más cercana a la más lejana.
+     */
+    @Transactional(readOnly = true)
+    public List<FincaResponse> buscarCercanas(double latitud, double longitud, double radioKm, Long empresaId) {
+        AreaBusqueda area = new AreaBusqueda(latitud, longitud, radioKm);
+        log.debug("Buscando fincas a {} km de ({}, {}) para empresa {}", radioKm, latitud, longitud, empresaId);
+
+        return convertirAResponses(fincaRepository.findCercanas(empresaId, area.latitud(), area.longitud(),
+                area.radioKm(), area.getLatitudMin(), area.getLatitudMax(), area.getLongitudMin(),
+                area.getLongitudMax(), maxResultados));
     }
 
     // --- Métodos privados de ayuda ---
 
+    private Page<?> listar(Specification<Finca> filtro, Pageable pageable, String campos) {
+        return listadoService.listarPorPagina(fincaRepository, Finca.class, filtro, pageable, campos,
+                FincaResponse.class, this::convertirAResponses);
+    }
+
     private FincaResponse convertirAResponse(Finca finca) {
         FincaResponse response = fincaMapper.toResponse(finca);
 
@@ -164,4 +189,28 @@ public class FincaService {
 
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * Convierte varias fincas obteniendo sus totales con una única consulta agrupada.
+     */
+    private List<FincaResponse> convertirAResponses(List<Finca> fincas) {
+        if (fincas.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, FincaRepository.TotalesFinca> totales = fincaRepository
+                .findTotalesPorFinca(fincas.stream().map(Finca::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(FincaRepository.TotalesFinca::getFincaId, Function.identity()));
+
+        return fincas.stream()
+                .map(finca -> {
+                    FincaResponse response = fincaMapper.toResponse(finca);
+                    FincaRepository.TotalesFinca total = totales.get(finca.getId());
+                    response.setTotalLotes(total != null ? total.getTotalLotes() : 0L);
+                    response.setTotalCertificacionesVigentes(
+                            total != null ? total.getTotalCertificacionesVigentes() : 0L);
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+}
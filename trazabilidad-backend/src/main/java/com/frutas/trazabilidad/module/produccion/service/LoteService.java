@@ -11,13 +11,17 @@ import com.frutas.trazabilidad.module.produccion.repository.ActividadAgronomicar
 import com.frutas.trazabilidad.module.produccion.repository.CosechaRepository;
 import com.frutas.trazabilidad.module.produccion.repository.FincaRepository;
 import com.frutas.trazabilidad.module.produccion.repository.LoteRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
+import com.frutas.trazabilidad.service.ListadoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDate;
 
 /**
  * Servicio para gestión de lotes de cultivo.
@@ -32,37 +36,31 @@ public class LoteService {
     private final CosechaRepository cosechaRepository;
     private final ActividadAgronomicarepository actividadRepository;
     private final LoteMapper loteMapper;
+    private final ListadoService listadoService;
 
     /**
      * Lista todos los lotes de una finca.
      */
     @Transactional(readOnly = true)
-    public List<LoteResponse> listarPorFinca(Long fincaId, Long empresaId) {
+    public Page<?> listarPorFinca(Long fincaId, Long empresaId, Pageable pageable, String campos) {
         log.debug("Listando lotes de finca {} para empresa {}", fincaId, empresaId);
 
         // Validar que la finca pertenece a la empresa
         fincaRepository.findByIdAndEmpresaId(fincaId, empresaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Finca", fincaId));
 
-        List<Lote> lotes = loteRepository.findByFincaIdAndActivoTrue(fincaId);
-
-        return lotes.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.<Lote>igual("finca.id", fincaId)
+                .and(Especificaciones.activos()), pageable, campos);
     }
 
     /**
      * Lista todos los lotes de una empresa.
      */
     @Transactional(readOnly = true)
-    public List<LoteResponse> listarPorEmpresa(Long empresaId) {
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
         log.debug("Listando todos los lotes para empresa {}", empresaId);
 
-        List<Lote> lotes = loteRepository.findAllByEmpresaId(empresaId);
-
-        return lotes.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     /**
@@ -156,18 +154,25 @@ public class LoteService {
      * Busca lotes listos para cosechar en una empresa.
      */
     @Transactional(readOnly = true)
-    public List<LoteResponse> listarListosParaCosechar(Long empresaId) {
+    public Page<?> listarListosParaCosechar(Long empresaId, Pageable pageable, String campos) {
         log.debug("Buscando lotes listos para cosechar en empresa {}", empresaId);
 
-        List<Lote> lotes = loteRepository.findListosParaCosechar(empresaId);
-
-        return lotes.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        Specification<Lote> filtro = Especificaciones.<Lote>activosDeEmpresa(empresaId)
+                .and(Especificaciones.igual("estadoLote", "ACTIVO"))
+                .and(Especificaciones.hasta("fechaPrimeraCosechaEstimada", LocalDate.now()));
+        return listar(filtro, pageable, campos);
     }
 
     // --- Métodos privados de ayuda ---
 
+    /**
+     * Con fields se omiten los campos calculados (no son columnas de la tabla).
+     */
+    private Page<?> listar(Specification<Lote> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(loteRepository, Lote.class, filtro, pageable, campos,
+                LoteResponse.class, this::convertirAResponse);
+    }
+
     private LoteResponse convertirAResponse(Lote lote) {
         LoteResponse response = loteMapper.toResponse(lote);
 
@@ -0,0 +1,73 @@
+package com.frutas.trazabilidad.repository;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Filtros reutilizables para los listados paginados (JpaSpecificationExecutor).
+ * Los atributos admiten rutas con punto, p. ej. "lote.id".
+ */
+public final class Especificaciones {
+
+    private Especificaciones() {
+    }
+
+    /**
+     * Registros de la empresa (aislamiento multitenant).
+     */
+    public static <E> Specification<E> deEmpresa(Long empresaId) {
+        return igual("empresa.id", empresaId);
+    }
+
+    /**
+     * Registros no eliminados lógicamente.
+     */
+    public static <E> Specification<E> activos() {
+        return (root, query, cb) -> cb.isTrue(root.get("activo"));
+    }
+
+    public static <E> Specification<E> activosDeEmpresa(Long empresaId) {
+        return Especificaciones.<E>deEmpresa(empresaId).and(activos());
+    }
+
+    public static <E> Specification<E> igual(String atributo, Object valor) {
+        return (root, query, cb) -> cb.equal(ruta(root, atributo), valor);
+    }
+
+    public static <E> Specification<E> en(String atributo, Collection<?> valores) {
+        return (root, query, cb) -> ruta(root, atributo).in(valores);
+    }
+
+    /**
+     * Búsqueda parcial sin distinguir mayúsculas.
+     */
+    public static <E> Specification<E> contiene(String atributo, String texto) {
+        return (root, query, cb) -> cb.like(cb.lower(ruta(root, atributo)),
+                "%" + texto.toLowerCase() + "%");
+    }
+
+    public static <E, Y extends Comparable<? super Y>> Specification<E> entre(String atributo, Y desde, Y hasta) {
+        return (root, query, cb) -> cb.between(ruta(root, atributo), desde, hasta);
+    }
+
+    public static <E, Y extends Comparable<? super Y>> Specification<E> desde(String atributo, Y desde) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(ruta(root, atributo), desde);
+    }
+
+    public static <E, Y extends Comparable<? super Y>> Specification<E> hasta(String atributo, Y hasta) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(ruta(root, atributo), hasta);
+    }
+
+    static <Y> Path<Y> ruta(Root<?> root, String atributo) {
+        Path<?> ruta = root;
+        for (String parte : atributo.split("\\.")) {
+            ruta = ruta.get(parte);
+        }
+        @SuppressWarnings("unchecked")
+        Path<Y> tipada = (Path<Y>) ruta;
+        return tipada;
+    }
+}
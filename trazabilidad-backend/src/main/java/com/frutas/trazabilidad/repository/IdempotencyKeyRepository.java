@@ -0,0 +1,47 @@
+package com.frutas.trazabilidad.repository;
+
+import com.frutas.trazabilidad.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    /**
+     * Busca una clave de idempotencia dentro de una empresa.
+     */
+    Optional<IdempotencyKey> findByEmpresaIdAndClave(Long empresaId, String clave);
+
+    /**
+     * Elimina las claves creadas antes de la fecha indicada.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :limite")
+    int deleteByCreatedAtBefore(@Param("limite") LocalDateTime limite);
+
+    /**
+     * Elimina una reserva EN_PROCESO creada antes de la fecha indicada (abandonada).
+     *
+     * @return 1 si se eliminó, 0 si ya se completó o no está vencida
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id = :id AND k.estado = 'EN_PROCESO' AND k.createdAt < :limite")
+    int deleteReservaVencida(@Param("id") Long id, @Param("limite") LocalDateTime limite);
+
+    /**
+     * Elimina las reservas EN_PROCESO creadas antes de la fecha indicada.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.estado = 'EN_PROCESO' AND k.createdAt < :limite")
+    int deleteReservasVencidas(@Param("limite") LocalDateTime limite);
+}
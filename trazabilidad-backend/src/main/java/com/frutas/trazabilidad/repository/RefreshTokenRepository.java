@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -16,9 +17,9 @@ import java.util.Optional;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
     /**
-     * Busca un refresh token por su valor.
+     * Busca un refresh token por el hash SHA-256 de su valor.
      */
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
     /**
      * Busca todos los tokens activos de un usuario.
@@ -38,11 +39,35 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     void revokeAllByUserId(@Param("userId") Long userId);
 
     /**
-     * Elimina tokens expirados (para limpieza periódica).
+     * Revoca en una sola sentencia los tokens activos más antiguos del usuario,
+     * conservando únicamente los {@code sesionesConservadas} más recientes.
+     * Se invoca antes de crear un token nuevo para respetar el límite de sesiones.
+     *
+     * @return número de tokens revocados
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now")
-    void deleteExpiredTokens(@Param("now") Instant now);
+    @Query(value = "UPDATE refresh_tokens SET revoked = true WHERE id IN (" +
+            "SELECT id FROM refresh_tokens " +
+            "WHERE user_id = :userId AND revoked = false AND expiry_date > :now " +
+            "ORDER BY created_at DESC, id DESC OFFSET :sesionesConservadas)",
+            nativeQuery = true)
+    int revokeOldestActiveTokens(@Param("userId") Long userId,
+                                 @Param("now") Instant now,
+                                 @Param("sesionesConservadas") int sesionesConservadas);
+
+    /**
+     * Elimina un lote acotado de tokens expirados en su propia transacción.
+     * SKIP LOCKED evita esperar filas bloqueadas por logins/rotaciones concurrentes.
+     *
+     * @return número de tokens eliminados (menor que el lote cuando no quedan más)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (" +
+            "SELECT id FROM refresh_tokens WHERE expiry_date < :now " +
+            "ORDER BY expiry_date LIMIT :lote FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteExpiredTokensBatch(@Param("now") Instant now, @Param("lote") int lote);
 
     /**
      * Cuenta los tokens activos de un usuario (para limitar sesiones).
@@ -51,9 +76,9 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     long countActiveTokensByUserId(@Param("userId") Long userId, @Param("now") Instant now);
 
     /**
-     * Verifica si existe un token válido.
+     * Verifica si existe un token válido a partir del hash de su valor.
      */
     @Query("SELECT CASE WHEN COUNT(rt) > 0 THEN true ELSE false END FROM RefreshToken rt " +
-            "WHERE rt.token = :token AND rt.revoked = false AND rt.expiryDate > :now")
-    boolean existsByTokenAndValid(@Param("token") String token, @Param("now") Instant now);
+            "WHERE rt.tokenHash = :tokenHash AND rt.revoked = false AND rt.expiryDate > :now")
+    boolean existsByTokenHashAndValid(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
 }
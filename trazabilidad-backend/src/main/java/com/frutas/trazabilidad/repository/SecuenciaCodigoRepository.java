@@ -0,0 +1,34 @@
+package com.frutas.trazabilidad.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio JDBC de los contadores de códigos por empresa y serie.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SecuenciaCodigoRepository {
+
+    private static final String SQL_RESERVAR =
+            "INSERT INTO secuencias_codigo (empresa_id, serie, ultimo_valor, updated_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (empresa_id, serie) DO UPDATE " +
+            "SET ultimo_valor = secuencias_codigo.ultimo_valor + EXCLUDED.ultimo_valor, updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING ultimo_valor";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Avanza el contador de la serie en {@code cantidad} (creándolo si no existe)
+     * y devuelve el último valor reservado: el rango es [resultado - cantidad + 1, resultado].
+     */
+    public long reservar(Long empresaId, String serie, int cantidad) {
+        Long ultimo = jdbcTemplate.queryForObject(SQL_RESERVAR, Long.class, empresaId, serie, cantidad);
+        if (ultimo == null) {
+            throw new IllegalStateException("No se pudo reservar la serie " + serie);
+        }
+        return ultimo;
+    }
+}
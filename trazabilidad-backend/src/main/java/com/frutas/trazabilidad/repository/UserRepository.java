@@ -1,14 +1,24 @@
 package com.frutas.trazabilidad.repository;
 
 import com.frutas.trazabilidad.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+
+    // Listados paginados: el mapper lee la empresa
+    @Override
+    @EntityGraph(attributePaths = {"empresa"})
+    Page<User> findAll(Specification<User> spec, Pageable pageable);
 
     /**
      * Busca un usuario por email.
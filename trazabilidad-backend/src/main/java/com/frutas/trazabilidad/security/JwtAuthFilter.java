@@ -2,6 +2,8 @@ package com.frutas.trazabilidad.security;
 
 import com.frutas.trazabilidad.entity.User;
 import com.frutas.trazabilidad.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,10 +19,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro que intercepta todas las peticiones HTTP y valida el token JWT.
  * Verifica que el token sea válido y que el usuario esté activo y no bloqueado.
+ * Publica el timer trazabilidad.auth.jwt (tags resultado y empresa) con el coste
+ * de validar el token y cargar el usuario en cada request autenticado.
  */
 @Component
 @RequiredArgsConstructor
@@ -29,6 +34,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -46,6 +52,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return;
             }
 
+            long inicio = System.nanoTime();
             String token = authHeader.substring(7); // Remover "Bearer "
             String email = jwtUtil.validateTokenAndGetEmail(token);
 
@@ -55,6 +62,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
                 if (user == null) {
                     log.warn("Token válido pero usuario no encontrado: {}", email);
+                    registrarMetrica(inicio, "usuario_no_encontrado", null);
                     sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Usuario no encontrado");
                     return;
                 }
@@ -62,6 +70,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 // VALIDACIÓN CRÍTICA: Verificar que el usuario sigue activo
                 if (!user.getActivo()) {
                     log.warn("Token válido pero usuario inactivo: {}", email);
+                    registrarMetrica(inicio, "usuario_inactivo", user);
                     sendErrorResponse(response, HttpStatus.FORBIDDEN, "Usuario inactivo. Contacte al administrador.");
                     return;
                 }
@@ -69,6 +78,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 // VALIDACIÓN CRÍTICA: Verificar que el usuario no está bloqueado
                 if (user.estaBloqueadoTemporalmente()) {
                     log.warn("Token válido pero usuario bloqueado temporalmente: {}", email);
+                    registrarMetrica(inicio, "usuario_bloqueado", user);
                     sendErrorResponse(response, HttpStatus.FORBIDDEN, "Cuenta bloqueada temporalmente.");
                     return;
                 }
@@ -83,19 +93,37 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                registrarMetrica(inicio, "ok", user);
 
                 log.debug("Usuario autenticado vía JWT: {} - Empresa: {}",
                         email, user.getEmpresa().getId());
+            } else if (email == null) {
+                registrarMetrica(inicio, "token_invalido", null);
             }
 
         } catch (Exception e) {
             log.error("Error al procesar token JWT: {}", e.getMessage());
+            meterRegistry.counter("trazabilidad.auth.jwt.errores").increment();
             // No establecer autenticación, permitir que Spring Security maneje el acceso denegado
         }
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Registra la duración de la autenticación JWT etiquetada por resultado y empresa.
+     */
+    private void registrarMetrica(long inicioNanos, String resultado, User user) {
+        String empresa = user != null && user.getEmpresa() != null
+                ? String.valueOf(user.getEmpresa().getId())
+                : "none";
+        Timer.builder("trazabilidad.auth.jwt")
+                .tag("resultado", resultado)
+                .tag("empresa", empresa)
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * Envía una respuesta de error JSON al cliente.
      */
@@ -3,10 +3,14 @@ package com.frutas.trazabilidad.security;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -22,8 +26,11 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Filtro para implementar Rate Limiting por IP.
  * Protege contra abusos y ataques DoS.
+ * Métricas: trazabilidad.ratelimit.decisiones (tags tipo y resultado) y
+ * trazabilidad.ratelimit.buckets (IPs con bucket activo, por tipo).
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class RateLimitingFilter extends OncePerRequestFilter {
 
@@ -36,14 +43,33 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     @Value("${app.rate-limit.login-requests-per-minute:10}")
     private int loginRequestsPerMinute;
 
+    @Value("${app.rate-limit.scan-requests-per-minute:600}")
+    private int scanRequestsPerMinute;
+
     // Cache de buckets por IP
     private final Map<String, Bucket> bucketCache = new ConcurrentHashMap<>();
     private final Map<String, Bucket> loginBucketCache = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> scanBucketCache = new ConcurrentHashMap<>();
 
     // Limpieza periódica del cache (cada 10 minutos)
     private long lastCleanup = System.currentTimeMillis();
     private static final long CLEANUP_INTERVAL_MS = 600000; // 10 minutos
 
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void registrarGauges() {
+        Gauge.builder("trazabilidad.ratelimit.buckets", bucketCache, Map::size)
+                .tag("tipo", "general")
+                .register(meterRegistry);
+        Gauge.builder("trazabilidad.ratelimit.buckets", loginBucketCache, Map::size)
+                .tag("tipo", "login")
+                .register(meterRegistry);
+        Gauge.builder("trazabilidad.ratelimit.buckets", scanBucketCache, Map::size)
+                .tag("tipo", "escaneo")
+                .register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -64,24 +90,33 @@ public class RateLimitingFilter extends OncePerRequestFilter {
 
         // Seleccionar bucket según el tipo de endpoint
         Bucket bucket;
+        String tipo;
         if (isLoginEndpoint(path)) {
             bucket = getLoginBucket(clientIp);
+            tipo = "login";
+        } else if (isScanEndpoint(path)) {
+            // Estaciones de paletizado: una petición por caja escaneada
+            bucket = getScanBucket(clientIp);
+            tipo = "escaneo";
         } else if (isPublicEndpoint(path)) {
             // Endpoints públicos no tienen rate limiting estricto
             filterChain.doFilter(request, response);
             return;
         } else {
             bucket = getBucket(clientIp);
+            tipo = "general";
         }
 
         // Intentar consumir un token
         if (bucket.tryConsume(1)) {
             // Agregar headers de rate limiting
             addRateLimitHeaders(response, bucket);
+            meterRegistry.counter("trazabilidad.ratelimit.decisiones", "tipo", tipo, "resultado", "permitido").increment();
             filterChain.doFilter(request, response);
         } else {
             // Rate limit excedido
             log.warn("Rate limit excedido para IP: {} en path: {}", clientIp, path);
+            meterRegistry.counter("trazabilidad.ratelimit.decisiones", "tipo", tipo, "resultado", "rechazado").increment();
             sendRateLimitExceededResponse(response);
         }
     }
@@ -101,6 +136,13 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         return loginBucketCache.computeIfAbsent(clientIp, ip -> createBucket(loginRequestsPerMinute));
     }
 
+    /**
+     * Obtiene o crea un bucket para la IP dada (escaneo de cajas en sesiones de pallet).
+     */
+    private Bucket getScanBucket(String clientIp) {
+        return scanBucketCache.computeIfAbsent(clientIp, ip -> createBucket(scanRequestsPerMinute));
+    }
+
     /**
      * Crea un nuevo bucket con la capacidad especificada.
      */
@@ -123,6 +165,13 @@ public class RateLimitingFilter extends OncePerRequestFilter {
                 path.startsWith("/api/auth/password-reset");
     }
 
+    /**
+     * Verifica si es un escaneo de etiqueta dentro de una sesión de pallet.
+     */
+    private boolean isScanEndpoint(String path) {
+        return path.startsWith("/api/pallets/sesiones-escaneo/") && path.endsWith("/etiquetas");
+    }
+
     /**
      * Verifica si es un endpoint público (sin rate limiting estricto).
      */
@@ -183,6 +232,7 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         if (now - lastCleanup > CLEANUP_INTERVAL_MS) {
             bucketCache.clear();
             loginBucketCache.clear();
+            scanBucketCache.clear();
             lastCleanup = now;
             log.debug("Cache de rate limiting limpiado");
         }
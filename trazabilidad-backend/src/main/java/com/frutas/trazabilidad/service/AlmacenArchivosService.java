@@ -0,0 +1,220 @@
+package com.frutas.trazabilidad.service;
+
+import com.frutas.trazabilidad.exception.PayloadTooLargeException;
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de archivos en disco direccionado por contenido (SHA-256).
+ * Cada archivo se guarda una única vez en {directorio}/ab/cd/{hash}: subir el mismo
+ * contenido desde varios documentos reutiliza el archivo existente.
+ * La subida se escribe en un archivo temporal calculando el hash a la vez (una sola
+ * pasada, sin cargar el archivo en memoria) y se mueve de forma atómica a su ruta final.
+ * Los archivos almacenados son inmutables.
+ */
+@Service
+@Slf4j
+public class AlmacenArchivosService {
+
+    private static final Pattern HASH_VALIDO = Pattern.compile("[0-9a-f]{64}");
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final String DIRECTORIO_TEMPORAL = "tmp";
+
+    @Value("${app.almacen-archivos.directorio:./data/archivos}")
+    private Path directorio;
+
+    @Value("${app.almacen-archivos.tamano-maximo:25MB}")
+    private DataSize tamanoMaximo;
+
+    private Path temporales;
+
+    /**
+     * Resultado de guardar un archivo.
+     *
+     * @param nuevo false si el contenido ya estaba almacenado
+     */
+    public record ArchivoAlmacenado(String hash, long tamano, boolean nuevo) {
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        directorio = directorio.toAbsolutePath().normalize();
+        temporales = directorio.resolve(DIRECTORIO_TEMPORAL);
+        Files.createDirectories(temporales);
+        log.info("Almacén de archivos en {} (tamaño máximo {})", directorio, tamanoMaximo);
+    }
+
+    /**
+     * Guarda el contenido del stream y devuelve su hash SHA-256.
+     *
+     * @param hashEsperado si no es null, el contenido debe tener este hash; en caso
+     *                     contrario no se guarda y se lanza IllegalArgumentException
+     */
+    public ArchivoAlmacenado guardar(InputStream contenido, String hashEsperado) {
+        if (hashEsperado != null && !HASH_VALIDO.matcher(hashEsperado).matches()) {
+            throw new IllegalArgumentException("El hash esperado debe ser un SHA-256 en hexadecimal (64 caracteres)");
+        }
+
+        Path temporal = null;
+        try {
+            temporal = Files.createTempFile(temporales, "subida-", ".tmp");
+            MessageDigest digest = sha256();
+            long tamano = 0;
+            long limite = tamanoMaximo.toBytes();
+            byte[] buffer = new byte[TAMANO_BUFFER];
+
+            try (FileChannel destino = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                int leidos;
+                while ((leidos = contenido.read(buffer)) != -1) {
+                    tamano += leidos;
+                    if (tamano > limite) {
+                        throw new PayloadTooLargeException("El archivo supera el tamaño máximo de " + tamanoMaximo);
+                    }
+                    digest.update(buffer, 0, leidos);
+                    ByteBuffer bloque = ByteBuffer.wrap(buffer, 0, leidos);
+                    while (bloque.hasRemaining()) {
+                        destino.write(bloque);
+                    }
+                }
+                destino.force(false);
+            }
+
+            if (tamano == 0) {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (hashEsperado != null && !hashEsperado.equals(hash)) {
+                throw new IllegalArgumentException(
+                        "El hash SHA-256 del archivo (" + hash + ") no coincide con el registrado (" + hashEsperado + ")");
+            }
+
+            Path ruta = rutaDe(hash);
+            if (Files.exists(ruta)) {
+                log.debug("Archivo {} ya almacenado, se reutiliza", hash);
+                return new ArchivoAlmacenado(hash, tamano, false);
+            }
+
+            Files.createDirectories(ruta.getParent());
+            try {
+                Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otra subida concurrente del mismo contenido terminó antes
+                return new ArchivoAlmacenado(hash, tamano, false);
+            }
+            temporal = null;
+            log.info("Archivo {} almacenado ({} bytes)", hash, tamano);
+            return new ArchivoAlmacenado(hash, tamano, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo almacenar el archivo", e);
+        } finally {
+            if (temporal != null) {
+                eliminarSilenciosamente(temporal);
+            }
+        }
+    }
+
+    /**
+     * Ruta del archivo almacenado con el hash dado.
+     *
+     * @throws ResourceNotFoundException si no existe
+     */
+    public Path obtener(String hash) {
+        if (hash == null || !HASH_VALIDO.matcher(hash).matches()) {
+            throw new ResourceNotFoundException("Archivo no encontrado");
+        }
+        Path ruta = rutaDe(hash);
+        if (!Files.isRegularFile(ruta)) {
+            throw new ResourceNotFoundException("Archivo no encontrado");
+        }
+        return ruta;
+    }
+
+    /**
+     * Recalcula el SHA-256 del archivo almacenado y lo compara con su nombre.
+     *
+     * @return true si el contenido en disco está íntegro
+     */
+    public boolean verificar(String hash) {
+        Path ruta = obtener(hash);
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            while (canal.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo " + hash, e);
+        }
+        boolean integro = hash.equals(HexFormat.of().formatHex(digest.digest()));
+        if (!integro) {
+            log.error("El archivo almacenado {} no coincide con su hash SHA-256", hash);
+        }
+        return integro;
+    }
+
+    /**
+     * Elimina los temporales que quedaron de subidas interrumpidas (p. ej. por un reinicio).
+     */
+    @Scheduled(fixedDelayString = "PT6H", initialDelayString = "PT5M")
+    public void limpiarTemporales() {
+        Instant limite = Instant.now().minus(Duration.ofHours(6));
+        try (Stream<Path> archivos = Files.list(temporales)) {
+            archivos.filter(archivo -> modificadoAntesDe(archivo, limite))
+                    .forEach(this::eliminarSilenciosamente);
+        } catch (IOException e) {
+            log.warn("No se pudieron limpiar los temporales del almacén: {}", e.getMessage());
+        }
+    }
+
+    private Path rutaDe(String hash) {
+        return directorio.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private boolean modificadoAntesDe(Path archivo, Instant limite) {
+        try {
+            FileTime modificado = Files.getLastModifiedTime(archivo);
+            return modificado.toInstant().isBefore(limite);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void eliminarSilenciosamente(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el temporal {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
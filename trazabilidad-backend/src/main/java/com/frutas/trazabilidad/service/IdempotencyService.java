@@ -0,0 +1,190 @@
+package com.frutas.trazabilidad.service;
+
+import com.frutas.trazabilidad.entity.IdempotencyKey;
+import com.frutas.trazabilidad.exception.BadRequestException;
+import com.frutas.trazabilidad.exception.ConflictException;
+import com.frutas.trazabilidad.repository.IdempotencyKeyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones de cambio de estado de forma segura ante clientes concurrentes:
+ * - Reintenta la operación (cada intento en una transacción nueva) cuando falla por
+ *   bloqueo optimista (@Version), hasta app.idempotencia.reintentos-conflicto veces.
+ * - Si el cliente envía el header Idempotency-Key, la primera ejecución reserva la clave,
+ *   guarda su respuesta y los reintentos con la misma clave reciben esa respuesta sin
+ *   volver a ejecutar la operación.
+ * - Una reserva EN_PROCESO que no se completa (p. ej. el proceso se detuvo a mitad)
+ *   caduca tras app.idempotencia.lease-en-proceso-segundos, no tras el TTL de 24 horas,
+ *   para que el cliente pueda reintentar con la misma clave.
+ * Debe invocarse fuera de una transacción (desde el controller) para que cada
+ * reintento vea el estado confirmado más reciente.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final JsonMapper jsonMapper;
+
+    @Value("${app.idempotencia.reintentos-conflicto:3}")
+    private int reintentosConflicto;
+
+    @Value("${app.idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${app.idempotencia.lease-en-proceso-segundos:60}")
+    private long leaseEnProcesoSegundos;
+
+    private RetryTemplate retryTemplate;
+
+    @PostConstruct
+    void init() {
+        retryTemplate = new RetryTemplate(RetryPolicy.builder()
+                .includes(OptimisticLockingFailureException.class)
+                .maxRetries(reintentosConflicto)
+                .delay(Duration.ofMillis(50))
+                .jitter(Duration.ofMillis(25))
+                .multiplier(2)
+                .build());
+    }
+
+    /**
+     * Ejecuta la acción con reintentos por conflicto y, si hay clave, de forma idempotente.
+     *
+     * @param clave         valor del header Idempotency-Key (puede ser null)
+     * @param empresaId     empresa del usuario (las claves son por empresa)
+     * @param operacion     nombre de la operación protegida (ej: ENVIO_CERRAR)
+     * @param recursoId     ID del recurso sobre el que se opera
+     * @param tipoRespuesta clase de la respuesta, para deserializar la respuesta guardada
+     * @param accion        operación transaccional a ejecutar
+     */
+    public <T> T ejecutar(String clave, Long empresaId, String operacion, Long recursoId,
+                          Class<T> tipoRespuesta, Supplier<T> accion) {
+        if (clave == null || clave.isBlank()) {
+            return conReintentos(operacion, accion);
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new BadRequestException("El header " + HEADER + " no puede superar "
+                    + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+
+        Optional<IdempotencyKey> reserva = reservar(clave, empresaId, operacion, recursoId);
+        if (reserva.isEmpty()) {
+            IdempotencyKey existente = idempotencyKeyRepository.findByEmpresaIdAndClave(empresaId, clave)
+                    .orElseThrow(() -> new ConflictException("No se pudo reservar la " + HEADER + ". Reintente"));
+            return repetirRespuesta(existente, operacion, recursoId, tipoRespuesta);
+        }
+
+        T resultado;
+        try {
+            resultado = conReintentos(operacion, accion);
+        } catch (RuntimeException e) {
+            // La operación no se aplicó: liberar la clave para que el cliente pueda reintentar
+            idempotencyKeyRepository.delete(reserva.get());
+            throw e;
+        }
+
+        IdempotencyKey completada = reserva.get();
+        completada.setEstado(IdempotencyKey.COMPLETADA);
+        completada.setRespuesta(jsonMapper.writeValueAsString(resultado));
+        idempotencyKeyRepository.save(completada);
+        return resultado;
+    }
+
+    /**
+     * Elimina claves de idempotencia más antiguas que app.idempotencia.ttl-horas y
+     * reservas EN_PROCESO que superaron su lease.
+     */
+    @Scheduled(cron = "${app.idempotencia.limpieza-cron:0 15 * * * *}")
+    public void limpiarClavesExpiradas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int eliminadas = idempotencyKeyRepository.deleteByCreatedAtBefore(ahora.minusHours(ttlHoras));
+        int abandonadas = idempotencyKeyRepository.deleteReservasVencidas(ahora.minusSeconds(leaseEnProcesoSegundos));
+        log.debug("Limpieza de claves de idempotencia: {} eliminadas, {} reservas abandonadas",
+                eliminadas, abandonadas);
+    }
+
+    /**
+     * Intenta reservar la clave insertándola en estado EN_PROCESO.
+     * Devuelve vacío si ya existía (otra solicitud la reservó antes), salvo que fuera
+     * una reserva EN_PROCESO con el lease vencido, que se libera y se vuelve a reservar.
+     */
+    private Optional<IdempotencyKey> reservar(String clave, Long empresaId, String operacion, Long recursoId) {
+        Optional<IdempotencyKey> existente = idempotencyKeyRepository.findByEmpresaIdAndClave(empresaId, clave);
+        if (existente.isPresent() && !liberarSiVencida(existente.get())) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                    .empresaId(empresaId)
+                    .clave(clave)
+                    .operacion(operacion)
+                    .recursoId(recursoId)
+                    .estado(IdempotencyKey.EN_PROCESO)
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            // Carrera con otra solicitud que insertó la misma clave (índice único)
+            return Optional.empty();
+        }
+    }
+
+    private boolean liberarSiVencida(IdempotencyKey existente) {
+        if (!IdempotencyKey.EN_PROCESO.equals(existente.getEstado())) {
+            return false;
+        }
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(leaseEnProcesoSegundos);
+        if (idempotencyKeyRepository.deleteReservaVencida(existente.getId(), limite) == 0) {
+            return false;
+        }
+        log.warn("Reserva de {} abandonada para {} {}: se libera tras {}s",
+                HEADER, existente.getOperacion(), existente.getRecursoId(), leaseEnProcesoSegundos);
+        return true;
+    }
+
+    private <T> T repetirRespuesta(IdempotencyKey existente, String operacion, Long recursoId, Class<T> tipoRespuesta) {
+        if (!existente.getOperacion().equals(operacion) || !existente.getRecursoId().equals(recursoId)) {
+            throw new ConflictException("La " + HEADER + " ya se utilizó para otra operación");
+        }
+        if (IdempotencyKey.EN_PROCESO.equals(existente.getEstado())) {
+            throw new ConflictException("Hay una solicitud con la misma " + HEADER + " en proceso. Reintente en unos segundos");
+        }
+        log.info("Solicitud repetida con {} para {} {}: se devuelve la respuesta original",
+                HEADER, operacion, recursoId);
+        return jsonMapper.readValue(existente.getRespuesta(), tipoRespuesta);
+    }
+
+    private <T> T conReintentos(String operacion, Supplier<T> accion) {
+        try {
+            return retryTemplate.execute(accion::get);
+        } catch (RetryException e) {
+            if (e.getLastException() instanceof OptimisticLockingFailureException) {
+                log.warn("Conflicto de concurrencia persistente en {} tras {} reintentos", operacion, e.getRetryCount());
+            }
+            if (e.getLastException() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getLastException());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.frutas.trazabilidad.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Contrato común de los listados: paginación (page, size), orden (sort=campo,asc|desc)
+ * y selección de campos (fields=campo1,campo2). Sin page y size el listado no se pagina
+ * (ver PaginacionConfig).
+ * Los campos de orden y selección son los del DTO de respuesta que corresponden a una
+ * columna de la entidad, o a la FK de una relación con el sufijo Id (p. ej. loteId).
+ * Con fields la consulta selecciona solo esas columnas (sin cargar entidades) y cada
+ * elemento es un mapa campo-valor; el id se incluye siempre.
+ */
+@Service
+public class ListadoService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Ejecuta un listado paginado: entidades mapeadas al DTO, o solo los campos pedidos.
+     */
+    public <E, D> Page<?> listar(JpaSpecificationExecutor<E> repositorio, Class<E> entidad, Specification<E> filtro,
+                                 Pageable pageable, String campos, Class<D> dto, Function<? super E, ? extends D> mapper) {
+        if (campos != null && !campos.isBlank()) {
+            return proyectar(entidad, filtro, pageable, campos, dto);
+        }
+        return repositorio.findAll(filtro, ordenar(entidad, dto, pageable)).map(mapper);
+    }
+
+    /**
+     * Como listar, pero mapea la página completa de una vez, para que el mapper pueda
+     * resolver datos calculados (conteos, totales) con una consulta por página.
+     */
+    public <E, D> Page<?> listarPorPagina(JpaSpecificationExecutor<E> repositorio, Class<E> entidad,
+                                          Specification<E> filtro, Pageable pageable, String campos, Class<D> dto,
+                                          Function<List<E>, List<D>> mapperPagina) {
+        if (campos != null && !campos.isBlank()) {
+            return proyectar(entidad, filtro, pageable, campos, dto);
+        }
+        Page<E> pagina = repositorio.findAll(filtro, ordenar(entidad, dto, pageable));
+        return new PageImpl<>(mapperPagina.apply(pagina.getContent()), pagina.getPageable(),
+                pagina.getTotalElements());
+    }
+
+    /**
+     * Selecciona solo los campos pedidos con una consulta de tuplas más su conteo.
+     */
+    public <E> Page<Map<String, Object>> proyectar(Class<E> entidad, Specification<E> filtro, Pageable pageable,
+                                                   String campos, Class<?> dto) {
+        Map<String, String> rutas = resolverCampos(entidad, dto, campos);
+        Pageable ordenado = ordenar(entidad, dto, pageable);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(entidad);
+        Predicate predicado = filtro.toPredicate(root, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        List<Selection<?>> seleccion = new ArrayList<>(rutas.size());
+        rutas.forEach((campo, ruta) -> seleccion.add(ruta(root, ruta).alias(campo)));
+        query.select(cb.tuple(seleccion));
+        query.orderBy(QueryUtils.toOrders(ordenado.getSort(), root, cb));
+
+        TypedQuery<Tuple> consulta = entityManager.createQuery(query);
+        if (ordenado.isPaged()) {
+            consulta.setFirstResult((int) ordenado.getOffset());
+            consulta.setMaxResults(ordenado.getPageSize());
+        }
+        List<Map<String, Object>> filas = consulta.getResultList().stream()
+                .map(ListadoService::aMapa)
+                .toList();
+        return PageableExecutionUtils.getPage(filas, ordenado, () -> contar(entidad, filtro));
+    }
+
+    /**
+     * Valida el orden pedido contra los campos del DTO, lo traduce a atributos de la
+     * entidad y agrega el id como desempate para que las páginas sean estables.
+     * Un listado sin paginar conserva el orden traducido.
+     */
+    public Pageable ordenar(Class<?> entidad, Class<?> dto, Pageable pageable) {
+        List<Sort.Order> ordenes = new ArrayList<>();
+        boolean porId = false;
+        for (Sort.Order orden : pageable.getSort()) {
+            String ruta = rutaEntidad(entidad, dto, orden.getProperty());
+            if (ruta == null) {
+                throw new IllegalArgumentException("No se puede ordenar por el campo: " + orden.getProperty());
+            }
+            porId |= "id".equals(ruta);
+            ordenes.add(orden.withProperty(ruta));
+        }
+        if (!porId) {
+            ordenes.add(Sort.Order.asc("id"));
+        }
+        Sort orden = Sort.by(ordenes);
+        return pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), orden)
+                : Pageable.unpaged(orden);
+    }
+
+    private Map<String, String> resolverCampos(Class<?> entidad, Class<?> dto, String campos) {
+        Map<String, String> rutas = new LinkedHashMap<>();
+        rutas.put("id", "id");
+        for (String campo : campos.split(",")) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty() || rutas.containsKey(nombre)) {
+                continue;
+            }
+            String ruta = rutaEntidad(entidad, dto, nombre);
+            if (ruta == null) {
+                throw new IllegalArgumentException("El campo " + nombre + " no se puede seleccionar");
+            }
+            rutas.put(nombre, ruta);
+        }
+        return rutas;
+    }
+
+    /**
+     * Atributo de la entidad que corresponde a un campo del DTO, o null si no tiene
+     * columna propia (campos calculados o de entidades relacionadas).
+     */
+    private static String rutaEntidad(Class<?> entidad, Class<?> dto, String campo) {
+        if (ReflectionUtils.findField(dto, campo) == null) {
+            return null;
+        }
+        Field atributo = ReflectionUtils.findField(entidad, campo);
+        if (atributo != null && esColumna(atributo)) {
+            return campo;
+        }
+        if (campo.length() > 2 && campo.endsWith("Id")) {
+            String nombreRelacion = campo.substring(0, campo.length() - 2);
+            Field relacion = ReflectionUtils.findField(entidad, nombreRelacion);
+            if (relacion != null && esRelacionConFk(relacion)) {
+                return nombreRelacion + ".id";
+            }
+        }
+        return null;
+    }
+
+    private static boolean esColumna(Field atributo) {
+        return !Modifier.isStatic(atributo.getModifiers())
+                && !Modifier.isTransient(atributo.getModifiers())
+                && !atributo.isAnnotationPresent(Transient.class)
+                && !atributo.isAnnotationPresent(ManyToOne.class)
+                && !atributo.isAnnotationPresent(OneToOne.class)
+                && !atributo.isAnnotationPresent(OneToMany.class)
+                && !atributo.isAnnotationPresent(ManyToMany.class)
+                && !Collection.class.isAssignableFrom(atributo.getType());
+    }
+
+    private static boolean esRelacionConFk(Field relacion) {
+        if (relacion.isAnnotationPresent(ManyToOne.class)) {
+            return true;
+        }
+        OneToOne oneToOne = relacion.getAnnotation(OneToOne.class);
+        return oneToOne != null && oneToOne.mappedBy().isEmpty();
+    }
+
+    private <E> long contar(Class<E> entidad, Specification<E> filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<E> root = query.from(entidad);
+        Predicate predicado = filtro.toPredicate(root, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Path<?> ruta(Root<?> root, String ruta) {
+        Path<?> path = root;
+        for (String parte : ruta.split("\\.")) {
+            path = path.get(parte);
+        }
+        return path;
+    }
+
+    private static Map<String, Object> aMapa(Tuple tupla) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        for (TupleElement<?> elemento : tupla.getElements()) {
+            fila.put(elemento.getAlias(), tupla.get(elemento));
+        }
+        return fila;
+    }
+}
@@ -7,16 +7,23 @@ import com.frutas.trazabilidad.repository.RefreshTokenRepository;
 import com.frutas.trazabilidad.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.UUID;
 
 /**
  * Servicio para gestión de refresh tokens.
  * Permite renovar access tokens sin re-autenticación completa.
+ * En base de datos solo se guarda el hash SHA-256 del token; el valor en claro
+ * se entrega al cliente una única vez al crearlo.
  */
 @Service
 @RequiredArgsConstructor
@@ -28,26 +35,29 @@ public class RefreshTokenService {
 
     private static final int MAX_ACTIVE_SESSIONS = 5; // Máximo de sesiones simultáneas por usuario
 
+    @Value("${app.refresh-token.limpieza.tamano-lote:500}")
+    private int tamanoLoteLimpieza;
+
+    @Value("${app.refresh-token.limpieza.max-lotes:50}")
+    private int maxLotesLimpieza;
+
     /**
      * Crea un nuevo refresh token para el usuario.
      */
     @Transactional
     public RefreshToken createRefreshToken(User user, String deviceInfo, String ipAddress) {
-        // Limitar sesiones activas
-        long activeTokens = refreshTokenRepository.countActiveTokensByUserId(user.getId(), Instant.now());
-        if (activeTokens >= MAX_ACTIVE_SESSIONS) {
-            // Revocar el token más antiguo
-            refreshTokenRepository.findByUserIdAndRevokedFalse(user.getId()).stream()
-                    .findFirst()
-                    .ifPresent(token -> {
-                        token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                        log.info("Revocado token antiguo para usuario {} por límite de sesiones", user.getEmail());
-                    });
+        // Limitar sesiones activas: una sola sentencia revoca las más antiguas
+        // dejando hueco para la sesión que se crea ahora
+        int revocados = refreshTokenRepository.revokeOldestActiveTokens(
+                user.getId(), Instant.now(), MAX_ACTIVE_SESSIONS - 1);
+        if (revocados > 0) {
+            log.info("Revocados {} tokens antiguos para usuario {} por límite de sesiones",
+                    revocados, user.getEmail());
         }
 
+        String rawToken = UUID.randomUUID().toString();
         RefreshToken refreshToken = RefreshToken.builder()
-                .token(UUID.randomUUID().toString())
+                .tokenHash(hashToken(rawToken))
                 .user(user)
                 .expiryDate(Instant.now().plusMillis(jwtUtil.getRefreshTokenExpirationMs()))
                 .revoked(false)
@@ -56,6 +66,7 @@ public class RefreshTokenService {
                 .build();
 
         refreshToken = refreshTokenRepository.save(refreshToken);
+        refreshToken.setToken(rawToken);
         log.debug("Refresh token creado para usuario: {}", user.getEmail());
 
         return refreshToken;
@@ -66,9 +77,9 @@ public class RefreshTokenService {
      */
     @Transactional(readOnly = true)
     public RefreshToken validateRefreshToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hashToken(token))
                 .orElseThrow(() -> {
-                    log.warn("Refresh token no encontrado: {}", token.substring(0, 8) + "...");
+                    log.warn("Refresh token no encontrado: {}", token.substring(0, Math.min(8, token.length())) + "...");
                     return new UnauthorizedException("Refresh token inválido");
                 });
 
@@ -105,7 +116,7 @@ public class RefreshTokenService {
      */
     @Transactional
     public void revokeToken(String token) {
-        refreshTokenRepository.findByToken(token).ifPresent(refreshToken -> {
+        refreshTokenRepository.findByTokenHash(hashToken(token)).ifPresent(refreshToken -> {
             refreshToken.setRevoked(true);
             refreshTokenRepository.save(refreshToken);
             log.info("Refresh token revocado para usuario: {}", refreshToken.getUser().getEmail());
@@ -122,13 +133,36 @@ public class RefreshTokenService {
     }
 
     /**
-     * Limpia tokens expirados de la base de datos.
-     * Se ejecuta cada hora.
+     * Limpia tokens expirados de la base de datos en lotes pequeños.
+     * Cada lote se borra en su propia transacción corta (ver deleteExpiredTokensBatch),
+     * de modo que la tabla no queda bloqueada durante picos de login.
+     * Se ejecuta cada 5 minutos y procesa como máximo max-lotes por ejecución.
      */
-    @Scheduled(fixedRate = 3600000) // 1 hora
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.refresh-token.limpieza.intervalo-ms:300000}",
+            initialDelayString = "${app.refresh-token.limpieza.intervalo-ms:300000}")
     public void cleanupExpiredTokens() {
-        refreshTokenRepository.deleteExpiredTokens(Instant.now());
-        log.debug("Limpieza de refresh tokens expirados completada");
+        Instant now = Instant.now();
+        int total = 0;
+        int lotes = 0;
+        int eliminados;
+        do {
+            eliminados = refreshTokenRepository.deleteExpiredTokensBatch(now, tamanoLoteLimpieza);
+            total += eliminados;
+            lotes++;
+        } while (eliminados == tamanoLoteLimpieza && lotes < maxLotesLimpieza);
+
+        log.debug("Limpieza de refresh tokens expirados completada: {} eliminados en {} lotes", total, lotes);
+    }
+
+    /**
+     * Calcula el hash SHA-256 (hex) con el que se persiste y busca un refresh token.
+     */
+    static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo SHA-256 no disponible", e);
+        }
     }
 }
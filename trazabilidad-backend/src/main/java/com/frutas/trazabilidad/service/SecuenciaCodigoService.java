@@ -0,0 +1,125 @@
+package com.frutas.trazabilidad.service;
+
+import com.frutas.trazabilidad.repository.SecuenciaCodigoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asigna códigos correlativos por empresa y tipo, con el formato
+ * {PREFIJO}-{empresaId}-{año}-{número} (p.ej. ETQ-3-2025-00001).
+ * Los números se reservan en la BD por bloques de app.secuencias-codigo.tamano-bloque
+ * y se reparten desde memoria, así que la mayoría de las altas no hacen ninguna
+ * consulta previa. Cada reserva corre en su propia transacción: el contador no
+ * queda bloqueado mientras dura la transacción del llamador, y si ésta hace
+ * rollback los números no se reutilizan (puede haber huecos, nunca duplicados).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SecuenciaCodigoService {
+
+    private static final int ANCHO_MINIMO_NUMERO = 5;
+
+    private final SecuenciaCodigoRepository secuenciaCodigoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.secuencias-codigo.tamano-bloque:20}")
+    private int tamanoBloque;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<String, Bloque> bloques = new ConcurrentHashMap<>();
+
+    public enum TipoCodigo {
+        RECEPCION("REC"),
+        CLASIFICACION("CLAS"),
+        CONTROL_CALIDAD("CC"),
+        ETIQUETA("ETQ");
+
+        private final String prefijo;
+
+        TipoCodigo(String prefijo) {
+            this.prefijo = prefijo;
+        }
+
+        public String getPrefijo() {
+            return prefijo;
+        }
+    }
+
+    /**
+     * Rango de números ya reservado en la BD y pendiente de repartir.
+     */
+    private static final class Bloque {
+        private long siguiente = 1;
+        private long limite = 0;
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Siguiente código de la serie del año en curso para la empresa.
+     */
+    public String siguienteCodigo(Long empresaId, TipoCodigo tipo) {
+        String serie = serie(empresaId, tipo);
+        Bloque bloque = bloques.computeIfAbsent(serie, s -> new Bloque());
+        long numero;
+        synchronized (bloque) {
+            if (bloque.siguiente > bloque.limite) {
+                long ultimo = reservar(empresaId, serie, tamanoBloque);
+                bloque.siguiente = ultimo - tamanoBloque + 1;
+                bloque.limite = ultimo;
+            }
+            numero = bloque.siguiente++;
+        }
+        return formatear(serie, numero);
+    }
+
+    /**
+     * Reserva {@code cantidad} códigos contiguos de la serie con una sola operación
+     * en la BD (altas masivas). No consume el bloque en memoria.
+     */
+    public List<String> reservarCodigos(Long empresaId, TipoCodigo tipo, int cantidad) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad de códigos debe ser al menos 1");
+        }
+        String serie = serie(empresaId, tipo);
+        long ultimo = reservar(empresaId, serie, cantidad);
+
+        List<String> codigos = new ArrayList<>(cantidad);
+        for (long numero = ultimo - cantidad + 1; numero <= ultimo; numero++) {
+            codigos.add(formatear(serie, numero));
+        }
+        return codigos;
+    }
+
+    private long reservar(Long empresaId, String serie, int cantidad) {
+        Long ultimo = transactionTemplate.execute(status -> secuenciaCodigoRepository.reservar(empresaId, serie, cantidad));
+        log.debug("Reservados {} números de la serie {} (hasta {})", cantidad, serie, ultimo);
+        return ultimo;
+    }
+
+    private static String serie(Long empresaId, TipoCodigo tipo) {
+        return tipo.getPrefijo() + "-" + empresaId + "-" + Year.now().getValue();
+    }
+
+    private static String formatear(String serie, long numero) {
+        return serie + "-" + String.format("%0" + ANCHO_MINIMO_NUMERO + "d", numero);
+    }
+}
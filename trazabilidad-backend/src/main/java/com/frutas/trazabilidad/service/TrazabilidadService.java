@@ -1,5 +1,6 @@
 package com.frutas.trazabilidad.service;
 
+import com.frutas.trazabilidad.config.MetricsConfig;
 import com.frutas.trazabilidad.dto.TrazabilidadCompletaDTO;
 import com.frutas.trazabilidad.dto.TrazabilidadPublicaDTO;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
@@ -10,13 +11,18 @@ import com.frutas.trazabilidad.module.empaque.repository.EtiquetaPalletRepositor
 import com.frutas.trazabilidad.module.logistica.entity.DocumentoExportacion;
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
 import com.frutas.trazabilidad.module.logistica.entity.EventoLogistico;
+import com.frutas.trazabilidad.module.logistica.entity.ResolucionTelemetria;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository;
 import com.frutas.trazabilidad.module.produccion.entity.*;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.MeterTag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -31,12 +37,15 @@ public class TrazabilidadService {
     private final EtiquetaRepository etiquetaRepository;
     private final ControlCalidadRepository controlCalidadRepository;
     private final EtiquetaPalletRepository etiquetaPalletRepository;
+    private final TelemetriaRepository telemetriaRepository;
 
     /**
      * Obtiene la trazabilidad pública completa a partir del código QR.
      * Filtra datos sensibles y construye el árbol completo.
      */
     @Transactional(readOnly = true)
+    @Timed(value = "trazabilidad.consulta", extraTags = {"tipo", "publica", "empresa", MetricsConfig.SIN_EMPRESA},
+            histogram = true)
     public TrazabilidadPublicaDTO obtenerTrazabilidadPublica(String codigoQr) {
         log.info("Consultando trazabilidad pública para código QR: {}", codigoQr);
 
@@ -151,9 +160,24 @@ public class TrazabilidadService {
                 .fechaSalidaEstimada(envio.getFechaSalidaEstimada())
                 .tipoTransporte(envio.getTipoTransporte())
                 .eventos(eventos)
+                .cadenaFrio(resumirCadenaFrio(envio.getId())
+                        .map(r -> TrazabilidadPublicaDTO.CadenaFrioPublica.builder()
+                                .temperaturaMin(r.temperaturaMin())
+                                .temperaturaMax(r.temperaturaMax())
+                                .temperaturaPromedio(r.temperaturaPromedio())
+                                .build())
+                        .orElse(null))
                 .build();
     }
 
+    /**
+     * Resumen de cadena de frío a partir de las ventanas horarias de telemetría
+     * (no se cargan lecturas individuales en la trazabilidad).
+     */
+    private Optional<TelemetriaRepository.ResumenTelemetria> resumirCadenaFrio(Long envioId) {
+        return telemetriaRepository.findResumen(envioId, ResolucionTelemetria.HORA.getMinutos());
+    }
+
     private TrazabilidadPublicaDTO.EventoLogisticoPublico convertirEventoAPublico(EventoLogistico evento) {
         return TrazabilidadPublicaDTO.EventoLogisticoPublico.builder()
                 .tipoEvento(evento.getTipoEvento())
@@ -179,7 +203,8 @@ public class TrazabilidadService {
      * Obtiene la trazabilidad completa INTERNA con todos los datos (solo usuarios autenticados).
      */
     @Transactional(readOnly = true)
-    public TrazabilidadCompletaDTO obtenerTrazabilidadCompleta(Long etiquetaId, Long empresaId) {
+    @Timed(value = "trazabilidad.consulta", extraTags = {"tipo", "completa"}, histogram = true)
+    public TrazabilidadCompletaDTO obtenerTrazabilidadCompleta(Long etiquetaId, @MeterTag(key = "empresa") Long empresaId) {
         log.info("Consultando trazabilidad completa interna para etiqueta ID: {}", etiquetaId);
 
         // Buscar etiqueta y validar pertenencia a empresa
@@ -386,6 +411,19 @@ public class TrazabilidadService {
                 .incoterm(envio.getIncoterm())
                 .eventos(eventos)
                 .documentos(documentos)
+                .cadenaFrio(resumirCadenaFrio(envio.getId())
+                        .map(r -> TrazabilidadCompletaDTO.CadenaFrioInfo.builder()
+                                .lecturas(r.muestras())
+                                .desde(r.primeraVentana())
+                                .hasta(r.ultimaVentana().plus(ResolucionTelemetria.HORA.getDuracion()))
+                                .temperaturaMin(r.temperaturaMin())
+                                .temperaturaMax(r.temperaturaMax())
+                                .temperaturaPromedio(r.temperaturaPromedio())
+                                .humedadMin(r.humedadMin())
+                                .humedadMax(r.humedadMax())
+                                .humedadPromedio(r.humedadPromedio())
+                                .build())
+                        .orElse(null))
                 .cerrado(envio.estaCerrado())
                 .hashCierre(envio.getHashCierre())
                 .fechaCierre(envio.getFechaCierre())
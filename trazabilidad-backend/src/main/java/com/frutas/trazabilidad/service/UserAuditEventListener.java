@@ -3,7 +3,6 @@ package com.frutas.trazabilidad.service;
 import com.frutas.trazabilidad.module.logistica.service.AuditoriaEventoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
@@ -12,6 +11,10 @@ import org.springframework.transaction.event.TransactionalEventListener;
  * Listener para eventos de auditoría de usuarios.
  * Se ejecuta DESPUÉS de que la transacción principal se complete exitosamente,
  * evitando ConcurrentModificationException en JPA.
+ * El listener solo despacha: el registro se ejecuta en los métodos *Async de
+ * AuditoriaEventoService sobre el executor acotado "auditoriaExecutor". No se marca
+ * como @Async para no ocupar dos slots del executor por evento (con el límite de
+ * concurrencia de hilos virtuales podría bloquearse esperando su propio slot).
  */
 @Component
 @RequiredArgsConstructor
@@ -20,7 +23,6 @@ public class UserAuditEventListener {
 
     private final AuditoriaEventoService auditoriaService;
 
-    @Async
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleUserAuditEvent(UserService.UserAuditEvent event) {
         try {
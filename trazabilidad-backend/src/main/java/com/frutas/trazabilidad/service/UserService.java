@@ -9,11 +9,15 @@ import com.frutas.trazabilidad.exception.ResourceNotFoundException;
 import com.frutas.trazabilidad.mapper.UserMapper;
 import com.frutas.trazabilidad.module.logistica.service.AuditoriaEventoService;
 import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.repository.Especificaciones;
 import com.frutas.trazabilidad.repository.RefreshTokenRepository;
 import com.frutas.trazabilidad.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -39,21 +43,18 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final AuditoriaEventoService auditoriaService;
     private final ApplicationEventPublisher eventPublisher;
+    private final ListadoService listadoService;
 
     @Transactional(readOnly = true)
-    public List<UserResponse> listarPorEmpresa(Long empresaId) {
+    public Page<?> listarPorEmpresa(Long empresaId, Pageable pageable, String campos) {
         log.info("Listando usuarios de empresa ID: {}", empresaId);
-        return userRepository.findByEmpresaIdAndActivoTrue(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.activosDeEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
-    public List<UserResponse> listarTodosPorEmpresa(Long empresaId) {
+    public Page<?> listarTodosPorEmpresa(Long empresaId, Pageable pageable, String campos) {
         log.info("Listando todos los usuarios (activos e inactivos) de empresa ID: {}", empresaId);
-        return userRepository.findByEmpresaId(empresaId).stream()
-                .map(mapper::toResponse)
-                .collect(Collectors.toList());
+        return listar(Especificaciones.deEmpresa(empresaId), pageable, campos);
     }
 
     @Transactional(readOnly = true)
@@ -191,6 +192,11 @@ public class UserService {
         ).collect(Collectors.toList());
     }
 
+    private Page<?> listar(Specification<User> filtro, Pageable pageable, String campos) {
+        return listadoService.listar(userRepository, User.class, filtro, pageable, campos,
+                UserResponse.class, mapper::toResponse);
+    }
+
     private void validarPertenenciaEmpresa(User user, Long empresaId) {
         if (!user.getEmpresa().getId().equals(empresaId)) {
             throw new IllegalArgumentException("El usuario no pertenece a la empresa del administrador");
@@ -0,0 +1,48 @@
+-- =============================================================================
+-- V10__telemetria_envio.sql
+-- Telemetría de contenedores (temperatura / humedad) fuera de eventos_logisticos:
+--   - telemetria_envio: lecturas crudas, solo inserción, columnas primitivas.
+--     La PK (envio_id, registrado_en) deduplica los reenvíos de lecturas.
+--   - telemetria_envio_agregado: ventanas de 1, 15 y 60 minutos con conteo,
+--     mínimo, máximo y suma (el promedio se deriva), acumuladas en la ingesta.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Lecturas crudas
+CREATE TABLE IF NOT EXISTS telemetria_envio (
+    envio_id BIGINT NOT NULL,
+    registrado_en TIMESTAMP NOT NULL,
+    empresa_id BIGINT NOT NULL,
+    temperatura REAL,
+    humedad REAL,
+    latitud DOUBLE PRECISION,
+    longitud DOUBLE PRECISION,
+    CONSTRAINT pk_telemetria_envio PRIMARY KEY (envio_id, registrado_en),
+    CONSTRAINT fk_telemetria_envio_envio FOREIGN KEY (envio_id) REFERENCES envios(id),
+    CONSTRAINT fk_telemetria_envio_empresa FOREIGN KEY (empresa_id) REFERENCES empresas(id)
+);
+
+-- 2. Ventanas agregadas (resolucion_minutos: 1, 15 o 60)
+CREATE TABLE IF NOT EXISTS telemetria_envio_agregado (
+    envio_id BIGINT NOT NULL,
+    resolucion_minutos SMALLINT NOT NULL,
+    inicio_ventana TIMESTAMP NOT NULL,
+    empresa_id BIGINT NOT NULL,
+    muestras INTEGER NOT NULL,
+    temperatura_muestras INTEGER NOT NULL DEFAULT 0,
+    temperatura_min REAL,
+    temperatura_max REAL,
+    temperatura_suma DOUBLE PRECISION NOT NULL DEFAULT 0,
+    humedad_muestras INTEGER NOT NULL DEFAULT 0,
+    humedad_min REAL,
+    humedad_max REAL,
+    humedad_suma DOUBLE PRECISION NOT NULL DEFAULT 0,
+    CONSTRAINT pk_telemetria_envio_agregado PRIMARY KEY (envio_id, resolucion_minutos, inicio_ventana),
+    CONSTRAINT fk_telemetria_agregado_envio FOREIGN KEY (envio_id) REFERENCES envios(id),
+    CONSTRAINT fk_telemetria_agregado_empresa FOREIGN KEY (empresa_id) REFERENCES empresas(id)
+);
+
+-- 3. Índices para la limpieza por antigüedad (TelemetriaService)
+CREATE INDEX IF NOT EXISTS idx_telemetria_registrado ON telemetria_envio(registrado_en);
+CREATE INDEX IF NOT EXISTS idx_telemetria_agregado_resolucion_inicio
+    ON telemetria_envio_agregado(resolucion_minutos, inicio_ventana);
@@ -0,0 +1,32 @@
+-- =============================================================================
+-- V11__indices_geoespaciales.sql
+-- Índices espaciales para búsquedas por radio sobre fincas y eventos logísticos
+-- (fincas cercanas a un reporte de contaminación, envíos que pasaron cerca de
+-- un puerto en las últimas horas).
+-- Se usa el tipo point nativo de PostgreSQL con índices GiST de expresión sobre
+-- point(longitud, latitud): no requiere PostGIS ni columnas nuevas.
+-- Las consultas filtran primero por la caja que contiene el círculo (usa el
+-- índice) y después por la distancia exacta con distancia_km.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Distancia de círculo máximo (haversine) en kilómetros
+CREATE OR REPLACE FUNCTION distancia_km(lat1 DOUBLE PRECISION, lon1 DOUBLE PRECISION,
+                                        lat2 DOUBLE PRECISION, lon2 DOUBLE PRECISION)
+    RETURNS DOUBLE PRECISION
+    LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE AS
+$$
+SELECT 2 * 6371.0088 * asin(least(1.0, sqrt(
+        power(sin(radians(lat2 - lat1) / 2), 2)
+        + cos(radians(lat1)) * cos(radians(lat2)) * power(sin(radians(lon2 - lon1) / 2), 2))))
+$$;
+
+-- 2. Fincas activas por ubicación
+CREATE INDEX IF NOT EXISTS idx_finca_ubicacion_gist
+    ON fincas USING gist (point(longitud, latitud))
+    WHERE activo = true;
+
+-- 3. Eventos logísticos activos por ubicación
+CREATE INDEX IF NOT EXISTS idx_evento_ubicacion_gist
+    ON eventos_logisticos USING gist (point(longitud, latitud))
+    WHERE activo = true;
@@ -0,0 +1,16 @@
+-- =============================================================================
+-- V12__almacen_archivos_documentos.sql
+-- Archivos de documentos de exportación guardados en el almacén propio,
+-- direccionado por SHA-256 (AlmacenArchivosService). hash_archivo identifica el
+-- archivo en disco cuando archivo_almacenado = true.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+ALTER TABLE documentos_exportacion
+    ADD COLUMN IF NOT EXISTS archivo_almacenado BOOLEAN NOT NULL DEFAULT false;
+
+-- Hashes declarados antes de este cambio: se normalizan a minúsculas para
+-- compararlos con el SHA-256 calculado al subir el archivo
+UPDATE documentos_exportacion
+SET hash_archivo = lower(hash_archivo)
+WHERE hash_archivo IS NOT NULL AND hash_archivo <> lower(hash_archivo);
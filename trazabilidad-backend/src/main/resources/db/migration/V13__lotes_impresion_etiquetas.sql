@@ -0,0 +1,13 @@
+-- =============================================================================
+-- V13__lotes_impresion_etiquetas.sql
+-- Generación masiva de etiquetas para impresión (ImpresionEtiquetasService):
+-- cada tanda de etiquetas creada en lote comparte un identificador, usado para
+-- recorrer la tanda por id al generar la hoja de impresión (PDF / ZIP).
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+ALTER TABLE etiquetas ADD COLUMN IF NOT EXISTS lote_impresion VARCHAR(36);
+
+CREATE INDEX IF NOT EXISTS idx_etiqueta_lote_impresion
+    ON etiquetas(lote_impresion, id)
+    WHERE lote_impresion IS NOT NULL;
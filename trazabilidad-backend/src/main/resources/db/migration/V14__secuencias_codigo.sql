@@ -0,0 +1,17 @@
+-- =============================================================================
+-- V14__secuencias_codigo.sql
+-- Contadores de códigos por empresa y serie (SecuenciaCodigoService), p.ej.
+-- la serie "ETQ-3-2025" genera ETQ-3-2025-00001, ETQ-3-2025-00002, ...
+-- Cada reserva es un único INSERT ... ON CONFLICT DO UPDATE ... RETURNING que
+-- avanza el contador en un bloque; la unicidad final la garantizan las
+-- restricciones UNIQUE de cada columna de código.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS secuencias_codigo (
+    empresa_id BIGINT NOT NULL REFERENCES empresas(id) ON DELETE CASCADE,
+    serie VARCHAR(40) NOT NULL,
+    ultimo_valor BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_secuencias_codigo PRIMARY KEY (empresa_id, serie)
+);
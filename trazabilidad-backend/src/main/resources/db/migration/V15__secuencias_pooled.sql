@@ -0,0 +1,19 @@
+-- =============================================================================
+-- V15__secuencias_pooled.sql
+-- Las tablas de alto volumen pasan de IDENTITY a secuencias con optimizador
+-- pooled-lo (hibernate.id.optimizer.pooled.preferred en JpaConfig): cada
+-- nextval reserva un bloque de 50 ids que Hibernate asigna en memoria, lo que
+-- permite agrupar los INSERT en batch (con IDENTITY Hibernate inserta fila a fila).
+-- Se reutiliza la secuencia del BIGSERIAL, por lo que el DEFAULT de la columna
+-- sigue funcionando: una fila insertada por SQL directo consume un bloque
+-- completo, pero nunca coincide con un id asignado por Hibernate.
+-- El incremento debe coincidir con allocationSize de cada @SequenceGenerator.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+ALTER SEQUENCE IF EXISTS etiquetas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS etiquetas_pallets_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS auditoria_eventos_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS eventos_logisticos_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS actividades_agronomicas_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS cosechas_id_seq INCREMENT BY 50;
@@ -0,0 +1,27 @@
+-- =============================================================================
+-- V16__mediciones_control_calidad.sql
+-- Los controles de calidad guardan parámetro y valores como texto libre
+-- ("12,5 °Brix", "0.8%"). Se agregan columnas tipadas para la analítica de
+-- distribuciones por parámetro (ControlCalidadRepository.findDistribucion):
+--   parametro_codigo     parámetro normalizado (mayúsculas, sin espacios extremos)
+--   valor_medido_num     primer número del valor medido (coma o punto decimal)
+--   valor_esperado_num   primer número del valor esperado
+-- La aplicación las mantiene al guardar (ControlCalidad#normalizarMedicion);
+-- aquí se rellenan los registros existentes con la misma regla.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+ALTER TABLE controles_calidad ADD COLUMN IF NOT EXISTS parametro_codigo VARCHAR(200);
+ALTER TABLE controles_calidad ADD COLUMN IF NOT EXISTS valor_medido_num DOUBLE PRECISION;
+ALTER TABLE controles_calidad ADD COLUMN IF NOT EXISTS valor_esperado_num DOUBLE PRECISION;
+
+UPDATE controles_calidad
+SET parametro_codigo = NULLIF(UPPER(TRIM(parametro_evaluado)), ''),
+    valor_medido_num = CAST(REPLACE(SUBSTRING(valor_medido FROM '-?[0-9]+(?:[.,][0-9]+)?'), ',', '.') AS DOUBLE PRECISION),
+    valor_esperado_num = CAST(REPLACE(SUBSTRING(valor_esperado FROM '-?[0-9]+(?:[.,][0-9]+)?'), ',', '.') AS DOUBLE PRECISION)
+WHERE parametro_codigo IS NULL;
+
+-- Solo las mediciones numéricas entran en la analítica
+CREATE INDEX IF NOT EXISTS idx_control_medicion
+    ON controles_calidad(empresa_id, parametro_codigo, fecha_control)
+    WHERE activo = true AND valor_medido_num IS NOT NULL;
@@ -0,0 +1,21 @@
+-- =============================================================================
+-- V17__throughput_empaque.sql
+-- Rollups horarios del rendimiento de la planta de empaque por empresa
+-- (ThroughputEmpaqueService). Los contadores se acumulan en memoria y se
+-- vuelcan periódicamente como deltas (upsert que suma sobre el valor guardado).
+--   metrica: KG_RECIBIDOS, KG_CLASIFICADOS, CAJAS_ETIQUETADAS,
+--            PALLETS_ARMADOS, PALLETS_DESPACHADOS (ver MetricaThroughput)
+--   calidad: solo para KG_CLASIFICADOS; cadena vacía en el resto
+--   valor:   gramos para las métricas de kg, unidades para las demás
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+CREATE TABLE IF NOT EXISTS throughput_empaque_hora (
+    empresa_id BIGINT NOT NULL,
+    hora TIMESTAMP NOT NULL,
+    metrica VARCHAR(30) NOT NULL,
+    calidad VARCHAR(50) NOT NULL DEFAULT '',
+    valor BIGINT NOT NULL,
+    CONSTRAINT pk_throughput_empaque_hora PRIMARY KEY (empresa_id, hora, metrica, calidad),
+    CONSTRAINT fk_throughput_empaque_empresa FOREIGN KEY (empresa_id) REFERENCES empresas(id)
+);
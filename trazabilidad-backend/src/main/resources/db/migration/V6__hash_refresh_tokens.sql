@@ -0,0 +1,58 @@
+-- =============================================================================
+-- V6__hash_refresh_tokens.sql
+-- Los refresh tokens se almacenan como hash SHA-256 (hex) en lugar del valor
+-- en claro. Las sesiones existentes siguen siendo válidas: el cliente envía el
+-- token en claro y el backend compara su hash.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Agregar columna token_hash solo si no existe
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_name = 'refresh_tokens' AND column_name = 'token_hash'
+    ) THEN
+        ALTER TABLE refresh_tokens ADD COLUMN token_hash VARCHAR(64);
+        RAISE NOTICE 'Columna token_hash agregada a refresh_tokens';
+    END IF;
+END $$;
+
+-- 2. Calcular el hash de los tokens existentes y eliminar la columna en claro
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_name = 'refresh_tokens' AND column_name = 'token'
+    ) THEN
+        UPDATE refresh_tokens
+        SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+        WHERE token_hash IS NULL;
+
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+        RAISE NOTICE 'Tokens existentes migrados a hash SHA-256; columna token eliminada';
+    END IF;
+END $$;
+
+-- 3. Hacer la columna NOT NULL (solo si no lo es ya)
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_name = 'refresh_tokens'
+        AND column_name = 'token_hash'
+        AND is_nullable = 'YES'
+    ) THEN
+        ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+        RAISE NOTICE 'Columna token_hash marcada como NOT NULL';
+    END IF;
+END $$;
+
+-- 4. Índices
+-- Búsqueda por hash (validación, rotación, logout)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_refresh_token_hash ON refresh_tokens(token_hash);
+-- Límite de sesiones por usuario: solo tokens no revocados, ordenados por antigüedad
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user_activos
+    ON refresh_tokens(user_id, created_at DESC) WHERE revoked = false;
+-- Limpieza por lotes de tokens expirados
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expiry ON refresh_tokens(expiry_date);
@@ -0,0 +1,151 @@
+-- =============================================================================
+-- V7__add_empresa_id_denormalizado.sql
+-- Desnormaliza empresa_id (como V2 hizo con pallets) en las entidades que
+-- filtraban por tenant a través de cadenas de joins:
+--   lotes, cosechas, recepciones_planta, clasificaciones, etiquetas,
+--   controles_calidad, envios, eventos_logisticos, documentos_exportacion
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Agregar columna empresa_id solo si no existe
+DO $$
+DECLARE
+    tabla TEXT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY['lotes', 'cosechas', 'recepciones_planta', 'clasificaciones',
+                                 'etiquetas', 'controles_calidad', 'envios',
+                                 'eventos_logisticos', 'documentos_exportacion']
+    LOOP
+        IF NOT EXISTS (
+            SELECT 1 FROM information_schema.columns
+            WHERE table_name = tabla AND column_name = 'empresa_id'
+        ) THEN
+            EXECUTE format('ALTER TABLE %I ADD COLUMN empresa_id BIGINT', tabla);
+            RAISE NOTICE 'Columna empresa_id agregada a %', tabla;
+        END IF;
+    END LOOP;
+END $$;
+
+-- 2. Backfill siguiendo la cadena de pertenencia (cada tabla desde su padre directo)
+UPDATE lotes l
+SET empresa_id = f.empresa_id
+FROM fincas f
+WHERE l.finca_id = f.id AND l.empresa_id IS NULL;
+
+UPDATE cosechas c
+SET empresa_id = l.empresa_id
+FROM lotes l
+WHERE c.lote_id = l.id AND c.empresa_id IS NULL;
+
+UPDATE recepciones_planta r
+SET empresa_id = l.empresa_id
+FROM lotes l
+WHERE r.lote_id = l.id AND r.empresa_id IS NULL;
+
+UPDATE clasificaciones c
+SET empresa_id = r.empresa_id
+FROM recepciones_planta r
+WHERE c.recepcion_id = r.id AND c.empresa_id IS NULL;
+
+UPDATE etiquetas e
+SET empresa_id = c.empresa_id
+FROM clasificaciones c
+WHERE e.clasificacion_id = c.id AND e.empresa_id IS NULL;
+
+-- Controles: por clasificación y, si no, por pallet
+UPDATE controles_calidad cc
+SET empresa_id = COALESCE(
+        (SELECT c.empresa_id FROM clasificaciones c WHERE c.id = cc.clasificacion_id),
+        (SELECT p.empresa_id FROM pallets p WHERE p.id = cc.pallet_id)
+    )
+WHERE cc.empresa_id IS NULL;
+
+-- Controles sin clasificación ni pallet: no tienen empresa deducible. En lugar de
+-- asignarlos a un tenant arbitrario se dejan sin empresa, se desactivan y se listan
+DO $$
+DECLARE
+    huerfanos TEXT;
+BEGIN
+    SELECT string_agg(codigo_control, ', ' ORDER BY id) INTO huerfanos
+    FROM controles_calidad
+    WHERE empresa_id IS NULL;
+
+    IF huerfanos IS NOT NULL THEN
+        UPDATE controles_calidad SET activo = false WHERE empresa_id IS NULL;
+        RAISE WARNING 'Controles de calidad sin empresa deducible (desactivados, empresa_id NULL): %', huerfanos;
+    END IF;
+END $$;
+
+UPDATE envios e
+SET empresa_id = u.empresa_id
+FROM usuarios u
+WHERE e.usuario_id = u.id AND e.empresa_id IS NULL;
+
+UPDATE eventos_logisticos ev
+SET empresa_id = e.empresa_id
+FROM envios e
+WHERE ev.envio_id = e.id AND ev.empresa_id IS NULL;
+
+UPDATE documentos_exportacion d
+SET empresa_id = e.empresa_id
+FROM envios e
+WHERE d.envio_id = e.id AND d.empresa_id IS NULL;
+
+-- 3. Hacer la columna NOT NULL y agregar la foreign key (solo si no existen ya).
+--    Una tabla con filas huérfanas conserva la columna nullable hasta que se revisen
+DO $$
+DECLARE
+    tabla TEXT;
+    fk TEXT;
+    sin_empresa BIGINT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY['lotes', 'cosechas', 'recepciones_planta', 'clasificaciones',
+                                 'etiquetas', 'controles_calidad', 'envios',
+                                 'eventos_logisticos', 'documentos_exportacion']
+    LOOP
+        IF EXISTS (
+            SELECT 1 FROM information_schema.columns
+            WHERE table_name = tabla
+            AND column_name = 'empresa_id'
+            AND is_nullable = 'YES'
+        ) THEN
+            EXECUTE format('SELECT COUNT(*) FROM %I WHERE empresa_id IS NULL', tabla) INTO sin_empresa;
+            IF sin_empresa = 0 THEN
+                EXECUTE format('ALTER TABLE %I ALTER COLUMN empresa_id SET NOT NULL', tabla);
+                RAISE NOTICE 'Columna empresa_id de % marcada como NOT NULL', tabla;
+            ELSE
+                RAISE WARNING 'Columna empresa_id de % queda nullable: % fila(s) sin empresa', tabla, sin_empresa;
+            END IF;
+        END IF;
+
+        fk := 'fk_' || tabla || '_empresa';
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = fk) THEN
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I FOREIGN KEY (empresa_id) REFERENCES empresas(id)',
+                           tabla, fk);
+            RAISE NOTICE 'FK % agregada', fk;
+        END IF;
+    END LOOP;
+END $$;
+
+-- 4. Índices compuestos (empresa_id, activo, ...) para listados y filtros por tenant
+CREATE INDEX IF NOT EXISTS idx_lote_empresa_activo ON lotes(empresa_id, activo);
+CREATE INDEX IF NOT EXISTS idx_lote_empresa_tipo_fruta ON lotes(empresa_id, tipo_fruta);
+
+CREATE INDEX IF NOT EXISTS idx_cosecha_empresa_activo_fecha ON cosechas(empresa_id, activo, fecha_cosecha DESC);
+
+CREATE INDEX IF NOT EXISTS idx_recepcion_empresa_activo_fecha ON recepciones_planta(empresa_id, activo, fecha_recepcion DESC);
+CREATE INDEX IF NOT EXISTS idx_recepcion_empresa_estado ON recepciones_planta(empresa_id, estado_recepcion);
+
+CREATE INDEX IF NOT EXISTS idx_clasificacion_empresa_activo_fecha ON clasificaciones(empresa_id, activo, fecha_clasificacion DESC);
+
+CREATE INDEX IF NOT EXISTS idx_etiqueta_empresa_activo_created ON etiquetas(empresa_id, activo, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_etiqueta_empresa_estado ON etiquetas(empresa_id, estado_etiqueta);
+
+CREATE INDEX IF NOT EXISTS idx_control_empresa_activo_fecha ON controles_calidad(empresa_id, activo, fecha_control DESC);
+
+CREATE INDEX IF NOT EXISTS idx_envio_empresa_activo_created ON envios(empresa_id, activo, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_envio_empresa_estado ON envios(empresa_id, estado);
+
+CREATE INDEX IF NOT EXISTS idx_evento_empresa_activo_fecha ON eventos_logisticos(empresa_id, activo, fecha_evento DESC);
+
+CREATE INDEX IF NOT EXISTS idx_documento_empresa_activo_vencimiento ON documentos_exportacion(empresa_id, activo, fecha_vencimiento);
@@ -0,0 +1,41 @@
+-- =============================================================================
+-- V8__optimistic_locking_idempotencia.sql
+-- 1. Columna version (bloqueo optimista @Version) en envios, pallets y etiquetas.
+-- 2. Tabla idempotency_keys para las transiciones de estado de envíos con
+--    header Idempotency-Key.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Columna version solo si no existe (filas existentes parten de 0)
+DO $$
+DECLARE
+    tabla TEXT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY['envios', 'pallets', 'etiquetas']
+    LOOP
+        IF NOT EXISTS (
+            SELECT 1 FROM information_schema.columns
+            WHERE table_name = tabla AND column_name = 'version'
+        ) THEN
+            EXECUTE format('ALTER TABLE %I ADD COLUMN version BIGINT NOT NULL DEFAULT 0', tabla);
+            RAISE NOTICE 'Columna version agregada a %', tabla;
+        END IF;
+    END LOOP;
+END $$;
+
+-- 2. Claves de idempotencia (una por empresa y clave enviada por el cliente)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    clave VARCHAR(100) NOT NULL,
+    operacion VARCHAR(50) NOT NULL,
+    recurso_id BIGINT NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    respuesta TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_idempotency_empresa_clave UNIQUE (empresa_id, clave),
+    CONSTRAINT fk_idempotency_empresa FOREIGN KEY (empresa_id) REFERENCES empresas(id)
+);
+
+-- Limpieza por antigüedad
+CREATE INDEX IF NOT EXISTS idx_idempotency_created ON idempotency_keys(created_at);
@@ -0,0 +1,14 @@
+-- =============================================================================
+-- V9__ingesta_lecturas_contenedor.sql
+-- Soporte para la ingesta masiva de lecturas de sensores (transportistas / IoT)
+-- (EventoIngestaService):
+--   - Resolución de envíos por código de contenedor en cada lote.
+-- Las lecturas se almacenan en telemetria_envio (V10), cuya PK deduplica los
+-- reenvíos con INSERT ... ON CONFLICT DO NOTHING.
+-- Esta migración es IDEMPOTENTE - puede ejecutarse en BD nuevas o existentes
+-- =============================================================================
+
+-- 1. Búsqueda de envíos por contenedor dentro de la empresa
+CREATE INDEX IF NOT EXISTS idx_envio_empresa_contenedor
+    ON envios(empresa_id, codigo_contenedor)
+    WHERE activo = true;
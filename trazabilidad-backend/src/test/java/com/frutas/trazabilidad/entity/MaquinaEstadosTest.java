@@ -0,0 +1,133 @@
+package com.frutas.trazabilidad.entity;
+
+import com.frutas.trazabilidad.module.empaque.entity.EstadoPallet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static com.frutas.trazabilidad.module.empaque.entity.EstadoPallet.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for MaquinaEstados.
+ * Uses the pallet lifecycle (EstadoPallet.TRANSICIONES) as the transition table.
+ */
+class MaquinaEstadosTest {
+
+    private final MaquinaEstados<EstadoPallet> maquina = EstadoPallet.TRANSICIONES;
+
+    @Nested
+    @DisplayName("Transition Tests")
+    class TransitionTests {
+
+        @Test
+        @DisplayName("Should allow declared transitions only")
+        void permite_shouldFollowDeclaredTable() {
+            assertThat(maquina.permite(ARMADO, EN_CAMARA)).isTrue();
+            assertThat(maquina.permite(EN_CAMARA, ASIGNADO_ENVIO)).isTrue();
+            assertThat(maquina.permite(DESPACHADO, ENTREGADO)).isTrue();
+
+            assertThat(maquina.permite(ARMADO, DESPACHADO)).isFalse();
+            assertThat(maquina.permite(ENTREGADO, ARMADO)).isFalse();
+            assertThat(maquina.permite(ARMADO, ARMADO)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should throw IllegalStateException listing allowed targets")
+        void validar_withForbiddenTransition_shouldThrow() {
+            assertThatThrownBy(() -> maquina.validar(ARMADO, ENTREGADO))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("ARMADO → ENTREGADO")
+                    .hasMessageContaining("EN_CAMARA");
+        }
+
+        @Test
+        @DisplayName("Should accept allowed transitions without throwing")
+        void validar_withAllowedTransition_shouldPass() {
+            maquina.validar(ASIGNADO_ENVIO, DESPACHADO);
+        }
+
+        @Test
+        @DisplayName("Should build the inverse table of origins")
+        void origenesPermitidos_shouldBeInverseOfDestinos() {
+            assertThat(maquina.origenesPermitidos(ASIGNADO_ENVIO)).containsExactlyInAnyOrder(ARMADO, EN_CAMARA);
+            assertThat(maquina.origenesPermitidos(RECHAZADO)).containsExactlyInAnyOrder(ARMADO, EN_CAMARA, DESPACHADO);
+            assertThat(maquina.origenesPermitidos(ARMADO)).containsExactlyInAnyOrder(EN_CAMARA, ASIGNADO_ENVIO);
+
+            for (EstadoPallet origen : EstadoPallet.values()) {
+                for (EstadoPallet destino : maquina.destinosPermitidos(origen)) {
+                    assertThat(maquina.origenesPermitidos(destino)).contains(origen);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should mark states without outgoing transitions as terminal")
+        void esTerminal_shouldDetectStatesWithoutTargets() {
+            assertThat(maquina.esTerminal(ENTREGADO)).isTrue();
+            assertThat(maquina.esTerminal(RECHAZADO)).isTrue();
+            assertThat(maquina.esTerminal(ARMADO)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should derive pallets ready for shipment from the table")
+        void asignablesAEnvio_shouldMatchOriginsOfAsignadoEnvio() {
+            assertThat(EstadoPallet.ASIGNABLES_A_ENVIO).containsExactlyInAnyOrder("ARMADO", "EN_CAMARA");
+        }
+    }
+
+    @Nested
+    @DisplayName("Parse Tests")
+    class ParseTests {
+
+        @Test
+        @DisplayName("Should parse stored values to the enum")
+        void parsear_withValidValue_shouldReturnState() {
+            assertThat(maquina.parsear("EN_CAMARA")).isEqualTo(EN_CAMARA);
+        }
+
+        @Test
+        @DisplayName("Should reject unknown or null values with IllegalArgumentException")
+        void parsear_withInvalidValue_shouldThrow() {
+            assertThatThrownBy(() -> maquina.parsear("en_camara"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Valores permitidos");
+            assertThatThrownBy(() -> maquina.parsear(null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Builder Tests")
+    class BuilderTests {
+
+        enum Grande {
+            E00, E01, E02, E03, E04, E05, E06, E07, E08, E09, E10, E11, E12, E13, E14, E15,
+            E16, E17, E18, E19, E20, E21, E22, E23, E24, E25, E26, E27, E28, E29, E30, E31,
+            E32, E33, E34, E35, E36, E37, E38, E39, E40, E41, E42, E43, E44, E45, E46, E47,
+            E48, E49, E50, E51, E52, E53, E54, E55, E56, E57, E58, E59, E60, E61, E62, E63, E64
+        }
+
+        @Test
+        @DisplayName("Should reject enums with more than 64 states")
+        void para_withMoreThan64States_shouldThrow() {
+            assertThatThrownBy(() -> MaquinaEstados.para(Grande.class))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should not share state with the builder after build")
+        void build_shouldCopyTable() {
+            MaquinaEstados.Builder<EstadoPallet> builder = MaquinaEstados.para(EstadoPallet.class)
+                    .permitir(ARMADO, EN_CAMARA);
+            MaquinaEstados<EstadoPallet> construida = builder.build();
+            builder.permitir(ARMADO, RECHAZADO);
+
+            assertThat(construida.permite(ARMADO, RECHAZADO)).isFalse();
+            assertThat(construida.destinosPermitidos(EN_CAMARA)).isEqualTo(Collections.emptySet());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.frutas.trazabilidad.module.empaque.repository;
+
+import com.frutas.trazabilidad.entity.Empresa;
+import com.frutas.trazabilidad.module.empaque.entity.Clasificacion;
+import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
+import com.frutas.trazabilidad.module.empaque.entity.EtiquetaPallet;
+import com.frutas.trazabilidad.module.empaque.entity.Pallet;
+import com.frutas.trazabilidad.module.empaque.entity.RecepcionPlanta;
+import com.frutas.trazabilidad.module.produccion.entity.Finca;
+import com.frutas.trazabilidad.module.produccion.entity.Lote;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput benchmark for bulk label creation and pallet assembly
+ * (etiquetas + etiquetas_pallets), with JDBC batching disabled (batch size 1,
+ * the behaviour under IDENTITY ids) and enabled (pooled-lo sequences, V15).
+ *
+ * Needs a real PostgreSQL with the Flyway migrations, so it only runs when
+ * benchmark.datasource.url is set:
+ * <pre>
+ * mvn test -Dtest=InsercionMasivaBenchmarkTest \
+ *     -Dbenchmark.datasource.url=jdbc:postgresql://localhost:5432/trazabilidad_db \
+ *     -Dbenchmark.datasource.username=tfm_user -Dbenchmark.datasource.password=tfm_password
+ * </pre>
+ * Every round runs in a transaction that is rolled back, so no data is left behind
+ * (only the sequences advance).
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark.datasource.url", matches = ".+")
+class InsercionMasivaBenchmarkTest {
+
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${benchmark.etiquetas:5000}")
+    private int labelCount;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.datasource.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.datasource.username", "tfm_user"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.datasource.password", "tfm_password"));
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Test
+    void bulkLabelAndPalletInsertThroughput() {
+        // Warm-up round (JIT, pool connections, prepared statements)
+        measure(batchSize);
+
+        double unbatched = median(1);
+        double batched = median(batchSize);
+
+        System.out.printf("%n=== Bulk insert: %d labels + %d pallet assignments ===%n",
+                labelCount, labelCount);
+        System.out.printf("batch_size=1   : %,10.0f rows/s%n", unbatched);
+        System.out.printf("batch_size=%-4d: %,10.0f rows/s  (x%.1f)%n", batchSize, batched, batched / unbatched);
+
+        assertThat(batched).isGreaterThan(unbatched);
+    }
+
+    private double median(int jdbcBatchSize) {
+        double[] results = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            results[i] = measure(jdbcBatchSize);
+        }
+        Arrays.sort(results);
+        return results[ROUNDS / 2];
+    }
+
+    /**
+     * Creates a batch of labels and assigns them to a pallet; returns inserted rows per second.
+     */
+    private double measure(int jdbcBatchSize) {
+        Double rowsPerSecond = transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            Clasificacion clasificacion = createClasificacion();
+            Pallet pallet = createPallet(clasificacion.getEmpresa());
+            entityManager.flush();
+            entityManager.clear();
+
+            session.setJdbcBatchSize(jdbcBatchSize);
+            Clasificacion clasificacionReference = entityManager.getReference(Clasificacion.class, clasificacion.getId());
+            Empresa empresa = entityManager.getReference(Empresa.class, clasificacion.getEmpresa().getId());
+            Pallet palletReference = entityManager.getReference(Pallet.class, pallet.getId());
+
+            long start = System.nanoTime();
+            List<Etiqueta> etiquetas = new ArrayList<>(labelCount);
+            for (int i = 0; i < labelCount; i++) {
+                Etiqueta etiqueta = Etiqueta.builder()
+                        .clasificacion(clasificacionReference)
+                        .empresa(empresa)
+                        .codigoEtiqueta("BENCH-" + UUID.randomUUID().toString().substring(0, 18))
+                        .tipoEtiqueta("CAJA")
+                        .pesoNeto(18.0)
+                        .build();
+                entityManager.persist(etiqueta);
+                etiquetas.add(etiqueta);
+            }
+            for (Etiqueta etiqueta : etiquetas) {
+                entityManager.persist(EtiquetaPallet.builder().etiqueta(etiqueta).pallet(palletReference).build());
+            }
+            entityManager.flush();
+            long nanos = System.nanoTime() - start;
+
+            status.setRollbackOnly();
+            return 2.0 * labelCount / (nanos / 1e9);
+        });
+        return rowsPerSecond != null ? rowsPerSecond : 0;
+    }
+
+    private Clasificacion createClasificacion() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Empresa empresa = Empresa.builder()
+                .nit("BENCH-" + suffix)
+                .razonSocial("Benchmark " + suffix)
+                .build();
+        entityManager.persist(empresa);
+
+        Finca finca = Finca.builder().empresa(empresa).codigoFinca("F-" + suffix).nombre("Finca benchmark").build();
+        entityManager.persist(finca);
+
+        Lote lote = Lote.builder().finca(finca).empresa(empresa).codigoLote("L-" + suffix)
+                .nombre("Lote benchmark").tipoFruta("Mango").build();
+        entityManager.persist(lote);
+
+        RecepcionPlanta recepcion = RecepcionPlanta.builder().lote(lote).empresa(empresa)
+                .codigoRecepcion("REC-" + suffix).fechaRecepcion(LocalDate.now())
+                .cantidadRecibida(1000.0).unidadMedida("kg").build();
+        entityManager.persist(recepcion);
+
+        Clasificacion clasificacion = Clasificacion.builder().recepcion(recepcion).empresa(empresa)
+                .codigoClasificacion("CLAS-" + suffix).fechaClasificacion(LocalDate.now())
+                .calidad("PREMIUM").cantidadClasificada(1000.0).unidadMedida("kg").build();
+        entityManager.persist(clasificacion);
+        return clasificacion;
+    }
+
+    private Pallet createPallet(Empresa empresa) {
+        Pallet pallet = Pallet.builder()
+                .codigoPallet("PLT-BENCH-" + UUID.randomUUID().toString().substring(0, 8))
+                .empresa(empresa)
+                .fechaPaletizado(LocalDate.now())
+                .numeroCajas(labelCount)
+                .build();
+        entityManager.persist(pallet);
+        return pallet;
+    }
+}
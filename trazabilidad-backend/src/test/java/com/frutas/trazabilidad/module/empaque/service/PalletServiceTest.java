@@ -1,16 +1,21 @@
 package com.frutas.trazabilidad.module.empaque.service;
 
 import com.frutas.trazabilidad.entity.Empresa;
+import com.frutas.trazabilidad.exception.ConflictException;
 import com.frutas.trazabilidad.exception.ResourceNotFoundException;
 import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
 import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.entity.EstadoPallet;
 import com.frutas.trazabilidad.module.empaque.entity.Etiqueta;
 import com.frutas.trazabilidad.module.empaque.entity.EtiquetaPallet;
 import com.frutas.trazabilidad.module.empaque.entity.Pallet;
 import com.frutas.trazabilidad.module.empaque.mapper.PalletMapper;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaPalletRepository;
 import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
 import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
+import com.frutas.trazabilidad.module.logistica.entity.Envio;
 import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.service.ListadoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,7 +24,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -53,10 +65,20 @@ class PalletServiceTest {
     @Mock
     private PalletMapper mapper;
 
+    @Mock
+    private EtiquetaPalletRepository etiquetaPalletRepository;
+
+    @Mock
+    private ThroughputEmpaqueService throughputService;
+
+    @Spy
+    private ListadoService listadoService = new ListadoService();
+
     @InjectMocks
     private PalletService palletService;
 
     private static final Long EMPRESA_ID = 1L;
+    private static final Pageable PAGINA = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "fechaPaletizado"));
 
     private Empresa testEmpresa;
     private Pallet testPallet;
@@ -118,84 +140,162 @@ class PalletServiceTest {
     @DisplayName("List Pallets Tests")
     class ListPalletsTests {
 
+        private final PalletRepository.ResumenPallet resumen = mock(PalletRepository.ResumenPallet.class);
+
         @Test
         @DisplayName("Should list all active pallets for empresa")
         void listarPorEmpresa_shouldReturnActivePallets() {
             // Given
-            when(palletRepository.findByEmpresaIdAndActivoTrueOrderByFechaPaletizadoDesc(EMPRESA_ID))
-                    .thenReturn(Arrays.asList(testPallet));
-            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+            when(palletRepository.findResumenByEmpresaId(eq(EMPRESA_ID), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(resumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
 
             // When
-            List<PalletResponse> result = palletService.listarPorEmpresa(EMPRESA_ID);
+            Page<?> result = palletService.listarPorEmpresa(EMPRESA_ID, PAGINA, null, false);
 
             // Then
-            assertThat(result).hasSize(1);
-            verify(palletRepository).findByEmpresaIdAndActivoTrueOrderByFechaPaletizadoDesc(EMPRESA_ID);
+            assertThat(result.getContent()).singleElement().isSameAs(palletResponse);
+            verify(palletRepository).findResumenByEmpresaId(eq(EMPRESA_ID), any(Pageable.class));
+            verify(palletRepository, never()).findByEmpresaIdAndActivoTrueOrderByFechaPaletizadoDesc(any());
+            verifyNoInteractions(etiquetaPalletRepository);
+        }
+
+        @Test
+        @DisplayName("Should load label codes of all listed pallets with one query when requested")
+        void listarPorEmpresa_withLabels_shouldLoadCodesInOneQuery() {
+            // Given
+            PalletResponse otherResponse = PalletResponse.builder().id(2L).codigoPallet("PAL-2024-002").build();
+            PalletRepository.ResumenPallet otherResumen = mock(PalletRepository.ResumenPallet.class);
+            when(palletRepository.findResumenByEmpresaId(eq(EMPRESA_ID), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(resumen, otherResumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
+            when(mapper.toResponse(otherResumen)).thenReturn(otherResponse);
+            when(etiquetaPalletRepository.findCodigosByPalletIds(List.of(1L, 2L))).thenReturn(List.of(
+                    codigo(1L, "ETQ-001"), codigo(1L, "ETQ-002")));
+
+            // When
+            palletService.listarPorEmpresa(EMPRESA_ID, PAGINA, null, true);
+
+            // Then
+            assertThat(palletResponse.getEtiquetasCodigos()).containsExactly("ETQ-001", "ETQ-002");
+            assertThat(palletResponse.getTotalEtiquetas()).isEqualTo(2);
+            assertThat(otherResponse.getEtiquetasCodigos()).isEmpty();
+            verify(etiquetaPalletRepository, times(1)).findCodigosByPalletIds(any());
         }
 
         @Test
         @DisplayName("Should list pallets by state for empresa")
         void listarPorEstado_shouldReturnFilteredPallets() {
             // Given
-            when(palletRepository.findByEmpresaIdAndEstadoPalletAndActivoTrue(EMPRESA_ID, "ARMADO"))
-                    .thenReturn(Arrays.asList(testPallet));
-            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+            when(palletRepository.findResumenByEmpresaIdAndEstado(eq(EMPRESA_ID), eq("ARMADO"), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(resumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
 
             // When
-            List<PalletResponse> result = palletService.listarPorEstado(EMPRESA_ID, "ARMADO");
+            Page<?> result = palletService.listarPorEstado(EMPRESA_ID, "ARMADO", PAGINA, null, false);
 
             // Then
-            assertThat(result).hasSize(1);
-            verify(palletRepository).findByEmpresaIdAndEstadoPalletAndActivoTrue(EMPRESA_ID, "ARMADO");
+            assertThat(result.getContent()).hasSize(1);
+            verify(palletRepository).findResumenByEmpresaIdAndEstado(eq(EMPRESA_ID), eq("ARMADO"), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should list pallets by destination for empresa")
         void listarPorDestino_shouldReturnFilteredPallets() {
             // Given
-            when(palletRepository.findByEmpresaIdAndDestinoContainingIgnoreCaseAndActivoTrue(EMPRESA_ID, "Estados"))
-                    .thenReturn(Arrays.asList(testPallet));
-            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+            when(palletRepository.findResumenByEmpresaIdAndDestino(eq(EMPRESA_ID), eq("Estados"), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(resumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
 
             // When
-            List<PalletResponse> result = palletService.listarPorDestino(EMPRESA_ID, "Estados");
+            Page<?> result = palletService.listarPorDestino(EMPRESA_ID, "Estados", PAGINA, null, false);
 
             // Then
-            assertThat(result).hasSize(1);
-            verify(palletRepository).findByEmpresaIdAndDestinoContainingIgnoreCaseAndActivoTrue(EMPRESA_ID, "Estados");
+            assertThat(result.getContent()).hasSize(1);
+            verify(palletRepository).findResumenByEmpresaIdAndDestino(eq(EMPRESA_ID), eq("Estados"), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should list pallets by fruit type for empresa")
         void listarPorTipoFruta_shouldReturnFilteredPallets() {
             // Given
-            when(palletRepository.findByEmpresaIdAndTipoFrutaAndActivoTrue(EMPRESA_ID, "Mango"))
-                    .thenReturn(Arrays.asList(testPallet));
-            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+            when(palletRepository.findResumenByEmpresaIdAndTipoFruta(eq(EMPRESA_ID), eq("Mango"), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(resumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
 
             // When
-            List<PalletResponse> result = palletService.listarPorTipoFruta(EMPRESA_ID, "Mango");
+            Page<?> result = palletService.listarPorTipoFruta(EMPRESA_ID, "Mango", PAGINA, null, false);
 
             // Then
-            assertThat(result).hasSize(1);
-            verify(palletRepository).findByEmpresaIdAndTipoFrutaAndActivoTrue(EMPRESA_ID, "Mango");
+            assertThat(result.getContent()).hasSize(1);
+            verify(palletRepository).findResumenByEmpresaIdAndTipoFruta(eq(EMPRESA_ID), eq("Mango"), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should list pallets ready for shipment for empresa")
         void listarListosParaEnvio_shouldReturnReadyPallets() {
             // Given
-            when(palletRepository.findPalletsListosParaEnvio(EMPRESA_ID))
-                    .thenReturn(Arrays.asList(testPallet));
-            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+            when(palletRepository.findResumenListosParaEnvio(eq(EMPRESA_ID), eq(EstadoPallet.ASIGNABLES_A_ENVIO), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(resumen)));
+            when(mapper.toResponse(resumen)).thenReturn(palletResponse);
 
             // When
-            List<PalletResponse> result = palletService.listarListosParaEnvio(EMPRESA_ID);
+            Page<?> result = palletService.listarListosParaEnvio(EMPRESA_ID, PAGINA, null, false);
 
             // Then
-            assertThat(result).hasSize(1);
-            verify(palletRepository).findPalletsListosParaEnvio(EMPRESA_ID);
+            assertThat(result.getContent()).hasSize(1);
+            verify(palletRepository).findResumenListosParaEnvio(eq(EMPRESA_ID), eq(EstadoPallet.ASIGNABLES_A_ENVIO), any(Pageable.class));
+        }
+
+        @Test
+        @DisplayName("Should keep the translated sort when the listing is unpaged")
+        void listarPorEmpresa_unpaged_shouldKeepSort() {
+            // Given
+            when(palletRepository.findResumenByEmpresaId(eq(EMPRESA_ID), any(Pageable.class))).thenReturn(Page.empty());
+            ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+
+            // When
+            palletService.listarPorEmpresa(EMPRESA_ID, Pageable.unpaged(Sort.by("codigoPallet")), null, false);
+
+            // Then
+            verify(palletRepository).findResumenByEmpresaId(eq(EMPRESA_ID), pageableCaptor.capture());
+            assertThat(pageableCaptor.getValue().isUnpaged()).isTrue();
+            assertThat(pageableCaptor.getValue().getSort())
+                    .isEqualTo(Sort.by(Sort.Order.asc("codigoPallet"), Sort.Order.asc("id")));
+        }
+
+        @Test
+        @DisplayName("Should apply requested sort with id as tiebreaker")
+        void listarPorEmpresa_shouldSortWithIdTiebreaker() {
+            // Given
+            when(palletRepository.findResumenByEmpresaId(eq(EMPRESA_ID), any(Pageable.class))).thenReturn(Page.empty());
+            ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+
+            // When
+            palletService.listarPorEmpresa(EMPRESA_ID, PageRequest.of(2, 50, Sort.by("codigoPallet")), null, false);
+
+            // Then
+            verify(palletRepository).findResumenByEmpresaId(eq(EMPRESA_ID), pageableCaptor.capture());
+            assertThat(pageableCaptor.getValue().getPageNumber()).isEqualTo(2);
+            assertThat(pageableCaptor.getValue().getSort())
+                    .containsExactly(Sort.Order.asc("codigoPallet"), Sort.Order.asc("id"));
+        }
+
+        @Test
+        @DisplayName("Should reject sorting by a computed field")
+        void listarPorEmpresa_withComputedSortField_shouldThrowException() {
+            // When/Then
+            assertThatThrownBy(() -> palletService.listarPorEmpresa(
+                    EMPRESA_ID, PageRequest.of(0, 10, Sort.by("totalEtiquetas")), null, false))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("totalEtiquetas");
+            verifyNoInteractions(palletRepository);
+        }
+
+        private EtiquetaPalletRepository.CodigoEtiquetaPallet codigo(Long palletId, String codigoEtiqueta) {
+            return new EtiquetaPalletRepository.CodigoEtiquetaPallet() {
+                public Long getPalletId() { return palletId; }
+                public String getCodigoEtiqueta() { return codigoEtiqueta; }
+            };
         }
     }
 
@@ -262,6 +362,7 @@ class PalletServiceTest {
             // Then
             assertThat(result).isNotNull();
             verify(palletRepository).save(any(Pallet.class));
+            verify(throughputService).registrarPalletsArmados(EMPRESA_ID, 1);
         }
 
         @Test
@@ -368,6 +469,71 @@ class PalletServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Bulk Pallet Build Tests")
+    class BulkPalletBuildTests {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(palletService, "maxEtiquetasArmado", 1000);
+            when(palletRepository.existsByCodigoPalletAndEmpresaId(palletRequest.getCodigoPallet(), EMPRESA_ID)).thenReturn(false);
+            when(empresaRepository.findById(EMPRESA_ID)).thenReturn(Optional.of(testEmpresa));
+            when(mapper.toEntity(any(PalletRequest.class))).thenReturn(testPallet);
+            when(palletRepository.save(any(Pallet.class))).thenReturn(testPallet);
+        }
+
+        @Test
+        @DisplayName("Should validate all labels with one query and insert relations in scan order")
+        @SuppressWarnings("unchecked")
+        void armar_withAvailableLabels_shouldAssignAllInOneBatch() {
+            // Given: label 1 scanned twice
+            palletRequest.setEtiquetasIds(Arrays.asList(1L, 2L, 1L));
+            when(etiquetaRepository.findDisponibilidadByIdsAndEmpresaId(any(), eq(EMPRESA_ID))).thenReturn(List.of(
+                    disponibilidad(1L, "ETQ-001", "DISPONIBLE"),
+                    disponibilidad(2L, "ETQ-002", "DISPONIBLE")));
+            when(etiquetaRepository.asignarAPalletMasivo(any(), eq(EMPRESA_ID), eq("DISPONIBLE"), eq("ASIGNADA_PALLET"), any())).thenReturn(2);
+            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+
+            // When
+            PalletResponse result = palletService.armar(palletRequest, EMPRESA_ID);
+
+            // Then
+            ArgumentCaptor<List<EtiquetaPallet>> captor = ArgumentCaptor.forClass(List.class);
+            verify(etiquetaPalletRepository).saveAll(captor.capture());
+            assertThat(captor.getValue()).extracting(EtiquetaPallet::getPosicionEnPallet).containsExactly(1, 2);
+            assertThat(result.getTotalEtiquetas()).isEqualTo(2);
+            assertThat(result.getEtiquetasCodigos()).containsExactly("ETQ-001", "ETQ-002");
+            verify(etiquetaRepository, never()).findByIdAndEmpresaId(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should report every unavailable or missing label and assign none")
+        void armar_withUnavailableLabels_shouldThrowConflictListingAll() {
+            // Given
+            palletRequest.setEtiquetasIds(Arrays.asList(1L, 2L, 999L));
+            when(etiquetaRepository.findDisponibilidadByIdsAndEmpresaId(any(), eq(EMPRESA_ID))).thenReturn(List.of(
+                    disponibilidad(1L, "ETQ-001", "DISPONIBLE"),
+                    disponibilidad(2L, "ETQ-002", "ASIGNADA_PALLET")));
+
+            // When/Then
+            assertThatThrownBy(() -> palletService.armar(palletRequest, EMPRESA_ID))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessageContaining("2 etiqueta(s)");
+
+            verify(etiquetaRepository, never()).asignarAPalletMasivo(any(), any(), any(), any(), any());
+            verify(etiquetaPalletRepository, never()).saveAll(any());
+        }
+
+        private EtiquetaRepository.DisponibilidadEtiqueta disponibilidad(Long id, String codigo, String estado) {
+            return new EtiquetaRepository.DisponibilidadEtiqueta() {
+                public Long getId() { return id; }
+                public String getCodigoEtiqueta() { return codigo; }
+                public String getEstadoEtiqueta() { return estado; }
+                public Boolean getActivo() { return true; }
+            };
+        }
+    }
+
     @Nested
     @DisplayName("Update Pallet Tests")
     class UpdatePalletTests {
@@ -430,6 +596,28 @@ class PalletServiceTest {
             assertThat(result).isNotNull();
             verify(palletRepository, never()).existsByCodigoPalletAndEmpresaId(any(), any());
         }
+
+        @Test
+        @DisplayName("Should reject updates to a pallet of a closed shipment")
+        void actualizar_withClosedEnvio_shouldThrowIllegalStateException() {
+            // Given
+            testPallet.setEnvio(envio("CERRADO"));
+            when(palletRepository.findByIdAndEmpresaId(1L, EMPRESA_ID)).thenReturn(Optional.of(testPallet));
+
+            // When/Then
+            assertThatThrownBy(() -> palletService.actualizar(1L, palletRequest, EMPRESA_ID))
+                    .isInstanceOf(IllegalStateException.class);
+            verify(mapper, never()).updateEntityFromRequest(any(), any());
+            verify(palletRepository, never()).save(any());
+        }
+    }
+
+    private static Envio envio(String estado) {
+        Envio envio = new Envio();
+        envio.setId(5L);
+        envio.setCodigoEnvio("ENV-001");
+        envio.setEstado(estado);
+        return envio;
     }
 
     @Nested
@@ -471,6 +659,20 @@ class PalletServiceTest {
             assertThatThrownBy(() -> palletService.eliminar(999L, EMPRESA_ID))
                     .isInstanceOf(ResourceNotFoundException.class);
         }
+
+        @Test
+        @DisplayName("Should reject deleting a pallet assigned to a shipment")
+        void eliminar_withAssignedPallet_shouldThrowIllegalStateException() {
+            // Given
+            testPallet.setEnvio(envio("EN_PREPARACION"));
+            when(palletRepository.findByIdAndEmpresaId(1L, EMPRESA_ID)).thenReturn(Optional.of(testPallet));
+
+            // When/Then
+            assertThatThrownBy(() -> palletService.eliminar(1L, EMPRESA_ID))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("ENV-001");
+            verify(palletRepository, never()).save(any());
+        }
     }
 
     @Nested
@@ -492,6 +694,23 @@ class PalletServiceTest {
             ArgumentCaptor<Pallet> palletCaptor = ArgumentCaptor.forClass(Pallet.class);
             verify(palletRepository).save(palletCaptor.capture());
             assertThat(palletCaptor.getValue().getEstadoPallet()).isEqualTo("EN_CAMARA");
+            verify(throughputService, never()).registrarPalletsDespachados(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should count dispatched pallet in throughput")
+        void cambiarEstado_toDespachado_shouldRegisterThroughput() {
+            // Given
+            testPallet.setEstadoPallet("ASIGNADO_ENVIO");
+            when(palletRepository.findByIdAndEmpresaId(1L, EMPRESA_ID)).thenReturn(Optional.of(testPallet));
+            when(palletRepository.save(any(Pallet.class))).thenReturn(testPallet);
+            when(mapper.toResponse(any(Pallet.class))).thenReturn(palletResponse);
+
+            // When
+            palletService.cambiarEstado(1L, "DESPACHADO", EMPRESA_ID);
+
+            // Then
+            verify(throughputService).registrarPalletsDespachados(EMPRESA_ID, 1);
         }
 
         @Test
@@ -0,0 +1,170 @@
+package com.frutas.trazabilidad.module.empaque.service;
+
+import com.frutas.trazabilidad.exception.ResourceNotFoundException;
+import com.frutas.trazabilidad.module.empaque.dto.EscaneoEtiquetaResponse;
+import com.frutas.trazabilidad.module.empaque.dto.PalletRequest;
+import com.frutas.trazabilidad.module.empaque.dto.PalletResponse;
+import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
+import com.frutas.trazabilidad.module.empaque.repository.PalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SesionEscaneoPalletService.
+ * Tests incremental scanning (deduplication, availability checks) and pallet build on close.
+ */
+@ExtendWith(MockitoExtension.class)
+class SesionEscaneoPalletServiceTest {
+
+    @Mock
+    private PalletService palletService;
+
+    @Mock
+    private PalletRepository palletRepository;
+
+    @Mock
+    private EtiquetaRepository etiquetaRepository;
+
+    @Mock
+    private MeterRegistry meterRegistry;
+
+    @InjectMocks
+    private SesionEscaneoPalletService sesionService;
+
+    private static final Long EMPRESA_ID = 1L;
+
+    private PalletRequest palletRequest;
+    private String sesionId;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sesionService, "maxSesiones", 10);
+        ReflectionTestUtils.setField(sesionService, "maxEtiquetasArmado", 100);
+
+        palletRequest = PalletRequest.builder()
+                .codigoPallet("PAL-2024-010")
+                .fechaPaletizado(LocalDate.now())
+                .numeroCajas(80)
+                .build();
+
+        when(palletRepository.existsByCodigoPalletAndEmpresaId("PAL-2024-010", EMPRESA_ID)).thenReturn(false);
+        sesionId = sesionService.abrir(palletRequest, EMPRESA_ID).getSesionId();
+    }
+
+    @Nested
+    @DisplayName("Scan Tests")
+    class ScanTests {
+
+        @Test
+        @DisplayName("Should count a label read by printed code and QR only once")
+        void escanear_sameLabelByCodeAndQr_shouldCountOnce() {
+            // Given
+            when(etiquetaRepository.findIdentificacionByCodigosAndEmpresaId(any(), eq(EMPRESA_ID)))
+                    .thenReturn(List.of(identificacion(1L, "ETQ-001", "qr-uuid-1", "DISPONIBLE", true)));
+
+            // When
+            sesionService.escanear(sesionId, "ETQ-001", EMPRESA_ID);
+            EscaneoEtiquetaResponse result = sesionService.escanear(sesionId, "https://app/t/qr-uuid-1", EMPRESA_ID);
+
+            // Then
+            assertThat(result.getDuplicado()).isTrue();
+            assertThat(result.getTotalEscaneadas()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject a label that is not available")
+        void escanear_assignedLabel_shouldThrowIllegalStateException() {
+            // Given
+            when(etiquetaRepository.findIdentificacionByCodigosAndEmpresaId(any(), eq(EMPRESA_ID)))
+                    .thenReturn(List.of(identificacion(1L, "ETQ-001", "qr-uuid-1", "ASIGNADA_PALLET", true)));
+
+            // When/Then
+            assertThatThrownBy(() -> sesionService.escanear(sesionId, "ETQ-001", EMPRESA_ID))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("ASIGNADA_PALLET");
+            assertThat(sesionService.consultar(sesionId, EMPRESA_ID).getTotalEscaneadas()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should treat an inactive label as not found")
+        void escanear_inactiveLabel_shouldThrowResourceNotFoundException() {
+            // Given
+            when(etiquetaRepository.findIdentificacionByCodigosAndEmpresaId(any(), eq(EMPRESA_ID)))
+                    .thenReturn(List.of(identificacion(1L, "ETQ-001", "qr-uuid-1", "DISPONIBLE", false)));
+
+            // When/Then
+            assertThatThrownBy(() -> sesionService.escanear(sesionId, "ETQ-001", EMPRESA_ID))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Close Tests")
+    class CloseTests {
+
+        @Test
+        @DisplayName("Should build the pallet from a copy with the scanned ids in scan order")
+        void cerrar_shouldBuildPalletWithScannedIds() {
+            // Given: label 2 scanned first by its QR, then label 1 by its printed code
+            when(etiquetaRepository.findIdentificacionByCodigosAndEmpresaId(eq(List.of("qr-uuid-2")), eq(EMPRESA_ID)))
+                    .thenReturn(List.of(identificacion(2L, "ETQ-002", "qr-uuid-2", "DISPONIBLE", true)));
+            when(etiquetaRepository.findIdentificacionByCodigosAndEmpresaId(eq(List.of("ETQ-001")), eq(EMPRESA_ID)))
+                    .thenReturn(List.of(identificacion(1L, "ETQ-001", "qr-uuid-1", "DISPONIBLE", true)));
+            sesionService.escanear(sesionId, "qr-uuid-2", EMPRESA_ID);
+            sesionService.escanear(sesionId, "ETQ-001", EMPRESA_ID);
+            when(palletService.armar(any(PalletRequest.class), eq(EMPRESA_ID)))
+                    .thenReturn(PalletResponse.builder().codigoPallet("PAL-2024-010").build());
+
+            // When
+            sesionService.cerrar(sesionId, EMPRESA_ID);
+
+            // Then: the session request is left untouched
+            ArgumentCaptor<PalletRequest> captor = ArgumentCaptor.forClass(PalletRequest.class);
+            verify(palletService).armar(captor.capture(), eq(EMPRESA_ID));
+            assertThat(captor.getValue().getEtiquetasIds()).containsExactly(2L, 1L);
+            assertThat(captor.getValue().getNumeroCajas()).isEqualTo(2);
+            assertThat(palletRequest.getEtiquetasIds()).isNull();
+            assertThat(palletRequest.getNumeroCajas()).isEqualTo(80);
+            assertThatThrownBy(() -> sesionService.consultar(sesionId, EMPRESA_ID))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject closing a session without scans")
+        void cerrar_withoutScans_shouldThrowIllegalArgumentException() {
+            // When/Then
+            assertThatThrownBy(() -> sesionService.cerrar(sesionId, EMPRESA_ID))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verify(palletService, never()).armar(any(), any());
+        }
+    }
+
+    private static EtiquetaRepository.IdentificacionEtiqueta identificacion(Long id, String codigo, String codigoQr,
+                                                                           String estado, boolean activo) {
+        return new EtiquetaRepository.IdentificacionEtiqueta() {
+            public Long getId() { return id; }
+            public String getCodigoEtiqueta() { return codigo; }
+            public String getCodigoQr() { return codigoQr; }
+            public String getEstadoEtiqueta() { return estado; }
+            public Boolean getActivo() { return activo; }
+        };
+    }
+}
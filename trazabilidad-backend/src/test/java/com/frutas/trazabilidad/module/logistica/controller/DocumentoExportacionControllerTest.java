@@ -0,0 +1,144 @@
+package com.frutas.trazabilidad.module.logistica.controller;
+
+import com.frutas.trazabilidad.entity.Empresa;
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.logistica.service.DocumentoExportacionService;
+import com.frutas.trazabilidad.module.logistica.service.DocumentoExportacionService.ArchivoDocumento;
+import com.frutas.trazabilidad.security.InputSanitizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the document file download of DocumentoExportacionController.
+ * Tests byte-range handling: partial content, If-Range and unsatisfiable ranges.
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentoExportacionControllerTest {
+
+    private static final Long EMPRESA_ID = 1L;
+    private static final String CONTENIDO = "0123456789";
+    private static final String HASH = "abc123";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @Mock
+    private DocumentoExportacionService documentoService;
+
+    @Mock
+    private InputSanitizer sanitizer;
+
+    @InjectMocks
+    private DocumentoExportacionController controller;
+
+    @TempDir
+    Path directorio;
+
+    private User user;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path ruta = Files.writeString(directorio.resolve("documento.pdf"), CONTENIDO, StandardCharsets.UTF_8);
+        when(documentoService.obtenerArchivo(10L, EMPRESA_ID)).thenReturn(
+                new ArchivoDocumento(ruta, HASH, CONTENIDO.length(), "application/pdf", "documento.pdf"));
+
+        user = User.builder()
+                .id(1L)
+                .empresa(Empresa.builder().id(EMPRESA_ID).build())
+                .build();
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Nested
+    @DisplayName("Range Tests")
+    class RangeTests {
+
+        @Test
+        @DisplayName("Should serve the whole file without Range header")
+        void descargar_withoutRange_shouldReturnFullFile() throws Exception {
+            // When
+            controller.descargarArchivo(10L, user, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENIDO);
+            assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        }
+
+        @Test
+        @DisplayName("Should serve a single byte range as partial content")
+        void descargar_withSingleRange_shouldReturnPartialContent() throws Exception {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+            // When
+            controller.descargarArchivo(10L, user, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsString()).isEqualTo("2345");
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        }
+
+        @Test
+        @DisplayName("Should ignore the range when If-Range does not match the ETag")
+        void descargar_withStaleIfRange_shouldReturnFullFile() throws Exception {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+            request.addHeader(HttpHeaders.IF_RANGE, "\"otro\"");
+
+            // When
+            controller.descargarArchivo(10L, user, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENIDO);
+        }
+
+        @Test
+        @DisplayName("Should answer 416 when the range starts beyond the file")
+        void descargar_withRangeBeyondFile_shouldReturn416() throws Exception {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+
+            // When
+            controller.descargarArchivo(10L, user, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        }
+
+        @Test
+        @DisplayName("Should ignore a malformed Range header")
+        void descargar_withMalformedRange_shouldReturnFullFile() throws Exception {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=abc");
+
+            // When
+            controller.descargarArchivo(10L, user, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENIDO);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.frutas.trazabilidad.module.logistica.service;
+
+import com.frutas.trazabilidad.entity.User;
+import com.frutas.trazabilidad.module.logistica.entity.EventoLogistico;
+import com.frutas.trazabilidad.module.logistica.repository.EnvioRepository;
+import com.frutas.trazabilidad.module.logistica.repository.EventoLogisticoRepository;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository.LecturaTelemetria;
+import com.frutas.trazabilidad.repository.EmpresaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CadenaFrioMonitorService.
+ * Tests streak evaluation of out-of-range readings: confirmation, gap reset,
+ * out-of-order readings, single notification per streak and extreme value tracking.
+ */
+@ExtendWith(MockitoExtension.class)
+class CadenaFrioMonitorServiceTest {
+
+    private static final Long ENVIO_ID = 1L;
+    private static final Long EMPRESA_ID = 1L;
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 6, 1, 8, 0);
+
+    @Mock
+    private EnvioRepository envioRepository;
+
+    @Mock
+    private EventoLogisticoRepository eventoRepository;
+
+    @Mock
+    private EmpresaRepository empresaRepository;
+
+    @Mock
+    private AuditoriaEventoService auditoriaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CadenaFrioMonitorService monitorService;
+
+    private final User usuario = User.builder().id(1L).build();
+
+    @BeforeEach
+    void setUp() {
+        monitorService = new CadenaFrioMonitorService(envioRepository, eventoRepository, empresaRepository,
+                auditoriaService, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(monitorService, "toleranciaGrados", 2.0);
+        ReflectionTestUtils.setField(monitorService, "duracionMinutos", 15L);
+        ReflectionTestUtils.setField(monitorService, "maxHuecoMinutos", 10L);
+        monitorService.init();
+
+        // Setpoint 0 °C: allowed range [-2, 2]
+        EnvioRepository.ConsignaFrio consigna = new EnvioRepository.ConsignaFrio() {
+            public Long getId() { return ENVIO_ID; }
+            public String getCodigoEnvio() { return "ENV-2024-001"; }
+            public String getCodigoContenedor() { return "MSCU1234567"; }
+            public Double getTemperaturaContenedor() { return 0.0; }
+        };
+        when(envioRepository.findConsignaFrioById(ENVIO_ID)).thenReturn(Optional.of(consigna));
+    }
+
+    @Nested
+    @DisplayName("Streak Tests")
+    class StreakTests {
+
+        @Test
+        @DisplayName("Should confirm the excursion once readings stay out of range for the configured minutes")
+        void evaluar_outOfRangeForDuration_shouldRegisterExcursion() {
+            // Given: 10 minutes out of range
+            monitorService.evaluar(List.of(lectura(0, 5.0), lectura(5, 5.0), lectura(10, 5.0)), usuario);
+            verify(eventoRepository, never()).save(any());
+            when(eventoRepository.save(any(EventoLogistico.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When: the streak reaches 15 minutes
+            monitorService.evaluar(List.of(lectura(15, 5.0)), usuario);
+
+            // Then
+            EventoLogistico evento = capturarEventos().get(0);
+            assertThat(evento.getTipoEvento()).isEqualTo(CadenaFrioMonitorService.TIPO_EXCURSION_TEMPERATURA);
+            assertThat(evento.getIncidencia()).isTrue();
+            assertThat(evento.getHoraEvento()).isEqualTo(T0.toLocalTime());
+            verify(auditoriaService).registrarIncidencia(any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should restart the streak after a gap longer than the maximum")
+        void evaluar_gapBetweenReadings_shouldResetStreak() {
+            // Given: a 15-minute gap between minute 5 and minute 20
+            monitorService.evaluar(List.of(lectura(0, 5.0), lectura(5, 5.0), lectura(20, 5.0), lectura(30, 5.0)), usuario);
+            verify(eventoRepository, never()).save(any());
+            when(eventoRepository.save(any(EventoLogistico.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When
+            monitorService.evaluar(List.of(lectura(35, 5.0)), usuario);
+
+            // Then: the streak counts from minute 20
+            assertThat(capturarEventos().get(0).getHoraEvento()).isEqualTo(T0.plusMinutes(20).toLocalTime());
+        }
+
+        @Test
+        @DisplayName("Should ignore readings older than the last evaluated one")
+        void evaluar_outOfOrderReading_shouldBeIgnored() {
+            // Given
+            monitorService.evaluar(List.of(lectura(0, 5.0), lectura(10, 5.0)), usuario);
+            when(eventoRepository.save(any(EventoLogistico.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When: a late in-range reading from minute 5 arrives before minute 15
+            monitorService.evaluar(List.of(lectura(5, 0.0)), usuario);
+            monitorService.evaluar(List.of(lectura(15, 5.0)), usuario);
+
+            // Then: the late reading did not reset the streak
+            assertThat(capturarEventos().get(0).getHoraEvento()).isEqualTo(T0.toLocalTime());
+        }
+
+        @Test
+        @DisplayName("Should notify once per streak and again after returning to range")
+        void evaluar_longStreak_shouldNotifyOncePerStreak() {
+            // Given
+            when(eventoRepository.save(any(EventoLogistico.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When: 30 minutes out of range, back in range, then 15 more minutes out of range
+            monitorService.evaluar(List.of(lectura(0, 5.0), lectura(5, 5.0), lectura(10, 5.0), lectura(15, 5.0),
+                    lectura(20, 5.0), lectura(25, 5.0), lectura(30, 5.0)), usuario);
+            monitorService.evaluar(List.of(lectura(35, 0.0), lectura(40, 5.0), lectura(45, 5.0),
+                    lectura(50, 5.0), lectura(55, 5.0)), usuario);
+
+            // Then
+            List<EventoLogistico> eventos = capturarEventos();
+            assertThat(eventos).hasSize(2);
+            assertThat(eventos.get(1).getHoraEvento()).isEqualTo(T0.plusMinutes(40).toLocalTime());
+        }
+
+        @Test
+        @DisplayName("Should report the value furthest from the range during the streak")
+        void evaluar_varyingValues_shouldTrackExtreme() {
+            // Given
+            when(eventoRepository.save(any(EventoLogistico.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When
+            monitorService.evaluar(List.of(lectura(0, 5.0), lectura(5, 8.0), lectura(10, 6.0), lectura(15, 4.0)), usuario);
+
+            // Then
+            EventoLogistico evento = capturarEventos().get(0);
+            assertThat(evento.getTemperaturaRegistrada()).isEqualTo(8.0);
+            assertThat(evento.getDetalleIncidencia()).contains("valor extremo 8.0");
+        }
+    }
+
+    private List<EventoLogistico> capturarEventos() {
+        ArgumentCaptor<EventoLogistico> captor = ArgumentCaptor.forClass(EventoLogistico.class);
+        verify(eventoRepository, atLeastOnce()).save(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static LecturaTelemetria lectura(int minuto, double temperatura) {
+        return new LecturaTelemetria(ENVIO_ID, EMPRESA_ID, T0.plusMinutes(minuto), temperatura, null, null, null);
+    }
+}
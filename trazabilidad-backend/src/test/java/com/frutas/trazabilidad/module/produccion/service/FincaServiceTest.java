@@ -11,6 +11,7 @@ import com.frutas.trazabilidad.module.produccion.repository.CertificacionReposit
 import com.frutas.trazabilidad.module.produccion.repository.FincaRepository;
 import com.frutas.trazabilidad.module.produccion.repository.LoteRepository;
 import com.frutas.trazabilidad.repository.EmpresaRepository;
+import com.frutas.trazabilidad.service.ListadoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,7 +20,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -29,6 +37,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -54,9 +63,14 @@ class FincaServiceTest {
     @Mock
     private FincaMapper fincaMapper;
 
+    @Spy
+    private ListadoService listadoService = new ListadoService();
+
     @InjectMocks
     private FincaService fincaService;
 
+    private static final Pageable PAGINA = PageRequest.of(0, 100, Sort.by("nombre"));
+
     private Empresa testEmpresa;
     private Finca testFinca;
     private FincaRequest fincaRequest;
@@ -128,28 +142,28 @@ class FincaServiceTest {
                     .activo(true)
                     .build();
 
-            when(fincaRepository.findByEmpresaIdAndActivoTrue(1L))
-                    .thenReturn(Arrays.asList(testFinca, finca2));
+            when(fincaRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(Arrays.asList(testFinca, finca2)));
             when(fincaMapper.toResponse(any(Finca.class))).thenReturn(fincaResponse);
-            when(loteRepository.countByFincaIdAndActivoTrue(anyLong())).thenReturn(0L);
-            when(certificacionRepository.countCertificacionesVigentes(anyLong())).thenReturn(0L);
+            when(fincaRepository.findTotalesPorFinca(anyCollection())).thenReturn(List.of());
 
             // When
-            List<FincaResponse> result = fincaService.listarPorEmpresa(1L);
+            Page<?> result = fincaService.listarPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).hasSize(2);
-            verify(fincaRepository).findByEmpresaIdAndActivoTrue(1L);
+            verify(fincaRepository).findAll(any(Specification.class), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should return empty list when no farms exist")
         void listarPorEmpresa_withNoFarms_shouldReturnEmptyList() {
             // Given
-            when(fincaRepository.findByEmpresaIdAndActivoTrue(1L)).thenReturn(List.of());
+            when(fincaRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of()));
 
             // When
-            List<FincaResponse> result = fincaService.listarPorEmpresa(1L);
+            Page<?> result = fincaService.listarPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).isEmpty();
@@ -159,19 +173,20 @@ class FincaServiceTest {
         @DisplayName("Should include total lotes and certifications in response")
         void listarPorEmpresa_shouldIncludeTotals() {
             // Given
-            when(fincaRepository.findByEmpresaIdAndActivoTrue(1L))
-                    .thenReturn(List.of(testFinca));
+            when(fincaRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(testFinca)));
             when(fincaMapper.toResponse(any(Finca.class))).thenReturn(fincaResponse);
-            when(loteRepository.countByFincaIdAndActivoTrue(1L)).thenReturn(5L);
-            when(certificacionRepository.countCertificacionesVigentes(1L)).thenReturn(2L);
+            when(fincaRepository.findTotalesPorFinca(List.of(1L))).thenReturn(List.of(totales(1L, 5L, 2L)));
 
             // When
-            List<FincaResponse> result = fincaService.listarPorEmpresa(1L);
+            Page<?> result = fincaService.listarPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).hasSize(1);
-            verify(loteRepository).countByFincaIdAndActivoTrue(1L);
-            verify(certificacionRepository).countCertificacionesVigentes(1L);
+            assertThat(fincaResponse.getTotalLotes()).isEqualTo(5L);
+            assertThat(fincaResponse.getTotalCertificacionesVigentes()).isEqualTo(2L);
+            verify(fincaRepository).findTotalesPorFinca(List.of(1L));
+            verifyNoInteractions(loteRepository, certificacionRepository);
         }
     }
 
@@ -413,32 +428,50 @@ class FincaServiceTest {
         @DisplayName("Should search farms by name")
         void buscarPorNombre_shouldReturnMatchingFarms() {
             // Given
-            when(fincaRepository.findByEmpresaIdAndNombreContaining(1L, "Esperanza"))
-                    .thenReturn(List.of(testFinca));
+            when(fincaRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(testFinca)));
             when(fincaMapper.toResponse(any(Finca.class))).thenReturn(fincaResponse);
-            when(loteRepository.countByFincaIdAndActivoTrue(anyLong())).thenReturn(0L);
-            when(certificacionRepository.countCertificacionesVigentes(anyLong())).thenReturn(0L);
+            when(fincaRepository.findTotalesPorFinca(anyCollection())).thenReturn(List.of());
 
             // When
-            List<FincaResponse> result = fincaService.buscarPorNombre("Esperanza", 1L);
+            Page<?> result = fincaService.buscarPorNombre("Esperanza", 1L, PAGINA, null);
 
             // Then
             assertThat(result).hasSize(1);
-            verify(fincaRepository).findByEmpresaIdAndNombreContaining(1L, "Esperanza");
+            verify(fincaRepository).findAll(any(Specification.class), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should return empty list when no farms match")
         void buscarPorNombre_withNoMatch_shouldReturnEmptyList() {
             // Given
-            when(fincaRepository.findByEmpresaIdAndNombreContaining(1L, "NoExiste"))
-                    .thenReturn(List.of());
+            when(fincaRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of()));
 
             // When
-            List<FincaResponse> result = fincaService.buscarPorNombre("NoExiste", 1L);
+            Page<?> result = fincaService.buscarPorNombre("NoExiste", 1L, PAGINA, null);
 
             // Then
             assertThat(result).isEmpty();
         }
     }
+
+    private static FincaRepository.TotalesFinca totales(Long fincaId, Long lotes, Long certificaciones) {
+        return new FincaRepository.TotalesFinca() {
+            @Override
+            public Long getFincaId() {
+                return fincaId;
+            }
+
+            @Override
+            public Long getTotalLotes() {
+                return lotes;
+            }
+
+            @Override
+            public Long getTotalCertificacionesVigentes() {
+                return certificaciones;
+            }
+        };
+    }
 }
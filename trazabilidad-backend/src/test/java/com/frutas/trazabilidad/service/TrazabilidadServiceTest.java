@@ -10,6 +10,7 @@ import com.frutas.trazabilidad.module.empaque.repository.EtiquetaPalletRepositor
 import com.frutas.trazabilidad.module.empaque.repository.EtiquetaRepository;
 import com.frutas.trazabilidad.module.logistica.entity.Envio;
 import com.frutas.trazabilidad.module.logistica.entity.EventoLogistico;
+import com.frutas.trazabilidad.module.logistica.repository.TelemetriaRepository;
 import com.frutas.trazabilidad.module.produccion.entity.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -47,6 +48,9 @@ class TrazabilidadServiceTest {
     @Mock
     private EtiquetaPalletRepository etiquetaPalletRepository;
 
+    @Mock
+    private TelemetriaRepository telemetriaRepository;
+
     @InjectMocks
     private TrazabilidadService trazabilidadService;
 
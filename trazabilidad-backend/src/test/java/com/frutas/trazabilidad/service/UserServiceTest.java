@@ -17,7 +17,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -50,9 +57,14 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Spy
+    private ListadoService listadoService = new ListadoService();
+
     @InjectMocks
     private UserService userService;
 
+    private static final Pageable PAGINA = PageRequest.of(0, 100, Sort.by("nombre"));
+
     private Empresa testEmpresa;
     private Empresa otherEmpresa;
     private User testUser;
@@ -127,15 +139,16 @@ class UserServiceTest {
                     .activo(true)
                     .build();
 
-            when(userRepository.findByEmpresaIdAndActivoTrue(1L)).thenReturn(Arrays.asList(testUser, user2));
+            when(userRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(Arrays.asList(testUser, user2)));
             when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
 
             // When
-            List<UserResponse> result = userService.listarPorEmpresa(1L);
+            Page<?> result = userService.listarPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).hasSize(2);
-            verify(userRepository).findByEmpresaIdAndActivoTrue(1L);
+            verify(userRepository).findAll(any(Specification.class), any(Pageable.class));
         }
 
         @Test
@@ -149,29 +162,40 @@ class UserServiceTest {
                     .activo(false)
                     .build();
 
-            when(userRepository.findByEmpresaId(1L)).thenReturn(Arrays.asList(testUser, inactiveUser));
+            when(userRepository.findAll(any(Specification.class), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(Arrays.asList(testUser, inactiveUser)));
             when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
 
             // When
-            List<UserResponse> result = userService.listarTodosPorEmpresa(1L);
+            Page<?> result = userService.listarTodosPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).hasSize(2);
-            verify(userRepository).findByEmpresaId(1L);
+            verify(userRepository).findAll(any(Specification.class), any(Pageable.class));
         }
 
         @Test
         @DisplayName("Should return empty list when no users exist")
         void listarPorEmpresa_withNoUsers_shouldReturnEmptyList() {
             // Given
-            when(userRepository.findByEmpresaIdAndActivoTrue(1L)).thenReturn(List.of());
+            when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
 
             // When
-            List<UserResponse> result = userService.listarPorEmpresa(1L);
+            Page<?> result = userService.listarPorEmpresa(1L, PAGINA, null);
 
             // Then
             assertThat(result).isEmpty();
         }
+
+        @Test
+        @DisplayName("Should reject selecting fields that are not part of the response")
+        void listarPorEmpresa_withFieldOutsideResponse_shouldThrowException() {
+            // When/Then
+            assertThatThrownBy(() -> userService.listarPorEmpresa(1L, PAGINA, "email,passwordHash"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("passwordHash");
+            verifyNoInteractions(userRepository);
+        }
     }
 
     @Nested